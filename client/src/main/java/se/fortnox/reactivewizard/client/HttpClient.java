@@ -25,8 +25,11 @@ import se.fortnox.reactivewizard.jaxrs.FieldError;
 import se.fortnox.reactivewizard.jaxrs.JaxRsMeta;
 import se.fortnox.reactivewizard.jaxrs.RequestLogger;
 import se.fortnox.reactivewizard.jaxrs.WebException;
+import se.fortnox.reactivewizard.json.DataFormat;
 import se.fortnox.reactivewizard.metrics.HealthRecorder;
 import se.fortnox.reactivewizard.metrics.Metrics;
+import se.fortnox.reactivewizard.util.Deadline;
+import se.fortnox.reactivewizard.util.DeadlineExceededException;
 import se.fortnox.reactivewizard.util.FluxRxConverter;
 import se.fortnox.reactivewizard.util.JustMessageException;
 import se.fortnox.reactivewizard.util.ReactiveDecorator;
@@ -76,6 +79,7 @@ import static java.lang.String.format;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT;
 import static javax.ws.rs.core.HttpHeaders.CONTENT_TYPE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static reactor.core.Exceptions.isRetryExhausted;
@@ -107,6 +111,8 @@ public class HttpClient implements InvocationHandler {
     private final Map<Method, JaxRsMeta> jaxRsMetaMap = new ConcurrentHashMap<>();
     private int timeout = DEFAULT_TIMEOUT_MS;
     private TemporalUnit timeoutUnit = ChronoUnit.MILLIS;
+    private DataFormat dataFormat;
+    private ObjectMapper formatMapper;
     private final Duration retryDuration;
 
     @Inject
@@ -134,6 +140,13 @@ public class HttpClient implements InvocationHandler {
         this.preRequestHooks = preRequestHooks;
         this.retryDuration = Duration.ofMillis(config.getRetryDelayMs());
         setTimeout(config.getTimeoutMs(), ChronoUnit.MILLIS);
+        if (config.getDataFormat() != null) {
+            Optional<DataFormat> configuredFormat = DataFormat.forMediaType(config.getDataFormat());
+            if (configuredFormat.isEmpty()) {
+                LOG.warn("Data format {} is not on the classpath, continuing with {}", config.getDataFormat(), APPLICATION_JSON);
+            }
+            configuredFormat.ifPresent(this::setDataFormat);
+        }
     }
 
     public HttpClient(HttpClientConfig config) {
@@ -150,6 +163,21 @@ public class HttpClient implements InvocationHandler {
         this.timeoutUnit = timeoutUnit;
     }
 
+    public static void setDataFormat(Object proxy, DataFormat dataFormat) {
+        ifHttpClientDo(proxy, httpClient -> httpClient.setDataFormat(dataFormat));
+    }
+
+    /**
+     * Send JSON bodies in a binary format, such as CBOR, and ask for responses in that format. Responses in JSON are
+     * still accepted, from servers that do not support the format.
+     *
+     * @param dataFormat the format, or null to use JSON
+     */
+    public void setDataFormat(DataFormat dataFormat) {
+        this.formatMapper = dataFormat == null ? null : dataFormat.createMapper(objectMapper);
+        this.dataFormat = dataFormat;
+    }
+
     public static void markHeaderAsSensitive(Object proxy, String header) {
         markHeadersAsSensitive(proxy, singleton(header));
     }
@@ -218,10 +246,21 @@ public class HttpClient implements InvocationHandler {
         });
 
         JaxRsMeta meta = getJaxRsMeta(method);
-        return withRetry(request, measure(request, result, meta).timeout(Duration.of(timeout, timeoutUnit)))
+        return withRetry(request, withTimeout(measure(request, result, meta)))
             .onErrorResume(e -> convertError(request, e));
     }
 
+    /**
+     * Apply the configured timeout, or the time remaining until the deadline of the calling request if that is shorter.
+     */
+    private <T> Mono<T> withTimeout(Mono<T> response) {
+        Duration configuredTimeout = Duration.of(timeout, timeoutUnit);
+        return Mono.deferContextual(context -> Deadline.from(context)
+            .filter(deadline -> deadline.remaining().compareTo(configuredTimeout) < 0)
+            .map(deadline -> deadline.timeout(response))
+            .orElseGet(() -> response.timeout(configuredTimeout)));
+    }
+
     private static <T> Mono<Response<T>> flattenResponse(Mono<Response<Flux<T>>> responseFlux) {
         return responseFlux.flatMap(response -> response.getBody()
             .singleOrEmpty()
@@ -268,7 +307,10 @@ public class HttpClient implements InvocationHandler {
             throwable = throwable.getCause();
         }
 
-        if (throwable instanceof TimeoutException || throwable instanceof ReadTimeoutException) {
+        if (throwable instanceof DeadlineExceededException) {
+            String message = format("Deadline of the request exceeded calling %s", request);
+            return Mono.error(new WebException(GATEWAY_TIMEOUT, new JustMessageException(message), false));
+        } else if (throwable instanceof TimeoutException || throwable instanceof ReadTimeoutException) {
             String message = format("Timeout after %d ms calling %s", Duration.of(timeout, timeoutUnit).toMillis(), request);
             return Mono.error(new WebException(GATEWAY_TIMEOUT, new JustMessageException(message), false));
         } else if (!(throwable instanceof WebException)) {
@@ -291,6 +333,11 @@ public class HttpClient implements InvocationHandler {
         if (expectsByteArrayResponse(method)) {
             return Flux.from(collector.collectBytes(response.getContent()));
         }
+        if (isInDataFormat(response)) {
+            JavaType type = TypeFactory.defaultInstance().constructType(ReflectionUtil.getTypeOfFluxOrMono(method));
+            return Flux.from(collector.collectBytes(response.getContent()))
+                .flatMap(bytes -> deserializeDataFormat(type, bytes));
+        }
         return Flux.from(collector.collectString(response.getContent())
             .flatMap(stringContent -> this.deserialize(method, stringContent)));
     }
@@ -316,16 +363,47 @@ public class HttpClient implements InvocationHandler {
     }
 
     protected Flux<Object> parseResponseStream(Method method, RwHttpClientResponse response) {
+        if (isInDataFormat(response)) {
+            // Binary arrays are parsed when they are received in full, since they can not all be parsed incrementally
+            JavaType type = TypeFactory.defaultInstance().constructCollectionType(List.class,
+                TypeFactory.defaultInstance().constructType(ReflectionUtil.getTypeOfFluxOrMono(method)));
+            return Flux.from(collector.collectBytes(response.getContent()))
+                .flatMap(bytes -> deserializeDataFormat(type, bytes))
+                .flatMapIterable(List.class::cast);
+        }
+
         String contentType = resolveContentType(method, response);
 
         if (APPLICATION_JSON.equals(contentType)) {
             JsonArrayDeserializer deserializer = new JsonArrayDeserializer(objectMapper, method);
-            return response.getContent().asByteArray().concatMap(deserializer::process);
+            return response.getContent().asByteArray()
+                .concatMap(deserializer::process)
+                .concatWith(Flux.defer(deserializer::end));
         } else {
             return response.getContent().asByteArray().cast(Object.class);
         }
     }
 
+    private boolean isInDataFormat(RwHttpClientResponse response) {
+        if (dataFormat == null) {
+            return false;
+        }
+        String contentType = response.getHttpClientResponse().responseHeaders().get(CONTENT_TYPE);
+        return contentType != null && dataFormat.getMediaType().contentEquals(HttpUtil.getMimeType(contentType));
+    }
+
+    private Mono<Object> deserializeDataFormat(JavaType type, byte[] bytes) {
+        if (bytes.length == 0 || Void.class.equals(type.getRawClass())) {
+            return Mono.empty();
+        }
+        try {
+            Object value = formatMapper.readerFor(type).readValue(bytes);
+            return Mono.justOrEmpty(value);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private boolean expectsByteArrayResponse(Method method) {
         Type type = ReflectionUtil.getTypeOfFluxOrMono(method);
         return type.equals(BYTEARRAY_TYPE);
@@ -441,9 +519,11 @@ public class HttpClient implements InvocationHandler {
             } else if (isBodyArg(types[i], annotations[i])) {
                 try {
                     if (!requestBuilder.getHeaders().containsKey(CONTENT_TYPE)) {
-                        requestBuilder.getHeaders().put(CONTENT_TYPE, APPLICATION_JSON);
+                        requestBuilder.getHeaders().put(CONTENT_TYPE, dataFormat == null ? APPLICATION_JSON : dataFormat.getMediaType());
                     }
-                    if (requestBuilder.getHeaders().get(CONTENT_TYPE).startsWith(APPLICATION_JSON)) {
+                    if (dataFormat != null && requestBuilder.getHeaders().get(CONTENT_TYPE).equals(dataFormat.getMediaType())) {
+                        requestBuilder.setContent(formatMapper.writeValueAsBytes(value));
+                    } else if (requestBuilder.getHeaders().get(CONTENT_TYPE).startsWith(APPLICATION_JSON)) {
                         requestBuilder.setContent(objectMapper.writeValueAsBytes(value));
                     } else {
                         if (value instanceof String string) {
@@ -546,6 +626,7 @@ public class HttpClient implements InvocationHandler {
         JaxRsMeta meta = getJaxRsMeta(method);
 
         RequestBuilder request = new RequestBuilder(serverInfo, meta.getHttpMethod(), meta.getFullPath());
+        request.setPropagateDeadline(config.isPropagateDeadline());
 
         String root = config.getRoot();
         String path = getPath(method, arguments, meta);
@@ -570,6 +651,10 @@ public class HttpClient implements InvocationHandler {
             request.addHeader("Content-Type", consumes.value()[0]);
         }
 
+        if (dataFormat != null && APPLICATION_JSON.equals(meta.getProduces()) && !request.getHeaders().containsKey(ACCEPT)) {
+            request.addHeader(ACCEPT, dataFormat.getMediaType() + ", " + APPLICATION_JSON + ";q=0.9");
+        }
+
         applyPreRequestHooks(request);
 
         addContent(method, arguments, request);
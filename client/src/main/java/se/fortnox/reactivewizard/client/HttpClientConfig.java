@@ -54,6 +54,19 @@ public class HttpClientConfig {
     private boolean isValidateCertificates = true;
     private boolean followRedirect         = false;
 
+    /**
+     * Media type of a binary format, application/cbor or application/x-jackson-smile, that JSON bodies are sent and asked
+     * for in instead of JSON. Only for calls to servers built on reactive-wizard, with the format on their classpath.
+     * Ignored unless the format is on the classpath of the client.
+     */
+    private String dataFormat;
+
+    /**
+     * Whether the time remaining until the deadline of the calling request is sent in an X-Request-Timeout header.
+     * Only for calls to internal servers, since the header tells the server how long the caller is prepared to wait.
+     */
+    private boolean propagateDeadline = false;
+
     private long connectionMaxIdleTimeInMs         = TimeUnit.MILLISECONDS.convert(10, MINUTES);
     private int  numberOfConnectionFailuresAllowed = 10;
 
@@ -207,6 +220,22 @@ public class HttpClientConfig {
         followRedirect = value;
     }
 
+    public String getDataFormat() {
+        return dataFormat;
+    }
+
+    public void setDataFormat(String dataFormat) {
+        this.dataFormat = dataFormat;
+    }
+
+    public boolean isPropagateDeadline() {
+        return propagateDeadline;
+    }
+
+    public void setPropagateDeadline(boolean propagateDeadline) {
+        this.propagateDeadline = propagateDeadline;
+    }
+
     public BasicAuthConfig getBasicAuth() {
         return basicAuth;
     }
@@ -1,93 +1,56 @@
 package se.fortnox.reactivewizard.client;
 
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.core.async.ByteArrayFeeder;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.type.TypeFactory;
-import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import se.fortnox.reactivewizard.json.InvalidJsonException;
+import se.fortnox.reactivewizard.json.JsonArrayParser;
 import se.fortnox.reactivewizard.util.ReflectionUtil;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * Deserializes the items of a JSON array response while it is received, using a {@link JsonArrayParser}. A new
+ * deserializer is needed for each response.
+ */
 public class JsonArrayDeserializer {
-    private final ObjectReader reader;
-    private final JsonParser parser;
-    private final ByteArrayFeeder inputFeeder;
-    private TokenBuffer tokenBuffer;
-    private int depth = -1;
+    private final JsonArrayParser<Object> parser;
 
     public JsonArrayDeserializer(ObjectMapper objectMapper, Method method) {
         Type type = ReflectionUtil.getTypeOfFluxOrMono(method);
 
         JavaType javaType = TypeFactory.defaultInstance().constructType(type);
-        reader   = objectMapper.readerFor(javaType);
-        try {
-            parser = objectMapper.getFactory().setCodec(objectMapper).createNonBlockingByteArrayParser();
-            inputFeeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        parser = new JsonArrayParser<>(objectMapper.readerFor(javaType));
     }
 
     /**
      * Performs deserialization.
      * @param buf the data
-     * @return publisher
+     * @return publisher of the items completed by the data
      */
-    public Publisher<?> process(byte[] buf) {
-        try {
-            inputFeeder.feedInput(buf, 0, buf.length);
+    public Publisher<Object> process(byte[] buf) {
+        return items(() -> parser.parse(buf));
+    }
 
-            List<Object> items = null;
-            Object item = null;
-            JsonToken token;
+    /**
+     * Signal that the whole response has been received.
+     * @return publisher of the items completed by the end of the response, failing if the response was cut short
+     */
+    public Publisher<Object> end() {
+        return items(parser::end);
+    }
 
-            while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
-                if (tokenBuffer == null) {
-                    tokenBuffer = new TokenBuffer(parser);
-                    if (token == JsonToken.START_ARRAY && depth == -1) {
-                        depth++;
-                        continue;
-                    }
-                }
-                if (item != null && items == null) {
-                    items = new ArrayList<>();
-                    items.add(item);
-                }
-                tokenBuffer.copyCurrentEvent(parser);
-                if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
-                    depth++;
-                } else if (token == JsonToken.END_ARRAY || token == JsonToken.END_OBJECT ) {
-                    depth--;
-                }
-                if (depth == 0) {
-                    item = reader.readValue(tokenBuffer.asParser());
-                    if (item == null) {
-                        continue;
-                    }
-                    tokenBuffer = null;
-                    if (items != null) {
-                        items.add(item);
-                    }
-                }
-            }
-            if (items != null) {
-                return Flux.fromIterable(items);
-            } else if (item != null) {
-                return Flux.just(item);
-            } else {
-                return Flux.empty();
-            }
-        } catch (Exception e) {
-            return Flux.error(e);
+    private static Publisher<Object> items(Supplier<List<Object>> parse) {
+        try {
+            return Flux.fromIterable(parse.get());
+        } catch (InvalidJsonException e) {
+            // The Jackson exception is passed on as it is, so that failed deserializations are not retried
+            return Flux.error(e.getCause());
         }
     }
 }
@@ -3,6 +3,7 @@ package se.fortnox.reactivewizard.client;
 import io.netty.handler.codec.http.HttpMethod;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
+import se.fortnox.reactivewizard.util.Deadline;
 
 import java.net.InetSocketAddress;
 import java.util.HashMap;
@@ -26,6 +27,7 @@ public class RequestBuilder {
     private String                      uri;
     private Publisher<? extends byte[]> content;
     private Integer                     contentLength;
+    private boolean                     propagateDeadline;
 
     public RequestBuilder(InetSocketAddress serverInfo, HttpMethod method, String key) {
         this.serverInfo = serverInfo;
@@ -34,7 +36,8 @@ public class RequestBuilder {
     }
 
     /**
-     * Submit the request.
+     * Submit the request. If the deadline is to be propagated, the deadline of the calling request, if any, is passed on
+     * in a {@link Deadline#HEADER} header holding the time then remaining.
      * @param client the client
      * @param requestBuilder the request
      * @return the response
@@ -43,7 +46,7 @@ public class RequestBuilder {
         reactor.netty.http.client.HttpClient client,
         RequestBuilder requestBuilder) {
 
-        return
+        return Mono.deferContextual(context ->
             Mono.from(client
                 .headers(entries -> {
                     for (Map.Entry<String, String> stringStringEntry : requestBuilder.getHeaders().entrySet()) {
@@ -53,13 +56,17 @@ public class RequestBuilder {
                     if (requestBuilder.hasContent() && requestBuilder.getContentLength() != null) {
                         entries.set(CONTENT_LENGTH, requestBuilder.getContentLength());
                     }
+
+                    if (requestBuilder.isPropagateDeadline()) {
+                        Deadline.from(context).ifPresent(deadline -> entries.set(Deadline.HEADER, deadline.toHeader()));
+                    }
                 })
                 .request(requestBuilder.getHttpMethod())
                 .uri(requestBuilder.getFullUrl())
                 .send((httpClientRequest, nettyOutbound)
                     -> nettyOutbound.sendByteArray(requestBuilder.getContent() != null ? requestBuilder.getContent() : Mono.empty()))
                 .responseConnection((httpClientResponse, connection)
-                    -> Mono.just(new RwHttpClientResponse(httpClientResponse, connection.inbound().receive()))));
+                    -> Mono.just(new RwHttpClientResponse(httpClientResponse, connection.inbound().receive())))));
     }
 
 
@@ -88,6 +95,14 @@ public class RequestBuilder {
         this.uri = uri;
     }
 
+    public boolean isPropagateDeadline() {
+        return propagateDeadline;
+    }
+
+    public void setPropagateDeadline(boolean propagateDeadline) {
+        this.propagateDeadline = propagateDeadline;
+    }
+
     public void addHeader(String key, String value) {
         headers.put(key, value);
     }
@@ -0,0 +1,127 @@
+package se.fortnox.reactivewizard.client;
+
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import se.fortnox.reactivewizard.json.DataFormat;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Binary formats are tested with YAML, since they are not on the test classpath.
+ */
+class HttpClientDataFormatTest {
+    private static final DataFormat YAML = new DataFormat("application/yaml", YAMLFactory::new);
+
+    private final Map<String, String> received = new ConcurrentHashMap<>();
+    private DisposableServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void shouldAskForFormatAndParseResponseInFormat() throws URISyntaxException {
+        startServer("application/yaml", "name: \"entity\"\n");
+        FormatResource resource = createClient(YAML, null);
+
+        assertThat(resource.get().block()).isEqualTo(new Entity("entity"));
+        assertThat(received.get("accept")).isEqualTo("application/yaml, application/json;q=0.9");
+    }
+
+    @Test
+    void shouldParseArrayInFormat() throws URISyntaxException {
+        startServer("application/yaml", "- name: \"first\"\n- name: \"second\"\n");
+        FormatResource resource = createClient(YAML, null);
+
+        assertThat(resource.list().collectList().block()).containsExactly(new Entity("first"), new Entity("second"));
+    }
+
+    @Test
+    void shouldParseJsonFromServersWithoutFormat() throws URISyntaxException {
+        startServer("application/json", "{\"name\":\"entity\"}");
+        FormatResource resource = createClient(YAML, null);
+
+        assertThat(resource.get().block()).isEqualTo(new Entity("entity"));
+    }
+
+    @Test
+    void shouldSendBodyInFormat() throws URISyntaxException {
+        startServer("application/json", "{\"name\":\"posted\"}");
+        FormatResource resource = createClient(YAML, null);
+
+        resource.post(new Entity("posted")).block();
+
+        assertThat(received.get("content-type")).isEqualTo("application/yaml");
+        assertThat(received.get("body")).isEqualTo("---\nname: \"posted\"\n");
+    }
+
+    @Test
+    void shouldUseJsonWhenConfiguredFormatIsNotOnClasspath() throws URISyntaxException {
+        startServer("application/json", "{\"name\":\"posted\"}");
+        FormatResource resource = createClient(null, "application/cbor");
+
+        resource.post(new Entity("posted")).block();
+
+        assertThat(received.get("accept")).doesNotContain("application/cbor");
+        assertThat(received.get("content-type")).isEqualTo("application/json");
+        assertThat(received.get("body")).isEqualTo("{\"name\":\"posted\"}");
+    }
+
+    private FormatResource createClient(DataFormat dataFormat, String configuredFormat) throws URISyntaxException {
+        HttpClientConfig config = new HttpClientConfig("localhost:" + server.port());
+        config.setDataFormat(configuredFormat);
+        FormatResource resource = new HttpClient(config).create(FormatResource.class);
+        if (dataFormat != null) {
+            HttpClient.setDataFormat(resource, dataFormat);
+        }
+        return resource;
+    }
+
+    private void startServer(String contentType, String body) {
+        server = HttpServer.create().host("localhost").port(0).handle((request, response) -> {
+            String accept = request.requestHeaders().get("Accept");
+            if (accept != null) {
+                received.put("accept", accept);
+            }
+            String requestContentType = request.requestHeaders().get("Content-Type");
+            if (requestContentType != null) {
+                received.put("content-type", requestContentType);
+            }
+            return request.receive().aggregate().asString(StandardCharsets.UTF_8).defaultIfEmpty("")
+                .doOnNext(requestBody -> received.put("body", requestBody))
+                .then(response.header("Content-Type", contentType).sendString(Mono.just(body)).then());
+        }).bindNow();
+    }
+
+    public record Entity(String name) {
+    }
+
+    @Path("/formats")
+    public interface FormatResource {
+        @GET
+        Mono<Entity> get();
+
+        @GET
+        @Path("list")
+        Flux<Entity> list();
+
+        @POST
+        Mono<Entity> post(Entity entity);
+    }
+}
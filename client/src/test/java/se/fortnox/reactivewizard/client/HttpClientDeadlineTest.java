@@ -0,0 +1,111 @@
+package se.fortnox.reactivewizard.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+import se.fortnox.reactivewizard.jaxrs.WebException;
+import se.fortnox.reactivewizard.util.Deadline;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpClientDeadlineTest {
+    private final AtomicReference<String> receivedDeadline = new AtomicReference<>();
+    private DisposableServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void shouldSendRemainingTimeOfDeadline() throws URISyntaxException {
+        startServer(Duration.ZERO);
+        DeadlineResource resource = createClient(true);
+
+        String result = resource.get()
+            .contextWrite(context -> Deadline.put(context, Deadline.after(Duration.ofSeconds(5))))
+            .block();
+
+        assertThat(result).isEqualTo("OK");
+        assertThat(Long.parseLong(receivedDeadline.get())).isBetween(1L, 5000L);
+    }
+
+    @Test
+    void shouldNotSendDeadlineUnlessConfiguredTo() throws URISyntaxException {
+        startServer(Duration.ZERO);
+        DeadlineResource resource = createClient(false);
+
+        String result = resource.get()
+            .contextWrite(context -> Deadline.put(context, Deadline.after(Duration.ofSeconds(5))))
+            .block();
+
+        assertThat(result).isEqualTo("OK");
+        assertThat(receivedDeadline.get()).isNull();
+    }
+
+    @Test
+    void shouldNotSendDeadlineWithoutDeadlineInContext() throws URISyntaxException {
+        startServer(Duration.ZERO);
+        DeadlineResource resource = createClient(true);
+
+        assertThat(resource.get().block()).isEqualTo("OK");
+        assertThat(receivedDeadline.get()).isNull();
+    }
+
+    @Test
+    void shouldShortenTimeoutToRemainingTimeOfDeadline() throws URISyntaxException {
+        startServer(Duration.ofSeconds(2));
+        DeadlineResource resource = createClient(true);
+
+        StepVerifier.create(resource.get().contextWrite(context -> Deadline.put(context, Deadline.after(Duration.ofMillis(200)))))
+            .expectErrorSatisfies(error -> {
+                assertThat(error).isInstanceOf(WebException.class);
+                assertThat(((WebException)error).getStatus().code()).isEqualTo(504);
+                assertThat(error.getCause()).hasMessageStartingWith("Deadline of the request exceeded calling");
+            })
+            .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void shouldNotSendRequestWhenDeadlineHasPassed() throws URISyntaxException {
+        startServer(Duration.ZERO);
+        DeadlineResource resource = createClient(true);
+
+        StepVerifier.create(resource.get().contextWrite(context -> Deadline.put(context, Deadline.after(Duration.ZERO))))
+            .expectError(WebException.class)
+            .verify(Duration.ofSeconds(1));
+        assertThat(receivedDeadline.get()).isNull();
+    }
+
+    private DeadlineResource createClient(boolean propagateDeadline) throws URISyntaxException {
+        HttpClientConfig config = new HttpClientConfig("localhost:" + server.port());
+        config.setRetryCount(0);
+        config.setPropagateDeadline(propagateDeadline);
+        return new HttpClient(config).create(DeadlineResource.class);
+    }
+
+    private void startServer(Duration delay) {
+        server = HttpServer.create().host("localhost").port(0).handle((request, response) -> {
+            receivedDeadline.set(request.requestHeaders().get(Deadline.HEADER));
+            return response.header("Content-Type", "application/json")
+                .sendString(Mono.just("\"OK\"").delayElement(delay));
+        }).bindNow();
+    }
+
+    @Path("/deadline")
+    public interface DeadlineResource {
+        @GET
+        Mono<String> get();
+    }
+}
@@ -11,6 +11,8 @@ import reactor.core.publisher.Mono;
 import reactor.netty.DisposableServer;
 import reactor.netty.http.server.HttpServer;
 import reactor.netty.http.server.HttpServerRequest;
+import reactor.test.StepVerifier;
+import se.fortnox.reactivewizard.jaxrs.WebException;
 import se.fortnox.reactivewizard.jaxrs.RequestLogger;
 import se.fortnox.reactivewizard.metrics.HealthRecorder;
 
@@ -143,6 +145,39 @@ class HttpClientStreamingTest {
         server.dispose();
     }
 
+    @Test
+    void shouldParseJsonArrayItemsSplitAcrossChunks() {
+        DisposableServer server = jsonServer("[{\"va", "lue\":1},{\"value\"", ":2}", "]");
+
+        Flux<Item> items = getHttpProxy(server.port()).getItems();
+
+        assertThat(items.map(Item::getValue).collectList().block()).containsExactly(1, 2);
+
+        server.disposeNow();
+    }
+
+    @Test
+    void shouldFailWhenJsonArrayIsCutShort() {
+        DisposableServer server = jsonServer("[{\"value\":1},{\"val");
+
+        Flux<Item> items = getHttpProxy(server.port()).getItems();
+
+        StepVerifier.create(items.map(Item::getValue))
+            .expectNext(1)
+            .expectError(WebException.class)
+            .verify();
+
+        server.disposeNow();
+    }
+
+    private static DisposableServer jsonServer(String... chunks) {
+        return HttpServer.create().port(0).handle((request, response) -> response
+            .status(HttpResponseStatus.OK)
+            .header("Content-Type", "application/json")
+            .sendString(Flux.just(chunks))
+        ).bindNow();
+    }
+
     @Path("/")
     public interface TestResource {
         @GET
@@ -154,5 +189,21 @@ class HttpClientStreamingTest {
         @Consumes("application/octet-stream")
         @Path("post")
         Mono<Void> sendChunked(Flux<byte[]> content);
+
+        @GET
+        @Path("items")
+        Flux<Item> getItems();
+    }
+
+    public static class Item {
+        private int value;
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
     }
 }
@@ -22,6 +22,7 @@ import java.sql.SQLException;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 
+import static se.fortnox.reactivewizard.util.Deadline.withDeadline;
 import static se.fortnox.reactivewizard.util.ReactiveDecorator.decorated;
 
 public class ReactiveStatementFactory {
@@ -61,12 +62,12 @@ public class ReactiveStatementFactory {
     private <T> Flux<T> getResultFlux(StatementContext statementContext) {
         return Flux.create(fluxSink -> {
             try {
-                statementContext.getConnectionScheduler()
+                fluxSink.onCancel(statementContext.getConnectionScheduler()
                     .schedule(fluxSink::error, connection -> {
                         Statement dbStatement = statementContext.getStatement();
                         dbStatement.setFluxSink(fluxSink);
                         executeStatement(dbStatement, connection);
-                    });
+                    }));
             } catch (Exception e) {
                 if (!fluxSink.isCancelled()) {
                     fluxSink.error(e);
@@ -78,12 +79,12 @@ public class ReactiveStatementFactory {
     private <T> Mono<T> getResultMono(StatementContext statementContext) {
         return Mono.create(monoSink -> monoSink.onRequest(unusedRequestedAmount -> {
             try {
-                statementContext.getConnectionScheduler()
+                monoSink.onCancel(statementContext.getConnectionScheduler()
                     .schedule(monoSink::error, connection -> {
                         Statement dbStatement = statementContext.getStatement();
                         dbStatement.setMonoSink(monoSink);
                         executeStatement(dbStatement, connection);
-                    });
+                    }));
             } catch (Exception e) {
                 monoSink.error(e);
             }
@@ -91,7 +92,8 @@ public class ReactiveStatementFactory {
     }
 
     /**
-     * Creates Mono that executes provided statement.
+     * Creates Mono that executes provided statement. The statement is cancelled if the deadline of the calling request
+     * passes, and is not executed at all if it passes while the statement waits for a connection.
      *
      * @param metrics the metric that measures statement execution
      * @param statementSupplier the supplier of a statement to execute
@@ -109,11 +111,12 @@ public class ReactiveStatementFactory {
             );
         }
         resultMono = Mono.from(measure(resultMono, metrics));
-        return decorated(resultMono, statementContext);
+        return decorated(withDeadline(resultMono), statementContext);
     }
 
     /**
-     * Creates Flux that executes provided statement.
+     * Creates Flux that executes provided statement. The statement is cancelled if the deadline of the calling request
+     * passes, and is not executed at all if it passes while the statement waits for a connection.
      *
      * @param metrics the metric that measures statement execution
      * @param statementSupplier the supplier of a statement to execute
@@ -135,7 +138,7 @@ public class ReactiveStatementFactory {
         resultFlux = fluxMapper.apply(resultFlux);
         resultFlux = Flux.from(measure(resultFlux, metrics));
         resultFlux = resultFlux.onBackpressureBuffer(RECORD_BUFFER_SIZE);
-        return decorated(resultFlux, statementContext);
+        return decorated(withDeadline(resultFlux), statementContext);
     }
 
     private <T> Publisher<T> measure(Publisher<T> publisher, Metrics metrics) {
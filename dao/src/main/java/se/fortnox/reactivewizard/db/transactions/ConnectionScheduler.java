@@ -1,9 +1,11 @@
 package se.fortnox.reactivewizard.db.transactions;
 
+import reactor.core.Disposable;
 import reactor.core.scheduler.Scheduler;
 import se.fortnox.reactivewizard.db.ConnectionProvider;
 
 import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 public class ConnectionScheduler {
@@ -24,18 +26,24 @@ public class ConnectionScheduler {
      *
      * @param onError the error handler
      * @param action  the action
+     * @return a disposable that cancels the action if it has not yet started, so that no connection is taken for it
      */
-    public void schedule(Consumer<Throwable> onError, ThrowableAction action) {
+    public Disposable schedule(Consumer<Throwable> onError, ThrowableAction action) {
+        AtomicBoolean cancelled = new AtomicBoolean();
         Scheduler.Worker worker = scheduler.createWorker();
         worker.schedule(() -> {
             try {
-                action.call(connectionProvider.get());
+                if (!cancelled.get()) {
+                    action.call(connectionProvider.get());
+                }
             } catch (Exception e) {
                 onError.accept(e);
             } finally {
                 worker.dispose();
             }
         });
+        // A running action is not interrupted, since that may leave the connection in an unknown state
+        return () -> cancelled.set(true);
     }
 
     public interface ThrowableAction {
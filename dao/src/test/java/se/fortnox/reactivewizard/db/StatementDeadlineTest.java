@@ -0,0 +1,87 @@
+package se.fortnox.reactivewizard.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import se.fortnox.reactivewizard.db.config.DatabaseConfig;
+import se.fortnox.reactivewizard.db.statement.DbStatementFactoryFactory;
+import se.fortnox.reactivewizard.util.Deadline;
+import se.fortnox.reactivewizard.util.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementDeadlineTest {
+
+    private final MockDb          mockDb    = new MockDb();
+    // Not a non-blocking Reactor thread, so that BlockHound allows the test to block it
+    private final ExecutorService executor  = Executors.newSingleThreadExecutor();
+    private final Scheduler       scheduler = Schedulers.fromExecutorService(executor);
+    private final DbProxyTestDao  testDao   = new DbProxy(new DatabaseConfig(), scheduler, mockDb.getConnectionProvider(),
+        new DbStatementFactoryFactory()).create(DbProxyTestDao.class);
+
+    @AfterEach
+    void disposeScheduler() {
+        scheduler.dispose();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldNotTakeConnectionForStatementCancelledAtDeadline() throws InterruptedException {
+        // Occupy the only thread until the deadline has passed, so that the statement is still waiting for it. The
+        // deadline is passed in virtual time, and is too far away to pass in real time.
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.schedule(() -> {
+            blocked.countDown();
+            awaitQuietly(release);
+        });
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        StepVerifier.withVirtualTime(() -> testDao.select("key")
+                .contextWrite(context -> Deadline.put(context, Deadline.after(Duration.ofMinutes(1)))))
+            .expectSubscription()
+            .expectNoEvent(Duration.ofSeconds(59))
+            .thenAwait(Duration.ofSeconds(1))
+            .expectError(DeadlineExceededException.class)
+            .verify(Duration.ofSeconds(5));
+
+        release.countDown();
+        CountDownLatch drained = new CountDownLatch(1);
+        scheduler.schedule(drained::countDown);
+        assertThat(drained.await(5, TimeUnit.SECONDS)).isTrue();
+        mockDb.verifyConnectionsUsed(0);
+    }
+
+    @Test
+    void shouldNotExecuteStatementWhenDeadlineHasPassed() {
+        StepVerifier.create(testDao.select("key").contextWrite(context -> Deadline.put(context, Deadline.after(Duration.ZERO))))
+            .expectError(DeadlineExceededException.class)
+            .verify(Duration.ofSeconds(5));
+
+        mockDb.verifyConnectionsUsed(0);
+    }
+
+    @Test
+    void shouldExecuteStatementWithinDeadline() {
+        StepVerifier.create(testDao.select("key").contextWrite(context -> Deadline.put(context, Deadline.after(Duration.ofSeconds(5)))))
+            .verifyComplete();
+
+        mockDb.verifyConnectionsUsed(1);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
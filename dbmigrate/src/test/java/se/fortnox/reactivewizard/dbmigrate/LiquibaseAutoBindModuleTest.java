@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import se.fortnox.reactivewizard.binding.AutoBindModules;
 import se.fortnox.reactivewizard.config.ConfigFactory;
 import se.fortnox.reactivewizard.config.TestInjector;
+import se.fortnox.reactivewizard.jaxrs.JaxRsConfig;
 import se.fortnox.reactivewizard.json.JsonConfig;
 import se.fortnox.reactivewizard.logging.LoggingShutdownHandler;
 import se.fortnox.reactivewizard.server.ServerConfig;
@@ -147,6 +148,10 @@ class LiquibaseAutoBindModuleTest {
                 when(configFactory.get(JsonConfig.class)).thenReturn(jsonConfig);
                 bind(JsonConfig.class).toInstance(jsonConfig);
 
+                JaxRsConfig jaxRsConfig = new JaxRsConfig();
+                when(configFactory.get(JaxRsConfig.class)).thenReturn(jaxRsConfig);
+                bind(JaxRsConfig.class).toInstance(jaxRsConfig);
+
                 LiquibaseConfig liquibaseConfig = new LiquibaseConfig();
                 liquibaseConfig.setUrl("jdbc:h2:mem:test");
 
@@ -0,0 +1,32 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotate a GET resource method with this to cache its serialized responses. Responses are cached per value of the
+ * method parameters, which may only be path, query, header and cookie params, and are sent with a strong ETag, so that
+ * a request with a matching If-None-Match header is answered with 304 Not Modified. The output of the resource method
+ * is not subscribed to when the response is cached.
+ * <p>
+ * e.g.
+ * <p>
+ * {@literal @}Cacheable(ttl = 300, maxEntries = 100)
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+    /**
+     * Number of seconds a response is cached.
+     * @return the time to live in seconds
+     */
+    long ttl() default 60;
+
+    /**
+     * Max number of cached responses, after which the least recently used responses are evicted.
+     * @return the max number of entries
+     */
+    long maxEntries() default 1000;
+}
@@ -0,0 +1,29 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotate a GET resource method with this to let concurrent identical requests share a single call. A request that
+ * arrives while a call with the same uri and vary headers is in flight does not call the resource method, but gets
+ * the same serialized response when the call completes.
+ * <p>
+ * The shared call runs in the context of the request that started it. Its deadline, and the timeouts that the calls of
+ * the resource derive from it, are those of the first request, also for the requests that join the call. Each request
+ * still stops waiting at its own deadline.
+ * <p>
+ * e.g.
+ * <p>
+ * {@literal @}SingleFlight(varyHeaders = "Authorization")
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SingleFlight {
+    /**
+     * Request headers that may change the response, so that only requests with equal values of them share a call.
+     * @return the header names
+     */
+    String[] varyHeaders() default {};
+}
@@ -25,6 +25,16 @@ public @interface Stream {
      * </pre>
      * This option applies only for the resource methods returning Flux.
      *
+     * <p>SERVER_SENT_EVENTS sends each item as an event with Content-Type text/event-stream, and NDJSON sends each item
+     * as a line of JSON with Content-Type application/x-ndjson. Both are kept alive by heartbeats while no items are
+     * sent, for example:</p>
+     * <pre>
+     * data:{"value":"Hello"}
+     *
+     * data:{"value":"World"}
+     *
+     * </pre>
+     *
      * @return a stream type
      */
     Type value() default Type.JSON_ARRAY;
@@ -32,6 +42,8 @@ public @interface Stream {
     enum Type {
         @Deprecated(forRemoval = true)
         CONCATENATED_JSON_OBJECTS,
-        JSON_ARRAY
+        JSON_ARRAY,
+        SERVER_SENT_EVENTS,
+        NDJSON
     }
 }
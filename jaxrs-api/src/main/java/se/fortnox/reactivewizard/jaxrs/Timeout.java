@@ -0,0 +1,32 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annotate a resource method, or a resource class, with this to limit the time a call may take. A call that has not
+ * completed within the time is cancelled and gets a 504 Gateway Timeout. The limit is also the deadline of the calls
+ * made by the resource, so that they shorten their own timeouts to the time remaining.
+ * <p>
+ * e.g.
+ * <p>
+ * {@literal @}Timeout(value = 2, unit = TimeUnit.SECONDS)
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timeout {
+    /**
+     * The time a call may take.
+     * @return the time, in the unit of {@link #unit()}
+     */
+    long value();
+
+    /**
+     * The unit of {@link #value()}.
+     * @return the unit
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
@@ -13,6 +13,7 @@ import reactor.netty.http.server.HttpServerResponse;
 import se.fortnox.reactivewizard.jaxrs.RequestLogger;
 import se.fortnox.reactivewizard.jaxrs.WebException;
 import se.fortnox.reactivewizard.json.InvalidJsonException;
+import se.fortnox.reactivewizard.util.DeadlineExceededException;
 
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
@@ -22,6 +23,7 @@ import java.util.Map;
 import java.util.concurrent.CancellationException;
 
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
+import static io.netty.handler.codec.http.HttpResponseStatus.GATEWAY_TIMEOUT;
 import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR;
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
@@ -71,6 +73,8 @@ public class ExceptionHandler {
             webException = new WebException(NOT_FOUND);
         } else if (throwable instanceof InvalidJsonException) {
             webException = new WebException(BAD_REQUEST, "invalidjson", throwable.getMessage());
+        } else if (throwable instanceof DeadlineExceededException) {
+            webException = new WebException(GATEWAY_TIMEOUT, "request.timeout");
         } else if (throwable instanceof WebException we) {
             webException = we;
         } else if (isAnticipatedClientException(throwable)) {
@@ -1,6 +1,8 @@
 package se.fortnox.reactivewizard.jaxrs;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
@@ -11,6 +13,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.util.function.Consumer;
 
 public class ByteBufCollector {
 
@@ -70,4 +73,68 @@ public class ByteBufCollector {
         return input.collect(ByteArrayOutputStream::new, this::collectChunks)
             .map(ByteArrayOutputStream::toByteArray);
     }
+
+    /**
+     * Collect content into a composite buffer, without copying the chunks. The chunks are retained and must be released
+     * by releasing the returned buffer.
+     * @param content the content
+     * @return the buffer
+     */
+    public Mono<ByteBuf> collectByteBuf(Flux<ByteBuf> content) {
+        return content
+            .collect(() -> ByteBufAllocator.DEFAULT.compositeBuffer(Integer.MAX_VALUE), this::addChunk)
+            .doOnDiscard(CompositeByteBuf.class, CompositeByteBuf::release)
+            .map(ByteBuf.class::cast);
+    }
+
+    /**
+     * Pass each chunk of the content to a consumer as it is received, instead of collecting the chunks. The chunks are
+     * only valid while they are consumed.
+     * @param content the content
+     * @param consumer the consumer of the chunks
+     * @return completion when all content is consumed
+     */
+    public Mono<Void> consume(Flux<ByteBuf> content, Consumer<ByteBuf> consumer) {
+        return content
+            .reduce(0L, (size, bytes) -> {
+                long newSize = size + bytes.readableBytes();
+                if (newSize > maxReqSize) {
+                    throw new WebException(HttpResponseStatus.BAD_REQUEST, "too.large.input");
+                }
+                consumer.accept(bytes);
+                return newSize;
+            })
+            .then();
+    }
+
+    /**
+     * Fail the content once more than a max size of it is received, without collecting it.
+     * @param content the content
+     * @param maxSize the max size in bytes, where a negative size is the max request size of this collector and 0 is no
+     *                limit
+     * @return the content
+     */
+    public Flux<ByteBuf> limit(Flux<ByteBuf> content, long maxSize) {
+        long limit = maxSize < 0 ? maxReqSize : maxSize;
+        if (limit == 0) {
+            return content;
+        }
+        return Flux.defer(() -> {
+            long[] size = new long[1];
+            return content.doOnNext(bytes -> {
+                size[0] += bytes.readableBytes();
+                if (size[0] > limit) {
+                    throw new WebException(HttpResponseStatus.BAD_REQUEST, "too.large.input");
+                }
+            });
+        });
+    }
+
+    private void addChunk(CompositeByteBuf buf, ByteBuf bytes) {
+        int length = bytes.readableBytes();
+        if (buf.readableBytes() + length > maxReqSize) {
+            throw new WebException(HttpResponseStatus.BAD_REQUEST, "too.large.input");
+        }
+        buf.addComponent(true, bytes.retain());
+    }
 }
@@ -0,0 +1,136 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import se.fortnox.reactivewizard.config.Config;
+
+/**
+ * Configuration of the handling of JaxRs resources.
+ */
+@Config("jaxrs")
+public class JaxRsConfig {
+    /**
+     * Max number of (http method, path) pairs for which the matched resource is cached. 0 disables the cache.
+     */
+    private int routeCacheSize = 0;
+
+    /**
+     * Keep request bodies in the buffers they were received in, instead of copying them to a byte array. JSON bodies are
+     * then parsed directly from the buffers, which are released when the arguments of the resource method are resolved.
+     */
+    private boolean zeroCopyBody = false;
+
+    /**
+     * Size in bytes above which a part of a multipart/form-data body is stored in a temporary file while the request is
+     * handled, instead of in memory.
+     */
+    private long multipartDiskThreshold = 16 * 1024;
+
+    /**
+     * Max size in bytes of a body that is streamed to a Flux parameter, instead of being loaded. -1 uses the max request
+     * size of the server, and 0 removes the limit.
+     */
+    private long maxStreamedBodySize = -1;
+
+    /**
+     * Size in bytes above which a JSON array returned as a Flux, without @Stream, is sent with chunked transfer encoding
+     * as its items are serialized, instead of being collected and sent with a Content-Length. 0 disables the limit.
+     * Chunked arrays are opt-in: once the first chunk is written, an error in a later item can no longer be sent as an
+     * error response, and the connection is closed with the array cut short instead.
+     */
+    private int chunkedResponseByteThreshold = 0;
+
+    /**
+     * Number of items above which a JSON array returned as a Flux, without @Stream, is sent with chunked transfer
+     * encoding. 0 disables the limit.
+     */
+    private int chunkedResponseItemThreshold = 0;
+
+    /**
+     * Size in bytes of the chunks that the elements of a @Stream response are aggregated into before they are written,
+     * where 8-32KB suits streams of many small elements. Defaults to 0, which writes each element separately, as its
+     * own chunk, so that every element is sent as soon as it is emitted.
+     */
+    private int streamingChunkSize = 0;
+
+    /**
+     * Max time in milliseconds that elements of a @Stream response are held back while a chunk is aggregated.
+     */
+    private int streamingFlushIntervalMillis = 10;
+
+    /**
+     * Seconds without events after which a heartbeat is sent, to keep idle server-sent event and NDJSON streams open.
+     * 0 disables heartbeats.
+     */
+    private int streamHeartbeatIntervalSeconds = 15;
+
+    public int getRouteCacheSize() {
+        return routeCacheSize;
+    }
+
+    public void setRouteCacheSize(int routeCacheSize) {
+        this.routeCacheSize = routeCacheSize;
+    }
+
+    public boolean isZeroCopyBody() {
+        return zeroCopyBody;
+    }
+
+    public void setZeroCopyBody(boolean zeroCopyBody) {
+        this.zeroCopyBody = zeroCopyBody;
+    }
+
+    public long getMultipartDiskThreshold() {
+        return multipartDiskThreshold;
+    }
+
+    public void setMultipartDiskThreshold(long multipartDiskThreshold) {
+        this.multipartDiskThreshold = multipartDiskThreshold;
+    }
+
+    public long getMaxStreamedBodySize() {
+        return maxStreamedBodySize;
+    }
+
+    public void setMaxStreamedBodySize(long maxStreamedBodySize) {
+        this.maxStreamedBodySize = maxStreamedBodySize;
+    }
+
+    public int getChunkedResponseByteThreshold() {
+        return chunkedResponseByteThreshold;
+    }
+
+    public void setChunkedResponseByteThreshold(int chunkedResponseByteThreshold) {
+        this.chunkedResponseByteThreshold = chunkedResponseByteThreshold;
+    }
+
+    public int getChunkedResponseItemThreshold() {
+        return chunkedResponseItemThreshold;
+    }
+
+    public void setChunkedResponseItemThreshold(int chunkedResponseItemThreshold) {
+        this.chunkedResponseItemThreshold = chunkedResponseItemThreshold;
+    }
+
+    public int getStreamingChunkSize() {
+        return streamingChunkSize;
+    }
+
+    public void setStreamingChunkSize(int streamingChunkSize) {
+        this.streamingChunkSize = streamingChunkSize;
+    }
+
+    public int getStreamingFlushIntervalMillis() {
+        return streamingFlushIntervalMillis;
+    }
+
+    public void setStreamingFlushIntervalMillis(int streamingFlushIntervalMillis) {
+        this.streamingFlushIntervalMillis = streamingFlushIntervalMillis;
+    }
+
+    public int getStreamHeartbeatIntervalSeconds() {
+        return streamHeartbeatIntervalSeconds;
+    }
+
+    public void setStreamHeartbeatIntervalSeconds(int streamHeartbeatIntervalSeconds) {
+        this.streamHeartbeatIntervalSeconds = streamHeartbeatIntervalSeconds;
+    }
+}
@@ -1,15 +1,34 @@
 package se.fortnox.reactivewizard.jaxrs;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
-import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.cookie.Cookie;
+import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
+import io.netty.handler.codec.http.multipart.Attribute;
+import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
+import io.netty.handler.codec.http.multipart.FileUpload;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
+import io.netty.handler.codec.http.multipart.InterfaceHttpData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.netty.channel.AbortedException;
 import reactor.netty.http.server.HttpServerRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -28,12 +47,22 @@ public class JaxRsRequest {
     private static final Logger LOG = LoggerFactory.getLogger(JaxRsRequest.class);
 
     private final HttpServerRequest   req;
-    private final byte[]              body;
+    private       byte[]              body;
+    private       ByteBuf             bodyBuffer;
+    private       boolean             keepBodyBuffer;
+    private       long                multipartDiskThreshold = DefaultHttpDataFactory.MINSIZE;
+    private       long                maxStreamedBodySize = -1;
     private final String              path;
     private final String              uri;
     private       Matcher             matcher;
+    private       PathTemplate        pathTemplate;
+    private       int[]               pathParamOffsets;
     private final ByteBufCollector    collector;
     private Map<String, List<String>> queryParameters;
+    private Set<String>               queryParamNames;
+    private Map<String, List<String>> formParameters;
+    private HttpPostRequestDecoder    multipartDecoder;
+    private Map<String, String>       cookieValues;
 
     protected JaxRsRequest(HttpServerRequest req, Matcher matcher, byte[] body, ByteBufCollector collector) {
         this.req       = req;
@@ -56,6 +85,31 @@ public class JaxRsRequest {
         this(request, null, null, collector);
     }
 
+    /**
+     * Create a request.
+     * @param request the request
+     * @param collector the collector of the body
+     * @param keepBodyBuffer whether the body should be kept in the buffers it was received in when it is loaded,
+     *                       rather than being copied to a byte array
+     */
+    public JaxRsRequest(HttpServerRequest request, ByteBufCollector collector, boolean keepBodyBuffer) {
+        this(request, null, null, collector);
+        this.keepBodyBuffer = keepBodyBuffer;
+    }
+
+    /**
+     * Create a request.
+     * @param request the request
+     * @param collector the collector of the body
+     * @param config how the body should be loaded and decoded
+     */
+    public JaxRsRequest(HttpServerRequest request, ByteBufCollector collector, JaxRsConfig config) {
+        this(request, null, null, collector);
+        this.keepBodyBuffer = config.isZeroCopyBody();
+        this.multipartDiskThreshold = config.getMultipartDiskThreshold();
+        this.maxStreamedBodySize = config.getMaxStreamedBodySize();
+    }
+
     protected JaxRsRequest create(HttpServerRequest req, Matcher matcher, byte[] body, ByteBufCollector collector) {
         return new JaxRsRequest(req, matcher, body, collector);
     }
@@ -64,32 +118,124 @@ public class JaxRsRequest {
         return req.method().equals(httpMethod);
     }
 
+    public HttpMethod getMethod() {
+        return req.method();
+    }
+
+    /**
+     * Return the body. A body kept in buffers is copied to a byte array the first time this is called.
+     * @return the body, or null if it is not loaded
+     */
     public byte[] getBody() {
+        if (body == null && bodyBuffer != null) {
+            body = ByteBufUtil.getBytes(bodyBuffer);
+        }
         return body;
     }
 
+    /**
+     * Return the body as it was received, if the body is kept in buffers. The buffer is released after the arguments of
+     * the resource method are resolved, so it must not be used after that.
+     * @return the body buffer, or null if the body is not kept in buffers
+     */
+    public ByteBuf getBodyBuffer() {
+        return bodyBuffer;
+    }
+
+    /**
+     * Release the body buffer and any decoded multipart data, including files stored on disk.
+     */
+    void releaseBody() {
+        if (multipartDecoder != null) {
+            multipartDecoder.destroy();
+            multipartDecoder = null;
+        }
+        if (bodyBuffer != null) {
+            bodyBuffer.release();
+            bodyBuffer = null;
+        }
+    }
+
     /**
      * Load the body.
      *
      * @return the body
      */
     public Mono<JaxRsRequest> loadBody() {
+        return loadBody(false);
+    }
+
+    /**
+     * Load the body, or decode a multipart body into form params while it is received. A decoded body is only available
+     * as form params, so it should only be decoded for resources that read nothing but form params from the body.
+     *
+     * @param decodeMultipart whether a multipart body should be decoded instead of loaded
+     * @return the body
+     */
+    public Mono<JaxRsRequest> loadBody(boolean decodeMultipart) {
         HttpMethod httpMethod = req.method();
         if (POST.equals(httpMethod) || PUT.equals(httpMethod) || PATCH.equals(httpMethod) || DELETE.equals(httpMethod)) {
-            return collector.collectBytes(req.receive()
-                    .doOnError(e -> {
-                        if (e instanceof AbortedException) {
-                            LOG.debug("Error reading data for request " + httpMethod + " " + req.uri(), e);
-                        } else {
-                            LOG.error("Error reading data for request " + httpMethod + " " + req.uri(), e);
-                        }
-                    }))
+            if (decodeMultipart && req.isMultipart()) {
+                return decodeMultipartBody(toHttpRequest());
+            }
+            if (keepBodyBuffer) {
+                return collector.collectByteBuf(receiveBody())
+                    .map(reqBody -> create(req, matcher, null, collector).withBodyBuffer(reqBody).withStateOf(this));
+            }
+            return collector.collectBytes(receiveBody())
                 .defaultIfEmpty(new byte[0])
-                .map(reqBody -> create(req, matcher, reqBody, collector));
+                .map(reqBody -> create(req, matcher, reqBody, collector).withStateOf(this));
         }
         return Mono.just(this);
     }
 
+    private Mono<JaxRsRequest> decodeMultipartBody(HttpRequest httpRequest) {
+        return Mono.defer(() -> {
+            HttpPostRequestDecoder decoder;
+            try {
+                decoder = new HttpPostRequestDecoder(new DefaultHttpDataFactory(multipartDiskThreshold), httpRequest);
+            } catch (HttpPostRequestDecoder.ErrorDataDecoderException e) {
+                return Mono.error(invalidForm(e));
+            }
+            // The decoder copies what it has not decoded yet, and the server releases each chunk once it is consumed
+            return collector.consume(receiveBody(), chunk -> decoder.offer(new DefaultHttpContent(chunk)))
+                .then(Mono.fromCallable(() -> {
+                    decoder.offer(LastHttpContent.EMPTY_LAST_CONTENT);
+                    return create(req, matcher, null, collector).withMultipartDecoder(decoder).withStateOf(this);
+                }))
+                .onErrorMap(HttpPostRequestDecoder.ErrorDataDecoderException.class, this::invalidForm)
+                .doOnError(e -> decoder.destroy())
+                .doOnCancel(decoder::destroy);
+        });
+    }
+
+    /**
+     * Stream the body as it is received, instead of loading it. Can only be used if the body is not loaded. The stream
+     * fails like a loaded body does when the body is larger than the {@link JaxRsConfig#getMaxStreamedBodySize() max
+     * size} of streamed bodies.
+     *
+     * @return the chunks of the body
+     */
+    public Flux<byte[]> streamBody() {
+        HttpMethod httpMethod = req.method();
+        if (POST.equals(httpMethod) || PUT.equals(httpMethod) || PATCH.equals(httpMethod) || DELETE.equals(httpMethod)) {
+            // The received buffers are released as soon as they are emitted, so their content must be copied
+            return collector.limit(receiveBody(), maxStreamedBodySize).map(ByteBufUtil::getBytes);
+        }
+        return Flux.empty();
+    }
+
+    private Flux<ByteBuf> receiveBody() {
+        return req.receive()
+            .doOnError(e -> {
+                if (e instanceof AbortedException) {
+                    LOG.debug("Error reading data for request " + req.method() + " " + req.uri(), e);
+                } else {
+                    LOG.error("Error reading data for request " + req.method() + " " + req.uri(), e);
+                }
+            });
+    }
+
     /**
      * Return the query param.
      * @param key the param key
@@ -106,10 +252,14 @@ public class JaxRsRequest {
      * @return the param or default value
      */
     public String getQueryParam(String key, String defaultValue) {
-        if (queryParameters == null) {
-            QueryStringDecoder queryStringDecoder = new QueryStringDecoder(req.uri());
+        boolean undeclared = queryParamNames != null && !queryParamNames.contains(key);
+        if (queryParameters == null || undeclared) {
+            if (undeclared) {
+                // Params that are not declared by the resource are found by decoding all params
+                queryParamNames = null;
+            }
             try {
-                queryParameters = queryStringDecoder.parameters();
+                queryParameters = UrlEncodedFormDecoder.decodeQuery(req.uri(), queryParamNames);
             } catch (IllegalArgumentException e) {
                 LOG.info("Failed to decode HTTP query params for request {} {}", req.method().name(), req.uri(), e);
                 throw new WebException(HttpResponseStatus.BAD_REQUEST);
@@ -123,6 +273,18 @@ public class JaxRsRequest {
         return defaultValue;
     }
 
+    /**
+     * Declare the query params that will be requested, so that only those are decoded. Other params are still found,
+     * by decoding all params when one of them is requested.
+     *
+     * @param names the names of the query params
+     */
+    void useQueryParamNames(Set<String> names) {
+        if (queryParameters == null) {
+            queryParamNames = names;
+        }
+    }
+
     /**
      * Return the path param.
      * @param key the param key
@@ -139,7 +301,14 @@ public class JaxRsRequest {
      * @return the path param or default value
      */
     public String getPathParam(String key, String defaultValue) {
-        if (matcher == null || !matcher.pattern().pattern().contains(key)) {
+        if (pathParamOffsets != null) {
+            int index = pathTemplate.variableIndex(key);
+            if (index == -1) {
+                return defaultValue;
+            }
+            return path.substring(pathParamOffsets[index * 2], pathParamOffsets[index * 2 + 1]);
+        }
+        if (matcher == null || !matcher.pattern().namedGroups().containsKey(key)) {
             return defaultValue;
         }
         return matcher.group(key);
@@ -149,23 +318,95 @@ public class JaxRsRequest {
         return getHeader(key, null);
     }
 
+    /**
+     * Return the header. Constant names, like those of {@link HttpHeaderNames}, are found without being converted.
+     * @param key the header name
+     * @return the header, or null if non-existent
+     */
+    public String getHeader(CharSequence key) {
+        return getHeader(key, null);
+    }
+
     public String getHeader(String key, String defaultValue) {
         return req.requestHeaders().get(key, defaultValue);
     }
 
+    /**
+     * Return the header or default value, if non-existent.
+     * @param key the header name
+     * @param defaultValue the default value
+     * @return the header or default value
+     */
+    public String getHeader(CharSequence key, String defaultValue) {
+        return req.requestHeaders().get(key, defaultValue);
+    }
+
     public String getFormParam(String key) {
         return getFormParam(key, null);
     }
 
+    /**
+     * Return the form param or default value, if non-existent. The body is decoded the first time a form param is
+     * requested, as url encoded or multipart depending on the content type.
+     * @param key the param key
+     * @param defaultValue the default value
+     * @return the param or default value
+     */
     public String getFormParam(String key, String defaultValue) {
-        return parseUrlEncodedBody(body, key, defaultValue);
+        if (formParameters == null && multipartDecoder == null) {
+            decodeForm();
+        }
+        if (multipartDecoder != null) {
+            return getMultipartParam(key, defaultValue);
+        }
+        List<String> list = formParameters.get(key);
+        return list == null || list.isEmpty() ? defaultValue : list.getFirst();
     }
 
-    private String parseUrlEncodedBody(byte[] body, String key, String defaultValue) {
-        QueryStringDecoder        decoder    = new QueryStringDecoder(new String(body), false);
-        Map<String, List<String>> parameters = decoder.parameters();
-        List<String>              list       = parameters.get(key);
-        return list == null || list.isEmpty() ? defaultValue : list.getFirst();
+    private void decodeForm() {
+        if (bodyBuffer == null && body == null) {
+            formParameters = Map.of();
+            return;
+        }
+        ByteBuf content = bodyBuffer != null ? bodyBuffer.duplicate() : Unpooled.wrappedBuffer(body);
+        try {
+            HttpRequest httpRequest = toHttpRequest();
+            if (HttpPostRequestDecoder.isMultipart(httpRequest)) {
+                HttpPostRequestDecoder decoder = new HttpPostRequestDecoder(new DefaultHttpDataFactory(multipartDiskThreshold), httpRequest);
+                // Assigned before offering the content, so that the decoder is destroyed even if the content is invalid
+                multipartDecoder = decoder;
+                decoder.offer(new DefaultLastHttpContent(content));
+            } else {
+                formParameters = UrlEncodedFormDecoder.decode(content);
+            }
+        } catch (IllegalArgumentException | HttpPostRequestDecoder.ErrorDataDecoderException e) {
+            throw invalidForm(e);
+        }
+    }
+
+    private HttpRequest toHttpRequest() {
+        return new DefaultHttpRequest(HttpVersion.HTTP_1_1, req.method(), req.uri(), req.requestHeaders());
+    }
+
+    private WebException invalidForm(Exception exception) {
+        LOG.info("Failed to decode form params for request {} {}", req.method().name(), req.uri(), exception);
+        return new WebException(HttpResponseStatus.BAD_REQUEST);
+    }
+
+    private String getMultipartParam(String key, String defaultValue) {
+        InterfaceHttpData data = multipartDecoder.getBodyHttpData(key);
+        try {
+            if (data instanceof Attribute attribute) {
+                return attribute.getValue();
+            }
+            if (data instanceof FileUpload fileUpload) {
+                return fileUpload.getString(StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            LOG.info("Failed to read form param {} for request {} {}", key, req.method().name(), req.uri(), e);
+            throw new WebException(HttpResponseStatus.BAD_REQUEST);
+        }
+        return defaultValue;
     }
 
     public Set<Cookie> getCookie(String key) {
@@ -183,11 +424,28 @@ public class JaxRsRequest {
      * @return cookie or default value
      */
     public String getCookieValue(String key, String defaultValue) {
-        Set<Cookie> cookies = req.cookies().get(key);
-        if (cookies == null || cookies.isEmpty()) {
-            return defaultValue;
+        if (cookieValues == null) {
+            cookieValues = decodeCookieValues();
         }
-        return cookies.iterator().next().value();
+        return cookieValues.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * Decode the cookie values once per request, keeping the first value of each name. Cookies are decoded as strictly
+     * as by req.cookies(), but only the values are kept.
+     */
+    private Map<String, String> decodeCookieValues() {
+        List<String> headers = req.requestHeaders().getAll(HttpHeaderNames.COOKIE);
+        if (headers.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String header : headers) {
+            for (Cookie cookie : ServerCookieDecoder.STRICT.decodeAll(header)) {
+                values.putIfAbsent(cookie.name(), cookie.value());
+            }
+        }
+        return values;
     }
 
     public String getPath() {
@@ -199,7 +457,64 @@ public class JaxRsRequest {
     }
 
     public boolean matchesPath(Pattern pathPattern) {
+        pathTemplate = null;
+        pathParamOffsets = null;
         matcher = pathPattern.matcher(getPath());
         return matcher.matches();
     }
+
+    /**
+     * Match the path of this request against a path template. Templates without custom regex variables are matched
+     * without regex, and only the positions of the path params are recorded.
+     *
+     * @param template the template
+     * @return whether the path matches
+     */
+    public boolean matchesPath(PathTemplate template) {
+        if (!template.isSegmentMatched()) {
+            return matchesPath(template.getPattern());
+        }
+        matcher = null;
+        pathTemplate = template;
+        pathParamOffsets = template.matchSegments(getPath());
+        return pathParamOffsets != null;
+    }
+
+    /**
+     * Use the result of an earlier match of the same path against a path template.
+     *
+     * @param template the template
+     * @param offsets the offsets of the path params, as recorded by the earlier match
+     */
+    void usePathMatch(PathTemplate template, int[] offsets) {
+        matcher = null;
+        pathTemplate = template;
+        pathParamOffsets = offsets;
+    }
+
+    int[] getPathParamOffsets() {
+        return pathParamOffsets;
+    }
+
+    private JaxRsRequest withBodyBuffer(ByteBuf bodyBuffer) {
+        this.bodyBuffer = bodyBuffer;
+        return this;
+    }
+
+    private JaxRsRequest withMultipartDecoder(HttpPostRequestDecoder multipartDecoder) {
+        this.multipartDecoder = multipartDecoder;
+        return this;
+    }
+
+    private JaxRsRequest withStateOf(JaxRsRequest request) {
+        if (request.pathParamOffsets != null) {
+            usePathMatch(request.pathTemplate, request.pathParamOffsets);
+        }
+        multipartDiskThreshold = request.multipartDiskThreshold;
+        maxStreamedBodySize = request.maxStreamedBodySize;
+        queryParamNames = request.queryParamNames;
+        queryParameters = request.queryParameters;
+        cookieValues = request.cookieValues;
+        return this;
+    }
 }
@@ -1,5 +1,6 @@
 package se.fortnox.reactivewizard.jaxrs;
 
+import com.codahale.metrics.Counter;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.reactivestreams.Publisher;
@@ -8,8 +9,19 @@ import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
 import se.fortnox.reactivewizard.ExceptionHandler;
 import se.fortnox.reactivewizard.RequestHandler;
+import se.fortnox.reactivewizard.jaxrs.response.CachedResponse;
 import se.fortnox.reactivewizard.jaxrs.response.JaxRsResult;
+import se.fortnox.reactivewizard.jaxrs.response.ResponseCompressor;
+import se.fortnox.reactivewizard.metrics.Metrics;
 import se.fortnox.reactivewizard.util.DebugUtil;
+import se.fortnox.reactivewizard.util.Deadline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Handles incoming requests. If the request matches a resource a Flux or Mono which completes the request is returned.
@@ -19,18 +31,43 @@ public class JaxRsRequestHandler implements RequestHandler {
     private final JaxRsResources   resources;
     private final ExceptionHandler exceptionHandler;
     private final ByteBufCollector          collector;
+    private final JaxRsConfig      config;
+    private final ResponseCompressor compressor;
+    private final Map<SingleFlightKey, Mono<CachedResponse>> inFlightCalls = new ConcurrentHashMap<>();
+    private final Counter          coalescedCalls = Metrics.registry().counter("JAXRS_singleFlight:coalesced");
 
     @Inject
     public JaxRsRequestHandler(JaxRsResourcesProvider services,
                                JaxRsResourceFactory jaxRsResourceFactory,
                                ExceptionHandler exceptionHandler,
-                               ByteBufCollector collector
+                               ByteBufCollector collector,
+                               JaxRsConfig config,
+                               ResponseCompressor compressor
     ) {
         this(services.getResources(),
             jaxRsResourceFactory,
             exceptionHandler,
             collector,
-            null);
+            null,
+            config,
+            compressor);
+    }
+
+    public JaxRsRequestHandler(JaxRsResourcesProvider services,
+                               JaxRsResourceFactory jaxRsResourceFactory,
+                               ExceptionHandler exceptionHandler,
+                               ByteBufCollector collector,
+                               JaxRsConfig config
+    ) {
+        this(services, jaxRsResourceFactory, exceptionHandler, collector, config, new ResponseCompressor());
+    }
+
+    public JaxRsRequestHandler(JaxRsResourcesProvider services,
+                               JaxRsResourceFactory jaxRsResourceFactory,
+                               ExceptionHandler exceptionHandler,
+                               ByteBufCollector collector
+    ) {
+        this(services, jaxRsResourceFactory, exceptionHandler, collector, new JaxRsConfig());
     }
 
     public JaxRsRequestHandler(Object[] services,
@@ -46,13 +83,36 @@ public class JaxRsRequestHandler implements RequestHandler {
         ExceptionHandler exceptionHandler,
         ByteBufCollector collector,
         Boolean classReloading
+    ) {
+        this(services, jaxRsResourceFactory, exceptionHandler, collector, classReloading, new JaxRsConfig());
+    }
+
+    public JaxRsRequestHandler(Object[] services,
+        JaxRsResourceFactory jaxRsResourceFactory,
+        ExceptionHandler exceptionHandler,
+        ByteBufCollector collector,
+        Boolean classReloading,
+        JaxRsConfig config
+    ) {
+        this(services, jaxRsResourceFactory, exceptionHandler, collector, classReloading, config, new ResponseCompressor());
+    }
+
+    public JaxRsRequestHandler(Object[] services,
+        JaxRsResourceFactory jaxRsResourceFactory,
+        ExceptionHandler exceptionHandler,
+        ByteBufCollector collector,
+        Boolean classReloading,
+        JaxRsConfig config,
+        ResponseCompressor compressor
     ) {
         this.collector = collector;
+        this.config = config;
+        this.compressor = compressor;
         this.exceptionHandler = exceptionHandler;
         if (classReloading == null) {
             classReloading = DebugUtil.IS_DEBUG;
         }
-        this.resources = new JaxRsResources(services, jaxRsResourceFactory, classReloading);
+        this.resources = new JaxRsResources(services, jaxRsResourceFactory, classReloading, config.getRouteCacheSize());
     }
 
     /**
@@ -64,7 +124,7 @@ public class JaxRsRequestHandler implements RequestHandler {
      */
     @Override
     public Publisher<Void> apply(HttpServerRequest request, HttpServerResponse response) {
-        JaxRsRequest     jaxRsRequest = new JaxRsRequest(request, collector);
+        JaxRsRequest     jaxRsRequest = new JaxRsRequest(request, collector, config);
         JaxRsResource<?> resource     = resources.findResource(jaxRsRequest);
 
         if (resource == null) {
@@ -77,14 +137,43 @@ public class JaxRsRequestHandler implements RequestHandler {
 
         Publisher<Void> resourceCall;
 
-        resourceCall = resource.call(jaxRsRequest)
-            .flatMap(result -> Mono.from(writeResult(response, result)))
+        Mono<Void> write;
+        if (resource.getSingleFlight() != null) {
+            write = callOnce(jaxRsRequest, resource)
+                .flatMap(serialized -> Mono.from(serialized.write(request, response, compressor)));
+        } else {
+            write = resource.call(jaxRsRequest)
+                .flatMap(result -> Mono.from(writeResult(request, response, result)));
+        }
+
+        resourceCall = withDeadline(write, resource)
             .onErrorResume(e -> Mono.from(exceptionHandler.handleException(request, response, e)))
             .doAfterTerminate(() -> resource.log(request, response, requestStartTime));
         return resourceCall;
 
     }
 
+    /**
+     * Cancel the call if it has not completed at the deadline of the request, which is the earliest of the deadline
+     * sent by the caller and the timeout of the resource, or the default timeout of the server if the resource has none.
+     * Streams are open as long as they produce values, so the default timeout is not used for them. The deadline is
+     * put in the context of the call, so that the calls made by the resource can shorten their timeouts.
+     */
+    private static Mono<Void> withDeadline(Mono<Void> write, JaxRsResource<?> resource) {
+        Mono<Void> bounded = Deadline.withDeadline(write);
+        return Mono.deferContextual(context -> {
+            Duration timeout = resource.getTimeout();
+            if (timeout == null && !resource.isStream()) {
+                timeout = Deadline.defaultTimeout(context).orElse(null);
+            }
+            if (timeout == null) {
+                return bounded;
+            }
+            Deadline resourceDeadline = Deadline.after(timeout);
+            return bounded.contextWrite(callContext -> Deadline.put(callContext, resourceDeadline));
+        });
+    }
+
     /**
      * Pre handling hook for classes extending this class.
      *
@@ -94,10 +183,43 @@ public class JaxRsRequestHandler implements RequestHandler {
     protected void preHandle(HttpServerRequest request, JaxRsResource<?> resource) {
     }
 
-    private Publisher<Void> writeResult(HttpServerResponse response, JaxRsResult<?> result) {
+    /**
+     * Join the call in flight for an identical request, or start a new one that later identical requests can join.
+     */
+    private Mono<CachedResponse> callOnce(JaxRsRequest request, JaxRsResource<?> resource) {
+        String[] varyHeaders = resource.getSingleFlight().varyHeaders();
+        List<String> varyHeaderValues = new ArrayList<>(varyHeaders.length);
+        for (String varyHeader : varyHeaders) {
+            varyHeaderValues.add(request.getHeader(varyHeader));
+        }
+        SingleFlightKey key = new SingleFlightKey(resource, request.getUri(), varyHeaderValues);
+
+        AtomicReference<Mono<CachedResponse>> startedCall = new AtomicReference<>();
+        // The shared call is subscribed with the context, and so the deadline, of the request that starts it. It is
+        // cancelled, and no longer joined, when all requests that joined it have been cancelled.
+        Mono<CachedResponse> call = inFlightCalls.computeIfAbsent(key, newKey -> {
+            Mono<CachedResponse> newCall = resource.callAndSerialize(request)
+                .doFinally(signal -> inFlightCalls.remove(newKey, startedCall.get()))
+                .flux()
+                .publish()
+                .refCount(1)
+                .next();
+            startedCall.set(newCall);
+            return newCall;
+        });
+        if (call != startedCall.get()) {
+            coalescedCalls.inc();
+        }
+        return call;
+    }
+
+    private Publisher<Void> writeResult(HttpServerRequest request, HttpServerResponse response, JaxRsResult<?> result) {
         if (result != null) {
-            return result.write(response);
+            return result.write(request, response);
         }
         return Mono.empty();
     }
+
+    private record SingleFlightKey(JaxRsResource<?> resource, String uri, List<String> varyHeaderValues) {
+    }
 }
@@ -9,19 +9,23 @@ import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
 import se.fortnox.reactivewizard.jaxrs.params.ParamResolver;
 import se.fortnox.reactivewizard.jaxrs.params.ParamResolverFactories;
+import se.fortnox.reactivewizard.jaxrs.params.SynchronousParamResolver;
+import se.fortnox.reactivewizard.jaxrs.response.CachedResponse;
 import se.fortnox.reactivewizard.jaxrs.response.JaxRsResult;
 import se.fortnox.reactivewizard.jaxrs.response.JaxRsResultFactory;
 import se.fortnox.reactivewizard.jaxrs.response.JaxRsResultFactoryFactory;
 import se.fortnox.reactivewizard.util.FluxRxConverter;
+import se.fortnox.reactivewizard.util.MethodInvoker;
 import se.fortnox.reactivewizard.util.ReflectionUtil;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.core.MediaType;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
-import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
@@ -36,14 +40,20 @@ public class JaxRsResource<T> implements Comparable<JaxRsResource> {
 
     private static final Logger LOG = LoggerFactory.getLogger(JaxRsResource.class);
     private static final Object EMPTY_ARG = new Object();
-    private final Pattern                           pathPattern;
+    private final PathTemplate                      pathTemplate;
     private final Method                            method;
     private final Method                            instanceMethod;
     private final Integer                           paramCount;
     private final List<ParamResolver>               argumentExtractors;
+    private final boolean                           synchronousArguments;
+    private final boolean                           needsBody;
+    private final boolean                           readsFormParams;
+    private final Set<String>                       queryParamNames;
     private final JaxRsResultFactory<T>             resultFactory;
     private final JaxRsMeta                         meta;
     private final RequestLogger                     requestLogger;
+    private final SingleFlight                      singleFlight;
+    private final Duration                          timeout;
     private final Function<Object[], Flux<T>> methodCaller;
 
     public JaxRsResource(Method method,
@@ -54,26 +64,45 @@ public class JaxRsResource<T> implements Comparable<JaxRsResource> {
                          RequestLogger requestLogger) {
         this.method = method;
         this.meta = meta;
-        this.pathPattern = createPathPattern(meta.getFullPath());
+        this.pathTemplate = new PathTemplate(meta.getFullPath());
         this.paramCount = method.getParameterCount();
         this.requestLogger = requestLogger;
 
         instanceMethod = ReflectionUtil.getInstanceMethod(method, resourceInstance);
 
         this.argumentExtractors = paramResolverFactories.createParamResolvers(instanceMethod, getConsumes());
+        this.synchronousArguments = argumentExtractors.stream().allMatch(SynchronousParamResolver.class::isInstance);
+        this.needsBody = argumentExtractors.stream().anyMatch(ParamResolver::needsBody);
+        this.readsFormParams = argumentExtractors.stream().anyMatch(ParamResolver::readsFormParams);
+        this.queryParamNames = argumentExtractors.stream()
+            .flatMap(argumentExtractor -> ((ParamResolver<?>)argumentExtractor).getQueryParamNames().stream())
+            .collect(Collectors.toUnmodifiableSet());
         this.resultFactory = jaxRsResultFactoryFactory.createResultFactory(this);
         this.methodCaller = createMethodCaller(method, resourceInstance);
+        this.singleFlight = findSingleFlight(method, meta);
+        this.timeout = findTimeout(method, instanceMethod);
     }
 
-    private static Pattern createPathPattern(String path) {
-        // Vars with custom regex, like this: {myvar:myregex}
-        path = path.replaceAll("\\{([^}]+):([^}]+)\\}", "(?<$1>$2)");
-        // Vars without custom regex, like this: {myvar}
-        path = path.replaceAll("\\{([^}]+)\\}", "(?<$1>[^/]+)");
-        // Allow trailing slash
-        path = "^" + path + "[/\\s]*$";
+    private static SingleFlight findSingleFlight(Method method, JaxRsMeta meta) {
+        // Streams are written as they are produced, so they can not be shared as a serialized response
+        if (!HttpMethod.GET.equals(meta.getHttpMethod()) || ReflectionUtil.getAnnotation(method, Stream.class) != null) {
+            return null;
+        }
+        return ReflectionUtil.getAnnotation(method, SingleFlight.class);
+    }
 
-        return Pattern.compile(path);
+    private static Duration findTimeout(Method method, Method instanceMethod) {
+        Timeout timeout = ReflectionUtil.getAnnotation(instanceMethod, Timeout.class);
+        if (timeout == null) {
+            timeout = method.getAnnotation(Timeout.class);
+        }
+        if (timeout == null) {
+            timeout = instanceMethod.getDeclaringClass().getAnnotation(Timeout.class);
+        }
+        if (timeout == null) {
+            timeout = method.getDeclaringClass().getAnnotation(Timeout.class);
+        }
+        return timeout == null ? null : Duration.of(timeout.value(), timeout.unit().toChronoUnit());
     }
 
     /**
@@ -85,15 +114,29 @@ public class JaxRsResource<T> implements Comparable<JaxRsResource> {
         if (!request.hasMethod(meta.getHttpMethod())) {
             return false;
         }
-        if (!request.matchesPath(pathPattern)) {
+        if (!request.matchesPath(pathTemplate)) {
             return false;
         }
         return true;
     }
 
     protected Mono<JaxRsResult<T>> call(JaxRsRequest request) {
-        return request.loadBody()
-            .flatMap(this::resolveArgs)
+        request.useQueryParamNames(queryParamNames);
+        // A body that is not loaded is discarded by the server when the response is completed
+        Mono<JaxRsRequest> requestWithBody = needsBody ? request.loadBody(readsFormParams) : Mono.just(request);
+        if (synchronousArguments) {
+            return requestWithBody
+                .map(loadedRequest -> {
+                    try {
+                        return resolveArgsNow(loadedRequest);
+                    } finally {
+                        loadedRequest.releaseBody();
+                    }
+                })
+                .map(this::call);
+        }
+        return requestWithBody
+            .flatMap(loadedRequest -> resolveArgs(loadedRequest).doFinally(signal -> loadedRequest.releaseBody()))
             .map(this::call);
     }
 
@@ -102,6 +145,15 @@ public class JaxRsResource<T> implements Comparable<JaxRsResource> {
         return resultFactory.create(output, args);
     }
 
+    /**
+     * Call the resource and serialize the whole response, so that it can be shared by several requests.
+     * @param request the request
+     * @return the serialized response
+     */
+    Mono<CachedResponse> callAndSerialize(JaxRsRequest request) {
+        return call(request).flatMap(JaxRsResult::serialize);
+    }
+
     private Function<Object[], Flux<T>> createMethodCaller(Method method, Object resourceInstance) {
         Class<?> returnType = method.getReturnType();
         Function<Object, Flux<T>> fluxConverter = FluxRxConverter.converterToFlux(returnType);
@@ -118,18 +170,25 @@ public class JaxRsResource<T> implements Comparable<JaxRsResource> {
                     method, returnType));
         }
 
+        MethodInvoker methodInvoker = ReflectionUtil.methodInvoker(method, resourceInstance);
         return args -> {
             try {
-                Object result = method.invoke(resourceInstance, args);
+                Object result = methodInvoker.invoke(args);
                 return fluxConverter.apply(result);
-            } catch (InvocationTargetException e) {
-                return Flux.error(e.getTargetException());
             } catch (Throwable e) {
                 return Flux.error(e);
             }
         };
     }
 
+    private Object[] resolveArgsNow(JaxRsRequest request) {
+        Object[] args = new Object[argumentExtractors.size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = ((SynchronousParamResolver<?>)argumentExtractors.get(i)).resolveNow(request);
+        }
+        return args;
+    }
+
     @SuppressWarnings("unchecked")
     private Mono<Object[]> resolveArgs(JaxRsRequest request) {
         if (argumentExtractors.isEmpty()) {
@@ -211,6 +270,34 @@ public class JaxRsResource<T> implements Comparable<JaxRsResource> {
         return meta.getFullPath();
     }
 
+    /**
+     * Get the {@link SingleFlight} annotation of a GET resource.
+     * @return the annotation, or null if the calls of this resource should not be shared
+     */
+    SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * Check if the resource is a {@link Stream}, which is written as it is produced and may be open for a long time.
+     * @return whether the resource is a stream
+     */
+    boolean isStream() {
+        return instanceMethod.isAnnotationPresent(Stream.class);
+    }
+
+    /**
+     * Get the {@link Timeout} of the resource method or class.
+     * @return the time a call may take, or null if the resource has no timeout of its own
+     */
+    Duration getTimeout() {
+        return timeout;
+    }
+
+    PathTemplate getPathTemplate() {
+        return pathTemplate;
+    }
+
     /**
      * @return If the method defining the resource has been annotated with {@link Deprecated}
      */
@@ -0,0 +1,167 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the resource for a request using a tree of path segments per http method, instead of trying the path pattern
+ * of every resource.
+ *
+ * <p>Paths made up of literal segments and plain variables ({@code {myvar}}) are placed in the tree. Paths using
+ * custom regex variables ({@code {myvar:myregex}}) or regex characters are matched by their path pattern, like before.
+ * The order of the resource list is kept as precedence, so the first resource in the list that can handle a request is
+ * always the one returned.</p>
+ */
+class JaxRsResourceRouter {
+    private final List<JaxRsResource> resources;
+    private final Map<HttpMethod, Node> trees = new HashMap<>();
+    private final Map<HttpMethod, List<Integer>> patternMatchedResources = new HashMap<>();
+
+    JaxRsResourceRouter(List<JaxRsResource> resources) {
+        this.resources = resources;
+        for (int index = 0; index < resources.size(); index++) {
+            JaxRsResource resource = resources.get(index);
+            HttpMethod httpMethod = resource.getHttpMethod();
+            String[] segments = resource.getPathTemplate().getSegments();
+            if (segments == null) {
+                patternMatchedResources.computeIfAbsent(httpMethod, key -> new ArrayList<>()).add(index);
+            } else {
+                trees.computeIfAbsent(httpMethod, key -> new Node()).add(segments, 0, index);
+            }
+        }
+    }
+
+    /**
+     * Find the first resource that can handle the request.
+     *
+     * @param request the request
+     * @return the resource, or null if no resource matches
+     */
+    JaxRsResource<?> findResource(JaxRsRequest request) {
+        String path = normalizePath(request.getPath());
+        if (path == null) {
+            return findResourceByPattern(request);
+        }
+
+        Node tree = trees.get(request.getMethod());
+        int best = tree == null ? Integer.MAX_VALUE : tree.find(path, 0, Integer.MAX_VALUE);
+
+        List<Integer> candidates = patternMatchedResources.get(request.getMethod());
+        if (candidates != null) {
+            for (int index : candidates) {
+                if (index >= best) {
+                    break;
+                }
+                JaxRsResource<?> resource = resources.get(index);
+                if (resource.canHandleRequest(request)) {
+                    return resource;
+                }
+            }
+        }
+
+        if (best == Integer.MAX_VALUE) {
+            return null;
+        }
+
+        // Matching also records the positions of the path params in the request
+        JaxRsResource<?> resource = resources.get(best);
+        if (resource.canHandleRequest(request)) {
+            return resource;
+        }
+        return findResourceByPattern(request);
+    }
+
+    private JaxRsResource<?> findResourceByPattern(JaxRsRequest request) {
+        for (JaxRsResource<?> resource : resources) {
+            if (resource.canHandleRequest(request)) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes trailing slashes from the path. Paths that are not absolute or contain whitespace or control characters
+     * are left to the path patterns, which handle these cases in their own way.
+     *
+     * @param path the request path
+     * @return the normalized path, or null if the path must be matched by pattern
+     */
+    private static String normalizePath(String path) {
+        if (path == null || (!path.isEmpty() && path.charAt(0) != '/')) {
+            return null;
+        }
+        int end = path.length();
+        for (int i = 0; i < end; i++) {
+            if (path.charAt(i) <= ' ') {
+                return null;
+            }
+        }
+        while (end > 0 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(0, end);
+    }
+
+    private static class Node {
+        private final Map<String, Node> literalChildren = new HashMap<>();
+        private Node variableChild;
+        private int resourceIndex = Integer.MAX_VALUE;
+        private int lowestIndex = Integer.MAX_VALUE;
+
+        private void add(String[] segments, int depth, int index) {
+            lowestIndex = Math.min(lowestIndex, index);
+            if (depth == segments.length) {
+                resourceIndex = Math.min(resourceIndex, index);
+                return;
+            }
+            String segment = segments[depth];
+            Node child;
+            if (PathTemplate.isVariableSegment(segment)) {
+                if (variableChild == null) {
+                    variableChild = new Node();
+                }
+                child = variableChild;
+            } else {
+                child = literalChildren.computeIfAbsent(segment, key -> new Node());
+            }
+            child.add(segments, depth + 1, index);
+        }
+
+        /**
+         * Find the lowest resource index below this node that matches the rest of the path.
+         *
+         * @param path  the normalized path
+         * @param from  the position of the slash before the next segment, or the path length if all segments are used
+         * @param best  the lowest index found so far
+         * @return the lowest index found
+         */
+        private int find(String path, int from, int best) {
+            if (lowestIndex >= best) {
+                return best;
+            }
+            if (from == path.length()) {
+                return Math.min(best, resourceIndex);
+            }
+            int segmentStart = from + 1;
+            int segmentEnd = path.indexOf('/', segmentStart);
+            if (segmentEnd == -1) {
+                segmentEnd = path.length();
+            }
+            if (!literalChildren.isEmpty()) {
+                Node literalChild = literalChildren.get(path.substring(segmentStart, segmentEnd));
+                if (literalChild != null) {
+                    best = literalChild.find(path, segmentEnd, best);
+                }
+            }
+            if (variableChild != null && segmentEnd > segmentStart) {
+                best = variableChild.find(path, segmentEnd, best);
+            }
+            return best;
+        }
+    }
+}
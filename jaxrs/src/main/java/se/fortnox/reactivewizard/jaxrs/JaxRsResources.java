@@ -1,7 +1,12 @@
 package se.fortnox.reactivewizard.jaxrs;
 
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se.fortnox.reactivewizard.metrics.Metrics;
+import se.fortnox.reactivewizard.util.CompoundKey;
 
 import java.util.List;
 
@@ -9,15 +14,42 @@ public class JaxRsResources {
     private static final Logger log = LoggerFactory.getLogger(JaxRsResources.class);
     private final Object[] services;
     private List<JaxRsResource> resources;
+    private JaxRsResourceRouter router;
     private boolean reloadClasses;
     private JaxRsResourceFactory jaxRsResourceFactory;
+    private final Cache<CompoundKey, CachedRoute> routeCache;
+    private final Counter routeCacheHits;
+    private final Counter routeCacheMisses;
 
     public JaxRsResources(Object[] services, JaxRsResourceFactory jaxRsResourceFactory, Boolean classReloading) {
+        this(services, jaxRsResourceFactory, classReloading, 0);
+    }
+
+    /**
+     * Create resources from services.
+     * @param services the services
+     * @param jaxRsResourceFactory the factory creating the resources
+     * @param classReloading whether resources should be recreated for every request
+     * @param routeCacheSize max number of cached (http method, path) lookups, 0 to disable the cache
+     */
+    public JaxRsResources(Object[] services, JaxRsResourceFactory jaxRsResourceFactory, Boolean classReloading, int routeCacheSize) {
         this.services = services;
         this.reloadClasses = classReloading;
         this.jaxRsResourceFactory = jaxRsResourceFactory;
 
         this.resources = jaxRsResourceFactory.createResources(services);
+        this.router = new JaxRsResourceRouter(resources);
+
+        // Cached lookups would point at stale resources when classes are reloaded
+        if (routeCacheSize > 0 && !reloadClasses) {
+            this.routeCache = CacheBuilder.newBuilder().maximumSize(routeCacheSize).build();
+            this.routeCacheHits = Metrics.registry().counter("JAXRS_routeCache:hit");
+            this.routeCacheMisses = Metrics.registry().counter("JAXRS_routeCache:miss");
+        } else {
+            this.routeCache = null;
+            this.routeCacheHits = null;
+            this.routeCacheMisses = null;
+        }
 
         StringBuilder sb = new StringBuilder();
         for (JaxRsResource r : resources) {
@@ -36,13 +68,40 @@ public class JaxRsResources {
     public JaxRsResource<?> findResource(JaxRsRequest request) {
         if (reloadClasses) {
             resources = jaxRsResourceFactory.createResources(services);
+            router = new JaxRsResourceRouter(resources);
+        }
+
+        if (routeCache == null) {
+            return router.findResource(request);
         }
 
-        for (JaxRsResource<?> r : resources) {
-            if (r.canHandleRequest(request)) {
-                return r;
+        CompoundKey key = new CompoundKey(request.getMethod(), request.getPath());
+        CachedRoute cachedRoute = routeCache.getIfPresent(key);
+        if (cachedRoute != null) {
+            routeCacheHits.inc();
+            return cachedRoute.applyOn(request);
+        }
+
+        routeCacheMisses.inc();
+        JaxRsResource<?> resource = router.findResource(request);
+        if (resource != null) {
+            routeCache.put(key, new CachedRoute(resource, request.getPathParamOffsets()));
+        }
+        return resource;
+    }
+
+    /**
+     * A resource found for a (http method, path) pair, together with the positions of its path params in the path.
+     */
+    private record CachedRoute(JaxRsResource<?> resource, int[] pathParamOffsets) {
+        private JaxRsResource<?> applyOn(JaxRsRequest request) {
+            if (pathParamOffsets == null) {
+                // Paths matched by regex need a Matcher of their own for extracting path params
+                resource.canHandleRequest(request);
+            } else {
+                request.usePathMatch(resource.getPathTemplate(), pathParamOffsets);
             }
+            return resource;
         }
-        return null;
     }
 }
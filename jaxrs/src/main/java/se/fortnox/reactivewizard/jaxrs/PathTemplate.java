@@ -0,0 +1,226 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import java.util.regex.Pattern;
+
+/**
+ * A compiled resource path, like {@code /items/{id}}.
+ *
+ * <p>Paths made up of literal segments and plain variables ({@code {myvar}}) are matched segment by segment, and the
+ * position of each variable in the request path is recorded so that its value can be extracted when asked for. Paths
+ * with custom regex variables ({@code {myvar:myregex}}) or regex characters are matched using a regex pattern.</p>
+ *
+ * <p>Both ways of matching accept the same paths, including any trailing slashes and whitespace.</p>
+ */
+public class PathTemplate {
+    private static final String REGEX_CHARACTERS = "\\^$.|?*+()[]{}";
+    private static final int[] NO_OFFSETS = new int[0];
+
+    private final String path;
+    private final Pattern pattern;
+    private final String[] segments;
+    private final String[] variableNames;
+    private final int variableCount;
+
+    /**
+     * Compile a resource path.
+     *
+     * @param path the full path of a resource
+     */
+    public PathTemplate(String path) {
+        this.path = path;
+        // Always compiled, so that invalid paths are reported when the resource is created
+        this.pattern = createPathPattern(path);
+        this.segments = createSegments(path);
+
+        if (segments == null) {
+            this.variableNames = null;
+            this.variableCount = 0;
+        } else {
+            this.variableNames = new String[segments.length];
+            int count = 0;
+            for (int i = 0; i < segments.length; i++) {
+                if (isVariableSegment(segments[i])) {
+                    variableNames[i] = segments[i].substring(1, segments[i].length() - 1);
+                    count++;
+                }
+            }
+            this.variableCount = count;
+        }
+    }
+
+    private static Pattern createPathPattern(String path) {
+        // Vars with custom regex, like this: {myvar:myregex}
+        path = path.replaceAll("\\{([^}]+):([^}]+)\\}", "(?<$1>$2)");
+        // Vars without custom regex, like this: {myvar}
+        path = path.replaceAll("\\{([^}]+)\\}", "(?<$1>[^/]+)");
+        // Allow trailing slash
+        path = "^" + path + "[/\\s]*$";
+
+        return Pattern.compile(path);
+    }
+
+    /**
+     * Splits the path into segments, or returns null if the path must be matched by its regex pattern.
+     */
+    private static String[] createSegments(String path) {
+        if (path.isEmpty()) {
+            return new String[0];
+        }
+        if (path.charAt(0) != '/') {
+            return null;
+        }
+        String[] segments = path.substring(1).split("/", -1);
+        for (String segment : segments) {
+            if (segment.isEmpty() || !(isVariableSegment(segment) || isLiteral(segment))) {
+                return null;
+            }
+        }
+        return segments;
+    }
+
+    static boolean isVariableSegment(String segment) {
+        if (segment.length() < 3 || segment.charAt(0) != '{' || segment.charAt(segment.length() - 1) != '}') {
+            return false;
+        }
+        for (int i = 1; i < segment.length() - 1; i++) {
+            char character = segment.charAt(i);
+            if (character == '{' || character == '}' || character == ':') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (REGEX_CHARACTERS.indexOf(segment.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Match a request path against this template, without using regex.
+     *
+     * @param requestPath the request path
+     * @return the start and end offsets of each variable in the request path, or null if the path does not match
+     * @throws IllegalStateException if this template must be matched by its pattern
+     */
+    int[] matchSegments(String requestPath) {
+        if (segments == null) {
+            throw new IllegalStateException("Path " + path + " must be matched by pattern");
+        }
+        if (segments.length == 0) {
+            return isTrailer(requestPath, 0) ? NO_OFFSETS : null;
+        }
+
+        int[] offsets = null;
+        int variable = 0;
+        int position = 0;
+        for (int i = 0; i < segments.length; i++) {
+            if (position >= requestPath.length() || requestPath.charAt(position) != '/') {
+                return null;
+            }
+            int segmentStart = position + 1;
+            int segmentEnd = requestPath.indexOf('/', segmentStart);
+            if (segmentEnd == -1) {
+                segmentEnd = requestPath.length();
+            }
+
+            if (variableNames[i] != null) {
+                if (segmentEnd == segmentStart) {
+                    return null;
+                }
+                if (offsets == null) {
+                    offsets = new int[variableCount * 2];
+                }
+                offsets[variable++] = segmentStart;
+                offsets[variable++] = segmentEnd;
+                position = segmentEnd;
+            } else {
+                String literal = segments[i];
+                if (!requestPath.startsWith(literal, segmentStart)) {
+                    return null;
+                }
+                position = segmentStart + literal.length();
+                // Only the last segment may be followed by something other than a slash, which is then checked below
+                if (i < segments.length - 1 && position != segmentEnd) {
+                    return null;
+                }
+            }
+        }
+
+        if (!isTrailer(requestPath, position)) {
+            return null;
+        }
+        return offsets == null ? NO_OFFSETS : offsets;
+    }
+
+    /**
+     * Checks that the rest of the path is allowed after a match, the same way as the end of the regex pattern.
+     */
+    private static boolean isTrailer(String requestPath, int from) {
+        for (int i = from; i < requestPath.length(); i++) {
+            char character = requestPath.charAt(i);
+            if (character != '/' && !isWhitespace(character)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(char character) {
+        return character == ' ' || (character >= '\t' && character <= '\r');
+    }
+
+    /**
+     * Get the index of a variable, as used in the offsets returned by {@link #matchSegments(String)}.
+     *
+     * @param name the variable name
+     * @return the index, or -1 if there is no variable with that name
+     */
+    int variableIndex(String name) {
+        if (variableNames == null) {
+            return -1;
+        }
+        int index = 0;
+        for (String variableName : variableNames) {
+            if (variableName != null) {
+                if (variableName.equals(name)) {
+                    return index;
+                }
+                index++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether this template is matched segment by segment rather than by its regex pattern
+     */
+    boolean isSegmentMatched() {
+        return segments != null;
+    }
+
+    /**
+     * @return the segments of the path, where variables are written as {@code {myvar}}, or null if the path is matched
+     *     by its regex pattern
+     */
+    String[] getSegments() {
+        return segments;
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
@@ -0,0 +1,152 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decodes application/x-www-form-urlencoded bodies and query strings in a single pass, with the same rules as Netty's
+ * {@link QueryStringDecoder}: parameters are separated by '&amp;' or ';', names without a value get an empty value, and
+ * at most 1024 parameters are decoded.
+ */
+class UrlEncodedFormDecoder {
+    private static final int MAX_PARAMS = 1024;
+
+    private UrlEncodedFormDecoder() {
+    }
+
+    /**
+     * Decode a form.
+     *
+     * @param body the body, which is not modified
+     * @return the values of each parameter
+     * @throws IllegalArgumentException if the body contains an invalid escape sequence
+     */
+    static Map<String, List<String>> decode(ByteBuf body) {
+        Map<String, List<String>> parameters = new HashMap<>();
+        int end = body.writerIndex();
+        int nameStart = body.readerIndex();
+        int valueStart = -1;
+        int params = 0;
+        for (int i = nameStart; i <= end && params < MAX_PARAMS; i++) {
+            byte character = i < end ? body.getByte(i) : (byte)'&';
+            if (character == '=' && valueStart == -1) {
+                valueStart = i + 1;
+            } else if (character == '&' || character == ';') {
+                if (addParam(parameters, body, nameStart, valueStart, i)) {
+                    params++;
+                }
+                nameStart = i + 1;
+                valueStart = -1;
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Decode the query string of an uri.
+     *
+     * @param uri the uri
+     * @param names the names of the params to decode, or null to decode all params
+     * @return the values of each decoded parameter
+     * @throws IllegalArgumentException if the query string contains an invalid escape sequence
+     */
+    static Map<String, List<String>> decodeQuery(String uri, Set<String> names) {
+        Map<String, List<String>> parameters = new HashMap<>();
+        int queryStart = uri.indexOf('?');
+        if (queryStart == -1) {
+            return parameters;
+        }
+        int end = uri.indexOf('#', queryStart);
+        if (end == -1) {
+            end = uri.length();
+        }
+        int nameStart = queryStart + 1;
+        int valueStart = -1;
+        int params = 0;
+        for (int i = nameStart; i <= end && params < MAX_PARAMS; i++) {
+            char character = i < end ? uri.charAt(i) : '&';
+            if (character == '=' && valueStart == -1) {
+                valueStart = i + 1;
+            } else if (character == '&' || character == ';') {
+                int nameEnd = valueStart == -1 ? i : valueStart - 1;
+                if (nameEnd > nameStart) {
+                    params++;
+                    String name = decodeComponent(uri, nameStart, nameEnd);
+                    // Values of params that are not asked for are never decoded
+                    if (names == null || names.contains(name)) {
+                        String value = valueStart == -1 ? "" : decodeComponent(uri, valueStart, i);
+                        parameters.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+                    }
+                }
+                nameStart = i + 1;
+                valueStart = -1;
+            }
+        }
+        return parameters;
+    }
+
+    private static boolean addParam(Map<String, List<String>> parameters, ByteBuf body, int nameStart, int valueStart, int end) {
+        int nameEnd = valueStart == -1 ? end : valueStart - 1;
+        if (nameEnd <= nameStart) {
+            return false;
+        }
+        String name = decodeComponent(body, nameStart, nameEnd);
+        String value = valueStart == -1 ? "" : decodeComponent(body, valueStart, end);
+        parameters.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+        return true;
+    }
+
+    private static String decodeComponent(ByteBuf body, int start, int end) {
+        boolean escaped = false;
+        for (int i = start; i < end; i++) {
+            byte character = body.getByte(i);
+            if (character == '%' || character == '+') {
+                escaped = true;
+                break;
+            }
+        }
+        if (!escaped) {
+            return body.toString(start, end - start, StandardCharsets.UTF_8);
+        }
+
+        byte[] decoded = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte character = body.getByte(i);
+            if (character == '+') {
+                decoded[length++] = ' ';
+            } else if (character == '%') {
+                if (i + 2 >= end) {
+                    throw new IllegalArgumentException("Unterminated escape sequence at index " + (i - start));
+                }
+                int high = Character.digit(body.getByte(i + 1), 16);
+                int low = Character.digit(body.getByte(i + 2), 16);
+                if (high == -1 || low == -1) {
+                    throw new IllegalArgumentException("Invalid hex digits in escape sequence at index " + (i - start));
+                }
+                decoded[length++] = (byte)((high << 4) + low);
+                i += 2;
+            } else {
+                decoded[length++] = character;
+            }
+        }
+        return new String(decoded, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static String decodeComponent(String uri, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char character = uri.charAt(i);
+            if (character == '%' || character == '+') {
+                return QueryStringDecoder.decodeComponent(uri.substring(start, end), StandardCharsets.UTF_8);
+            }
+        }
+        return uri.substring(start, end);
+    }
+}
@@ -3,6 +3,8 @@ package se.fortnox.reactivewizard.jaxrs.params;
 import reactor.core.publisher.Mono;
 import se.fortnox.reactivewizard.jaxrs.JaxRsRequest;
 
+import java.util.Set;
+
 /**
  * Interface for resolving custom parameter types from an incoming request. You can use this to implement authentication
  * for example.
@@ -11,4 +13,34 @@ import se.fortnox.reactivewizard.jaxrs.JaxRsRequest;
  */
 public interface ParamResolver<T> {
     Mono<T> resolve(JaxRsRequest request);
+
+    /**
+     * Resolvers that do not read the request body may return false here. When no parameter of a resource method needs
+     * the body, the body is not loaded before the method is called.
+     *
+     * @return whether the request body must be loaded before {@link #resolve(JaxRsRequest)} is called
+     */
+    default boolean needsBody() {
+        return true;
+    }
+
+    /**
+     * Resolvers that read form params should return true here. A multipart body is then decoded into form params while it
+     * is received, instead of being loaded as it is.
+     *
+     * @return whether {@link #resolve(JaxRsRequest)} reads form params
+     */
+    default boolean readsFormParams() {
+        return false;
+    }
+
+    /**
+     * Resolvers that read query params should return their names here, so that only the declared params are decoded.
+     * Params that are not declared can still be read, at the cost of decoding all params.
+     *
+     * @return the names of the query params read by {@link #resolve(JaxRsRequest)}
+     */
+    default Set<String> getQueryParamNames() {
+        return Set.of();
+    }
 }
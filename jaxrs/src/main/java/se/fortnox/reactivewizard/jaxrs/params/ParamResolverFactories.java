@@ -1,27 +1,37 @@
 package se.fortnox.reactivewizard.jaxrs.params;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import reactor.core.publisher.Mono;
+import reactor.core.publisher.Flux;
+import se.fortnox.reactivewizard.jaxrs.JaxRsRequest;
 import se.fortnox.reactivewizard.jaxrs.WebException;
 import se.fortnox.reactivewizard.jaxrs.params.annotated.AnnotatedParamResolverFactories;
 import se.fortnox.reactivewizard.jaxrs.params.annotated.AnnotatedParamResolverFactory;
 import se.fortnox.reactivewizard.jaxrs.params.deserializing.BodyDeserializer;
 import se.fortnox.reactivewizard.jaxrs.params.deserializing.DeserializerException;
 import se.fortnox.reactivewizard.jaxrs.params.deserializing.DeserializerFactory;
+import se.fortnox.reactivewizard.json.JsonArrayParser;
+import se.fortnox.reactivewizard.json.Types;
 import se.fortnox.reactivewizard.util.ReflectionUtil;
 
 import javax.ws.rs.DefaultValue;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 
 /**
@@ -96,24 +106,33 @@ public class ParamResolverFactories {
             }
         }
 
+        if (Flux.class.equals(ReflectionUtil.getRawType(paramType.getType()))) {
+            ParamResolver<T> streamingBodyResolver = createStreamingBodyResolver(paramType, consumesAnnotation);
+            if (streamingBodyResolver != null) {
+                return streamingBodyResolver;
+            }
+        }
+
         BodyDeserializer<T> bodyDeserializer = deserializerFactory.getBodyDeserializer(paramType, consumesAnnotation);
         if (bodyDeserializer != null) {
-            return request -> {
-                T deserializedBody = deserializeBody(bodyDeserializer, request.getBody());
-
-                if (Objects.isNull(deserializedBody)) {
-                    String body = new String(request.getBody(), StandardCharsets.UTF_8);
-                    LOG.warn("Body deserializer returned null when deserializing body: '{}'", body);
-                    return Mono.error(new WebException(HttpResponseStatus.BAD_REQUEST));
-                }
-
-                return Mono.just(deserializedBody);
-            };
+            return new BodyParamResolver<>(bodyDeserializer, deserializerFactory.getFormatBodyDeserializers(paramType, consumesAnnotation));
         }
 
         throw new RuntimeException("Could not find any deserializer for param of type " + paramType.getType());
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> ParamResolver<T> createStreamingBodyResolver(TypeReference<T> paramType, String[] consumesAnnotation) {
+        Type itemType = paramType.getType() instanceof ParameterizedType parameterizedType
+            ? parameterizedType.getActualTypeArguments()[0]
+            : Object.class;
+        Supplier<JsonArrayParser<Object>> parserFactory = deserializerFactory.getStreamingBodyParser(Types.toReference(itemType), consumesAnnotation);
+        if (parserFactory == null) {
+            return null;
+        }
+        return (ParamResolver<T>)new StreamingBodyParamResolver<>(parserFactory);
+    }
+
     /**
      * Find the value of the DefaultValue annotation.
      * @param parameterAnnotations the annotations
@@ -148,4 +167,55 @@ public class ParamResolverFactories {
             throw new WebException(HttpResponseStatus.BAD_REQUEST, deserializerException.getMessage());
         }
     }
+
+    private <T> T deserializeBody(BodyDeserializer<T> deserializer, ByteBuf value) {
+        try {
+            return deserializer.deserialize(value);
+        } catch (DeserializerException deserializerException) {
+            throw new WebException(HttpResponseStatus.BAD_REQUEST, deserializerException.getMessage());
+        }
+    }
+
+    /**
+     * Resolves a parameter from the request body, which is already loaded when the parameters are resolved. Bodies in
+     * other formats than the consumed one are deserialized by the deserializer of the Content-Type of the request.
+     */
+    private class BodyParamResolver<T> implements SynchronousParamResolver<T> {
+        private final BodyDeserializer<T>              bodyDeserializer;
+        private final Map<String, BodyDeserializer<T>> formatDeserializers;
+
+        private BodyParamResolver(BodyDeserializer<T> bodyDeserializer, Map<String, BodyDeserializer<T>> formatDeserializers) {
+            this.bodyDeserializer = bodyDeserializer;
+            this.formatDeserializers = formatDeserializers;
+        }
+
+        @Override
+        public T resolveNow(JaxRsRequest request) {
+            BodyDeserializer<T> deserializer = getBodyDeserializer(request);
+            T deserializedBody = request.getBodyBuffer() == null
+                ? deserializeBody(deserializer, request.getBody())
+                : deserializeBody(deserializer, request.getBodyBuffer());
+
+            if (Objects.isNull(deserializedBody)) {
+                String body = new String(request.getBody(), StandardCharsets.UTF_8);
+                LOG.warn("Body deserializer returned null when deserializing body: '{}'", body);
+                throw new WebException(HttpResponseStatus.BAD_REQUEST);
+            }
+
+            return deserializedBody;
+        }
+
+        private BodyDeserializer<T> getBodyDeserializer(JaxRsRequest request) {
+            if (formatDeserializers.isEmpty()) {
+                return bodyDeserializer;
+            }
+            String contentType = request.getHeader(HttpHeaderNames.CONTENT_TYPE);
+            if (contentType == null) {
+                return bodyDeserializer;
+            }
+            int parametersStart = contentType.indexOf(';');
+            String mediaType = (parametersStart == -1 ? contentType : contentType.substring(0, parametersStart)).trim();
+            return formatDeserializers.getOrDefault(mediaType.toLowerCase(Locale.ROOT), bodyDeserializer);
+        }
+    }
 }
@@ -46,6 +46,11 @@ public class ParamResolvers {
 
     private Class<?> getResolverTargetClass(ParamResolver paramResolver) {
         try {
+            if (paramResolver instanceof SynchronousParamResolver) {
+                // The resolve method may be the default one of the interface, which does not know the type
+                Method method = paramResolver.getClass().getMethod("resolveNow", JaxRsRequest.class);
+                return ReflectionUtil.getRawType(method.getGenericReturnType());
+            }
             Method method = paramResolver.getClass().getMethod("resolve", JaxRsRequest.class);
             return ReflectionUtil.getRawType(ReflectionUtil.getTypeOfFluxOrMono(method));
         } catch (NoSuchMethodException e) {
@@ -0,0 +1,39 @@
+package se.fortnox.reactivewizard.jaxrs.params;
+
+import reactor.core.publisher.Flux;
+import se.fortnox.reactivewizard.jaxrs.JaxRsRequest;
+import se.fortnox.reactivewizard.json.JsonArrayParser;
+
+import java.util.function.Supplier;
+
+/**
+ * Resolves a {@link Flux} parameter from the request body, which emits the items of a JSON array while the body is
+ * received. The body is not loaded before the resource method is called, so bodies of any size can be consumed, and
+ * the body is only read as fast as the items are requested.
+ *
+ * @param <T> the type of the items
+ */
+public class StreamingBodyParamResolver<T> implements SynchronousParamResolver<Flux<T>> {
+    private final Supplier<JsonArrayParser<T>> parserFactory;
+
+    public StreamingBodyParamResolver(Supplier<JsonArrayParser<T>> parserFactory) {
+        this.parserFactory = parserFactory;
+    }
+
+    @Override
+    public boolean needsBody() {
+        // The body is read by the resource method, so it must not be loaded before
+        return false;
+    }
+
+    @Override
+    public Flux<T> resolveNow(JaxRsRequest request) {
+        return Flux.defer(() -> {
+            JsonArrayParser<T> parser = parserFactory.get();
+            // A prefetch of one chunk lets the demand for items control how fast the body is read
+            return request.streamBody()
+                .concatMapIterable(parser::parse, 1)
+                .concatWith(Flux.defer(() -> Flux.fromIterable(parser.end())));
+        });
+    }
+}
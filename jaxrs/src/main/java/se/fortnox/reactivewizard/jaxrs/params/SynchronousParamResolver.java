@@ -0,0 +1,27 @@
+package se.fortnox.reactivewizard.jaxrs.params;
+
+import reactor.core.publisher.Mono;
+import se.fortnox.reactivewizard.jaxrs.JaxRsRequest;
+
+/**
+ * A {@link ParamResolver} that resolves its value directly from the request, without waiting for anything. When all
+ * parameters of a resource method can be resolved this way, the arguments are resolved without combining a Mono for
+ * each parameter.
+ *
+ * @param <T> the type that this ParamResolver can resolve from a request
+ */
+public interface SynchronousParamResolver<T> extends ParamResolver<T> {
+
+    /**
+     * Resolve the value directly.
+     *
+     * @param request the request, with its body loaded
+     * @return the value, or null if there is none
+     */
+    T resolveNow(JaxRsRequest request);
+
+    @Override
+    default Mono<T> resolve(JaxRsRequest request) {
+        return Mono.justOrEmpty(resolveNow(request));
+    }
+}
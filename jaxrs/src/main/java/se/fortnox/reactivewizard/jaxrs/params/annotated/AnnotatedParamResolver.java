@@ -1,15 +1,14 @@
 package se.fortnox.reactivewizard.jaxrs.params.annotated;
 
 import io.netty.handler.codec.http.HttpResponseStatus;
-import reactor.core.publisher.Mono;
 import se.fortnox.reactivewizard.jaxrs.FieldError;
 import se.fortnox.reactivewizard.jaxrs.JaxRsRequest;
 import se.fortnox.reactivewizard.jaxrs.WebException;
-import se.fortnox.reactivewizard.jaxrs.params.ParamResolver;
+import se.fortnox.reactivewizard.jaxrs.params.SynchronousParamResolver;
 import se.fortnox.reactivewizard.jaxrs.params.deserializing.Deserializer;
 import se.fortnox.reactivewizard.jaxrs.params.deserializing.DeserializerException;
 
-abstract class AnnotatedParamResolver<T> implements ParamResolver<T> {
+abstract class AnnotatedParamResolver<T> implements SynchronousParamResolver<T> {
 
     protected final String          parameterName;
     private final   Deserializer<T> deserializer;
@@ -28,9 +27,14 @@ abstract class AnnotatedParamResolver<T> implements ParamResolver<T> {
     }
 
     @Override
-    public Mono<T> resolve(JaxRsRequest request) {
+    public boolean needsBody() {
+        return false;
+    }
+
+    @Override
+    public T resolveNow(JaxRsRequest request) {
         try {
-            return Mono.justOrEmpty(deserializer.deserialize(getValue(request)));
+            return deserializer.deserialize(getValue(request));
         } catch (DeserializerException deserializerException) {
             throw new WebException(HttpResponseStatus.BAD_REQUEST, new FieldError(parameterName, deserializerException.getMessage()));
         }
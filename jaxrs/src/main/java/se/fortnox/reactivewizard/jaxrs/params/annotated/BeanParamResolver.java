@@ -12,8 +12,10 @@ import se.fortnox.reactivewizard.util.ReflectionUtil;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -21,20 +23,47 @@ import java.util.function.Supplier;
 
 import static java.util.Arrays.asList;
 
-public class BeanParamResolver<T> extends AnnotatedParamResolver<T> {
+public class BeanParamResolver<T> implements ParamResolver<T> {
 
     private static final Object NULL_VALUE = new Object();
 
     private final Function<JaxRsRequest, Mono<T>> resolver;
+    private final boolean                         needsBody;
+    private final Set<String>                     queryParamNames;
+    private final boolean                         readsFormParams;
 
     public BeanParamResolver(Function<JaxRsRequest, Mono<T>> resolver) {
-        super(null, null, null);
-        this.resolver = resolver;
+        this(resolver, true);
     }
 
-    @Override
-    protected String getValue(JaxRsRequest request) {
-        return null;
+    public BeanParamResolver(Function<JaxRsRequest, Mono<T>> resolver, boolean needsBody) {
+        this(resolver, needsBody, Set.of());
+    }
+
+    /**
+     * Create a resolver of a bean param.
+     * @param resolver the resolver of the bean
+     * @param needsBody whether any field of the bean is resolved from the request body
+     * @param queryParamNames the names of the query params that fields of the bean are resolved from
+     */
+    public BeanParamResolver(Function<JaxRsRequest, Mono<T>> resolver, boolean needsBody, Set<String> queryParamNames) {
+        this(resolver, needsBody, queryParamNames, false);
+    }
+
+    /**
+     * Create a resolver of a bean param.
+     * @param resolver the resolver of the bean
+     * @param needsBody whether any field of the bean is resolved from the request body
+     * @param queryParamNames the names of the query params that fields of the bean are resolved from
+     * @param readsFormParams whether any field of the bean is resolved from a form param
+     */
+    public BeanParamResolver(Function<JaxRsRequest, Mono<T>> resolver, boolean needsBody, Set<String> queryParamNames,
+        boolean readsFormParams
+    ) {
+        this.resolver = resolver;
+        this.needsBody = needsBody;
+        this.queryParamNames = queryParamNames;
+        this.readsFormParams = readsFormParams;
     }
 
     @Override
@@ -42,6 +71,21 @@ public class BeanParamResolver<T> extends AnnotatedParamResolver<T> {
         return resolver.apply(request);
     }
 
+    @Override
+    public boolean needsBody() {
+        return needsBody;
+    }
+
+    @Override
+    public Set<String> getQueryParamNames() {
+        return queryParamNames;
+    }
+
+    @Override
+    public boolean readsFormParams() {
+        return readsFormParams;
+    }
+
     public static class Factory implements AnnotatedParamResolverFactory {
 
         private final AnnotatedParamResolverFactories annotatedParamResolverFactories;
@@ -66,6 +110,9 @@ public class BeanParamResolver<T> extends AnnotatedParamResolver<T> {
             Supplier<T> instantiator = ReflectionUtil.instantiator(beanParamCls);
 
             List<BiFunction<T, JaxRsRequest, Mono<T>>> fieldSetters = new ArrayList<>();
+            boolean needsBody = false;
+            boolean readsFormParams = false;
+            Set<String> queryParamNames = new HashSet<>();
 
             for (Field field : getAllDeclaredFields(beanParamCls)) {
                 Annotation[] fieldAnnotations = field.getAnnotations();
@@ -75,6 +122,9 @@ public class BeanParamResolver<T> extends AnnotatedParamResolver<T> {
                         TypeReference<T> fieldType = Types.toReference(field.getGenericType());
                         String defaultFieldValue = ParamResolverFactories.findDefaultValue(asList(fieldAnnotations));
                         ParamResolver<?> fieldResolver = paramResolverFactory.create(fieldType, fieldAnnotation, defaultFieldValue);
+                        needsBody |= fieldResolver.needsBody();
+                        readsFormParams |= fieldResolver.readsFormParams();
+                        queryParamNames.addAll(fieldResolver.getQueryParamNames());
 
                         Optional<BiConsumer<T, Object>> setterOptional = ReflectionUtil.setter(beanParamCls, field.getName());
                         if (setterOptional.isEmpty()) {
@@ -101,7 +151,7 @@ public class BeanParamResolver<T> extends AnnotatedParamResolver<T> {
                 return Flux.merge(runSetters).count().map(count -> instance);
             };
 
-            return new BeanParamResolver<>(resolver);
+            return new BeanParamResolver<>(resolver, needsBody, queryParamNames, readsFormParams);
         }
 
         private <T> BeanParamResolver<T> createForRecord(Class<T> beanParamCls) {
@@ -163,7 +213,11 @@ public class BeanParamResolver<T> extends AnnotatedParamResolver<T> {
                     });
             };
 
-            return new BeanParamResolver<>(resolver);
+            boolean needsBody = constructorArgumentResolvers.stream().anyMatch(ParamResolver::needsBody);
+            boolean readsFormParams = constructorArgumentResolvers.stream().anyMatch(ParamResolver::readsFormParams);
+            Set<String> queryParamNames = new HashSet<>();
+            constructorArgumentResolvers.forEach(argumentResolver -> queryParamNames.addAll(argumentResolver.getQueryParamNames()));
+            return new BeanParamResolver<>(resolver, needsBody, queryParamNames, readsFormParams);
         }
 
         private static List<Field> getAllDeclaredFields(Class<?> type) {
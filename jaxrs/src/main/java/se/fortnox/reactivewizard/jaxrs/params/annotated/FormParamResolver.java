@@ -23,6 +23,16 @@ class FormParamResolver<T> extends AnnotatedParamResolver<T> {
         return request.getFormParam(parameterName, getDefaultValue());
     }
 
+    @Override
+    public boolean needsBody() {
+        return true;
+    }
+
+    @Override
+    public boolean readsFormParams() {
+        return true;
+    }
+
     public static class Factory implements AnnotatedParamResolverFactory {
 
         private final DeserializerFactory deserializerFactory;
@@ -1,6 +1,7 @@
 package se.fortnox.reactivewizard.jaxrs.params.annotated;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import io.netty.util.AsciiString;
 import se.fortnox.reactivewizard.jaxrs.JaxRsRequest;
 import se.fortnox.reactivewizard.jaxrs.params.ParamResolver;
 import se.fortnox.reactivewizard.jaxrs.params.deserializing.Deserializer;
@@ -14,13 +15,17 @@ import java.lang.annotation.Annotation;
  */
 class HeaderParamResolver<T> extends AnnotatedParamResolver<T> {
 
+    private final AsciiString headerName;
+
     public HeaderParamResolver(Deserializer<T> deserializer, Annotation headerParamAnnotation, String defaultValue) {
         super(deserializer, ((HeaderParam)headerParamAnnotation).value(), defaultValue);
+        // The hash code of an AsciiString is computed once, instead of on every lookup
+        this.headerName = AsciiString.cached(parameterName);
     }
 
     @Override
     protected String getValue(JaxRsRequest request) {
-        return request.getHeader(parameterName, getDefaultValue());
+        return request.getHeader(headerName, getDefaultValue());
     }
 
     public static class Factory implements AnnotatedParamResolverFactory {
@@ -8,6 +8,7 @@ import se.fortnox.reactivewizard.jaxrs.params.deserializing.DeserializerFactory;
 
 import javax.ws.rs.QueryParam;
 import java.lang.annotation.Annotation;
+import java.util.Set;
 
 /**
  * Bind a query parameter to a method parameter.
@@ -23,6 +24,11 @@ public class QueryParamResolver<T> extends AnnotatedParamResolver<T> {
         return request.getQueryParam(parameterName, getDefaultValue());
     }
 
+    @Override
+    public Set<String> getQueryParamNames() {
+        return Set.of(parameterName);
+    }
+
     public static class Factory implements AnnotatedParamResolverFactory {
 
         private final DeserializerFactory deserializerFactory;
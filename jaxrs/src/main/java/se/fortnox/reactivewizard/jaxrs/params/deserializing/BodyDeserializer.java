@@ -1,8 +1,22 @@
 package se.fortnox.reactivewizard.jaxrs.params.deserializing;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
 /**
  * Parses an object out of a byte[].
  */
 public interface BodyDeserializer<T> {
     T deserialize(byte[] value) throws DeserializerException;
+
+    /**
+     * Parses an object out of a buffer, without changing its reader index. Copies the buffer to a byte[] unless
+     * overridden.
+     *
+     * @param value the buffer
+     * @return the object
+     */
+    default T deserialize(ByteBuf value) throws DeserializerException {
+        return deserialize(ByteBufUtil.getBytes(value));
+    }
 }
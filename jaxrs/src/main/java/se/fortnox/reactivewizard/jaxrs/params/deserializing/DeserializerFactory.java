@@ -2,13 +2,18 @@ package se.fortnox.reactivewizard.jaxrs.params.deserializing;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.util.StdDateFormat;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
+import se.fortnox.reactivewizard.json.DataFormat;
+import se.fortnox.reactivewizard.json.JsonArrayParser;
 import se.fortnox.reactivewizard.json.JsonDeserializerFactory;
 import se.fortnox.reactivewizard.util.ReflectionUtil;
 
 import javax.annotation.Nullable;
 import javax.ws.rs.core.MediaType;
+import java.io.InputStream;
 import java.lang.reflect.ParameterizedType;
 import java.math.BigDecimal;
 import java.text.DateFormat;
@@ -17,11 +22,13 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static java.util.Map.entry;
 
@@ -43,13 +50,33 @@ public class DeserializerFactory {
 
     private final JsonDeserializerFactory     jsonDeserializerFactory;
     private final Map<Class<?>, Deserializer<?>> stringDeserializers;
+    private final Map<String, JsonDeserializerFactory> formatDeserializerFactories = new LinkedHashMap<>();
 
     @SuppressWarnings("rawtypes")
     @Inject
     public DeserializerFactory(Provider<DateFormat> dateFormatProvider,
         JsonDeserializerFactory jsonDeserializerFactory,
         Set<Deserializer> customDeserializers) {
+        this(dateFormatProvider, jsonDeserializerFactory, customDeserializers, DataFormat.available());
+    }
+
+    /**
+     * Create a factory of deserializers, where JSON bodies can also be sent in other formats.
+     *
+     * @param dateFormatProvider provider of the format of dates
+     * @param jsonDeserializerFactory factory of JSON deserializers
+     * @param customDeserializers deserializers of other types than the built in ones
+     * @param formats the formats that clients may send instead of JSON
+     */
+    @SuppressWarnings("rawtypes")
+    public DeserializerFactory(Provider<DateFormat> dateFormatProvider,
+        JsonDeserializerFactory jsonDeserializerFactory,
+        Set<Deserializer> customDeserializers,
+        List<DataFormat> formats) {
         this.jsonDeserializerFactory = jsonDeserializerFactory;
+        for (DataFormat format : formats) {
+            formatDeserializerFactories.put(format.getMediaType(), jsonDeserializerFactory.forFormat(format));
+        }
 
         stringDeserializers = new HashMap<>(Map.ofEntries(
             entry(Boolean.class, new BooleanDeserializer()),
@@ -134,6 +161,21 @@ public class DeserializerFactory {
         return null;
     }
 
+    /**
+     * Get a parser for bodies that are deserialized while they are received.
+     *
+     * @param itemType the type of the items of the body
+     * @param consumes the consumed media types
+     * @param <T> the type of the items of the body
+     * @return a supplier of a parser for each request, or null if the media type can not be streamed
+     */
+    public <T> Supplier<JsonArrayParser<T>> getStreamingBodyParser(TypeReference<T> itemType, String[] consumes) {
+        if (MediaType.APPLICATION_JSON.equals(consumes[0])) {
+            return () -> jsonDeserializerFactory.createArrayParser(itemType);
+        }
+        return null;
+    }
+
     /**
      * Return the body deserializer for param type.
      *
@@ -148,8 +190,7 @@ public class DeserializerFactory {
         String consume = consumes[0];
 
         if (MediaType.APPLICATION_JSON.equals(consume)) {
-            Function<byte[], T> jsonDeserializer = jsonDeserializerFactory.createByteDeserializer(paramType);
-            return jsonDeserializer::apply;
+            return createBodyDeserializer(jsonDeserializerFactory, paramType);
         } else if (MediaType.TEXT_PLAIN.equals(consume) || MediaType.APPLICATION_OCTET_STREAM.equals(consume)) {
             if (paramType.getType().equals(String.class)) {
                 return bytes -> (T)new String(bytes);
@@ -160,4 +201,38 @@ public class DeserializerFactory {
         }
         return null;
     }
+
+    /**
+     * Return the deserializers of bodies in the other formats that clients may send instead of JSON, such as CBOR or
+     * Smile when they are on the classpath. The deserializer is selected by the Content-Type of each request.
+     *
+     * @param paramType the param type
+     * @param consumes  the consumes requirements
+     * @param <T>       type of deserializer
+     * @return the deserializers by media type, which is empty unless JSON is consumed
+     */
+    public <T> Map<String, BodyDeserializer<T>> getFormatBodyDeserializers(TypeReference<T> paramType, String[] consumes) {
+        Map<String, BodyDeserializer<T>> deserializers = new HashMap<>();
+        if (MediaType.APPLICATION_JSON.equals(consumes[0])) {
+            formatDeserializerFactories.forEach((mediaType, deserializerFactory) ->
+                deserializers.put(mediaType, createBodyDeserializer(deserializerFactory, paramType)));
+        }
+        return deserializers;
+    }
+
+    private static <T> BodyDeserializer<T> createBodyDeserializer(JsonDeserializerFactory deserializerFactory, TypeReference<T> paramType) {
+        Function<byte[], T> byteDeserializer = deserializerFactory.createByteDeserializer(paramType);
+        Function<InputStream, T> streamDeserializer = deserializerFactory.createInputStreamDeserializer(paramType);
+        return new BodyDeserializer<>() {
+            @Override
+            public T deserialize(byte[] value) {
+                return byteDeserializer.apply(value);
+            }
+
+            @Override
+            public T deserialize(ByteBuf value) {
+                return streamDeserializer.apply(new ByteBufInputStream(value.duplicate()));
+            }
+        };
+    }
 }
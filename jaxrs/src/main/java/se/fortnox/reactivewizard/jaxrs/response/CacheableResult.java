@@ -0,0 +1,103 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * A result of a resource with a response cache. If a cached response is given, it is written without subscribing to
+ * the output. Otherwise the serialized output is passed to the cache before the response is written.
+ * <p>
+ * The wrapped result is serialized, and changed, in place of this one, since its status and headers may be changed by
+ * its output until the output completes.
+ *
+ * @param <T> the type of the output
+ */
+class CacheableResult<T> extends JaxRsResult<T> {
+    private final JaxRsResult<T>           result;
+    private final CachedResponse           cachedResponse;
+    private final Consumer<CachedResponse> cache;
+    private final ResponseCompressor       compressor;
+
+    CacheableResult(JaxRsResult<T> result, CachedResponse cachedResponse, Consumer<CachedResponse> cache, ResponseCompressor compressor) {
+        super(result.output, result.responseStatus, result.serializer, result.bufferSerializer, result.staticHeaders);
+        this.result = result;
+        this.cachedResponse = cachedResponse;
+        this.cache = cache;
+        this.compressor = compressor;
+    }
+
+    @Override
+    public HttpResponseStatus getResponseStatus() {
+        return result.getResponseStatus();
+    }
+
+    @Override
+    public JaxRsResult<T> addHeader(String key, String value) {
+        result.addHeader(key, value);
+        return this;
+    }
+
+    @Override
+    public JaxRsResult<T> doOnOutput(Consumer<T> consumer) {
+        result.doOnOutput(consumer);
+        return this;
+    }
+
+    @Override
+    public JaxRsResult<T> doFinally(Runnable runnable) {
+        result.doFinally(runnable);
+        return this;
+    }
+
+    @Override
+    public JaxRsResult<T> doOnEmpty(Runnable action) {
+        result.doOnEmpty(action);
+        return this;
+    }
+
+    @Override
+    public JaxRsResult<T> map(UnaryOperator<Flux<T>> mapFunction) {
+        result.map(mapFunction);
+        return this;
+    }
+
+    @Override
+    public Publisher<Void> write(HttpServerResponse response) {
+        return write(null, response);
+    }
+
+    @Override
+    public Publisher<Void> write(HttpServerRequest request, HttpServerResponse response) {
+        if (cachedResponse != null) {
+            return cachedResponse.write(request, response, compressor);
+        }
+        return serialize()
+            .flatMap(serialized -> Mono.from(serialized.write(request, response, compressor)));
+    }
+
+    /**
+     * Serialize the output, or give the cached response without subscribing to the output. A response that is
+     * serialized is passed to the cache, also when it is shared by a {@link se.fortnox.reactivewizard.jaxrs.SingleFlight}
+     * call rather than written.
+     * @return the serialized response
+     */
+    @Override
+    public Mono<CachedResponse> serialize() {
+        if (cachedResponse != null) {
+            return Mono.just(cachedResponse);
+        }
+        return result.serialize()
+            .doOnNext(serialized -> {
+                if (serialized.isCacheable()) {
+                    cache.accept(serialized);
+                }
+            });
+    }
+}
@@ -0,0 +1,98 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.netty.handler.codec.http.HttpMethod;
+import jakarta.inject.Inject;
+import se.fortnox.reactivewizard.jaxrs.Cacheable;
+import se.fortnox.reactivewizard.jaxrs.JaxRsResource;
+import se.fortnox.reactivewizard.jaxrs.Stream;
+import se.fortnox.reactivewizard.metrics.Metrics;
+import se.fortnox.reactivewizard.util.ReflectionUtil;
+
+import javax.ws.rs.CookieParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Caches the serialized responses of GET resources annotated with {@link Cacheable}. The responses are cached per
+ * resource and value of the path, query, header and cookie params, which are the only params a cached resource may
+ * have, since other params, such as injected ones, may not tell apart the requests of different responses.
+ */
+public class CacheableTransformer implements ResultTransformerFactory {
+    private static final Set<Class<? extends Annotation>> KEY_PARAM_ANNOTATIONS = Set.of(PathParam.class, QueryParam.class,
+        HeaderParam.class, CookieParam.class);
+
+    private final Counter hits      = Metrics.registry().counter("JAXRS_responseCache:hit");
+    private final Counter misses    = Metrics.registry().counter("JAXRS_responseCache:miss");
+    private final Counter evictions = Metrics.registry().counter("JAXRS_responseCache:eviction");
+    private final ResponseCompressor compressor;
+
+    public CacheableTransformer() {
+        this(new ResponseCompressor());
+    }
+
+    @Inject
+    public CacheableTransformer(ResponseCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    @Override
+    public <T> ResultTransformer<T> create(JaxRsResource<T> resource) {
+        Cacheable cacheable = ReflectionUtil.getAnnotation(resource.getResourceMethod(), Cacheable.class);
+        if (cacheable == null
+            || !HttpMethod.GET.equals(resource.getHttpMethod())
+            || ReflectionUtil.getAnnotation(resource.getResourceMethod(), Stream.class) != null) {
+            return null;
+        }
+        assertKeyParams(resource.getResourceMethod());
+
+        Cache<List<Object>, CachedResponse> cache = CacheBuilder.newBuilder()
+            .maximumSize(cacheable.maxEntries())
+            .expireAfterWrite(Duration.ofSeconds(cacheable.ttl()))
+            .<List<Object>, CachedResponse>removalListener(notification -> {
+                if (notification.wasEvicted()) {
+                    evictions.inc();
+                }
+            })
+            .build();
+
+        return (result, args) -> {
+            List<Object> key = Arrays.asList(args.clone());
+            CachedResponse cachedResponse = cache.getIfPresent(key);
+            if (cachedResponse != null) {
+                hits.inc();
+                return new CacheableResult<>(result, cachedResponse, null, compressor);
+            }
+            misses.inc();
+            return new CacheableResult<>(result, null, serialized -> cache.put(key, serialized), compressor);
+        };
+    }
+
+    private static void assertKeyParams(Method method) {
+        List<List<Annotation>> parameterAnnotations = ReflectionUtil.getParameterAnnotations(method);
+        for (int i = 0; i < parameterAnnotations.size(); i++) {
+            if (parameterAnnotations.get(i).stream().noneMatch(annotation -> KEY_PARAM_ANNOTATIONS.contains(annotation.annotationType()))) {
+                throw new IllegalArgumentException(format(
+                    "Can only cache responses of methods with path, query, header and cookie params. Param %d of %s is none of them",
+                    i, method));
+            }
+        }
+    }
+
+    @Override
+    public Integer getPrio() {
+        // Runs last, so that the output is cached as transformed by the other transformers
+        return 1000;
+    }
+}
@@ -0,0 +1,123 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_LENGTH;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_TYPE;
+import static javax.ws.rs.core.HttpHeaders.ETAG;
+import static javax.ws.rs.core.HttpHeaders.IF_NONE_MATCH;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+
+/**
+ * A serialized response, with a strong ETag computed from its body. It can be written to any number of responses,
+ * and keeps the compressed versions of its body.
+ */
+public class CachedResponse {
+    private static final int ETAG_BYTES = 16;
+
+    private final HttpResponseStatus  status;
+    private final Map<String, String> headers;
+    private final byte[]              body;
+    private final String              etag;
+    private final Map<String, byte[]> encodedBodies = new ConcurrentHashMap<>();
+
+    CachedResponse(HttpResponseStatus status, Map<String, String> headers, byte[] body) {
+        if (body.length == 0 && status.codeClass() == HttpStatusClass.SUCCESS) {
+            status = HttpResponseStatus.NO_CONTENT;
+        }
+        this.status = status;
+        this.headers = Map.copyOf(headers);
+        this.body = body;
+        this.etag = createEtag(body);
+    }
+
+    boolean isCacheable() {
+        return status.codeClass() == HttpStatusClass.SUCCESS;
+    }
+
+    String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Write the response, or only its headers with status 304 if the ETag matches the If-None-Match header. The body
+     * is compressed with the encoder selected from the Accept-Encoding header, and kept compressed for later writes.
+     * @param request the request, or null to write the uncompressed response unconditionally
+     * @param response the response
+     * @param compressor the compressor selecting the encoding of the body
+     * @return empty publisher
+     */
+    public Publisher<Void> write(HttpServerRequest request, HttpServerResponse response, ResponseCompressor compressor) {
+        String contentType = headers.get(CONTENT_TYPE);
+        ContentEncoder encoder = null;
+        String ifNoneMatch = null;
+        if (request != null) {
+            encoder = compressor.select(request.requestHeaders().get(ACCEPT_ENCODING), contentType, body.length);
+            ifNoneMatch = request.requestHeaders().get(IF_NONE_MATCH);
+        }
+        // Each encoding is a representation of its own, with an ETag of its own
+        String representationEtag = encoder == null ? etag : etag.substring(0, etag.length() - 1) + '-' + encoder.getName() + '"';
+        boolean varies = compressor.isCompressible(contentType, body.length);
+
+        if (ifNoneMatch != null && matches(ifNoneMatch, representationEtag)) {
+            response.status(HttpResponseStatus.NOT_MODIFIED);
+            response.addHeader(ETAG, representationEtag);
+            if (varies) {
+                response.addHeader(VARY, ACCEPT_ENCODING);
+            }
+            return response.send();
+        }
+
+        byte[] representation = body;
+        response.status(status);
+        headers.forEach(response::addHeader);
+        if (encoder != null) {
+            ContentEncoder selectedEncoder = encoder;
+            representation = encodedBodies.computeIfAbsent(encoder.getName(), name -> selectedEncoder.encode(body));
+            response.addHeader(CONTENT_ENCODING, encoder.getName());
+        }
+        if (varies) {
+            response.addHeader(VARY, ACCEPT_ENCODING);
+        }
+        response.addHeader(ETAG, representationEtag);
+        response.addHeader(CONTENT_LENGTH, String.valueOf(representation.length));
+        return response.sendByteArray(Mono.just(representation));
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        // If-None-Match uses the weak comparison, so a weak validator matches the strong ETag with the same value
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String createEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, ETAG_BYTES)) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
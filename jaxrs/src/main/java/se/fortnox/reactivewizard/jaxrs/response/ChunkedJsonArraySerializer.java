@@ -0,0 +1,109 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import se.fortnox.reactivewizard.json.JsonArrayWriter;
+import se.fortnox.reactivewizard.json.JsonSerializerFactory;
+
+import java.io.OutputStream;
+import java.util.function.Function;
+
+/**
+ * Serializes a Flux to a JSON array, which is emitted as a single buffer as long as it is smaller than the thresholds.
+ * When a threshold is crossed, what has been serialized so far is emitted and each following item is emitted as soon
+ * as it is serialized, so that the response can be sent in chunks without holding all items in memory.
+ *
+ * @param <T> the type of the items
+ */
+class ChunkedJsonArraySerializer<T> implements Function<Flux<T>, Flux<ByteBuf>> {
+    private final JsonSerializerFactory jsonSerializerFactory;
+    private final Class<T>              itemType;
+    private final int                   byteThreshold;
+    private final int                   itemThreshold;
+
+    ChunkedJsonArraySerializer(JsonSerializerFactory jsonSerializerFactory, Class<T> itemType, int byteThreshold, int itemThreshold) {
+        this.jsonSerializerFactory = jsonSerializerFactory;
+        this.itemType = itemType;
+        this.byteThreshold = byteThreshold;
+        this.itemThreshold = itemThreshold;
+    }
+
+    @Override
+    public Flux<ByteBuf> apply(Flux<T> items) {
+        return Flux.defer(() -> {
+            ArrayChunks chunks = new ArrayChunks();
+            return items
+                .<ByteBuf>handle((item, sink) -> {
+                    ByteBuf chunk = chunks.serialize(item);
+                    if (chunk != null) {
+                        sink.next(chunk);
+                    }
+                })
+                .concatWith(Mono.fromCallable(chunks::end))
+                .doFinally(signal -> chunks.release());
+        });
+    }
+
+    /**
+     * The state of one serialized array. The generator writes into the current buffer, which is replaced by a new one
+     * each time it is emitted.
+     */
+    private class ArrayChunks extends OutputStream {
+        private final JsonArrayWriter<T> writer;
+        private       ByteBuf            buffer = PooledByteBufAllocator.DEFAULT.buffer();
+        private       int                itemCount;
+        private       boolean            chunked;
+
+        ArrayChunks() {
+            writer = jsonSerializerFactory.createArrayWriter(itemType, this);
+            writer.start();
+        }
+
+        ByteBuf serialize(T item) {
+            writer.write(item);
+            itemCount++;
+            if (!chunked && !isOverThreshold()) {
+                return null;
+            }
+            chunked = true;
+            return takeBuffer();
+        }
+
+        ByteBuf end() {
+            writer.end();
+            ByteBuf last = buffer;
+            buffer = null;
+            return last;
+        }
+
+        void release() {
+            if (buffer != null) {
+                buffer.release();
+                buffer = null;
+            }
+        }
+
+        @Override
+        public void write(int value) {
+            buffer.writeByte(value);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            buffer.writeBytes(bytes, offset, length);
+        }
+
+        private boolean isOverThreshold() {
+            return (byteThreshold > 0 && buffer.readableBytes() > byteThreshold)
+                || (itemThreshold > 0 && itemCount > itemThreshold);
+        }
+
+        private ByteBuf takeBuffer() {
+            ByteBuf taken = buffer;
+            buffer = PooledByteBufAllocator.DEFAULT.buffer();
+            return taken;
+        }
+    }
+}
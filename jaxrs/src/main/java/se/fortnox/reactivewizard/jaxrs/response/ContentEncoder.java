@@ -0,0 +1,128 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.ZstdEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+
+/**
+ * Encodes response bodies with a content coding, such as gzip.
+ */
+public class ContentEncoder {
+    private final String                name;
+    private final UnaryOperator<byte[]> encoder;
+
+    /**
+     * Create an encoder.
+     * @param name the name of the content coding, which is matched against Accept-Encoding and sent as Content-Encoding
+     * @param encoder function encoding a whole body
+     */
+    public ContentEncoder(String name, UnaryOperator<byte[]> encoder) {
+        this.name = name;
+        this.encoder = encoder;
+    }
+
+    /**
+     * Create a gzip encoder.
+     * @param level the compression level, from 1 to 9
+     * @return the encoder
+     */
+    public static ContentEncoder gzip(int level) {
+        return new ContentEncoder("gzip", body -> encodeWithStream(body, output -> new GZIPOutputStream(output) {
+            {
+                def.setLevel(level);
+            }
+        }));
+    }
+
+    /**
+     * Create a deflate encoder, which sends the zlib format as HTTP requires.
+     * @param level the compression level, from 1 to 9
+     * @return the encoder
+     */
+    public static ContentEncoder deflate(int level) {
+        return new ContentEncoder("deflate", body -> {
+            Deflater deflater = new Deflater(level);
+            try {
+                return encodeWithStream(body, output -> new DeflaterOutputStream(output, deflater));
+            } finally {
+                deflater.end();
+            }
+        });
+    }
+
+    /**
+     * Create a zstd encoder. Needs zstd-jni on the classpath.
+     * @param level the compression level, from 1 to 22
+     * @return the encoder
+     */
+    public static ContentEncoder zstd(int level) {
+        return new ContentEncoder("zstd", body -> encodeWithChannel(body, () -> new ZstdEncoder(level)));
+    }
+
+    /**
+     * Create a brotli encoder with the default quality of Netty. Needs brotli4j on the classpath.
+     * @return the encoder
+     */
+    public static ContentEncoder brotli() {
+        return new ContentEncoder("br", body -> encodeWithChannel(body, () -> new BrotliEncoder()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Encode a body.
+     * @param body the body, which is not modified
+     * @return the encoded body
+     */
+    public byte[] encode(byte[] body) {
+        return encoder.apply(body);
+    }
+
+    private static byte[] encodeWithStream(byte[] body, StreamEncoder streamEncoder) {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(body.length / 4);
+        try (OutputStream output = streamEncoder.wrap(encoded)) {
+            output.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return encoded.toByteArray();
+    }
+
+    private static byte[] encodeWithChannel(byte[] body, Supplier<ChannelHandler> channelEncoder) {
+        EmbeddedChannel channel = new EmbeddedChannel(channelEncoder.get());
+        channel.writeOutbound(wrappedBuffer(body));
+        channel.finish();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(body.length / 4);
+        ByteBuf chunk;
+        while ((chunk = channel.readOutbound()) != null) {
+            try {
+                chunk.readBytes(encoded, chunk.readableBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                chunk.release();
+            }
+        }
+        return encoded.toByteArray();
+    }
+
+    private interface StreamEncoder {
+        OutputStream wrap(OutputStream output) throws IOException;
+    }
+}
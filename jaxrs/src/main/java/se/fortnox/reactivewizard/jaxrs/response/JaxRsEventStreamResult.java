@@ -0,0 +1,32 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.util.function.Function;
+
+/**
+ * Result of a resource that pushes events to the client. Unlike other streaming results, the headers are written
+ * immediately, so that the client knows the stream is open before the first event, which may take long to come.
+ */
+public class JaxRsEventStreamResult<T> extends JaxRsStreamingResult<T> {
+    public JaxRsEventStreamResult(Flux<T> output,
+        HttpResponseStatus responseStatus,
+        Function<Flux<T>, Flux<byte[]>> serializer,
+        Function<Flux<T>, Flux<ByteBuf>> bufferSerializer,
+        HttpHeaders staticHeaders
+    ) {
+        super(output, responseStatus, serializer, bufferSerializer, staticHeaders);
+    }
+
+    @Override
+    public Publisher<Void> write(HttpServerResponse response) {
+        writeStatusAndHeaders(response);
+        // The items are only requested as fast as the channel can write them
+        return response.send(bufferSerializer.apply(output));
+    }
+}
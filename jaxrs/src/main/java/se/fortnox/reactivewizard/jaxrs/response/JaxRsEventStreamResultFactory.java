@@ -0,0 +1,38 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import reactor.core.publisher.Flux;
+import se.fortnox.reactivewizard.jaxrs.JaxRsResource;
+import se.fortnox.reactivewizard.jaxrs.Stream;
+
+/**
+ * Creates results of resources annotated with {@code @Stream(SERVER_SENT_EVENTS)} or {@code @Stream(NDJSON)}, which
+ * are sent as text/event-stream and application/x-ndjson respectively.
+ */
+public class JaxRsEventStreamResultFactory<T> extends JaxRsStreamingResultFactory<T> {
+    static final String TEXT_EVENT_STREAM  = "text/event-stream";
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    public JaxRsEventStreamResultFactory(JaxRsResource<T> resource,
+                                         ResultTransformerFactories resultTransformerFactories,
+                                         JaxRsResultSerializerFactory jaxRsResultSerializerFactory) {
+        super(resource, resultTransformerFactories, jaxRsResultSerializerFactory);
+
+        Stream.Type streamType = resource.getInstanceMethod().getAnnotation(Stream.class).value();
+        if (streamType == Stream.Type.SERVER_SENT_EVENTS) {
+            headers.put("Content-Type", TEXT_EVENT_STREAM);
+            headers.put("Cache-Control", "no-cache");
+        } else {
+            headers.put("Content-Type", APPLICATION_NDJSON);
+        }
+    }
+
+    @Override
+    public JaxRsResult<T> createResult(Flux<T> output, Object[] args) {
+        return new JaxRsEventStreamResult<>(output,
+            responseStatus,
+            serializer,
+            bufferSerializer,
+            getStaticHeaders()
+        );
+    }
+}
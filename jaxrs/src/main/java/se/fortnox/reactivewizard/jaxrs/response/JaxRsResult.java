@@ -1,15 +1,24 @@
 package se.fortnox.reactivewizard.jaxrs.response;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.util.AsciiString;
+import io.netty.util.ReferenceCountUtil;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
 
+import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
@@ -25,15 +34,63 @@ public class JaxRsResult<T> {
     protected static final Mono<byte[]> EMPTY_RESPONSE_MONO = Mono.just(EMPTY_RESPONSE);
 
     protected final Function<Flux<T>, Flux<byte[]>>    serializer;
+    protected final Function<Flux<T>, Flux<ByteBuf>>   bufferSerializer;
+    protected final HttpHeaders         staticHeaders;
     protected final Map<String, String> headers = new HashMap<>();
     protected       Flux<T>             output;
     protected       HttpResponseStatus  responseStatus;
 
     public JaxRsResult(Flux<T> output, HttpResponseStatus responseStatus, Function<Flux<T>, Flux<byte[]>> serializer, Map<String, String> headers) {
+        this(output, responseStatus, serializer, flux -> serializer.apply(flux).map(Unpooled::wrappedBuffer), headers);
+    }
+
+    /**
+     * Create a result.
+     * @param output the output
+     * @param responseStatus the status of the response
+     * @param serializer serializer of the output to byte arrays
+     * @param bufferSerializer serializer of the output to buffers, which is used when the response is written
+     * @param headers the headers of the response
+     */
+    public JaxRsResult(Flux<T> output,
+        HttpResponseStatus responseStatus,
+        Function<Flux<T>, Flux<byte[]>> serializer,
+        Function<Flux<T>, Flux<ByteBuf>> bufferSerializer,
+        Map<String, String> headers
+    ) {
+        this(output, responseStatus, serializer, bufferSerializer, toHttpHeaders(headers));
+    }
+
+    /**
+     * Create a result with headers that are shared by all results of a resource.
+     * @param output the output
+     * @param responseStatus the status of the response
+     * @param serializer serializer of the output to byte arrays
+     * @param bufferSerializer serializer of the output to buffers, which is used when the response is written
+     * @param staticHeaders the headers of every response of the resource, which must not be modified
+     */
+    public JaxRsResult(Flux<T> output,
+        HttpResponseStatus responseStatus,
+        Function<Flux<T>, Flux<byte[]>> serializer,
+        Function<Flux<T>, Flux<ByteBuf>> bufferSerializer,
+        HttpHeaders staticHeaders
+    ) {
         this.output = output;
         this.responseStatus = responseStatus;
         this.serializer     = serializer;
-        this.headers.putAll(headers);
+        this.bufferSerializer = bufferSerializer;
+        this.staticHeaders = staticHeaders;
+    }
+
+    /**
+     * Create headers to be shared by many results, with names and values encoded once.
+     * @param headers the headers
+     * @return the headers, which must not be modified
+     */
+    public static HttpHeaders toHttpHeaders(Map<String, String> headers) {
+        HttpHeaders httpHeaders = new DefaultHttpHeaders();
+        headers.forEach((name, value) -> httpHeaders.add(AsciiString.cached(name), AsciiString.of(value)));
+        return httpHeaders;
     }
 
     public HttpResponseStatus getResponseStatus() {
@@ -74,29 +131,108 @@ public class JaxRsResult<T> {
      * @return empty publisher
      */
     public Publisher<Void> write(HttpServerResponse response) {
-        AtomicBoolean headersWritten = new AtomicBoolean();
+        return writeBuffers(response, bufferSerializer.apply(output));
+    }
+
+    /**
+     * Write the response to a request. Results that depend on the request headers, such as conditional requests,
+     * override this.
+     * @param request the request
+     * @param response the response
+     * @return empty publisher
+     */
+    public Publisher<Void> write(HttpServerRequest request, HttpServerResponse response) {
+        return write(response);
+    }
+
+    /**
+     * Write the serialized output, with a Content-Length if it is a single buffer and chunked otherwise.
+     * @param response the response
+     * @param buffers the serialized output
+     * @return empty publisher
+     */
+    protected Publisher<Void> writeBuffers(HttpServerResponse response, Flux<ByteBuf> buffers) {
+        return Flux.defer(() -> {
+            // Each buffer is held back until the next one is received, to tell whether the whole body is in the first
+            // buffer. A buffer that is held back when the output fails or is cancelled is released.
+            AtomicReference<ByteBuf> heldBack = new AtomicReference<>();
+            return buffers
+                .<Lookahead>handle((buffer, sink) -> {
+                    ByteBuf previous = heldBack.getAndSet(buffer);
+                    if (previous != null) {
+                        sink.next(new Lookahead(previous, false));
+                    }
+                })
+                .concatWith(Mono.fromSupplier(() -> heldBack.getAndSet(null)).map(buffer -> new Lookahead(buffer, true)))
+                .doFinally(signal -> ReferenceCountUtil.safeRelease(heldBack.getAndSet(null)))
+                .switchOnFirst((first, lookaheads) -> {
+                    if (first.hasValue() && !first.get().last()) {
+                        return writeChunked(response, lookaheads.map(Lookahead::buffer));
+                    }
+                    return writeWithContentLength(response, lookaheads.map(Lookahead::buffer));
+                })
+                .doOnDiscard(Lookahead.class, lookahead -> ReferenceCountUtil.safeRelease(lookahead.buffer()));
+        });
+    }
+
+    /**
+     * Serialize the whole output, so that it can be written to any number of responses.
+     * @return the serialized response
+     */
+    public Mono<CachedResponse> serialize() {
         return serializer.apply(output)
+            .collect(ByteArrayOutputStream::new, ByteArrayOutputStream::writeBytes)
+            // The status and headers are read after the output is serialized, since the output may change them
+            .map(body -> new CachedResponse(responseStatus, getAllHeaders(), body.toByteArray()));
+    }
+
+    private Map<String, String> getAllHeaders() {
+        Map<String, String> allHeaders = new HashMap<>();
+        staticHeaders.forEach(header -> allHeaders.put(header.getKey(), header.getValue()));
+        allHeaders.putAll(headers);
+        return allHeaders;
+    }
+
+    /**
+     * Write the status and headers of the response. The headers added to this result replace static headers with the
+     * same names.
+     * @param response the response
+     */
+    protected void writeStatusAndHeaders(HttpServerResponse response) {
+        response.status(responseStatus);
+        response.responseHeaders().add(staticHeaders);
+        headers.forEach(response::header);
+    }
+
+    private Publisher<Void> writeChunked(HttpServerResponse response, Flux<ByteBuf> buffers) {
+        // Without a Content-Length the response is sent with chunked transfer encoding
+        writeStatusAndHeaders(response);
+        return response.send(buffers);
+    }
+
+    private Flux<Void> writeWithContentLength(HttpServerResponse response, Flux<ByteBuf> buffers) {
+        AtomicBoolean headersWritten = new AtomicBoolean();
+        return buffers
             .switchIfEmpty(Flux.defer(() -> {
                 if (responseStatus.codeClass() == HttpStatusClass.SUCCESS) {
                     responseStatus = HttpResponseStatus.NO_CONTENT;
                 }
-                response.status(responseStatus);
-                headers.forEach(response::addHeader);
+                writeStatusAndHeaders(response);
                 response.addHeader(CONTENT_LENGTH, "0");
                 return Flux.empty();
             }))
-            .flatMap(bytes -> {
-                int contentLength = getContentLength(bytes);
+            .flatMap(buffer -> {
+                int contentLength = buffer.readableBytes();
 
                 if (headersWritten.compareAndSet(false, true)) {
-                    response.status(responseStatus);
-                    headers.forEach(response::addHeader);
+                    writeStatusAndHeaders(response);
                     response.addHeader(CONTENT_LENGTH, String.valueOf(contentLength));
                 }
 
                 if (contentLength > 0) {
-                    return response.sendByteArray(Mono.just(bytes));
+                    return response.send(Mono.just(buffer));
                 }
+                buffer.release();
 
                 if (response.status().codeClass() == HttpStatusClass.SUCCESS) {
                     response.status(HttpResponseStatus.NO_CONTENT);
@@ -106,7 +242,9 @@ public class JaxRsResult<T> {
             });
     }
 
-    private int getContentLength(byte[] bytes) {
-        return bytes != null ? bytes.length : 0;
+    /**
+     * A serialized buffer, and whether it is the last one of the output.
+     */
+    private record Lookahead(ByteBuf buffer, boolean last) {
     }
 }
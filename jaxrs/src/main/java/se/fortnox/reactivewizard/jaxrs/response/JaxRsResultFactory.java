@@ -1,10 +1,13 @@
 package se.fortnox.reactivewizard.jaxrs.response;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import reactor.core.publisher.Flux;
 import se.fortnox.reactivewizard.jaxrs.Headers;
 import se.fortnox.reactivewizard.jaxrs.JaxRsResource;
+import se.fortnox.reactivewizard.jaxrs.Stream;
 import se.fortnox.reactivewizard.jaxrs.SuccessStatus;
 import se.fortnox.reactivewizard.util.FluxRxConverter;
 import se.fortnox.reactivewizard.util.ReflectionUtil;
@@ -19,8 +22,11 @@ public class JaxRsResultFactory<T> {
     protected final HttpResponseStatus responseStatus;
     protected final Class<T>           rawReturnType;
     protected Function<Flux<T>, Flux<byte[]>> serializer;
+    protected Function<Flux<T>, Flux<ByteBuf>> bufferSerializer;
+    protected Map<String, Function<Flux<T>, Flux<ByteBuf>>> formatSerializers = Map.of();
     protected final Map<String, String> headers = new HashMap<>();
     private final ResultTransformer<T> transformers;
+    private volatile HttpHeaders staticHeaders;
 
     public JaxRsResultFactory(JaxRsResource<T> resource, ResultTransformerFactories resultTransformerFactories,
                               JaxRsResultSerializerFactory jaxRsResultSerializerFactory) {
@@ -30,6 +36,10 @@ public class JaxRsResultFactory<T> {
 
         boolean isFlux = FluxRxConverter.isFlux(method.getReturnType());
         serializer = jaxRsResultSerializerFactory.createSerializer(resource.getProduces(), rawReturnType, isFlux);
+        bufferSerializer = jaxRsResultSerializerFactory.createByteBufSerializer(resource.getProduces(), rawReturnType, isFlux);
+        if (!resource.getInstanceMethod().isAnnotationPresent(Stream.class)) {
+            formatSerializers = jaxRsResultSerializerFactory.createFormatSerializers(resource.getProduces(), rawReturnType, isFlux);
+        }
 
         transformers = resultTransformerFactories.createTransformers(resource);
 
@@ -55,10 +65,19 @@ public class JaxRsResultFactory<T> {
      * @return the result
      */
     public JaxRsResult<T> createResult(Flux<T> output, Object[] args) {
+        if (!formatSerializers.isEmpty()) {
+            return new NegotiatedJaxRsResult<>(output,
+                responseStatus,
+                serializer,
+                bufferSerializer,
+                getStaticHeaders(),
+                formatSerializers);
+        }
         return new JaxRsResult<>(output,
             responseStatus,
             serializer,
-            headers
+            bufferSerializer,
+            getStaticHeaders()
         );
     }
 
@@ -74,6 +93,20 @@ public class JaxRsResultFactory<T> {
         return result;
     }
 
+    /**
+     * Get the headers of every result, encoded once from the headers of this factory when the first result is created.
+     * @return the headers, which must not be modified
+     */
+    protected HttpHeaders getStaticHeaders() {
+        HttpHeaders encodedHeaders = staticHeaders;
+        if (encodedHeaders == null) {
+            // Subclasses add their headers after this constructor, so they are encoded when they are first used
+            encodedHeaders = JaxRsResult.toHttpHeaders(headers);
+            staticHeaders = encodedHeaders;
+        }
+        return encodedHeaders;
+    }
+
     @SuppressWarnings("unchecked")
     private Class<T> getRawReturnType(Method method) {
         if (FluxRxConverter.isReactiveType(method.getReturnType())) {
@@ -11,7 +11,7 @@ public class JaxRsResultFactoryFactory {
     private final JaxRsResultSerializerFactory jaxRsResultSerializerFactory;
 
     public JaxRsResultFactoryFactory() {
-        this(new ResultTransformerFactories(new ResponseDecoratorTransformer(), new NoContentTransformer()),
+        this(new ResultTransformerFactories(new ResponseDecoratorTransformer(), new NoContentTransformer(), new CacheableTransformer()),
             new JaxRsResultSerializerFactory(new JsonSerializerFactory()));
     }
 
@@ -29,6 +29,10 @@ public class JaxRsResultFactoryFactory {
      */
     public <T> JaxRsResultFactory<T> createResultFactory(JaxRsResource<T> resource) {
         if (isStreamAnnotationPresent(resource)) {
+            Stream.Type streamType = resource.getInstanceMethod().getAnnotation(Stream.class).value();
+            if (streamType == Stream.Type.SERVER_SENT_EVENTS || streamType == Stream.Type.NDJSON) {
+                return new JaxRsEventStreamResultFactory<>(resource, resultTransformerFactories, jaxRsResultSerializerFactory);
+            }
             return new JaxRsStreamingResultFactory<>(resource, resultTransformerFactories, jaxRsResultSerializerFactory);
         }
 
@@ -1,14 +1,27 @@
 package se.fortnox.reactivewizard.jaxrs.response;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import jakarta.inject.Inject;
 import reactor.core.publisher.Flux;
+import se.fortnox.reactivewizard.jaxrs.JaxRsConfig;
 import se.fortnox.reactivewizard.jaxrs.Stream;
+import se.fortnox.reactivewizard.json.DataFormat;
 import se.fortnox.reactivewizard.json.JsonSerializerFactory;
 
 import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import static java.util.Collections.emptyList;
@@ -21,13 +34,35 @@ public class JaxRsResultSerializerFactory {
     private static final byte[] JSON_ARRAY_END = "]".getBytes();
 
     private static final byte[] COMMA = ",".getBytes();
+    private static final byte[] NEWLINE = "\n".getBytes();
+    private static final byte[] EVENT_DATA = "data:".getBytes();
+    private static final byte[] EVENT_HEARTBEAT = ":\n\n".getBytes();
 
     private final JsonSerializerFactory jsonSerializerFactory;
+    private final JaxRsConfig           config;
+    private final Map<String, JsonSerializerFactory> formatSerializerFactories = new LinkedHashMap<>();
 
+    public JaxRsResultSerializerFactory(JsonSerializerFactory jsonSerializerFactory) {
+        this(jsonSerializerFactory, new JaxRsConfig());
+    }
 
     @Inject
-    public JaxRsResultSerializerFactory(JsonSerializerFactory jsonSerializerFactory) {
+    public JaxRsResultSerializerFactory(JsonSerializerFactory jsonSerializerFactory, JaxRsConfig config) {
+        this(jsonSerializerFactory, config, DataFormat.available());
+    }
+
+    /**
+     * Create a factory of serializers, where JSON results can also be serialized to other formats.
+     * @param jsonSerializerFactory factory of JSON serializers
+     * @param config the config
+     * @param formats the formats that clients may ask for instead of JSON, in order of preference
+     */
+    public JaxRsResultSerializerFactory(JsonSerializerFactory jsonSerializerFactory, JaxRsConfig config, List<DataFormat> formats) {
         this.jsonSerializerFactory = jsonSerializerFactory;
+        this.config = config;
+        for (DataFormat format : formats) {
+            formatSerializerFactories.put(format.getMediaType(), jsonSerializerFactory.forFormat(format));
+        }
     }
 
     /**
@@ -59,6 +94,71 @@ public class JaxRsResultSerializerFactory {
         return serializedItems -> serializedItems.map(object -> object.toString().getBytes());
     }
 
+    /**
+     * Creates a non streaming result serializer that writes JSON directly into pooled buffers, instead of into byte
+     * arrays. The buffers are released when they are written to the response. JSON arrays that are larger than the
+     * thresholds in {@link JaxRsConfig} are emitted in several buffers, as they are serialized.
+     * @param type Content-Type
+     * @param dataCls Return type of the resource method
+     * @param returnTypeIsFlux True if it is a flux, false otherwise
+     * @param <T> Type of elements emitted by the publisher
+     * @return a function that serializes the elements emitted by a publisher to a Flux of buffers.
+     */
+    public <T> Function<Flux<T>, Flux<ByteBuf>> createByteBufSerializer(String type, Class<T> dataCls, boolean returnTypeIsFlux) {
+        if (type.equals(MediaType.APPLICATION_JSON)) {
+            return createByteBufSerializer(jsonSerializerFactory, dataCls, returnTypeIsFlux);
+        }
+        Function<Flux<T>, Flux<byte[]>> serializer = createSerializer(type, dataCls, returnTypeIsFlux);
+        return serializedItems -> serializer.apply(serializedItems).map(Unpooled::wrappedBuffer);
+    }
+
+    private <T> Function<Flux<T>, Flux<ByteBuf>> createByteBufSerializer(JsonSerializerFactory serializerFactory, Class<T> dataCls,
+        boolean returnTypeIsFlux
+    ) {
+        if (!returnTypeIsFlux) {
+            var outputStreamSerializer = serializerFactory.createOutputStreamSerializer(dataCls);
+            return serializedItems -> serializedItems.map(item -> writeToBuffer(outputStreamSerializer, item));
+        } else if (config.getChunkedResponseByteThreshold() > 0 || config.getChunkedResponseItemThreshold() > 0) {
+            return new ChunkedJsonArraySerializer<>(serializerFactory,
+                dataCls,
+                config.getChunkedResponseByteThreshold(),
+                config.getChunkedResponseItemThreshold());
+        } else {
+            var listToOutputStreamSerializer = serializerFactory.createListToOutputStreamSerializer(dataCls);
+            return serializedItems -> serializedItems.buffer()
+                .defaultIfEmpty(emptyList())
+                .map(items -> writeToBuffer(listToOutputStreamSerializer, items));
+        }
+    }
+
+    /**
+     * Creates non streaming serializers of JSON results to the other formats that clients may ask for in the Accept
+     * header, such as CBOR or Smile when they are on the classpath.
+     * @param type Content-Type
+     * @param dataCls Return type of the resource method
+     * @param returnTypeIsFlux True if it is a flux, false otherwise
+     * @param <T> Type of elements emitted by the publisher
+     * @return the serializers by media type, in order of preference, which is empty unless the Content-Type is JSON
+     */
+    public <T> Map<String, Function<Flux<T>, Flux<ByteBuf>>> createFormatSerializers(String type, Class<T> dataCls, boolean returnTypeIsFlux) {
+        Map<String, Function<Flux<T>, Flux<ByteBuf>>> serializers = new LinkedHashMap<>();
+        if (type.equals(MediaType.APPLICATION_JSON)) {
+            formatSerializerFactories.forEach((mediaType, serializerFactory) ->
+                serializers.put(mediaType, createByteBufSerializer(serializerFactory, dataCls, returnTypeIsFlux)));
+        }
+        return serializers;
+    }
+
+    private static <T> ByteBuf writeToBuffer(BiConsumer<T, OutputStream> serializer, T value) {
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer();
+        try {
+            serializer.accept(value, new ByteBufOutputStream(buffer));
+            return buffer;
+        } catch (RuntimeException e) {
+            buffer.release();
+            throw e;
+        }
+    }
 
     /**
      * Creates a streaming result serializer.
@@ -70,6 +170,13 @@ public class JaxRsResultSerializerFactory {
      * @return a function that serializes the elements emitted by a publisher to a Flux of byte arrays.
      */
     public <T> Function<Flux<T>, Flux<byte[]>> createStreamingSerializer(String type, Class<T> dataCls, Stream.Type streamType, boolean returnTypeIsFlux) {
+        if (streamType == Stream.Type.SERVER_SENT_EVENTS) {
+            return createServerSentEventSerializer(dataCls);
+        }
+        if (streamType == Stream.Type.NDJSON) {
+            var byteSerializer = jsonSerializerFactory.createByteSerializer(dataCls);
+            return serializedItems -> serializedItems.map(item -> concat(byteSerializer.apply(item), NEWLINE));
+        }
         if (type.equals(MediaType.APPLICATION_JSON)) {
             var byteSerializer = jsonSerializerFactory.createByteSerializer(dataCls);
             if (streamType == Stream.Type.CONCATENATED_JSON_OBJECTS || !returnTypeIsFlux) {
@@ -96,4 +203,105 @@ public class JaxRsResultSerializerFactory {
         }
         return flux -> flux.map(data -> data.toString().getBytes(charset));
     }
+
+    private <T> Function<Flux<T>, Flux<byte[]>> createServerSentEventSerializer(Class<T> dataCls) {
+        if (dataCls.equals(String.class)) {
+            // Strings are sent as they are, with each line as a data line of the event
+            return serializedItems -> serializedItems.map(item -> {
+                String data = "data:" + item.toString().replace("\r\n", "\n").replace("\n", "\ndata:") + "\n\n";
+                return data.getBytes(charset);
+            });
+        }
+        var byteSerializer = jsonSerializerFactory.createByteSerializer(dataCls);
+        return serializedItems -> serializedItems.map(item -> toEvent(byteSerializer.apply(item)));
+    }
+
+    /**
+     * Make an event of serialized data, with each line of the data as a data line of the event. Compact JSON is a
+     * single line, but an indenting mapper breaks it into many.
+     */
+    private static byte[] toEvent(byte[] data) {
+        int lineBreaks = 0;
+        for (byte dataByte : data) {
+            if (dataByte == '\n') {
+                lineBreaks++;
+            }
+        }
+        if (lineBreaks == 0) {
+            return concat(EVENT_DATA, data, NEWLINE, NEWLINE);
+        }
+        ByteArrayOutputStream event = new ByteArrayOutputStream(data.length + (lineBreaks + 1) * EVENT_DATA.length + 2);
+        event.writeBytes(EVENT_DATA);
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == '\r' && i + 1 < data.length && data[i + 1] == '\n') {
+                continue;
+            }
+            event.write(data[i]);
+            if (data[i] == '\n') {
+                event.writeBytes(EVENT_DATA);
+            }
+        }
+        event.writeBytes(NEWLINE);
+        event.writeBytes(NEWLINE);
+        return event.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a streaming result serializer that aggregates the serialized elements into chunks of the size configured
+     * in {@link JaxRsConfig}, rather than writing each element separately.
+     * @param type Content-Type
+     * @param dataCls Return type of the resource method
+     * @param streamType Stream type
+     * @param returnTypeIsFlux True if it is a flux, false otherwise
+     * @param <T> Type of elements emitted by the publisher
+     * @return a function that serializes the elements emitted by a publisher to a Flux of buffers.
+     */
+    public <T> Function<Flux<T>, Flux<ByteBuf>> createStreamingByteBufSerializer(String type, Class<T> dataCls, Stream.Type streamType,
+        boolean returnTypeIsFlux
+    ) {
+        Function<Flux<T>, Flux<byte[]>> serializer = createStreamingSerializer(type, dataCls, streamType, returnTypeIsFlux);
+        if (streamType == Stream.Type.SERVER_SENT_EVENTS || streamType == Stream.Type.NDJSON) {
+            // Events are written as soon as they are emitted, with heartbeats in between
+            byte[] heartbeat = streamType == Stream.Type.SERVER_SENT_EVENTS ? EVENT_HEARTBEAT : NEWLINE;
+            return flux -> withHeartbeats(serializer.apply(flux), heartbeat).map(Unpooled::wrappedBuffer);
+        }
+        if (config.getStreamingChunkSize() <= 0 || !returnTypeIsFlux) {
+            return flux -> serializer.apply(flux).map(Unpooled::wrappedBuffer);
+        }
+        var aggregator = new StreamingChunkAggregator(config.getStreamingChunkSize(),
+            Duration.ofMillis(config.getStreamingFlushIntervalMillis()));
+        return flux -> aggregator.apply(serializer.apply(flux));
+    }
+
+    private Flux<byte[]> withHeartbeats(Flux<byte[]> events, byte[] heartbeat) {
+        if (config.getStreamHeartbeatIntervalSeconds() <= 0) {
+            return events;
+        }
+        Duration interval = Duration.ofSeconds(config.getStreamHeartbeatIntervalSeconds());
+        return events.publish(shared -> {
+            // The timer is restarted by each event, so heartbeats are only sent when the stream has been idle for the
+            // interval. They are dropped while the channel is not writable, rather than queued up.
+            Flux<byte[]> heartbeats = shared
+                .startWith(heartbeat)
+                .switchMap(event -> Flux.interval(interval, interval)
+                    .onBackpressureDrop()
+                    .map(tick -> heartbeat))
+                .takeUntilOther(shared.then());
+            return Flux.merge(1, shared, heartbeats);
+        });
+    }
 }
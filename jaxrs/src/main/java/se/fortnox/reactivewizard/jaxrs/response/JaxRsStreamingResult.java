@@ -1,5 +1,7 @@
 package se.fortnox.reactivewizard.jaxrs.response;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
@@ -17,15 +19,48 @@ public class JaxRsStreamingResult<T> extends JaxRsResult<T> {
         super(output, responseStatus, serializer, headers);
     }
 
+    /**
+     * Create a streaming result.
+     * @param output the output
+     * @param responseStatus the status of the response
+     * @param serializer serializer of the output to byte arrays
+     * @param bufferSerializer serializer of the output to buffers, which is used when the response is written
+     * @param headers the headers of the response
+     */
+    public JaxRsStreamingResult(Flux<T> output,
+        HttpResponseStatus responseStatus,
+        Function<Flux<T>, Flux<byte[]>> serializer,
+        Function<Flux<T>, Flux<ByteBuf>> bufferSerializer,
+        Map<String, String> headers
+    ) {
+        super(output, responseStatus, serializer, bufferSerializer, headers);
+    }
+
+    /**
+     * Create a streaming result with headers that are shared by all results of a resource.
+     * @param output the output
+     * @param responseStatus the status of the response
+     * @param serializer serializer of the output to byte arrays
+     * @param bufferSerializer serializer of the output to buffers, which is used when the response is written
+     * @param staticHeaders the headers of every response of the resource, which must not be modified
+     */
+    public JaxRsStreamingResult(Flux<T> output,
+        HttpResponseStatus responseStatus,
+        Function<Flux<T>, Flux<byte[]>> serializer,
+        Function<Flux<T>, Flux<ByteBuf>> bufferSerializer,
+        HttpHeaders staticHeaders
+    ) {
+        super(output, responseStatus, serializer, bufferSerializer, staticHeaders);
+    }
+
     @Override
     public Publisher<Void> write(HttpServerResponse response) {
         return output.switchOnFirst((signal, outputBuffered) -> {
             if (signal.isOnError()) {
                 return Flux.error(signal.getThrowable());
             }
-            response.status(responseStatus);
-            headers.forEach(response::addHeader);
-            return response.sendByteArray(serializer.apply(outputBuffered));
+            writeStatusAndHeaders(response);
+            return response.send(bufferSerializer.apply(outputBuffered));
         });
     }
 }
@@ -19,6 +19,11 @@ public class JaxRsStreamingResultFactory<T> extends JaxRsResultFactory<T> {
             rawReturnType,
             streamType,
             isFlux);
+        bufferSerializer = jaxRsResultSerializerFactory.createStreamingByteBufSerializer(
+            resource.getProduces(),
+            rawReturnType,
+            streamType,
+            isFlux);
     }
 
     @Override
@@ -26,7 +31,8 @@ public class JaxRsStreamingResultFactory<T> extends JaxRsResultFactory<T> {
         return new JaxRsStreamingResult<>(output,
             responseStatus,
             serializer,
-            headers
+            bufferSerializer,
+            getStaticHeaders()
         );
     }
 }
@@ -0,0 +1,99 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import javax.ws.rs.core.MediaType;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import static javax.ws.rs.core.HttpHeaders.ACCEPT;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_TYPE;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+
+/**
+ * A JSON result that is written in another format, such as CBOR, when the client prefers that format in its Accept
+ * header. Clients that do not ask for any of the formats get JSON.
+ *
+ * @param <T> the type of the output
+ */
+class NegotiatedJaxRsResult<T> extends JaxRsResult<T> {
+    private final Map<String, Function<Flux<T>, Flux<ByteBuf>>> formatSerializers;
+
+    NegotiatedJaxRsResult(Flux<T> output,
+        HttpResponseStatus responseStatus,
+        Function<Flux<T>, Flux<byte[]>> serializer,
+        Function<Flux<T>, Flux<ByteBuf>> bufferSerializer,
+        HttpHeaders staticHeaders,
+        Map<String, Function<Flux<T>, Flux<ByteBuf>>> formatSerializers
+    ) {
+        super(output, responseStatus, serializer, bufferSerializer, staticHeaders);
+        this.formatSerializers = formatSerializers;
+    }
+
+    @Override
+    public Publisher<Void> write(HttpServerRequest request, HttpServerResponse response) {
+        String mediaType = request == null ? null : selectMediaType(request.requestHeaders().get(ACCEPT));
+        addVaryAccept();
+        if (mediaType == null) {
+            return write(response);
+        }
+        headers.put(CONTENT_TYPE, mediaType);
+        return writeBuffers(response, formatSerializers.get(mediaType).apply(output));
+    }
+
+    /**
+     * Select the format with the highest quality in an Accept header. JSON is preferred over other formats with the
+     * same quality, and only media types that are listed explicitly are selected.
+     *
+     * @param accept the Accept header, or null
+     * @return the media type of the selected format, or null for JSON
+     */
+    String selectMediaType(String accept) {
+        if (accept == null) {
+            return null;
+        }
+        String selected = null;
+        float selectedQuality = 0;
+        for (String range : accept.split(",")) {
+            int parametersStart = range.indexOf(';');
+            String mediaType = (parametersStart == -1 ? range : range.substring(0, parametersStart)).trim().toLowerCase(Locale.ROOT);
+            float quality = parametersStart == -1 ? 1 : parseQuality(range.substring(parametersStart + 1));
+            boolean isJson = mediaType.equals(MediaType.APPLICATION_JSON);
+            if (isJson && quality >= selectedQuality && quality > 0) {
+                selected = null;
+                selectedQuality = quality;
+            } else if (!isJson && quality > selectedQuality && formatSerializers.containsKey(mediaType)) {
+                selected = mediaType;
+                selectedQuality = quality;
+            }
+        }
+        return selected;
+    }
+
+    private static float parseQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("q=")) {
+                try {
+                    return Float.parseFloat(trimmed.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private void addVaryAccept() {
+        // The response depends on the Accept header, whichever format is written
+        String vary = headers.containsKey(VARY) ? headers.get(VARY) : staticHeaders.get(VARY);
+        headers.put(VARY, vary == null ? ACCEPT : vary + ", " + ACCEPT);
+    }
+}
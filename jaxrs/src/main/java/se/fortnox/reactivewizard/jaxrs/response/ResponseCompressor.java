@@ -0,0 +1,162 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.http.HttpUtil;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Selects the encoder of a serialized response from the Accept-Encoding header of the request. The encoders are
+ * given in order of preference, and the first one accepted by the client is used.
+ * <p>
+ * The server binds a compressor with its compression settings, so that precompressed responses are compressed on the
+ * same terms as the responses compressed by the server. The defaults are used without a server.
+ */
+@Singleton
+public class ResponseCompressor {
+    /**
+     * The mime types that are compressed by default.
+     */
+    public static final Set<String> DEFAULT_COMPRESSIBLE_MIME_TYPES = Set.of(
+        "text/plain",
+        "application/xml",
+        "text/css",
+        "application/x-javascript",
+        "application/json"
+    );
+
+    /**
+     * The size in bytes below which bodies are not compressed by default.
+     */
+    public static final int DEFAULT_THRESHOLD_BYTES = 1000;
+
+    /**
+     * The default compression level of gzip and deflate, from 1 (fastest) to 9 (smallest).
+     */
+    public static final int DEFAULT_DEFLATE_LEVEL = 6;
+
+    /**
+     * The default compression level of zstd, from 1 (fastest) to 22 (smallest).
+     */
+    public static final int DEFAULT_ZSTD_LEVEL = 3;
+
+    private final int                  thresholdBytes;
+    private final Set<String>          compressibleMimeTypes;
+    private final List<ContentEncoder> encoders;
+
+    @Inject
+    public ResponseCompressor() {
+        this(DEFAULT_THRESHOLD_BYTES, DEFAULT_COMPRESSIBLE_MIME_TYPES, createEncoders(DEFAULT_DEFLATE_LEVEL, DEFAULT_ZSTD_LEVEL));
+    }
+
+    /**
+     * Create a compressor with custom encoders, compressing the default mime types.
+     * @param thresholdBytes size in bytes below which bodies are not compressed
+     * @param encoders the encoders in order of preference
+     */
+    public ResponseCompressor(int thresholdBytes, List<ContentEncoder> encoders) {
+        this(thresholdBytes, DEFAULT_COMPRESSIBLE_MIME_TYPES, encoders);
+    }
+
+    /**
+     * Create a compressor with custom encoders and mime types.
+     * @param thresholdBytes size in bytes below which bodies are not compressed
+     * @param compressibleMimeTypes the mime types that are compressed
+     * @param encoders the encoders in order of preference, where none disables compression
+     */
+    public ResponseCompressor(int thresholdBytes, Set<String> compressibleMimeTypes, List<ContentEncoder> encoders) {
+        this.thresholdBytes = thresholdBytes;
+        this.compressibleMimeTypes = compressibleMimeTypes.stream()
+            .map(mimeType -> mimeType.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet());
+        this.encoders = List.copyOf(encoders);
+    }
+
+    /**
+     * Whether a body would be compressed for a client accepting the encodings, in which case the response varies by
+     * Accept-Encoding.
+     * @param contentType the Content-Type of the body, or null
+     * @param length the length of the body
+     * @return whether the body is compressible
+     */
+    public boolean isCompressible(String contentType, int length) {
+        if (encoders.isEmpty() || length < thresholdBytes || contentType == null) {
+            return false;
+        }
+        return compressibleMimeTypes.contains(HttpUtil.getMimeType(contentType).toString().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Select the encoder of a body.
+     * @param acceptEncoding the Accept-Encoding header of the request, or null
+     * @param contentType the Content-Type of the body, or null
+     * @param length the length of the body
+     * @return the encoder, or null if the body should be sent as it is
+     */
+    public ContentEncoder select(String acceptEncoding, String contentType, int length) {
+        if (acceptEncoding == null || !isCompressible(contentType, length)) {
+            return null;
+        }
+        for (ContentEncoder encoder : encoders) {
+            if (isAccepted(acceptEncoding, encoder.getName())) {
+                return encoder;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAccepted(String acceptEncoding, String name) {
+        Boolean wildcardAccepted = null;
+        for (String coding : acceptEncoding.split(",")) {
+            int parametersStart = coding.indexOf(';');
+            String codingName = (parametersStart == -1 ? coding : coding.substring(0, parametersStart)).trim();
+            boolean accepted = parametersStart == -1 || !isZeroQuality(coding.substring(parametersStart + 1));
+            if (codingName.equalsIgnoreCase(name)) {
+                return accepted;
+            }
+            if (codingName.equals("*")) {
+                wildcardAccepted = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcardAccepted);
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        String parameter = parameters.trim();
+        if (!parameter.startsWith("q=")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(parameter.substring(2).trim()) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create the default encoders, in order of preference.
+     * @param deflateLevel the compression level of gzip and deflate
+     * @param zstdLevel the compression level of zstd
+     * @return the encoders
+     */
+    public static List<ContentEncoder> createEncoders(int deflateLevel, int zstdLevel) {
+        List<ContentEncoder> encoders = new ArrayList<>();
+        // The optional native codecs compress better than gzip, so they are preferred when they are available
+        if (Brotli.isAvailable()) {
+            encoders.add(ContentEncoder.brotli());
+        }
+        if (Zstd.isAvailable()) {
+            encoders.add(ContentEncoder.zstd(zstdLevel));
+        }
+        encoders.add(ContentEncoder.gzip(deflateLevel));
+        encoders.add(ContentEncoder.deflate(deflateLevel));
+        return encoders;
+    }
+}
@@ -0,0 +1,49 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Aggregates the serialized elements of a stream into chunks of about the configured size, so that many small
+ * elements do not become one write each. A chunk is also emitted when the flush interval has passed since its first
+ * element was buffered, so that slow streams are not delayed by waiting for a full chunk. No timer runs while nothing
+ * is buffered. The chunks wrap the serialized elements without copying them.
+ */
+class StreamingChunkAggregator implements Function<Flux<byte[]>, Flux<ByteBuf>> {
+    private final int      chunkSize;
+    private final Duration flushInterval;
+
+    StreamingChunkAggregator(int chunkSize, Duration flushInterval) {
+        this.chunkSize = chunkSize;
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    public Flux<ByteBuf> apply(Flux<byte[]> elements) {
+        return Flux.defer(() -> {
+            int[] bufferedBytes = new int[1];
+            return elements
+                .windowUntil(element -> {
+                    bufferedBytes[0] += element.length;
+                    if (bufferedBytes[0] >= chunkSize) {
+                        bufferedBytes[0] = 0;
+                        return true;
+                    }
+                    return false;
+                })
+                // The flush timer of a buffer is started by its first element, and the rest of a full chunk is
+                // emitted when its window completes. A chunk has no more elements than bytes, unless they are empty.
+                .concatMap(chunk -> chunk.bufferTimeout(chunkSize, flushInterval, true))
+                .map(StreamingChunkAggregator::toBuffer);
+        });
+    }
+
+    private static ByteBuf toBuffer(List<byte[]> chunk) {
+        return Unpooled.wrappedBuffer(chunk.toArray(byte[][]::new));
+    }
+}
@@ -0,0 +1,238 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import se.fortnox.reactivewizard.ExceptionHandler;
+import se.fortnox.reactivewizard.jaxrs.response.ResponseDecorator;
+import se.fortnox.reactivewizard.metrics.Metrics;
+import se.fortnox.reactivewizard.mocks.MockHttpServerRequest;
+import se.fortnox.reactivewizard.mocks.MockHttpServerResponse;
+import se.fortnox.reactivewizard.utils.JaxRsTestUtil;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheableTest {
+
+    private final CachedResource      resource = new CachedResource();
+    private final JaxRsRequestHandler handler  = new JaxRsRequestHandler(new Object[]{resource},
+        new JaxRsResourceFactory(),
+        new ExceptionHandler(),
+        false);
+
+    @Test
+    void shouldNotSubscribeToOutputWhenResponseIsCached() {
+        MockHttpServerResponse first = get("/cached/1", null);
+        MockHttpServerResponse second = get("/cached/1", null);
+
+        assertThat(first.getOutp()).isEqualTo("\"value 1\"");
+        assertThat(second.getOutp()).isEqualTo("\"value 1\"");
+        assertThat(second.status()).isEqualTo(HttpResponseStatus.OK);
+        assertThat(second.responseHeaders().get("Content-Type")).isEqualTo("application/json");
+        assertThat(second.responseHeaders().get("ETag")).isEqualTo(first.responseHeaders().get("ETag"));
+        assertThat(resource.subscriptions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCacheHeadersDecoratedByOutput() {
+        MockHttpServerResponse first = get("/cached/decorated/1", null);
+        MockHttpServerResponse second = get("/cached/decorated/1", null);
+
+        assertThat(first.responseHeaders().get("X-Value")).isEqualTo("value 1");
+        assertThat(second.responseHeaders().get("X-Value")).isEqualTo("value 1");
+        assertThat(second.getOutp()).isEqualTo("\"value 1\"");
+        assertThat(resource.subscriptions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCachePerParamValue() {
+        assertThat(get("/cached/1", null).getOutp()).isEqualTo("\"value 1\"");
+        assertThat(get("/cached/2", null).getOutp()).isEqualTo("\"value 2\"");
+        assertThat(resource.subscriptions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhenEtagMatches() {
+        String etag = get("/cached/1", null).responseHeaders().get("ETag");
+        assertThat(etag).startsWith("\"").endsWith("\"");
+
+        MockHttpServerResponse response = get("/cached/1", "\"other\", " + etag);
+
+        assertThat(response.status()).isEqualTo(HttpResponseStatus.NOT_MODIFIED);
+        assertThat(response.responseHeaders().get("ETag")).isEqualTo(etag);
+        assertThat(response.getOutp()).isEmpty();
+        assertThat(resource.subscriptions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSendBodyWhenEtagDoesNotMatch() {
+        get("/cached/1", null);
+
+        MockHttpServerResponse response = get("/cached/1", "\"other\"");
+
+        assertThat(response.status()).isEqualTo(HttpResponseStatus.OK);
+        assertThat(response.getOutp()).isEqualTo("\"value 1\"");
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedResponses() {
+        long evictions = Metrics.registry().counter("JAXRS_responseCache:eviction").getCount();
+
+        get("/cached/1", null);
+        get("/cached/2", null);
+        get("/cached/3", null);
+        get("/cached/1", null);
+
+        assertThat(resource.subscriptions.get()).isEqualTo(4);
+        assertThat(Metrics.registry().counter("JAXRS_responseCache:eviction").getCount()).isGreaterThan(evictions);
+    }
+
+    @Test
+    void shouldNotCacheErrors() {
+        assertThat(get("/cached/error", null).status()).isEqualTo(HttpResponseStatus.BAD_REQUEST);
+        assertThat(get("/cached/error", null).status()).isEqualTo(HttpResponseStatus.BAD_REQUEST);
+        assertThat(resource.subscriptions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCountHitsAndMisses() {
+        long hits = Metrics.registry().counter("JAXRS_responseCache:hit").getCount();
+        long misses = Metrics.registry().counter("JAXRS_responseCache:miss").getCount();
+
+        get("/cached/1", null);
+        get("/cached/1", null);
+
+        assertThat(Metrics.registry().counter("JAXRS_responseCache:hit").getCount()).isEqualTo(hits + 1);
+        assertThat(Metrics.registry().counter("JAXRS_responseCache:miss").getCount()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    void shouldSendCachedResponseCompressedWithEncodingAcceptedByClient() throws IOException {
+        String id = "x".repeat(2000);
+        MockHttpServerRequest request = new MockHttpServerRequest("/cached/" + id);
+        request.requestHeaders().add("Accept-Encoding", "gzip");
+
+        get("/cached/" + id, null);
+        MockHttpServerResponse response = JaxRsTestUtil.processRequestWithHandler(handler, request);
+
+        assertThat(response.responseHeaders().get("Content-Encoding")).isEqualTo("gzip");
+        assertThat(response.responseHeaders().get("Vary")).isEqualTo("Accept-Encoding");
+        assertThat(response.responseHeaders().get("ETag")).endsWith("-gzip\"");
+        assertThat(Integer.parseInt(response.responseHeaders().get("Content-Length"))).isLessThan(2000);
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(response.getOutputBytes()))) {
+            assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("\"value " + id + "\"");
+        }
+        assertThat(resource.subscriptions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCachePerQueryAndHeaderParamValue() {
+        assertThat(getVersion("/cached/query?q=1", "1").getOutp()).isEqualTo("\"1 1\"");
+        assertThat(getVersion("/cached/query?q=1", "2").getOutp()).isEqualTo("\"1 2\"");
+        assertThat(getVersion("/cached/query?q=2", "2").getOutp()).isEqualTo("\"2 2\"");
+        assertThat(getVersion("/cached/query?q=1", "1").getOutp()).isEqualTo("\"1 1\"");
+        assertThat(resource.subscriptions.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldOnlyAllowPathQueryHeaderAndCookieParams() {
+        assertThatThrownBy(() -> new JaxRsRequestHandler(new Object[]{new BodyParamResource()}, new JaxRsResourceFactory(), new ExceptionHandler(), false))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Param 1 of");
+    }
+
+    @Test
+    void shouldOnlyCacheGetRequests() {
+        JaxRsTestUtil.processRequestWithHandler(handler, new MockHttpServerRequest("/cached", HttpMethod.POST, "\"x\""));
+        JaxRsTestUtil.processRequestWithHandler(handler, new MockHttpServerRequest("/cached", HttpMethod.POST, "\"x\""));
+        assertThat(resource.subscriptions.get()).isEqualTo(2);
+    }
+
+    private MockHttpServerResponse getVersion(String uri, String version) {
+        MockHttpServerRequest request = new MockHttpServerRequest(uri);
+        request.requestHeaders().add("X-Version", version);
+        return JaxRsTestUtil.processRequestWithHandler(handler, request);
+    }
+
+    private MockHttpServerResponse get(String uri, String ifNoneMatch) {
+        MockHttpServerRequest request = new MockHttpServerRequest(uri);
+        if (ifNoneMatch != null) {
+            request.requestHeaders().add("If-None-Match", ifNoneMatch);
+        }
+        return JaxRsTestUtil.processRequestWithHandler(handler, request);
+    }
+
+    @Path("/body")
+    public static class BodyParamResource {
+        @GET
+        @Cacheable
+        public Mono<String> get(@QueryParam("q") String query, String body) {
+            return Mono.just(query);
+        }
+    }
+
+    @Path("/cached")
+    public static class CachedResource {
+        private final AtomicInteger subscriptions = new AtomicInteger();
+
+        @GET
+        @Path("{id}")
+        @Cacheable(maxEntries = 2)
+        public Mono<String> get(@PathParam("id") String id) {
+            return Mono.fromCallable(() -> {
+                subscriptions.incrementAndGet();
+                if (id.equals("error")) {
+                    throw new WebException(HttpResponseStatus.BAD_REQUEST);
+                }
+                return "value " + id;
+            });
+        }
+
+        @GET
+        @Path("decorated/{id}")
+        @Cacheable
+        public Mono<String> getDecorated(@PathParam("id") String id) {
+            Map<String, String> headers = new HashMap<>();
+            return ResponseDecorator.of(Mono.fromCallable(() -> {
+                subscriptions.incrementAndGet();
+                headers.put("X-Value", "value " + id);
+                return "value " + id;
+            })).withHeaders(headers).build();
+        }
+
+        @GET
+        @Path("query")
+        @Cacheable
+        public Mono<String> getQuery(@QueryParam("q") String query, @HeaderParam("X-Version") String version) {
+            return Mono.fromCallable(() -> {
+                subscriptions.incrementAndGet();
+                return query + " " + version;
+            });
+        }
+
+        @POST
+        @Cacheable
+        public Mono<String> post(String body) {
+            return Mono.fromCallable(() -> {
+                subscriptions.incrementAndGet();
+                return body;
+            });
+        }
+    }
+}
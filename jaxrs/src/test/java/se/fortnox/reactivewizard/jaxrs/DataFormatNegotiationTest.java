@@ -0,0 +1,164 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import se.fortnox.reactivewizard.ExceptionHandler;
+import se.fortnox.reactivewizard.jaxrs.params.ParamResolverFactories;
+import se.fortnox.reactivewizard.jaxrs.params.ParamResolvers;
+import se.fortnox.reactivewizard.jaxrs.params.ParamTypeResolver;
+import se.fortnox.reactivewizard.jaxrs.params.annotated.AnnotatedParamResolverFactories;
+import se.fortnox.reactivewizard.jaxrs.params.deserializing.DeserializerFactory;
+import se.fortnox.reactivewizard.jaxrs.response.JaxRsResultFactoryFactory;
+import se.fortnox.reactivewizard.jaxrs.response.JaxRsResultSerializerFactory;
+import se.fortnox.reactivewizard.jaxrs.response.NoContentTransformer;
+import se.fortnox.reactivewizard.jaxrs.response.ResponseDecoratorTransformer;
+import se.fortnox.reactivewizard.jaxrs.response.ResultTransformerFactories;
+import se.fortnox.reactivewizard.json.DataFormat;
+import se.fortnox.reactivewizard.json.JsonDeserializerFactory;
+import se.fortnox.reactivewizard.json.JsonSerializerFactory;
+import se.fortnox.reactivewizard.mocks.MockHttpServerRequest;
+import se.fortnox.reactivewizard.mocks.MockHttpServerResponse;
+import se.fortnox.reactivewizard.utils.JaxRsTestUtil;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Negotiation of formats is tested with YAML, since the binary formats are not on the test classpath.
+ */
+class DataFormatNegotiationTest {
+    private static final DataFormat YAML = new DataFormat("application/yaml", YAMLFactory::new);
+
+    private final JaxRsRequestHandler handler = createHandler(new FormatResource());
+
+    @Test
+    void shouldWriteJsonWhenNoFormatIsAccepted() {
+        MockHttpServerResponse response = get("/formats/entity", null);
+
+        assertThat(response.responseHeaders().get("Content-Type")).isEqualTo("application/json");
+        assertThat(response.responseHeaders().get("Vary")).isEqualTo("Accept");
+        assertThat(response.getOutp()).isEqualTo("{\"name\":\"entity\",\"values\":{\"a\":1}}");
+    }
+
+    @Test
+    void shouldWriteFormatPreferredInAcceptHeader() {
+        MockHttpServerResponse response = get("/formats/entity", "application/yaml, application/json;q=0.9");
+
+        assertThat(response.responseHeaders().get("Content-Type")).isEqualTo("application/yaml");
+        assertThat(response.responseHeaders().get("Vary")).isEqualTo("Accept");
+        assertThat(response.getOutp()).isEqualTo("---\nname: \"entity\"\nvalues:\n  a: 1\n");
+    }
+
+    @Test
+    void shouldPreferJsonOverFormatWithSameQuality() {
+        assertThat(get("/formats/entity", "application/json, application/yaml").responseHeaders().get("Content-Type"))
+            .isEqualTo("application/json");
+        assertThat(get("/formats/entity", "application/yaml, application/json").responseHeaders().get("Content-Type"))
+            .isEqualTo("application/json");
+        assertThat(get("/formats/entity", "application/json;q=0.5, application/yaml;q=0.8").responseHeaders().get("Content-Type"))
+            .isEqualTo("application/yaml");
+        assertThat(get("/formats/entity", "application/yaml;q=0, */*").responseHeaders().get("Content-Type"))
+            .isEqualTo("application/json");
+    }
+
+    @Test
+    void shouldWriteArraysInFormat() {
+        MockHttpServerResponse response = get("/formats/entities", "application/yaml");
+
+        assertThat(response.responseHeaders().get("Content-Type")).isEqualTo("application/yaml");
+        assertThat(response.getOutp()).isEqualTo("---\n- name: \"first\"\n  values: null\n- name: \"second\"\n  values: null\n");
+    }
+
+    @Test
+    void shouldNotNegotiateFormatOfOtherContentTypes() {
+        MockHttpServerResponse response = get("/formats/text", "application/yaml");
+
+        assertThat(response.responseHeaders().get("Content-Type")).isEqualTo("text/plain");
+        assertThat(response.responseHeaders().get("Vary")).isNull();
+        assertThat(response.getOutp()).isEqualTo("text");
+    }
+
+    @Test
+    void shouldReadBodyInFormatOfContentType() {
+        MockHttpServerRequest request = new MockHttpServerRequest("/formats/entity", HttpMethod.POST, "name: posted\nvalues:\n  b: 2\n");
+        request.requestHeaders().add("Content-Type", "application/yaml; charset=utf-8");
+
+        MockHttpServerResponse response = JaxRsTestUtil.processRequestWithHandler(handler, request);
+
+        assertThat(response.getOutp()).isEqualTo("{\"name\":\"posted\",\"values\":{\"b\":2}}");
+    }
+
+    @Test
+    void shouldReadJsonBodyWithoutContentType() {
+        MockHttpServerRequest request = new MockHttpServerRequest("/formats/entity", HttpMethod.POST, "{\"name\":\"posted\"}");
+
+        MockHttpServerResponse response = JaxRsTestUtil.processRequestWithHandler(handler, request);
+
+        assertThat(response.getOutp()).isEqualTo("{\"name\":\"posted\",\"values\":null}");
+    }
+
+    private MockHttpServerResponse get(String uri, String accept) {
+        MockHttpServerRequest request = new MockHttpServerRequest(uri);
+        if (accept != null) {
+            request.requestHeaders().add("Accept", accept);
+        }
+        return JaxRsTestUtil.processRequestWithHandler(handler, request);
+    }
+
+    private static JaxRsRequestHandler createHandler(Object resource) {
+        DeserializerFactory deserializerFactory = new DeserializerFactory(StdDateFormat::new, new JsonDeserializerFactory(), Set.of(), List.of(YAML));
+        JaxRsResultSerializerFactory serializerFactory = new JaxRsResultSerializerFactory(new JsonSerializerFactory(), new JaxRsConfig(), List.of(YAML));
+        return new JaxRsRequestHandler(new Object[]{resource},
+            new JaxRsResourceFactory(
+                new ParamResolverFactories(deserializerFactory, new ParamResolvers(), new AnnotatedParamResolverFactories(deserializerFactory),
+                    new ParamTypeResolver()),
+                new JaxRsResultFactoryFactory(new ResultTransformerFactories(new ResponseDecoratorTransformer(), new NoContentTransformer()),
+                    serializerFactory),
+                new RequestLogger()),
+            new ExceptionHandler(),
+            false);
+    }
+
+    public record Entity(String name, Map<String, Integer> values) {
+    }
+
+    @Path("formats")
+    public static class FormatResource {
+        @GET
+        @Path("entity")
+        public Mono<Entity> getEntity() {
+            return Mono.just(new Entity("entity", Map.of("a", 1)));
+        }
+
+        @GET
+        @Path("entities")
+        public Flux<Entity> getEntities() {
+            return Flux.just(new Entity("first", null), new Entity("second", null));
+        }
+
+        @GET
+        @Path("text")
+        @Produces(MediaType.TEXT_PLAIN)
+        public Mono<String> getText() {
+            return Mono.just("text");
+        }
+
+        @POST
+        @Path("entity")
+        public Mono<Entity> postEntity(Entity entity) {
+            return Mono.just(entity);
+        }
+    }
+}
@@ -11,7 +11,13 @@ import reactor.netty.http.client.HttpClientResponse;
 import reactor.netty.http.server.HttpServer;
 import reactor.test.StepVerifier;
 import se.fortnox.reactivewizard.ExceptionHandler;
+import se.fortnox.reactivewizard.jaxrs.params.ParamResolverFactories;
 import se.fortnox.reactivewizard.jaxrs.response.JaxRsResultFactoryFactory;
+import se.fortnox.reactivewizard.jaxrs.response.JaxRsResultSerializerFactory;
+import se.fortnox.reactivewizard.jaxrs.response.NoContentTransformer;
+import se.fortnox.reactivewizard.jaxrs.response.ResponseDecoratorTransformer;
+import se.fortnox.reactivewizard.jaxrs.response.ResultTransformerFactories;
+import se.fortnox.reactivewizard.json.JsonSerializerFactory;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -92,6 +98,100 @@ class FluxResourceTest {
             .close();
     }
 
+    @Test
+    void shouldSendLargeJsonArrayChunkedWhenItemThresholdIsCrossed() {
+        JaxRsConfig config = new JaxRsConfig();
+        config.setChunkedResponseItemThreshold(1);
+        when(fluxResource.nonStreamingTestEntities())
+            .thenReturn(Flux.just(new TestEntity("Hello"), new TestEntity("World"), new TestEntity("!")));
+
+        FluxResourceAsserter.from(createHandler(config))
+            .sendRequest("/flux/non-streaming-test-entities")
+            .assertHeaderValue("Transfer-Encoding", "chunked")
+            .assertResponse("[{\"value\":\"Hello\"},{\"value\":\"World\"},{\"value\":\"!\"}]")
+            .close();
+    }
+
+    @Test
+    void shouldSendLargeJsonArrayChunkedWhenByteThresholdIsCrossed() {
+        JaxRsConfig config = new JaxRsConfig();
+        config.setChunkedResponseByteThreshold(20);
+        when(fluxResource.nonStreamingTestEntities())
+            .thenReturn(Flux.just(new TestEntity("Hello"), new TestEntity("World")));
+
+        FluxResourceAsserter.from(createHandler(config))
+            .sendRequest("/flux/non-streaming-test-entities")
+            .assertHeaderValue("Transfer-Encoding", "chunked")
+            .assertResponse("[{\"value\":\"Hello\"},{\"value\":\"World\"}]")
+            .close();
+    }
+
+    @Test
+    void shouldSendJsonArrayBelowThresholdsWithContentLength() {
+        JaxRsConfig config = new JaxRsConfig();
+        config.setChunkedResponseItemThreshold(2);
+        when(fluxResource.nonStreamingTestEntities())
+            .thenReturn(Flux.just(new TestEntity("Hello"), new TestEntity("World")));
+
+        FluxResourceAsserter.from(createHandler(config))
+            .sendRequest("/flux/non-streaming-test-entities")
+            .assertHeaderValue("Content-Length", "37")
+            .assertResponse("[{\"value\":\"Hello\"},{\"value\":\"World\"}]")
+            .close();
+    }
+
+    @Test
+    void shouldStreamJsonArrayAggregatedIntoChunks() {
+        JaxRsConfig config = new JaxRsConfig();
+        config.setStreamingChunkSize(1024);
+        when(fluxResource.jsonArrayStreamOfTestEntities()).thenReturn(Flux.just(new TestEntity("Hello"), new TestEntity("World")));
+
+        FluxResourceAsserter.from(createHandler(config))
+            .sendRequest("/flux/json-array-stream-of-test-entities")
+            .assertHeaderValue("Transfer-Encoding", "chunked")
+            .assertResponse("[{\"value\":\"Hello\"},{\"value\":\"World\"}]")
+            .close();
+    }
+
+    @Test
+    void shouldSendServerSentEvents() {
+        when(fluxResource.serverSentEventsOfTestEntities()).thenReturn(Flux.just(new TestEntity("Hello"), new TestEntity("World")));
+        FluxResourceAsserter.from(handler)
+            .sendRequest("/flux/server-sent-events-of-test-entities")
+            .assertHeaderValue("Content-Type", "text/event-stream")
+            .assertHeaderValue("Cache-Control", "no-cache")
+            .assertHeaderValue("Transfer-Encoding", "chunked")
+            .assertResponse("data:{\"value\":\"Hello\"}\n\ndata:{\"value\":\"World\"}\n\n")
+            .close();
+    }
+
+    @Test
+    void shouldSendStringsAsServerSentEventDataLines() {
+        when(fluxResource.serverSentEventsOfStrings()).thenReturn(Flux.just("Hello", "multi\nline"));
+        FluxResourceAsserter.from(handler)
+            .sendRequest("/flux/server-sent-events-of-strings")
+            .assertResponse("data:Hello\n\ndata:multi\ndata:line\n\n")
+            .close();
+    }
+
+    @Test
+    void shouldSendNdJson() {
+        when(fluxResource.ndjsonOfTestEntities()).thenReturn(Flux.just(new TestEntity("Hello"), new TestEntity("World")));
+        FluxResourceAsserter.from(handler)
+            .sendRequest("/flux/ndjson-of-test-entities")
+            .assertHeaderValue("Content-Type", "application/x-ndjson")
+            .assertResponse("{\"value\":\"Hello\"}\n{\"value\":\"World\"}\n")
+            .close();
+    }
+
+    private JaxRsRequestHandler createHandler(JaxRsConfig config) {
+        JaxRsResultFactoryFactory resultFactoryFactory = new JaxRsResultFactoryFactory(
+            new ResultTransformerFactories(new ResponseDecoratorTransformer(), new NoContentTransformer()),
+            new JaxRsResultSerializerFactory(new JsonSerializerFactory(), config));
+        JaxRsResourceFactory resourceFactory = new JaxRsResourceFactory(new ParamResolverFactories(), resultFactoryFactory, new RequestLogger());
+        return new JaxRsRequestHandler(new Object[]{fluxResource}, resourceFactory, new ExceptionHandler(), new ByteBufCollector(), false, config);
+    }
+
     @Test
     void shouldStreamConcatenatedJsonStringsWhenStreamAnnotationWithCoJsonIsPresent() {
         when(fluxResource.concatenatedJsonObjectsStreamOfStrings()).thenReturn(Flux.just("Hello", "World"));
@@ -209,6 +309,21 @@ class FluxResourceTest {
         @Path("concatenated-json-objects-of-strings-with-text-plain-content-type")
         @Produces(MediaType.TEXT_PLAIN)
         Flux<String> concatenatedJsonObjectsOfStringsWithTextPlainContentType();
+
+        @GET
+        @Stream(Stream.Type.SERVER_SENT_EVENTS)
+        @Path("server-sent-events-of-test-entities")
+        Flux<TestEntity> serverSentEventsOfTestEntities();
+
+        @GET
+        @Stream(Stream.Type.SERVER_SENT_EVENTS)
+        @Path("server-sent-events-of-strings")
+        Flux<String> serverSentEventsOfStrings();
+
+        @GET
+        @Stream(Stream.Type.NDJSON)
+        @Path("ndjson-of-test-entities")
+        Flux<TestEntity> ndjsonOfTestEntities();
     }
 
     @Path("/failing-resource-flux")
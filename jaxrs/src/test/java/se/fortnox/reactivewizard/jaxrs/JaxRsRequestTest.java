@@ -1,6 +1,10 @@
 package se.fortnox.reactivewizard.jaxrs;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AsciiString;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,16 +18,32 @@ import se.fortnox.reactivewizard.test.LoggingVerifier;
 import se.fortnox.reactivewizard.test.LoggingVerifierExtension;
 
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.apache.logging.log4j.Level.DEBUG;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(LoggingVerifierExtension.class)
 class JaxRsRequestTest {
+    private static final String MULTIPART_FORM = """
+        --boundary\r
+        Content-Disposition: form-data; name="name"\r
+        \r
+        Jörgen\r
+        --boundary\r
+        Content-Disposition: form-data; name="file"; filename="file.txt"\r
+        Content-Type: text/plain\r
+        \r
+        file content\r
+        --boundary--\r
+        """;
 
     LoggingVerifier loggingVerifier = new LoggingVerifier(JaxRsRequest.class, DEBUG);
 
@@ -75,6 +95,35 @@ class JaxRsRequestTest {
         }
     }
 
+    @Test
+    void shouldKeepMultiChunkBodyInBuffers() {
+        byte[] byteArray = "ö".getBytes(Charset.defaultCharset());
+        ByteBufFlux content = ByteBufFlux.fromInbound(Flux.just(new byte[]{byteArray[0]}, new byte[]{byteArray[1]}));
+        HttpServerRequest serverReq = new MockHttpServerRequest("/", HttpMethod.POST, content);
+        JaxRsRequest req = new JaxRsRequest(serverReq, new ByteBufCollector(), zeroCopyConfig()).loadBody().block();
+
+        ByteBuf bodyBuffer = req.getBodyBuffer();
+        assertThat(bodyBuffer.toString(Charset.defaultCharset())).isEqualTo("ö");
+        assertThat(new String(req.getBody())).isEqualTo("ö");
+
+        req.releaseBody();
+        assertThat(bodyBuffer.refCnt()).isZero();
+        assertThat(req.getBodyBuffer()).isNull();
+    }
+
+    @Test
+    void shouldFailWhenKeepingTooLargeBodyInBuffers() {
+        String input = generateLargeString(6);
+        HttpServerRequest serverReq = new MockHttpServerRequest("/", HttpMethod.POST, input);
+        JaxRsRequest req = new JaxRsRequest(serverReq, new ByteBufCollector(5 * 1024 * 1024), zeroCopyConfig());
+        try {
+            req.loadBody().block();
+            Assertions.fail("Should throw exception");
+        } catch (WebException e) {
+            assertThat(e.getError()).isEqualTo("too.large.input");
+        }
+    }
+
     @Test
     void testParams() {
         MockHttpServerRequest serverReq = new MockHttpServerRequest("/");
@@ -88,6 +137,165 @@ class JaxRsRequestTest {
         assertThat(req.getCookieValue("test", "default")).isEqualTo("default");
     }
 
+    @Test
+    void shouldDecodeUrlEncodedFormParams() {
+        String form = "name=J%C3%B6rgen+Svensson&empty=&flag&name=other;city=G%c3%b6teborg&=ignored";
+        MockHttpServerRequest serverReq = new MockHttpServerRequest("/", HttpMethod.POST, form);
+        JaxRsRequest req = new JaxRsRequest(serverReq, null, form.getBytes(StandardCharsets.UTF_8), new ByteBufCollector());
+
+        assertThat(req.getFormParam("name")).isEqualTo("Jörgen Svensson");
+        assertThat(req.getFormParam("city")).isEqualTo("Göteborg");
+        assertThat(req.getFormParam("empty", "default")).isEmpty();
+        assertThat(req.getFormParam("flag")).isEmpty();
+        assertThat(req.getFormParam("missing", "default")).isEqualTo("default");
+    }
+
+    @Test
+    void shouldDecodeUrlEncodedFormParamsFromBodyBuffer() {
+        MockHttpServerRequest serverReq = new MockHttpServerRequest("/", HttpMethod.POST, "a=1&b=%3D2");
+        JaxRsRequest req = new JaxRsRequest(serverReq, new ByteBufCollector(), zeroCopyConfig()).loadBody().block();
+
+        assertThat(req.getFormParam("a")).isEqualTo("1");
+        assertThat(req.getFormParam("b")).isEqualTo("=2");
+        assertThat(req.getBodyBuffer().readerIndex()).isZero();
+        req.releaseBody();
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidEscapeInFormParams() {
+        MockHttpServerRequest serverReq = new MockHttpServerRequest("/", HttpMethod.POST, "a=%2");
+        JaxRsRequest req = new JaxRsRequest(serverReq, null, "a=%2".getBytes(StandardCharsets.UTF_8), new ByteBufCollector());
+
+        assertThatExceptionOfType(WebException.class)
+            .isThrownBy(() -> req.getFormParam("a"))
+            .satisfies(e -> assertThat(e.getStatus()).isEqualTo(HttpResponseStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void shouldDecodeMultipartFormParams() {
+        MockHttpServerRequest serverReq = new MockHttpServerRequest("/", HttpMethod.POST, MULTIPART_FORM);
+        serverReq.requestHeaders().set(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=boundary");
+        JaxRsConfig config = new JaxRsConfig();
+        config.setMultipartDiskThreshold(4);
+        JaxRsRequest req = new JaxRsRequest(serverReq, new ByteBufCollector(), config).loadBody().block();
+
+        assertThat(req.getFormParam("name")).isEqualTo("Jörgen");
+        assertThat(req.getFormParam("file")).isEqualTo("file content");
+        assertThat(req.getFormParam("missing", "default")).isEqualTo("default");
+        req.releaseBody();
+    }
+
+    @Test
+    void shouldDecodeMultipartFormParamsWhileReceived() {
+        byte[] form = MULTIPART_FORM.getBytes(StandardCharsets.UTF_8);
+        ByteBufFlux content = ByteBufFlux.fromInbound(Flux.range(0, (form.length + 4) / 5)
+            .map(index -> Arrays.copyOfRange(form, index * 5, Math.min(form.length, index * 5 + 5))));
+        MockHttpServerRequest serverReq = new MockHttpServerRequest("/", HttpMethod.POST, content);
+        serverReq.requestHeaders().set(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=boundary");
+        JaxRsConfig config = new JaxRsConfig();
+        config.setMultipartDiskThreshold(4);
+        JaxRsRequest req = new JaxRsRequest(serverReq, new ByteBufCollector(), config).loadBody(true).block();
+
+        assertThat(req.getBody()).isNull();
+        assertThat(req.getFormParam("name")).isEqualTo("Jörgen");
+        assertThat(req.getFormParam("file")).isEqualTo("file content");
+        req.releaseBody();
+    }
+
+    @Test
+    void shouldRejectMultipartBodyLargerThanMaxRequestSize() {
+        MockHttpServerRequest serverReq = new MockHttpServerRequest("/", HttpMethod.POST, MULTIPART_FORM);
+        serverReq.requestHeaders().set(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=boundary");
+        JaxRsRequest req = new JaxRsRequest(serverReq, new ByteBufCollector(20), new JaxRsConfig());
+
+        assertThatExceptionOfType(WebException.class)
+            .isThrownBy(() -> req.loadBody(true).block())
+            .satisfies(e -> assertThat(e.getError()).isEqualTo("too.large.input"));
+    }
+
+    @Test
+    void shouldRejectStreamedBodyLargerThanMaxRequestSize() {
+        MockHttpServerRequest serverReq = new MockHttpServerRequest("/", HttpMethod.POST,
+            ByteBufFlux.fromInbound(Flux.just("[1,2,", "3,4]").map(String::getBytes)));
+        JaxRsRequest req = new JaxRsRequest(serverReq, new ByteBufCollector(6), new JaxRsConfig());
+
+        assertThatExceptionOfType(WebException.class)
+            .isThrownBy(() -> req.streamBody().collectList().block())
+            .satisfies(e -> assertThat(e.getError()).isEqualTo("too.large.input"));
+    }
+
+    @Test
+    void shouldStreamBodyUpToConfiguredMaxSize() {
+        JaxRsConfig config = new JaxRsConfig();
+        config.setMaxStreamedBodySize(9);
+        JaxRsRequest req = new JaxRsRequest(new MockHttpServerRequest("/", HttpMethod.POST,
+            ByteBufFlux.fromInbound(Flux.just("[1,2,", "3,4]").map(String::getBytes))), new ByteBufCollector(6), config);
+        assertThat(req.streamBody().map(String::new).collectList().block()).containsExactly("[1,2,", "3,4]");
+
+        config.setMaxStreamedBodySize(8);
+        JaxRsRequest tooLarge = new JaxRsRequest(new MockHttpServerRequest("/", HttpMethod.POST,
+            ByteBufFlux.fromInbound(Flux.just("[1,2,", "3,4]").map(String::getBytes))), new ByteBufCollector(6), config);
+        assertThatExceptionOfType(WebException.class)
+            .isThrownBy(() -> tooLarge.streamBody().collectList().block());
+    }
+
+    @Test
+    void shouldKeepBodyBufferWhenRequested() {
+        MockHttpServerRequest serverReq = new MockHttpServerRequest("/", HttpMethod.POST, "body");
+        JaxRsRequest req = new JaxRsRequest(serverReq, new ByteBufCollector(), true).loadBody().block();
+
+        assertThat(req.getBodyBuffer().toString(StandardCharsets.UTF_8)).isEqualTo("body");
+        req.releaseBody();
+    }
+
+    @Test
+    void shouldDecodeDeclaredQueryParamsAndFallBackToAllParams() {
+        JaxRsRequest req = new JaxRsRequest(new MockHttpServerRequest("/path?a=1&b=J%C3%B6rgen+S&c;d=4#e=5"));
+        req.useQueryParamNames(Set.of("a", "b"));
+
+        assertThat(req.getQueryParam("a")).isEqualTo("1");
+        assertThat(req.getQueryParam("b")).isEqualTo("Jörgen S");
+        assertThat(req.getQueryParam("c")).isEmpty();
+        assertThat(req.getQueryParam("d")).isEqualTo("4");
+        assertThat(req.getQueryParam("e", "default")).isEqualTo("default");
+    }
+
+    @Test
+    void shouldNotDecodeQueryParamsThatAreNotDeclared() {
+        JaxRsRequest req = new JaxRsRequest(new MockHttpServerRequest("/path?a=1&d=%zz"));
+        req.useQueryParamNames(Set.of("a"));
+
+        assertThat(req.getQueryParam("a")).isEqualTo("1");
+        assertThatExceptionOfType(WebException.class)
+            .isThrownBy(() -> req.getQueryParam("d"))
+            .satisfies(e -> assertThat(e.getStatus()).isEqualTo(HttpResponseStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void shouldFindRequestedCookie() {
+        MockHttpServerRequest serverReq = new MockHttpServerRequest("/");
+        serverReq.requestHeaders().add(HttpHeaderNames.COOKIE, "session=abc; other_session=def");
+        serverReq.requestHeaders().add(HttpHeaderNames.COOKIE, "quoted=\"xy\";empty=;invalid=x y");
+        serverReq.requestHeaders().add(HttpHeaderNames.COOKIE, "session=later");
+        JaxRsRequest req = new JaxRsRequest(serverReq);
+
+        assertThat(req.getCookieValue("session")).isEqualTo("abc");
+        assertThat(req.getCookieValue("other_session")).isEqualTo("def");
+        assertThat(req.getCookieValue("quoted")).isEqualTo("xy");
+        assertThat(req.getCookieValue("empty")).isEmpty();
+        assertThat(req.getCookieValue("invalid")).isNull();
+        assertThat(req.getCookieValue("sess", "default")).isEqualTo("default");
+    }
+
+    @Test
+    void shouldFindHeaderByAsciiStringName() {
+        MockHttpServerRequest serverReq = new MockHttpServerRequest("/");
+        serverReq.requestHeaders().add("X-Custom", "value");
+        JaxRsRequest req = new JaxRsRequest(serverReq);
+
+        assertThat(req.getHeader(AsciiString.cached("x-custom"))).isEqualTo("value");
+    }
+
     @Test
     void testUri() {
         MockHttpServerRequest serverReq = new MockHttpServerRequest("https://localhost:8080/path?query");
@@ -116,6 +324,11 @@ class JaxRsRequestTest {
             .verify(DEBUG, "Error reading data for request POST /path");
     }
 
+    private static JaxRsConfig zeroCopyConfig() {
+        JaxRsConfig config = new JaxRsConfig();
+        config.setZeroCopyBody(true);
+        return config;
+    }
 
     private String generateLargeString(int sizeInMB) {
         String largeString = IntStream.range(1, sizeInMB * 1024 * 1024 - 1)
@@ -0,0 +1,154 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import io.netty.handler.codec.http.HttpMethod;
+import reactor.core.publisher.Mono;
+import se.fortnox.reactivewizard.mocks.MockHttpServerRequest;
+
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Microbenchmark of finding the resource of a request among 10, 100 and 1000 routes, comparing the segment tree of
+ * {@link JaxRsResourceRouter} with trying the path pattern of every resource. Run the main method with the test
+ * classpath and the --add-opens flags of the surefire configuration; it is not part of the test suite.
+ */
+public class JaxRsResourceRouterBenchmark {
+    private static final int   WARMUP_ITERATIONS   = 200_000;
+    private static final int   MEASURED_ITERATIONS = 1_000_000;
+    private static final int[] ROUTE_COUNTS        = {10, 100, 1000};
+
+    private final List<JaxRsResource> resources;
+    private final JaxRsResourceRouter router;
+    private final JaxRsRequest[]      requests;
+
+    JaxRsResourceRouterBenchmark(int routeCount) {
+        resources = createResources(routeCount);
+        router = new JaxRsResourceRouter(resources);
+        int services = routeCount / ItemResource.ROUTES;
+        requests = new JaxRsRequest[services * 3];
+        for (int service = 0; service < services; service++) {
+            requests[service * 3] = new JaxRsRequest(new MockHttpServerRequest("/service" + service + "/items"));
+            requests[service * 3 + 1] = new JaxRsRequest(new MockHttpServerRequest("/service" + service + "/items/123"));
+            requests[service * 3 + 2] = new JaxRsRequest(new MockHttpServerRequest("/service" + service + "/items/123", HttpMethod.DELETE));
+        }
+        Collections.shuffle(Arrays.asList(requests), new Random(0));
+    }
+
+    public static void main(String[] args) {
+        for (int round = 0; round < 3; round++) {
+            for (int routeCount : ROUTE_COUNTS) {
+                JaxRsResourceRouterBenchmark benchmark = new JaxRsResourceRouterBenchmark(routeCount);
+                benchmark.measure(routeCount + " routes, tree", benchmark.router::findResource);
+                benchmark.measure(routeCount + " routes, scan", benchmark::findResourceByScanning);
+            }
+        }
+    }
+
+    private void measure(String name, Function<JaxRsRequest, JaxRsResource<?>> findResource) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            find(findResource, i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            find(findResource, i);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-20s %6d ns/op%n", name, elapsed / MEASURED_ITERATIONS);
+    }
+
+    private void find(Function<JaxRsRequest, JaxRsResource<?>> findResource, int iteration) {
+        if (findResource.apply(requests[iteration % requests.length]) == null) {
+            throw new IllegalStateException("No resource found");
+        }
+    }
+
+    private JaxRsResource<?> findResourceByScanning(JaxRsRequest request) {
+        for (JaxRsResource<?> resource : resources) {
+            if (resource.canHandleRequest(request)) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Mounts the same resource class under a path of its own for each service, the way a large api is made up of
+     * many similar resources.
+     */
+    private static List<JaxRsResource> createResources(int routeCount) {
+        JaxRsResourceFactory resourceFactory = new JaxRsResourceFactory();
+        ItemResource service = new ItemResource();
+        List<JaxRsResource> resources = new ArrayList<>();
+        for (int index = 0; index < routeCount / ItemResource.ROUTES; index++) {
+            Path path = path("/service" + index);
+            for (Method method : ItemResource.class.getDeclaredMethods()) {
+                JaxRsResource resource = resourceFactory.createResource(path, method, service);
+                if (resource != null) {
+                    resources.add(resource);
+                }
+            }
+        }
+        Collections.sort(resources);
+        return resources;
+    }
+
+    private static Path path(String value) {
+        return new Path() {
+            @Override
+            public String value() {
+                return value;
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return Path.class;
+            }
+        };
+    }
+
+    public static class ItemResource {
+        static final int ROUTES = 5;
+
+        @GET
+        @Path("items")
+        public Mono<String> items() {
+            return Mono.just("items");
+        }
+
+        @POST
+        @Path("items")
+        public Mono<String> create() {
+            return Mono.just("created");
+        }
+
+        @GET
+        @Path("items/{id}")
+        public Mono<String> item(@PathParam("id") String id) {
+            return Mono.just(id);
+        }
+
+        @PUT
+        @Path("items/{id}")
+        public Mono<String> update(@PathParam("id") String id) {
+            return Mono.just(id);
+        }
+
+        @DELETE
+        @Path("items/{id}")
+        public Mono<String> delete(@PathParam("id") String id) {
+            return Mono.just(id);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import se.fortnox.reactivewizard.mocks.MockHttpServerRequest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JaxRsResourceRouterTest {
+
+    private final List<JaxRsResource> resources = new JaxRsResourceFactory().createResources(new Object[]{
+        new RouterResource(), new RootResource()
+    });
+    private final JaxRsResourceRouter router = new JaxRsResourceRouter(resources);
+
+    @Test
+    void shouldFindSameResourceAsPatternMatching() {
+        List<String> paths = List.of(
+            "",
+            "/",
+            "/router",
+            "/router/",
+            "/router//",
+            "/router/items",
+            "/router/items/",
+            "/router/items/special",
+            "/router/items/123",
+            "/router/items/abc",
+            "/router/items/123/sub",
+            "/router/items/abc/sub",
+            "/router/items/abc/sub/",
+            "/router/items//sub",
+            "/router/items/123.json",
+            "/router/items/abc/other",
+            "/router/files/a/b/c",
+            "/router/files",
+            "/router/version.txt",
+            "/router/versionXtxt",
+            "/router/items/ab%20c",
+            "/router/items/abc%20",
+            "/router/items/abc/%20",
+            "router/items",
+            "//router/items",
+            "/unknown");
+
+        for (HttpMethod httpMethod : List.of(HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT)) {
+            for (String path : paths) {
+                JaxRsRequest request = new JaxRsRequest(new MockHttpServerRequest(path, httpMethod));
+                assertThat(router.findResource(request))
+                    .describedAs("%s %s", httpMethod, path)
+                    .isSameAs(findResourceByScanning(request));
+            }
+        }
+    }
+
+    @Test
+    void shouldPreferLiteralSegmentOverVariable() {
+        assertThat(findMethodName(HttpMethod.GET, "/router/items/special")).isEqualTo("special");
+        assertThat(findMethodName(HttpMethod.GET, "/router/items/other")).isEqualTo("item");
+    }
+
+    @Test
+    void shouldPreferResourceWithMostParamsForSamePath() {
+        assertThat(findMethodName(HttpMethod.GET, "/router/items")).isEqualTo("itemsWithQuery");
+    }
+
+    @Test
+    void shouldMatchCustomRegexVariables() {
+        assertThat(findMethodName(HttpMethod.GET, "/router/items/123.json")).isEqualTo("itemAsJson");
+        assertThat(findMethodName(HttpMethod.GET, "/router/files/a/b/c")).isEqualTo("file");
+    }
+
+    @Test
+    void shouldExtractPathParamsFromMatchedResource() {
+        JaxRsRequest request = new JaxRsRequest(new MockHttpServerRequest("/router/items/abc/sub"));
+        assertThat(router.findResource(request)).isNotNull();
+        assertThat(request.getPathParam("id")).isEqualTo("abc");
+    }
+
+    @Test
+    void shouldNotFindResourceForOtherMethod() {
+        JaxRsRequest request = new JaxRsRequest(new MockHttpServerRequest("/router/items/abc/sub", HttpMethod.DELETE));
+        assertThat(router.findResource(request)).isNull();
+    }
+
+    private String findMethodName(HttpMethod httpMethod, String path) {
+        JaxRsResource<?> resource = router.findResource(new JaxRsRequest(new MockHttpServerRequest(path, httpMethod)));
+        return resource.getResourceMethod().getName();
+    }
+
+    private JaxRsResource<?> findResourceByScanning(JaxRsRequest request) {
+        for (JaxRsResource<?> resource : resources) {
+            if (resource.canHandleRequest(request)) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    @Path("/")
+    public static class RootResource {
+        @GET
+        public Mono<String> root() {
+            return Mono.just("root");
+        }
+    }
+
+    @Path("/router")
+    public static class RouterResource {
+        @GET
+        public Mono<String> index() {
+            return Mono.just("index");
+        }
+
+        @GET
+        @Path("items")
+        public Mono<String> items() {
+            return Mono.just("items");
+        }
+
+        @GET
+        @Path("items")
+        public Mono<String> itemsWithQuery(@QueryParam("q") String query) {
+            return Mono.just("items");
+        }
+
+        @POST
+        @Path("items")
+        public Mono<String> createItem() {
+            return Mono.just("created");
+        }
+
+        @GET
+        @Path("items/special")
+        public Mono<String> special() {
+            return Mono.just("special");
+        }
+
+        @GET
+        @Path("items/{id}")
+        public Mono<String> item(@PathParam("id") String id) {
+            return Mono.just(id);
+        }
+
+        @GET
+        @Path("items/{id:[0-9]+}.json")
+        public Mono<String> itemAsJson(@PathParam("id") String id) {
+            return Mono.just(id);
+        }
+
+        @GET
+        @Path("items/{id}/sub")
+        public Mono<String> sub(@PathParam("id") String id) {
+            return Mono.just(id);
+        }
+
+        @GET
+        @Path("items/{other}/{name}")
+        public Mono<String> named(@PathParam("other") String other, @PathParam("name") String name) {
+            return Mono.just(name);
+        }
+
+        @GET
+        @Path("files/{path:.*}")
+        public Mono<String> file(@PathParam("path") String path) {
+            return Mono.just(path);
+        }
+
+        @GET
+        @Path("version.txt")
+        public Mono<String> version() {
+            return Mono.just("1");
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package se.fortnox.reactivewizard.jaxrs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.util.StdDateFormat;
 import com.google.inject.Module;
 import com.google.inject.*;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.cookie.DefaultCookie;
 import org.assertj.core.api.Assertions;
@@ -12,7 +15,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
 import rx.Observable;
+import se.fortnox.reactivewizard.ExceptionHandler;
 import se.fortnox.reactivewizard.jaxrs.params.*;
 import se.fortnox.reactivewizard.jaxrs.params.annotated.AnnotatedParamResolverFactories;
 import se.fortnox.reactivewizard.jaxrs.params.deserializing.Deserializer;
@@ -142,6 +147,80 @@ class JaxRsResourceTest {
         assertThat(response.getOutp()).isEqualTo("\"foo: 5678\"");
     }
 
+    @Test
+    void shouldResolveCustomTypeSynchronously() {
+        MockHttpServerRequest req = new MockHttpServerRequest("/test/accepts/res?fid=5678");
+
+        Foo foo = mock(Foo.class);
+        when(foo.getStr()).thenReturn("5678");
+        ParamResolver<Foo> fooResolver = new SynchronousParamResolver<Foo>() {
+            @Override
+            public Mono<Foo> resolve(JaxRsRequest request) {
+                throw new AssertionError("Should be resolved synchronously");
+            }
+
+            @Override
+            public Foo resolveNow(JaxRsRequest request) {
+                return foo;
+            }
+        };
+
+        JaxRsResources jaxRsResources = new JaxRsResources(
+            new Object[]{new FooTest()},
+            new JaxRsResourceFactory(
+                new ParamResolverFactories(
+                    new DeserializerFactory(),
+                    new ParamResolvers(fooResolver),
+                    new AnnotatedParamResolverFactories(),
+                    new WrapSupportingParamTypeResolver()),
+                new JaxRsResultFactoryFactory(),
+                new RequestLogger()),
+            false);
+        JaxRsRequest jaxRsRequest = new JaxRsRequest(req, new ByteBufCollector());
+        Mono<? extends JaxRsResult<?>> result = jaxRsResources.findResource(jaxRsRequest).call(jaxRsRequest);
+
+        MockHttpServerResponse response = new MockHttpServerResponse();
+
+        Flux.from(result.block().write(response)).count().block();
+
+        assertThat(response.getOutp()).isEqualTo("\"foo: 5678\"");
+    }
+
+    @Test
+    void shouldFindTypeOfSynchronousResolverUsingDefaultResolve() {
+        MockHttpServerRequest req = new MockHttpServerRequest("/test/accepts/res?fid=5678");
+
+        Foo foo = mock(Foo.class);
+        when(foo.getStr()).thenReturn("5678");
+        ParamResolver<Foo> fooResolver = new SynchronousParamResolver<Foo>() {
+            @Override
+            public Foo resolveNow(JaxRsRequest request) {
+                return foo;
+            }
+        };
+        assertThat(fooResolver.resolve(new JaxRsRequest(req)).block()).isSameAs(foo);
+
+        JaxRsResources jaxRsResources = new JaxRsResources(
+            new Object[]{new FooTest()},
+            new JaxRsResourceFactory(
+                new ParamResolverFactories(
+                    new DeserializerFactory(),
+                    new ParamResolvers(fooResolver),
+                    new AnnotatedParamResolverFactories(),
+                    new WrapSupportingParamTypeResolver()),
+                new JaxRsResultFactoryFactory(),
+                new RequestLogger()),
+            false);
+        JaxRsRequest jaxRsRequest = new JaxRsRequest(req, new ByteBufCollector());
+        Mono<? extends JaxRsResult<?>> result = jaxRsResources.findResource(jaxRsRequest).call(jaxRsRequest);
+
+        MockHttpServerResponse response = new MockHttpServerResponse();
+
+        Flux.from(result.block().write(response)).count().block();
+
+        assertThat(response.getOutp()).isEqualTo("\"foo: 5678\"");
+    }
+
     @Test
     void shouldSupportDefaultValue() {
         assertThat(body(get(service, "/test/defaultQuery"))).isEqualTo("\"Default: 5\"");
@@ -572,6 +651,18 @@ class JaxRsResourceTest {
         assertThat(resp.getOutp()).isEqualTo("\"" + text + "\"");
     }
 
+    @Test
+    void shouldLoadMultipartBodyOfResourceWithoutFormParams() throws JsonProcessingException {
+        String form = "--boundary\r\nContent-Disposition: form-data; name=\"name\"\r\n\r\nvalue\r\n--boundary--\r\n";
+        MockHttpServerRequest request = new MockHttpServerRequest("/test/byteArray", HttpMethod.POST, form);
+        request.requestHeaders().set(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=boundary");
+
+        MockHttpServerResponse resp = processRequest(service, request);
+
+        assertThat(resp.status()).isEqualTo(HttpResponseStatus.CREATED);
+        assertThat(resp.getOutp()).isEqualTo(new ObjectMapper().writeValueAsString(form));
+    }
+
     @Test
     void shouldAcceptByteArrayInputAnyMimeType() {
         String text = "my bytes";
@@ -768,6 +859,44 @@ class JaxRsResourceTest {
         assertThat(body(put(service, "/test/acceptBodyPut", "{\"name\":\"test\"}"))).isEqualTo("{\"name\":\"test\",\"age\":0,\"items\":null}");
     }
 
+    @Test
+    void shouldAcceptBodyKeptInBuffers() {
+        JaxRsConfig config = new JaxRsConfig();
+        config.setZeroCopyBody(true);
+        JaxRsRequestHandler handler = new JaxRsRequestHandler(new Object[]{service}, new JaxRsResourceFactory(),
+            new ExceptionHandler(), new ByteBufCollector(), false, config);
+
+        MockHttpServerRequest request = new MockHttpServerRequest("/test/acceptBodyPut", HttpMethod.PUT, "{\"name\":\"test\"}");
+        assertThat(body(processRequestWithHandler(handler, request))).isEqualTo("{\"name\":\"test\",\"age\":0,\"items\":null}");
+
+        request = new MockHttpServerRequest("/test/jsonParam", HttpMethod.POST, "{hej}");
+        assertThat(processRequestWithHandler(handler, request).status()).isEqualTo(BAD_REQUEST);
+    }
+
+    @Test
+    void shouldStreamJsonArrayBodyToFluxParam() {
+        ByteBufFlux content = ByteBufFlux.fromString(Flux.just("[{\"name\":\"a\"},{\"na", "me\":\"b\"}", ",{\"name\":\"c\"}]"));
+        MockHttpServerRequest request = new MockHttpServerRequest("/streamed/names", HttpMethod.POST, content);
+
+        assertThat(body(processRequest(new StreamedBodyResource(), request))).isEqualTo("\"a,b,c\"");
+    }
+
+    @Test
+    void shouldReturnErrorForBadJsonInStreamedBody() {
+        ByteBufFlux content = ByteBufFlux.fromString(Flux.just("[{\"name\":\"a\"},", "{hej}]"));
+        MockHttpServerRequest request = new MockHttpServerRequest("/streamed/names", HttpMethod.POST, content);
+
+        assertThat(processRequest(new StreamedBodyResource(), request).status()).isEqualTo(BAD_REQUEST);
+    }
+
+    @Test
+    void shouldNotLoadBodyWhenNoParamNeedsIt() {
+        ByteBufFlux content = ByteBufFlux.fromInbound(Flux.error(new IllegalStateException("Body should not be read")));
+        MockHttpServerRequest request = new MockHttpServerRequest("/streamed/items/5", HttpMethod.DELETE, content);
+
+        assertThat(body(processRequest(new StreamedBodyResource(), request))).isEqualTo("\"deleted 5\"");
+    }
+
     @Test
     void shouldAcceptBodyForPutRecord() {
         assertThat(body(put(service, "/test/acceptBodyPutRecord", "{\"name\":\"test\"}"))).isEqualTo("{\"name\":\"test\",\"age\":0,\"items\":null}");
@@ -1778,6 +1907,21 @@ class JaxRsResourceTest {
         }
     }
 
+    @Path("streamed")
+    class StreamedBodyResource {
+        @POST
+        @Path("names")
+        public Mono<String> names(Flux<ParamEntity> entities) {
+            return entities.map(ParamEntity::getName).collect(Collectors.joining(","));
+        }
+
+        @DELETE
+        @Path("items/{id}")
+        public Mono<String> delete(@PathParam("id") int id) {
+            return just("deleted " + id);
+        }
+    }
+
     @Path("special")
     class SpecialResource {
 
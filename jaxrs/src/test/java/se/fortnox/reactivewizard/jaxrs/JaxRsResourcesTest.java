@@ -0,0 +1,94 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import com.codahale.metrics.Counter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import se.fortnox.reactivewizard.metrics.Metrics;
+import se.fortnox.reactivewizard.mocks.MockHttpServerRequest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JaxRsResourcesTest {
+
+    private final Counter hits = Metrics.registry().counter("JAXRS_routeCache:hit");
+    private final Counter misses = Metrics.registry().counter("JAXRS_routeCache:miss");
+    private long hitsBefore;
+    private long missesBefore;
+
+    @BeforeEach
+    void setUp() {
+        hitsBefore = hits.getCount();
+        missesBefore = misses.getCount();
+    }
+
+    @Test
+    void shouldCacheFoundResources() {
+        JaxRsResources resources = new JaxRsResources(new Object[]{new CachedResource()}, new JaxRsResourceFactory(), false, 10);
+
+        JaxRsRequest first = request("/cached/items/1");
+        JaxRsRequest second = request("/cached/items/1");
+        JaxRsResource<?> resource = resources.findResource(first);
+
+        assertThat(resources.findResource(second)).isSameAs(resource);
+        assertThat(second.getPathParam("id")).isEqualTo("1");
+        assertThat(hits.getCount() - hitsBefore).isEqualTo(1);
+        assertThat(misses.getCount() - missesBefore).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCacheResourcesMatchedByRegex() {
+        JaxRsResources resources = new JaxRsResources(new Object[]{new CachedResource()}, new JaxRsResourceFactory(), false, 10);
+
+        resources.findResource(request("/cached/items/1.json"));
+        JaxRsRequest request = request("/cached/items/1.json");
+
+        assertThat(resources.findResource(request).getResourceMethod().getName()).isEqualTo("itemAsJson");
+        assertThat(request.getPathParam("id")).isEqualTo("1");
+        assertThat(hits.getCount() - hitsBefore).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheMissingResources() {
+        JaxRsResources resources = new JaxRsResources(new Object[]{new CachedResource()}, new JaxRsResourceFactory(), false, 10);
+
+        assertThat(resources.findResource(request("/cached/unknown"))).isNull();
+        assertThat(resources.findResource(request("/cached/unknown"))).isNull();
+        assertThat(hits.getCount() - hitsBefore).isZero();
+        assertThat(misses.getCount() - missesBefore).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotCacheWhenReloadingClasses() {
+        JaxRsResources resources = new JaxRsResources(new Object[]{new CachedResource()}, new JaxRsResourceFactory(), true, 10);
+
+        JaxRsResource<?> resource = resources.findResource(request("/cached/items/1"));
+
+        assertThat(resources.findResource(request("/cached/items/1"))).isNotSameAs(resource);
+        assertThat(hits.getCount() - hitsBefore).isZero();
+        assertThat(misses.getCount() - missesBefore).isZero();
+    }
+
+    private static JaxRsRequest request(String uri) {
+        return new JaxRsRequest(new MockHttpServerRequest(uri));
+    }
+
+    @Path("/cached")
+    public static class CachedResource {
+        @GET
+        @Path("items/{id}")
+        public Mono<String> item(@PathParam("id") String id) {
+            return Mono.just(id);
+        }
+
+        @GET
+        @Path("items/{id:[0-9]+}.json")
+        public Mono<String> itemAsJson(@PathParam("id") String id) {
+            return Mono.just(id);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import org.junit.jupiter.api.Test;
+import se.fortnox.reactivewizard.mocks.MockHttpServerRequest;
+
+import java.util.List;
+import java.util.regex.Matcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathTemplateTest {
+
+    private static final List<String> PATHS = List.of(
+        "",
+        "/",
+        "//",
+        "/items",
+        "/items/",
+        "/items//",
+        "/items/ ",
+        "/items/\t/",
+        "/items/\u2028",
+        "/items/123",
+        "/items/123/",
+        "/items/123 ",
+        "/items/12 3",
+        "/items/123\u2028",
+        "/items/123/\u2028",
+        "/items/123\u2028/",
+        "/items/123/sub",
+        "/items/123/sub/",
+        "/items/123/sub ",
+        "/items/123/subx",
+        "/items/123/sub/x",
+        "/items//sub",
+        "/items/123/456",
+        "items/123",
+        "//items/123",
+        "/itemsx/123",
+        "/other");
+
+    @Test
+    void shouldMatchSameAsPattern() {
+        List<String> templates = List.of(
+            "",
+            "/items",
+            "/items/{id}",
+            "/items/{id}/sub",
+            "/items/{id}/{subId}",
+            "/{type}/{id}");
+
+        for (String template : templates) {
+            PathTemplate pathTemplate = new PathTemplate(template);
+            assertThat(pathTemplate.isSegmentMatched()).isTrue();
+
+            for (String path : PATHS) {
+                Matcher matcher = pathTemplate.getPattern().matcher(path);
+                int[] offsets = pathTemplate.matchSegments(path);
+                assertThat(offsets != null)
+                    .describedAs("%s matching %s", template, path)
+                    .isEqualTo(matcher.matches());
+
+                if (offsets != null) {
+                    for (String name : matcher.pattern().namedGroups().keySet()) {
+                        int index = pathTemplate.variableIndex(name);
+                        assertThat(path.substring(offsets[index * 2], offsets[index * 2 + 1]))
+                            .describedAs("%s in %s matching %s", name, template, path)
+                            .isEqualTo(matcher.group(name));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldUsePatternForCustomRegexAndRegexCharacters() {
+        assertThat(new PathTemplate("/items/{id:[0-9]+}").isSegmentMatched()).isFalse();
+        assertThat(new PathTemplate("/items/{id}.json").isSegmentMatched()).isFalse();
+        assertThat(new PathTemplate("/items/prefix{id}").isSegmentMatched()).isFalse();
+        assertThat(new PathTemplate("/items//sub").isSegmentMatched()).isFalse();
+    }
+
+    @Test
+    void shouldExtractPathParamsWithoutRegex() {
+        JaxRsRequest request = new JaxRsRequest(new MockHttpServerRequest("/items/abc/sub/def"));
+
+        assertThat(request.matchesPath(new PathTemplate("/items/{id}/sub/{subId}"))).isTrue();
+        assertThat(request.getPathParam("id")).isEqualTo("abc");
+        assertThat(request.getPathParam("subId")).isEqualTo("def");
+        assertThat(request.getPathParam("item")).isNull();
+        assertThat(request.getPathParam("item", "default")).isEqualTo("default");
+    }
+
+    @Test
+    void shouldExtractPathParamsUsingCustomRegex() {
+        JaxRsRequest request = new JaxRsRequest(new MockHttpServerRequest("/items/123.json"));
+
+        assertThat(request.matchesPath(new PathTemplate("/items/{id:[0-9]+}.json"))).isTrue();
+        assertThat(request.getPathParam("id")).isEqualTo("123");
+        assertThat(request.getPathParam("item")).isNull();
+    }
+}
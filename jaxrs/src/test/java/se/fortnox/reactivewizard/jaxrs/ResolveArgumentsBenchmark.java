@@ -0,0 +1,111 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import reactor.core.publisher.Mono;
+import se.fortnox.reactivewizard.jaxrs.params.ParamResolver;
+import se.fortnox.reactivewizard.jaxrs.params.ParamResolverFactories;
+import se.fortnox.reactivewizard.jaxrs.response.JaxRsResultFactoryFactory;
+import se.fortnox.reactivewizard.mocks.MockHttpServerRequest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Microbenchmark of calling a GET resource with five params, comparing arguments resolved directly by synchronous
+ * resolvers with the same arguments resolved as one Mono per param combined by Mono.zip. Run the main method with the
+ * test classpath and the --add-opens flags of the surefire configuration; it is not part of the test suite.
+ */
+public class ResolveArgumentsBenchmark {
+    private static final int    WARMUP_ITERATIONS   = 200_000;
+    private static final int    MEASURED_ITERATIONS = 1_000_000;
+    private static final String URI                 = "/search?q=invoices&page=2&size=50&sort=date";
+
+    private final JaxRsResource<?> synchronousResource;
+    private final JaxRsResource<?> zippedResource;
+
+    ResolveArgumentsBenchmark() throws NoSuchMethodException {
+        Method method = SearchResource.class.getMethod("search", String.class, int.class, int.class, String.class, String.class);
+        synchronousResource = createResource(method, new ParamResolverFactories());
+        zippedResource = createResource(method, new AsynchronousParamResolverFactories());
+    }
+
+    public static void main(String[] args) throws NoSuchMethodException {
+        ResolveArgumentsBenchmark benchmark = new ResolveArgumentsBenchmark();
+        for (int round = 0; round < 3; round++) {
+            benchmark.measure("synchronous", benchmark.synchronousResource);
+            benchmark.measure("Mono.zip", benchmark.zippedResource);
+        }
+    }
+
+    private void measure(String name, JaxRsResource<?> resource) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            call(resource);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            call(resource);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-15s %6d ns/op%n", name, elapsed / MEASURED_ITERATIONS);
+    }
+
+    private static void call(JaxRsResource<?> resource) {
+        MockHttpServerRequest serverRequest = new MockHttpServerRequest(URI);
+        serverRequest.requestHeaders().set("X-Tenant", "42");
+        JaxRsRequest request = new JaxRsRequest(serverRequest, new ByteBufCollector());
+        if (!resource.canHandleRequest(request) || resource.call(request).block() == null) {
+            throw new IllegalStateException("Unexpected result");
+        }
+    }
+
+    private static JaxRsResource<?> createResource(Method method, ParamResolverFactories paramResolverFactories) {
+        return new JaxRsResource<>(method, new SearchResource(), paramResolverFactories, new JaxRsResultFactoryFactory(),
+            new JaxRsMeta(method, null), new RequestLogger());
+    }
+
+    /**
+     * Hides that the resolvers can resolve their values directly, so that the arguments are combined by Mono.zip.
+     */
+    private static class AsynchronousParamResolverFactories extends ParamResolverFactories {
+        @Override
+        public List<ParamResolver> createParamResolvers(Method method, String[] consumesAnnotation) {
+            return super.createParamResolvers(method, consumesAnnotation).stream()
+                .<ParamResolver>map(AsynchronousParamResolverFactories::asynchronous)
+                .toList();
+        }
+
+        private static ParamResolver<?> asynchronous(ParamResolver<?> paramResolver) {
+            return new ParamResolver<Object>() {
+                @Override
+                public Mono<Object> resolve(JaxRsRequest request) {
+                    return paramResolver.resolve(request).cast(Object.class);
+                }
+
+                @Override
+                public boolean needsBody() {
+                    return paramResolver.needsBody();
+                }
+
+                @Override
+                public Set<String> getQueryParamNames() {
+                    return paramResolver.getQueryParamNames();
+                }
+            };
+        }
+    }
+
+    @Path("/")
+    public static class SearchResource {
+        @GET
+        @Path("search")
+        public Mono<String> search(@QueryParam("q") String query, @QueryParam("page") int page, @QueryParam("size") int size,
+            @QueryParam("sort") String sort, @HeaderParam("X-Tenant") String tenant
+        ) {
+            return Mono.just(query);
+        }
+    }
+}
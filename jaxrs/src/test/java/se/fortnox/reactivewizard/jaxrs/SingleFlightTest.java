@@ -0,0 +1,148 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import se.fortnox.reactivewizard.ExceptionHandler;
+import se.fortnox.reactivewizard.metrics.Metrics;
+import se.fortnox.reactivewizard.mocks.MockHttpServerRequest;
+import se.fortnox.reactivewizard.mocks.MockHttpServerResponse;
+import se.fortnox.reactivewizard.utils.JaxRsTestUtil;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private final SingleFlightResource resource = new SingleFlightResource();
+    private final JaxRsRequestHandler  handler  = new JaxRsRequestHandler(new Object[]{resource},
+        new JaxRsResourceFactory(),
+        new ExceptionHandler(),
+        false);
+
+    @Test
+    void shouldShareCallBetweenConcurrentIdenticalRequests() {
+        long coalesced = Metrics.registry().counter("JAXRS_singleFlight:coalesced").getCount();
+
+        MockHttpServerResponse first = new MockHttpServerResponse();
+        MockHttpServerResponse second = new MockHttpServerResponse();
+        Mono.from(handler.apply(request("/single-flight?q=a", null), first)).subscribe();
+        Mono.from(handler.apply(request("/single-flight?q=a", null), second)).subscribe();
+
+        resource.result.tryEmitValue("shared");
+
+        assertThat(resource.calls.get()).isEqualTo(1);
+        assertThat(first.getOutp()).isEqualTo("\"a shared\"");
+        assertThat(second.getOutp()).isEqualTo("\"a shared\"");
+        assertThat(second.status()).isEqualTo(HttpResponseStatus.OK);
+        assertThat(second.responseHeaders().get("Content-Type")).isEqualTo("application/json");
+        assertThat(Metrics.registry().counter("JAXRS_singleFlight:coalesced").getCount()).isEqualTo(coalesced + 1);
+    }
+
+    @Test
+    void shouldNotShareCallBetweenRequestsWithDifferentQueryOrVaryHeaders() {
+        Mono.from(handler.apply(request("/single-flight?q=a", "1"), new MockHttpServerResponse())).subscribe();
+        Mono.from(handler.apply(request("/single-flight?q=b", "1"), new MockHttpServerResponse())).subscribe();
+        Mono.from(handler.apply(request("/single-flight?q=a", "2"), new MockHttpServerResponse())).subscribe();
+
+        assertThat(resource.calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldStartNewCallWhenPreviousCallHasCompleted() {
+        resource.result.tryEmitValue("done");
+
+        assertThat(JaxRsTestUtil.processRequestWithHandler(handler, request("/single-flight?q=a", null)).getOutp()).isEqualTo("\"a done\"");
+        assertThat(JaxRsTestUtil.processRequestWithHandler(handler, request("/single-flight?q=a", null)).getOutp()).isEqualTo("\"a done\"");
+        assertThat(resource.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCancelCallAndStartNewOneWhenAllJoinedRequestsAreCancelled() {
+        Disposable first = Mono.from(handler.apply(request("/single-flight?q=a", null), new MockHttpServerResponse())).subscribe();
+        Disposable second = Mono.from(handler.apply(request("/single-flight?q=a", null), new MockHttpServerResponse())).subscribe();
+
+        first.dispose();
+        assertThat(resource.cancellations.get()).isZero();
+        second.dispose();
+        assertThat(resource.cancellations.get()).isEqualTo(1);
+
+        MockHttpServerResponse third = new MockHttpServerResponse();
+        Mono.from(handler.apply(request("/single-flight?q=a", null), third)).subscribe();
+        resource.result.tryEmitValue("fresh");
+
+        assertThat(resource.calls.get()).isEqualTo(2);
+        assertThat(third.getOutp()).isEqualTo("\"a fresh\"");
+    }
+
+    @Test
+    void shouldShareErrors() {
+        MockHttpServerResponse first = new MockHttpServerResponse();
+        MockHttpServerResponse second = new MockHttpServerResponse();
+        Mono.from(handler.apply(request("/single-flight?q=a", null), first)).subscribe();
+        Mono.from(handler.apply(request("/single-flight?q=a", null), second)).subscribe();
+
+        resource.result.tryEmitError(new WebException(HttpResponseStatus.CONFLICT));
+
+        assertThat(resource.calls.get()).isEqualTo(1);
+        assertThat(first.status()).isEqualTo(HttpResponseStatus.CONFLICT);
+        assertThat(second.status()).isEqualTo(HttpResponseStatus.CONFLICT);
+    }
+
+    @Test
+    void shouldUseAndFillResponseCacheOfCacheableResource() {
+        CachedSingleFlightResource cachedResource = new CachedSingleFlightResource();
+        JaxRsRequestHandler cachedHandler = new JaxRsRequestHandler(new Object[]{cachedResource},
+            new JaxRsResourceFactory(),
+            new ExceptionHandler(),
+            false);
+
+        assertThat(JaxRsTestUtil.processRequestWithHandler(cachedHandler, request("/cached-single-flight", null)).getOutp())
+            .isEqualTo("\"value 1\"");
+        assertThat(JaxRsTestUtil.processRequestWithHandler(cachedHandler, request("/cached-single-flight", null)).getOutp())
+            .isEqualTo("\"value 1\"");
+        assertThat(cachedResource.calls.get()).isEqualTo(1);
+    }
+
+    private static MockHttpServerRequest request(String uri, String tenant) {
+        MockHttpServerRequest request = new MockHttpServerRequest(uri);
+        if (tenant != null) {
+            request.requestHeaders().add("Tenant", tenant);
+        }
+        return request;
+    }
+
+    @Path("/single-flight")
+    public static class SingleFlightResource {
+        private final AtomicInteger      calls         = new AtomicInteger();
+        private final AtomicInteger      cancellations = new AtomicInteger();
+        private final Sinks.One<String>  result        = Sinks.one();
+
+        @GET
+        @SingleFlight(varyHeaders = "Tenant")
+        public Mono<String> get(@QueryParam("q") String query) {
+            return Mono.defer(() -> {
+                calls.incrementAndGet();
+                return result.asMono().map(value -> query + " " + value);
+            }).doOnCancel(cancellations::incrementAndGet);
+        }
+    }
+
+    @Path("/cached-single-flight")
+    public static class CachedSingleFlightResource {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @GET
+        @Cacheable
+        @SingleFlight
+        public Mono<String> get() {
+            return Mono.fromSupplier(() -> "value " + calls.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package se.fortnox.reactivewizard.jaxrs;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import se.fortnox.reactivewizard.ExceptionHandler;
+import se.fortnox.reactivewizard.jaxrs.params.ParamResolverFactories;
+import se.fortnox.reactivewizard.jaxrs.params.ParamResolvers;
+import se.fortnox.reactivewizard.jaxrs.params.ParamTypeResolver;
+import se.fortnox.reactivewizard.jaxrs.params.annotated.AnnotatedParamResolverFactories;
+import se.fortnox.reactivewizard.jaxrs.params.deserializing.DeserializerFactory;
+import se.fortnox.reactivewizard.jaxrs.response.JaxRsResultFactoryFactory;
+import se.fortnox.reactivewizard.mocks.MockHttpServerRequest;
+import se.fortnox.reactivewizard.mocks.MockHttpServerResponse;
+import se.fortnox.reactivewizard.util.Deadline;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeoutTest {
+    private final TimeoutResource resource = new TimeoutResource();
+    private final JaxRsRequestHandler handler = new JaxRsRequestHandler(new Object[]{resource},
+        new JaxRsResourceFactory(
+            new ParamResolverFactories(new DeserializerFactory(), new ParamResolvers(),
+                new AnnotatedParamResolverFactories(new DeserializerFactory()), new ParamTypeResolver()),
+            new JaxRsResultFactoryFactory(),
+            new RequestLogger()),
+        new ExceptionHandler(),
+        false);
+
+    @Test
+    void shouldCancelCallAndRespondWithGatewayTimeoutAfterTimeoutOfResource() {
+        MockHttpServerResponse response = get("/timeout/slow", UnaryOperator.identity());
+
+        assertThat(response.status().code()).isEqualTo(504);
+        assertThat(response.getOutp()).contains("\"error\":\"request.timeout\"");
+        assertThat(resource.cancelled).isTrue();
+    }
+
+    @Test
+    void shouldUseDeadlineOfCallerWhenEarlierThanTimeoutOfResource() {
+        MockHttpServerResponse response = get("/timeout/remaining",
+            context -> Deadline.put(context, Deadline.after(Duration.ofMillis(500))));
+
+        assertThat(Long.parseLong(response.getOutp())).isBetween(1L, 500L);
+    }
+
+    @Test
+    void shouldPutTimeoutOfResourceInContextOfCall() {
+        MockHttpServerResponse response = get("/timeout/remaining", UnaryOperator.identity());
+
+        assertThat(Long.parseLong(response.getOutp())).isBetween(1000L, 2000L);
+    }
+
+    @Test
+    void shouldUseDefaultTimeoutForResourceWithoutTimeout() {
+        MockHttpServerResponse response = get("/timeout/default",
+            context -> Deadline.putDefaultTimeout(context, Duration.ofMillis(50)));
+
+        assertThat(response.status().code()).isEqualTo(504);
+    }
+
+    @Test
+    void shouldNotUseDefaultTimeoutForStreams() {
+        MockHttpServerResponse response = get("/timeout/stream",
+            context -> Deadline.putDefaultTimeout(context, Duration.ofMillis(50)));
+
+        // The status is written with the first value, which is produced after the default timeout
+        assertThat(response.status().code()).isEqualTo(200);
+    }
+
+    @Test
+    void shouldNotLimitCallsWithoutTimeout() {
+        MockHttpServerResponse response = get("/timeout/default", UnaryOperator.identity());
+
+        assertThat(response.status().code()).isEqualTo(200);
+        assertThat(response.getOutp()).isEqualTo("\"done\"");
+    }
+
+    private MockHttpServerResponse get(String uri, UnaryOperator<Context> context) {
+        MockHttpServerRequest request = new MockHttpServerRequest(uri);
+        MockHttpServerResponse response = new MockHttpServerResponse();
+        Mono.from(handler.apply(request, response)).contextWrite(context).block(Duration.ofSeconds(5));
+        return response;
+    }
+
+    @Path("timeout")
+    public static class TimeoutResource {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        @GET
+        @Path("slow")
+        @Timeout(50)
+        public Mono<String> slow() {
+            return Mono.<String>never().doOnCancel(() -> cancelled.set(true));
+        }
+
+        @GET
+        @Path("remaining")
+        @Timeout(value = 2, unit = TimeUnit.SECONDS)
+        public Mono<Long> remaining() {
+            return Mono.deferContextual(context -> Mono.just(Deadline.from(context).orElseThrow().remaining().toMillis()));
+        }
+
+        @GET
+        @Path("default")
+        public Mono<String> withoutTimeout() {
+            return Mono.delay(Duration.ofMillis(200)).thenReturn("done");
+        }
+
+        @GET
+        @Path("stream")
+        @Stream
+        public Flux<String> stream() {
+            return Flux.just("first", "second").delayElements(Duration.ofMillis(100));
+        }
+    }
+}
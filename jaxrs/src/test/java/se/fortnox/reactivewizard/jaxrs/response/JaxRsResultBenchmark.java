@@ -0,0 +1,85 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Flux;
+import se.fortnox.reactivewizard.json.JsonSerializerFactory;
+import se.fortnox.reactivewizard.mocks.MockHttpServerResponse;
+
+import javax.ws.rs.core.MediaType;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Microbenchmark of writing small JSON responses, comparing headers copied into each result with headers shared by
+ * all results of a resource. Run the main method with the test classpath and the --add-opens flags of the surefire
+ * configuration; it is not part of the test suite.
+ */
+public class JaxRsResultBenchmark {
+    private static final int                 WARMUP_ITERATIONS   = 200_000;
+    private static final int                 MEASURED_ITERATIONS = 1_000_000;
+    private static final Map<String, String> HEADERS             = Map.of(
+        "Content-Type", MediaType.APPLICATION_JSON,
+        "Cache-Control", "no-cache",
+        "X-Content-Type-Options", "nosniff");
+
+    private final Function<Flux<Entity>, Flux<byte[]>>  serializer;
+    private final Function<Flux<Entity>, Flux<ByteBuf>> bufferSerializer;
+    private final HttpHeaders                           staticHeaders = JaxRsResult.toHttpHeaders(HEADERS);
+
+    JaxRsResultBenchmark() {
+        JaxRsResultSerializerFactory serializerFactory = new JaxRsResultSerializerFactory(new JsonSerializerFactory());
+        serializer = serializerFactory.createSerializer(MediaType.APPLICATION_JSON, Entity.class, false);
+        bufferSerializer = serializerFactory.createByteBufSerializer(MediaType.APPLICATION_JSON, Entity.class, false);
+    }
+
+    public static void main(String[] args) {
+        JaxRsResultBenchmark benchmark = new JaxRsResultBenchmark();
+        for (int round = 0; round < 3; round++) {
+            benchmark.measure("copied headers", benchmark::writeWithCopiedHeaders);
+            benchmark.measure("static headers", benchmark::writeWithStaticHeaders);
+        }
+    }
+
+    private void measure(String name, Runnable write) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            write.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            write.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-15s %6d ns/op%n", name, elapsed / MEASURED_ITERATIONS);
+    }
+
+    private void writeWithCopiedHeaders() {
+        write(new JaxRsResult<>(Flux.just(new Entity()), HttpResponseStatus.OK, serializer, bufferSerializer, HEADERS));
+    }
+
+    private void writeWithStaticHeaders() {
+        write(new JaxRsResult<>(Flux.just(new Entity()), HttpResponseStatus.OK, serializer, bufferSerializer, staticHeaders));
+    }
+
+    private static void write(JaxRsResult<Entity> result) {
+        MockHttpServerResponse response = new MockHttpServerResponse();
+        Flux.from(result.write(response)).blockLast();
+        if (response.getOutputBytes().length == 0 || response.responseHeaders().size() != HEADERS.size() + 1) {
+            throw new IllegalStateException("Unexpected response");
+        }
+    }
+
+    public static class Entity {
+        private final String name = "small";
+        private final int    value = 42;
+
+        public String getName() {
+            return name;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import se.fortnox.reactivewizard.jaxrs.JaxRsConfig;
+import se.fortnox.reactivewizard.jaxrs.Stream;
+import se.fortnox.reactivewizard.json.JsonConfig;
+import se.fortnox.reactivewizard.json.JsonSerializerFactory;
+
+import javax.ws.rs.core.MediaType;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+class JaxRsResultSerializerFactoryTest {
+
+    @Test
+    void shouldSendHeartbeatsBetweenServerSentEvents() {
+        JaxRsConfig config = new JaxRsConfig();
+        config.setStreamHeartbeatIntervalSeconds(10);
+        JaxRsResultSerializerFactory serializerFactory = new JaxRsResultSerializerFactory(new JsonSerializerFactory(), config);
+
+        StepVerifier.withVirtualTime(() -> serializerFactory
+                .createStreamingByteBufSerializer(MediaType.APPLICATION_JSON, Integer.class, Stream.Type.SERVER_SENT_EVENTS, true)
+                .apply(Flux.just(1).concatWith(Flux.just(2).delaySubscription(Duration.ofSeconds(25))))
+                .map(JaxRsResultSerializerFactoryTest::string))
+            .expectNext("data:1\n\n")
+            .thenAwait(Duration.ofSeconds(20))
+            .expectNext(":\n\n", ":\n\n")
+            .thenAwait(Duration.ofSeconds(5))
+            .expectNext("data:2\n\n")
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldSendHeartbeatsBetweenNdJsonLines() {
+        JaxRsConfig config = new JaxRsConfig();
+        config.setStreamHeartbeatIntervalSeconds(10);
+        JaxRsResultSerializerFactory serializerFactory = new JaxRsResultSerializerFactory(new JsonSerializerFactory(), config);
+
+        StepVerifier.withVirtualTime(() -> serializerFactory
+                .createStreamingByteBufSerializer(MediaType.APPLICATION_JSON, Integer.class, Stream.Type.NDJSON, true)
+                .apply(Flux.just(1).concatWith(Flux.just(2).delaySubscription(Duration.ofSeconds(15))))
+                .map(JaxRsResultSerializerFactoryTest::string))
+            .expectNext("1\n")
+            .thenAwait(Duration.ofSeconds(15))
+            .expectNext("\n", "2\n")
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldRestartHeartbeatTimerOnEachEvent() {
+        JaxRsConfig config = new JaxRsConfig();
+        config.setStreamHeartbeatIntervalSeconds(10);
+        JaxRsResultSerializerFactory serializerFactory = new JaxRsResultSerializerFactory(new JsonSerializerFactory(), config);
+
+        StepVerifier.withVirtualTime(() -> serializerFactory
+                .createStreamingByteBufSerializer(MediaType.APPLICATION_JSON, Integer.class, Stream.Type.NDJSON, true)
+                .apply(Flux.interval(Duration.ofSeconds(8)).map(Long::intValue).take(3).concatWith(Flux.never()))
+                .map(JaxRsResultSerializerFactoryTest::string))
+            .thenAwait(Duration.ofSeconds(24))
+            .expectNext("0\n", "1\n", "2\n")
+            .expectNoEvent(Duration.ofSeconds(9))
+            .thenAwait(Duration.ofSeconds(1))
+            .expectNext("\n")
+            .thenCancel()
+            .verify();
+    }
+
+    @Test
+    void shouldSendEachLineOfIndentedJsonAsDataLine() {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        JaxRsResultSerializerFactory serializerFactory = new JaxRsResultSerializerFactory(
+            new JsonSerializerFactory(mapper, new JsonConfig()), new JaxRsConfig());
+
+        StepVerifier.create(serializerFactory
+                .createStreamingByteBufSerializer(MediaType.APPLICATION_JSON, Map.class, Stream.Type.SERVER_SENT_EVENTS, true)
+                .apply(Flux.just(Map.of("value", 1)))
+                .map(JaxRsResultSerializerFactoryTest::string))
+            .expectNext("data:{\ndata:  \"value\" : 1\ndata:}\n\n")
+            .verifyComplete();
+    }
+
+    private static String string(ByteBuf buffer) {
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
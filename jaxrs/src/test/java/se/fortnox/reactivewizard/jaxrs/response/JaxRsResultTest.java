@@ -1,15 +1,25 @@
 package se.fortnox.reactivewizard.jaxrs.response;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
+import se.fortnox.reactivewizard.json.JsonSerializerFactory;
 import se.fortnox.reactivewizard.mocks.MockHttpServerResponse;
 
+import javax.ws.rs.core.MediaType;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 class JaxRsResultTest {
 
@@ -43,4 +53,75 @@ class JaxRsResultTest {
 
         assertThat(written.get()).isFalse();
     }
+
+    @Test
+    void shouldWriteJsonSerializedIntoBuffers() {
+        JaxRsResultSerializerFactory serializerFactory = new JaxRsResultSerializerFactory(new JsonSerializerFactory());
+        Function<Flux<String>, Flux<ByteBuf>> bufferSerializer = serializerFactory.createByteBufSerializer(MediaType.APPLICATION_JSON, String.class, true);
+        List<ByteBuf> buffers = new ArrayList<>();
+        JaxRsResult<String> jaxRsResult = new JaxRsResult<>(Flux.just("a", "b"),
+            HttpResponseStatus.OK,
+            serializerFactory.createSerializer(MediaType.APPLICATION_JSON, String.class, true),
+            flux -> bufferSerializer.apply(flux).doOnNext(buffers::add),
+            Collections.emptyMap());
+        MockHttpServerResponse response = new MockHttpServerResponse();
+
+        Flux.from(jaxRsResult.write(response)).ignoreElements().block();
+
+        assertThat(response.getOutp()).isEqualTo("[\"a\",\"b\"]");
+        assertThat(response.responseHeaders().get("Content-Length")).isEqualTo("9");
+        assertThat(buffers).hasSize(1);
+        assertThat(buffers.getFirst().refCnt()).isZero();
+    }
+
+    @Test
+    void shouldWriteStaticHeadersAndLetAddedHeadersReplaceThem() {
+        JaxRsResultSerializerFactory serializerFactory = new JaxRsResultSerializerFactory(new JsonSerializerFactory());
+        HttpHeaders staticHeaders = JaxRsResult.toHttpHeaders(Map.of("Content-Type", "application/json", "X-Static", "static"));
+        JaxRsResult<String> jaxRsResult = new JaxRsResult<>(Flux.just("a"),
+            HttpResponseStatus.OK,
+            serializerFactory.createSerializer(MediaType.APPLICATION_JSON, String.class, false),
+            serializerFactory.createByteBufSerializer(MediaType.APPLICATION_JSON, String.class, false),
+            staticHeaders);
+        jaxRsResult.addHeader("Content-Type", "text/plain");
+        MockHttpServerResponse response = new MockHttpServerResponse();
+
+        Flux.from(jaxRsResult.write(response)).ignoreElements().block();
+
+        assertThat(response.responseHeaders().getAll("Content-Type")).containsExactly("text/plain");
+        assertThat(response.responseHeaders().get("X-Static")).isEqualTo("static");
+        assertThat(staticHeaders.get("Content-Type")).isEqualTo("application/json");
+    }
+
+    @Test
+    void shouldReleaseBufferHeldBackWhenOutputFails() {
+        ByteBuf buffer = Unpooled.copiedBuffer("[\"a\"", StandardCharsets.UTF_8);
+        JaxRsResult<String> jaxRsResult = new JaxRsResult<>(Flux.just("a"),
+            HttpResponseStatus.OK,
+            flux -> Flux.empty(),
+            flux -> Flux.just(buffer).concatWith(Flux.error(new IllegalStateException("failed"))),
+            Collections.emptyMap());
+
+        assertThatExceptionOfType(IllegalStateException.class)
+            .isThrownBy(() -> Flux.from(jaxRsResult.write(new MockHttpServerResponse())).blockLast());
+
+        assertThat(buffer.refCnt()).isZero();
+    }
+
+    @Test
+    void shouldReleaseBuffersNotWrittenWhenResponseIsCancelled() {
+        ByteBuf first = Unpooled.copiedBuffer("[\"a\"", StandardCharsets.UTF_8);
+        ByteBuf second = Unpooled.copiedBuffer(",\"b\"", StandardCharsets.UTF_8);
+        JaxRsResult<String> jaxRsResult = new JaxRsResult<>(Flux.just("a"),
+            HttpResponseStatus.OK,
+            flux -> Flux.empty(),
+            flux -> Flux.just(first, second).concatWith(Flux.never()),
+            Collections.emptyMap());
+
+        // The mock response completes without reading the buffers it is sent, which cancels the rest of the output
+        Flux.from(jaxRsResult.write(new MockHttpServerResponse())).blockLast();
+
+        assertThat(first.refCnt()).isZero();
+        assertThat(second.refCnt()).isZero();
+    }
 }
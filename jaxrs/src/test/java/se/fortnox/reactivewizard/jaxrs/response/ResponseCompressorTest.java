@@ -0,0 +1,76 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCompressorTest {
+    private static final String JSON = "application/json";
+
+    private final ResponseCompressor compressor = new ResponseCompressor(100, List.of(ContentEncoder.gzip(6), ContentEncoder.deflate(6)));
+
+    @Test
+    void shouldSelectFirstAcceptedEncoderInOrderOfPreference() {
+        assertThat(compressor.select("deflate, gzip", JSON, 1000).getName()).isEqualTo("gzip");
+        assertThat(compressor.select("deflate", JSON, 1000).getName()).isEqualTo("deflate");
+        assertThat(compressor.select("*", JSON, 1000).getName()).isEqualTo("gzip");
+    }
+
+    @Test
+    void shouldNotSelectEncodersWithZeroQuality() {
+        assertThat(compressor.select("gzip;q=0, deflate;q=0.5", JSON, 1000).getName()).isEqualTo("deflate");
+        assertThat(compressor.select("gzip;q=0, *", JSON, 1000).getName()).isEqualTo("deflate");
+        assertThat(compressor.select("*;q=0", JSON, 1000)).isNull();
+    }
+
+    @Test
+    void shouldNotSelectEncoderForSmallOrUncompressibleBodies() {
+        assertThat(compressor.select("gzip", JSON, 99)).isNull();
+        assertThat(compressor.select("gzip", "application/pdf", 1000)).isNull();
+        assertThat(compressor.select("gzip", null, 1000)).isNull();
+        assertThat(compressor.select("br", JSON, 1000)).isNull();
+        assertThat(compressor.select(null, JSON, 1000)).isNull();
+        assertThat(compressor.isCompressible("application/json; charset=utf-8", 1000)).isTrue();
+    }
+
+    @Test
+    void shouldNotCompressWithoutEncoders() {
+        assertThat(new ResponseCompressor(100, Set.of(JSON), List.of()).select("gzip", JSON, 10000)).isNull();
+    }
+
+    @Test
+    void shouldCompressConfiguredMimeTypes() {
+        ResponseCompressor customCompressor = new ResponseCompressor(100, Set.of("Application/PDF"), List.of(ContentEncoder.gzip(6)));
+
+        assertThat(customCompressor.select("gzip", "application/pdf", 1000).getName()).isEqualTo("gzip");
+        assertThat(customCompressor.select("gzip", JSON, 1000)).isNull();
+    }
+
+    @Test
+    void shouldEncodeGzipAndDeflate() throws IOException {
+        byte[] body = "{\"value\":\"compressible\"}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        byte[] gzipped = ContentEncoder.gzip(9).encode(body);
+        byte[] deflated = ContentEncoder.deflate(1).encode(body);
+
+        assertThat(gzipped.length).isLessThan(body.length);
+        assertThat(deflated.length).isLessThan(body.length);
+        assertThat(readAll(new GZIPInputStream(new ByteArrayInputStream(gzipped)))).isEqualTo(body);
+        assertThat(readAll(new InflaterInputStream(new ByteArrayInputStream(deflated)))).isEqualTo(body);
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package se.fortnox.reactivewizard.jaxrs.response;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+class StreamingChunkAggregatorTest {
+
+    @Test
+    void shouldAggregateElementsUntilChunkSizeIsReached() {
+        StreamingChunkAggregator aggregator = new StreamingChunkAggregator(4, Duration.ofSeconds(10));
+
+        StepVerifier.create(aggregator.apply(Flux.just(bytes("ab"), bytes("c"), bytes("def"), bytes("g"))).map(StreamingChunkAggregatorTest::string))
+            .expectNext("abcdef")
+            .expectNext("g")
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldFlushWhenIntervalHasPassed() {
+        StepVerifier.withVirtualTime(() -> {
+                StreamingChunkAggregator aggregator = new StreamingChunkAggregator(1024, Duration.ofMillis(10));
+                Flux<byte[]> elements = Flux.concat(
+                    Flux.just(bytes("a"), bytes("b")),
+                    Flux.just(bytes("c")).delaySubscription(Duration.ofMillis(25)));
+                return aggregator.apply(elements).map(StreamingChunkAggregatorTest::string);
+            })
+            .thenAwait(Duration.ofMillis(10))
+            .expectNext("ab")
+            .thenAwait(Duration.ofMillis(20))
+            .expectNext("c")
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldStartFlushTimerWhenFirstElementOfChunkIsBuffered() {
+        StepVerifier.withVirtualTime(() -> {
+                StreamingChunkAggregator aggregator = new StreamingChunkAggregator(1024, Duration.ofMillis(10));
+                Flux<byte[]> elements = Flux.concat(
+                    Flux.just(bytes("a")),
+                    Flux.just(bytes("b")).delaySubscription(Duration.ofMillis(15)),
+                    Flux.never());
+                return aggregator.apply(elements).map(StreamingChunkAggregatorTest::string);
+            })
+            .thenAwait(Duration.ofMillis(10))
+            .expectNext("a")
+            .expectNoEvent(Duration.ofMillis(14))
+            .thenAwait(Duration.ofMillis(1))
+            .expectNext("b")
+            .thenCancel()
+            .verify();
+    }
+
+    @Test
+    void shouldEmitNothingForEmptyStream() {
+        StreamingChunkAggregator aggregator = new StreamingChunkAggregator(1024, Duration.ofMillis(10));
+
+        StepVerifier.create(aggregator.apply(Flux.empty()))
+            .verifyComplete();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuf buffer) {
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
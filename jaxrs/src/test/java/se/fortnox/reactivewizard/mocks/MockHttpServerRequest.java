@@ -1,12 +1,14 @@
 package se.fortnox.reactivewizard.mocks;
 
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.multipart.HttpData;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
 import reactor.core.publisher.Flux;
 import reactor.netty.ByteBufFlux;
 import reactor.netty.Connection;
@@ -103,7 +105,7 @@ public class MockHttpServerRequest implements HttpServerRequest {
 
     @Override
     public boolean isMultipart() {
-        return false;
+        return HttpPostRequestDecoder.isMultipart(new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, uri, headers));
     }
 
     @Override
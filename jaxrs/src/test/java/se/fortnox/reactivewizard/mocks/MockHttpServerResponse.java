@@ -2,6 +2,7 @@ package se.fortnox.reactivewizard.mocks;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
@@ -35,12 +36,16 @@ public class MockHttpServerResponse implements HttpServerResponse {
     private HttpResponseStatus status;
 
     public String getOutp() {
+        return new String(getOutputBytes());
+    }
+
+    public byte[] getOutputBytes() {
         if (output == null) {
-            return "";
+            return new byte[0];
         }
         return Flux.from(output)
             .collect(ByteArrayOutputStream::new, this::collectChunks)
-            .map(ByteArrayOutputStream::toString)
+            .map(ByteArrayOutputStream::toByteArray)
             .block();
     }
 
@@ -88,7 +93,11 @@ public class MockHttpServerResponse implements HttpServerResponse {
 
     @Override
     public NettyOutbound send(Publisher<? extends ByteBuf> dataStream, Predicate<ByteBuf> predicate) {
-        return null;
+        return sendByteArray(Flux.from(dataStream).map(buffer -> {
+            byte[] bytes = ByteBufUtil.getBytes(buffer);
+            buffer.release();
+            return bytes;
+        }));
     }
 
     @Override
@@ -123,7 +132,8 @@ public class MockHttpServerResponse implements HttpServerResponse {
 
     @Override
     public HttpServerResponse header(CharSequence name, CharSequence value) {
-        return null;
+        headers.set(name, value);
+        return this;
     }
 
     @Override
@@ -143,7 +153,7 @@ public class MockHttpServerResponse implements HttpServerResponse {
 
     @Override
     public Mono<Void> send() {
-        return null;
+        return Mono.empty();
     }
 
     @Override
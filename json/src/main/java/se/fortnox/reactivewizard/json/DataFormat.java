@@ -0,0 +1,112 @@
+package se.fortnox.reactivewizard.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A format that JSON data can be written in instead of JSON text, with the same mapping of types. CBOR and Smile are
+ * binary formats that are faster to write and parse than JSON text, and are available when jackson-dataformat-cbor or
+ * jackson-dataformat-smile is on the classpath.
+ */
+public final class DataFormat {
+    public static final DataFormat CBOR  = new DataFormat("application/cbor", findFactory("com.fasterxml.jackson.dataformat.cbor.CBORFactory"));
+    public static final DataFormat SMILE = new DataFormat("application/x-jackson-smile",
+        findFactory("com.fasterxml.jackson.dataformat.smile.SmileFactory"));
+
+    private final String                mediaType;
+    private final Supplier<JsonFactory> factorySupplier;
+
+    /**
+     * Create a format.
+     *
+     * @param mediaType the media type of the format
+     * @param factorySupplier supplier of a new factory of the parsers and generators of the format, or null if the
+     *                        format is not available
+     */
+    public DataFormat(String mediaType, Supplier<JsonFactory> factorySupplier) {
+        this.mediaType = mediaType;
+        this.factorySupplier = factorySupplier;
+    }
+
+    /**
+     * Get the formats that are on the classpath.
+     *
+     * @return the available formats, in order of preference
+     */
+    public static List<DataFormat> available() {
+        return Stream.of(CBOR, SMILE)
+            .filter(DataFormat::isAvailable)
+            .toList();
+    }
+
+    /**
+     * Find an available format by its media type.
+     *
+     * @param mediaType the media type
+     * @return the format, or empty if it is unknown or not on the classpath
+     */
+    public static Optional<DataFormat> forMediaType(String mediaType) {
+        return available().stream()
+            .filter(format -> format.getMediaType().equalsIgnoreCase(mediaType))
+            .findFirst();
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public boolean isAvailable() {
+        return factorySupplier != null;
+    }
+
+    /**
+     * Create a mapper of this format, with the configuration and modules of a JSON mapper.
+     *
+     * @param mapper the JSON mapper
+     * @return a new mapper
+     * @throws IllegalStateException if the format is not available
+     */
+    public ObjectMapper createMapper(ObjectMapper mapper) {
+        if (!isAvailable()) {
+            throw new IllegalStateException(mediaType + " is not on the classpath");
+        }
+        return new FormatMapper(mapper, factorySupplier.get());
+    }
+
+    @Override
+    public String toString() {
+        return mediaType;
+    }
+
+    private static Supplier<JsonFactory> findFactory(String className) {
+        Constructor<? extends JsonFactory> constructor;
+        try {
+            constructor = Class.forName(className).asSubclass(JsonFactory.class).getConstructor();
+        } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+            return null;
+        }
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Copies a mapper with another factory. {@link ObjectMapper#copyWith(JsonFactory)} does not support subclasses,
+     * such as JsonMapper.
+     */
+    private static class FormatMapper extends ObjectMapper {
+        FormatMapper(ObjectMapper mapper, JsonFactory factory) {
+            super(mapper, factory);
+        }
+    }
+}
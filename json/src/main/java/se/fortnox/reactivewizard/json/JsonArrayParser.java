@@ -0,0 +1,128 @@
+package se.fortnox.reactivewizard.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Parses the items of a JSON array that is received in chunks, using a non-blocking parser. Each item is returned as
+ * soon as the chunk completing it has been parsed. A JSON value that is not an array is returned as a single item.
+ *
+ * <p>Instances keep the state of one parsed document and are not thread safe.</p>
+ *
+ * @param <T> the type of the items
+ */
+public class JsonArrayParser<T> {
+    private final ObjectReader    reader;
+    private final JsonParser      parser;
+    private final ByteArrayFeeder inputFeeder;
+    private       TokenBuffer     tokenBuffer;
+    private       int             depth;
+    private       boolean         insideArray;
+    private       boolean         done;
+
+    /**
+     * Create a parser of a document, reading the items with the given reader. Parsers of the configured mapper are
+     * created by {@link JsonDeserializerFactory#createArrayParser}.
+     *
+     * @param reader the reader of an item
+     */
+    public JsonArrayParser(ObjectReader reader) {
+        this.reader = reader;
+        try {
+            this.parser = reader.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.inputFeeder = (ByteArrayFeeder)parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Parse the next chunk.
+     *
+     * @param chunk the next bytes of the document
+     * @return the items completed by this chunk
+     * @throws InvalidJsonException if the document is not valid JSON
+     */
+    public List<T> parse(byte[] chunk) {
+        try {
+            inputFeeder.feedInput(chunk, 0, chunk.length);
+            return readItems();
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    /**
+     * Signal that the whole document has been received.
+     *
+     * @return any items completed by the end of the document
+     * @throws InvalidJsonException if the document ended before it was complete
+     */
+    public List<T> end() {
+        try {
+            inputFeeder.endOfInput();
+            List<T> items = readItems();
+            if (!done && (insideArray || tokenBuffer != null)) {
+                throw new JsonParseException(parser, "Unexpected end-of-input");
+            }
+            return items;
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    private List<T> readItems() throws IOException {
+        List<T> items = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            if (done) {
+                throw new JsonParseException(parser, "Unexpected content after end of JSON value");
+            }
+            if (tokenBuffer == null) {
+                if (!insideArray && token == JsonToken.START_ARRAY) {
+                    insideArray = true;
+                    continue;
+                }
+                if (insideArray && token == JsonToken.END_ARRAY) {
+                    done = true;
+                    continue;
+                }
+                tokenBuffer = new TokenBuffer(parser);
+                depth = 0;
+            }
+
+            tokenBuffer.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+
+            if (depth == 0) {
+                T item = reader.readValue(tokenBuffer.asParser());
+                tokenBuffer = null;
+                // Null items are skipped, since they can not be emitted
+                if (item != null) {
+                    if (items == null) {
+                        items = new ArrayList<>();
+                    }
+                    items.add(item);
+                }
+                if (!insideArray) {
+                    done = true;
+                }
+            }
+        }
+        return items == null ? emptyList() : items;
+    }
+}
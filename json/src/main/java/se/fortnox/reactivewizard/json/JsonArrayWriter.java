@@ -0,0 +1,67 @@
+package se.fortnox.reactivewizard.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the items of a JSON array one at a time, using a single generator for the whole array. Each item is flushed
+ * to the output stream when it is written, so the caller can pass on what has been written so far between items.
+ *
+ * <p>Instances keep the state of one written array and are not thread safe.</p>
+ *
+ * @param <T> the type of the items
+ */
+public class JsonArrayWriter<T> {
+    private final ObjectWriter  writer;
+    private final JsonGenerator generator;
+
+    JsonArrayWriter(ObjectWriter writer, OutputStream outputStream) {
+        this.writer = writer;
+        try {
+            this.generator = writer.createGenerator(outputStream);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Write the start of the array.
+     */
+    public void start() {
+        try {
+            generator.writeStartArray();
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    /**
+     * Write the next item.
+     *
+     * @param item the item
+     * @throws InvalidJsonException if the item could not be serialized
+     */
+    public void write(T item) {
+        try {
+            writer.writeValue(generator, item);
+            generator.flush();
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    /**
+     * Write the end of the array and close the generator.
+     */
+    public void end() {
+        try {
+            generator.writeEndArray();
+            generator.close();
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.util.StdDateFormat;
 import jakarta.inject.Inject;
 
+import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.util.function.Function;
 
@@ -31,6 +32,17 @@ public class JsonDeserializerFactory {
             .build());
     }
 
+    /**
+     * Create a factory of deserializers that read another format than JSON text, with the same configuration.
+     *
+     * @param format the format
+     * @return a new factory
+     * @throws IllegalStateException if the format is not available
+     */
+    public JsonDeserializerFactory forFormat(DataFormat format) {
+        return new JsonDeserializerFactory(format.createMapper(mapper));
+    }
+
     public <T> Function<String, T> createDeserializer(TypeReference<T> typeReference) {
         return createDeserializer(mapper.readerFor(typeReference));
     }
@@ -76,4 +88,32 @@ public class JsonDeserializerFactory {
             }
         };
     }
+
+    /**
+     * Create a parser for a JSON array received in chunks. A new parser is needed for each document.
+     *
+     * @param itemType the type of the items of the array
+     * @param <T> the type of the items of the array
+     * @return a new parser
+     */
+    public <T> JsonArrayParser<T> createArrayParser(TypeReference<T> itemType) {
+        return new JsonArrayParser<>(mapper.readerFor(itemType));
+    }
+
+    public <T> Function<InputStream, T> createInputStreamDeserializer(TypeReference<T> typeReference) {
+        return createInputStreamDeserializer(mapper.readerFor(typeReference));
+    }
+
+    private <T> Function<InputStream, T> createInputStreamDeserializer(ObjectReader reader) {
+        return inputStream -> {
+            if (inputStream == null) {
+                return null;
+            }
+            try {
+                return reader.readValue(inputStream);
+            } catch (Exception e) {
+                throw new InvalidJsonException(e);
+            }
+        };
+    }
 }
@@ -11,8 +11,10 @@ import com.fasterxml.jackson.databind.util.StdDateFormat;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
+import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 /**
@@ -39,6 +41,21 @@ public class JsonSerializerFactory {
             .build(), new JsonConfig());
     }
 
+    private JsonSerializerFactory(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Create a factory of serializers that write another format than JSON text, with the same configuration.
+     *
+     * @param format the format
+     * @return a new factory
+     * @throws IllegalStateException if the format is not available
+     */
+    public JsonSerializerFactory forFormat(DataFormat format) {
+        return new JsonSerializerFactory(format.createMapper(mapper));
+    }
+
     public <T> Function<T, String> createStringSerializer(TypeReference<T> paramType) {
         return createStringSerializer(mapper.writerFor(paramType));
     }
@@ -90,4 +107,42 @@ public class JsonSerializerFactory {
         return createByteSerializer(mapper.writerFor(listType));
     }
 
+    /**
+     * Create a serializer that writes to an output stream, which lets the caller decide where the JSON ends up, without
+     * it first being written to a byte array.
+     *
+     * @param paramType the type to serialize
+     * @param <T> the type to serialize
+     * @return a serializer writing an object to an output stream
+     */
+    public <T> BiConsumer<T, OutputStream> createOutputStreamSerializer(Class<T> paramType) {
+        return createOutputStreamSerializer(mapper.writerFor(paramType));
+    }
+
+    private <T> BiConsumer<T, OutputStream> createOutputStreamSerializer(ObjectWriter writer) {
+        return (object, outputStream) -> {
+            try {
+                writer.writeValue(outputStream, object);
+            } catch (Exception e) {
+                throw new InvalidJsonException(e);
+            }
+        };
+    }
+
+    public <T> BiConsumer<List<T>, OutputStream> createListToOutputStreamSerializer(Class<T> paramType) {
+        CollectionType listType = mapper.getTypeFactory().constructCollectionType(List.class, paramType);
+        return createOutputStreamSerializer(mapper.writerFor(listType));
+    }
+
+    /**
+     * Create a writer of a JSON array, that writes the items one at a time to an output stream.
+     *
+     * @param itemType the type of the items
+     * @param outputStream the stream to write to
+     * @param <T> the type of the items
+     * @return a writer of one array
+     */
+    public <T> JsonArrayWriter<T> createArrayWriter(Class<T> itemType, OutputStream outputStream) {
+        return new JsonArrayWriter<>(mapper.writerFor(itemType), outputStream);
+    }
 }
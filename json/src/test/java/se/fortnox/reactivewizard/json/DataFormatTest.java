@@ -0,0 +1,51 @@
+package se.fortnox.reactivewizard.json;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class DataFormatTest {
+    private static final DataFormat YAML = new DataFormat("application/yaml", YAMLFactory::new);
+
+    @Test
+    void shouldNotMakeFormatsAvailableWhenTheyAreNotOnTheClasspath() {
+        assertThat(DataFormat.CBOR.isAvailable()).isFalse();
+        assertThat(DataFormat.SMILE.isAvailable()).isFalse();
+        assertThat(DataFormat.available()).isEmpty();
+        assertThat(DataFormat.forMediaType("application/cbor")).isEmpty();
+        assertThatExceptionOfType(IllegalStateException.class)
+            .isThrownBy(() -> new JsonSerializerFactory().forFormat(DataFormat.CBOR));
+    }
+
+    @Test
+    void shouldSerializeWithTheConfigurationOfTheJsonMapper() {
+        Function<Entity, byte[]> serializer = new JsonSerializerFactory().forFormat(YAML).createByteSerializer(Entity.class);
+
+        String yaml = new String(serializer.apply(new Entity(LocalDate.of(2024, 1, 2), Optional.of("value"))), StandardCharsets.UTF_8);
+
+        // Dates are written as text and optionals unwrapped, as by the JSON serializer
+        assertThat(yaml).contains("date: \"2024-01-02\"").contains("optional: \"value\"");
+    }
+
+    @Test
+    void shouldDeserializeWithTheConfigurationOfTheJsonMapper() {
+        Function<byte[], Entity> deserializer = new JsonDeserializerFactory().forFormat(YAML)
+            .createByteDeserializer(new TypeReference<>() { });
+
+        Entity entity = deserializer.apply("date: 2024-01-02\noptional: value\nunknown: 1\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(entity.date()).isEqualTo(LocalDate.of(2024, 1, 2));
+        assertThat(entity.optional()).contains("value");
+    }
+
+    record Entity(LocalDate date, Optional<String> optional) {
+    }
+}
@@ -0,0 +1,85 @@
+package se.fortnox.reactivewizard.json;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class JsonArrayParserTest {
+    private final JsonDeserializerFactory deserializerFactory = new JsonDeserializerFactory();
+
+    @Test
+    void shouldParseItemsAsTheyAreCompleted() {
+        JsonArrayParser<ImmutableEntity> parser = deserializerFactory.createArrayParser(new TypeReference<>() { });
+
+        assertThat(parser.parse(bytes("[{\"stringProperty\":\"a\",\"intProperty\":1},{\"stringProperty\":")))
+            .containsExactly(new ImmutableEntity("a", 1));
+        assertThat(parser.parse(bytes("\"b\",\"intProperty\":2}")))
+            .containsExactly(new ImmutableEntity("b", 2));
+        assertThat(parser.parse(bytes(",{\"stringProperty\":\"c\",\"intProperty\":3}]")))
+            .containsExactly(new ImmutableEntity("c", 3));
+        assertThat(parser.end()).isEmpty();
+    }
+
+    @Test
+    void shouldParseDocumentSplitIntoSingleBytes() {
+        JsonArrayParser<List<Integer>> parser = deserializerFactory.createArrayParser(new TypeReference<>() { });
+        List<List<Integer>> items = new ArrayList<>();
+
+        for (byte value : bytes(" [ [1, 2], [], null, [3] ] ")) {
+            items.addAll(parser.parse(new byte[]{value}));
+        }
+        items.addAll(parser.end());
+
+        assertThat(items).containsExactly(List.of(1, 2), List.of(), List.of(3));
+    }
+
+    @Test
+    void shouldParseValueThatIsNotAnArrayAsSingleItem() {
+        JsonArrayParser<Integer> parser = deserializerFactory.createArrayParser(new TypeReference<>() { });
+
+        assertThat(parser.parse(bytes("12"))).isEmpty();
+        assertThat(parser.end()).containsExactly(12);
+    }
+
+    @Test
+    void shouldParseEmptyDocumentToNoItems() {
+        JsonArrayParser<Integer> parser = deserializerFactory.createArrayParser(new TypeReference<>() { });
+
+        assertThat(parser.end()).isEmpty();
+    }
+
+    @Test
+    void shouldFailOnTruncatedDocument() {
+        JsonArrayParser<Integer> parser = deserializerFactory.createArrayParser(new TypeReference<>() { });
+
+        assertThat(parser.parse(bytes("[1,2"))).containsExactly(1);
+        assertThatExceptionOfType(InvalidJsonException.class)
+            .isThrownBy(parser::end);
+    }
+
+    @Test
+    void shouldFailOnInvalidJson() {
+        JsonArrayParser<Integer> parser = deserializerFactory.createArrayParser(new TypeReference<>() { });
+
+        assertThatExceptionOfType(InvalidJsonException.class)
+            .isThrownBy(() -> parser.parse(bytes("[1,}")));
+    }
+
+    @Test
+    void shouldFailOnContentAfterArray() {
+        JsonArrayParser<Integer> parser = deserializerFactory.createArrayParser(new TypeReference<>() { });
+
+        assertThatExceptionOfType(InvalidJsonException.class)
+            .isThrownBy(() -> parser.parse(bytes("[1] [")));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
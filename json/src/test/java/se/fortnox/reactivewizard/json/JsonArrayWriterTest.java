@@ -0,0 +1,39 @@
+package se.fortnox.reactivewizard.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonArrayWriterTest {
+    private final JsonSerializerFactory serializerFactory = new JsonSerializerFactory();
+
+    @Test
+    void shouldFlushEachItemWhenItIsWritten() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonArrayWriter<ImmutableEntity> writer = serializerFactory.createArrayWriter(ImmutableEntity.class, outputStream);
+
+        writer.start();
+        writer.write(new ImmutableEntity("a", 1));
+        assertThat(outputStream.toString(StandardCharsets.UTF_8))
+            .isEqualTo("[{\"stringProperty\":\"a\",\"intProperty\":1}");
+
+        writer.write(new ImmutableEntity("b", 2));
+        writer.end();
+        assertThat(outputStream.toString(StandardCharsets.UTF_8))
+            .isEqualTo("[{\"stringProperty\":\"a\",\"intProperty\":1},{\"stringProperty\":\"b\",\"intProperty\":2}]");
+    }
+
+    @Test
+    void shouldWriteEmptyArray() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonArrayWriter<ImmutableEntity> writer = serializerFactory.createArrayWriter(ImmutableEntity.class, outputStream);
+
+        writer.start();
+        writer.end();
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("[]");
+    }
+}
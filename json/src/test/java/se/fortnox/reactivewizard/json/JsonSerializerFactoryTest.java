@@ -5,13 +5,18 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.fail;
 
 class JsonSerializerFactoryTest {
@@ -76,6 +81,26 @@ class JsonSerializerFactoryTest {
 		}
 	}
 
+    @Test
+    void shouldSerializeToOutputStream() {
+		PrivateEntity entity = new PrivateEntity();
+		entity.fieldProp = "hello";
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		serializerFactory.createListToOutputStreamSerializer(PrivateEntity.class).accept(List.of(entity), outputStream);
+
+		assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("[{\"fieldProp\":\"hello\"}]");
+	}
+
+    @Test
+    void shouldThrowInvalidJsonExceptionWhenSerializingToOutputStreamFails() {
+		BiConsumer<EntityThrowingOnSerialize, OutputStream> serializer = serializerFactory.createOutputStreamSerializer(EntityThrowingOnSerialize.class);
+
+		assertThatExceptionOfType(InvalidJsonException.class)
+			.isThrownBy(() -> serializer.accept(new EntityThrowingOnSerialize(), new ByteArrayOutputStream()))
+			.withCauseInstanceOf(JsonMappingException.class);
+	}
+
     @Test
     void shouldSerializeFromType() throws NoSuchMethodException {
 		Method method = this.getClass().getDeclaredMethod("methodReturningListOfString");
@@ -0,0 +1,113 @@
+package se.fortnox.reactivewizard.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A concurrency limit that adapts to the observed latency, in the manner of TCP Vegas.
+ * <p>
+ * The latency of a request without queueing is estimated as the lowest latency observed. The number of requests queued
+ * is then estimated from how much the latency of each completed request exceeds it, and the limit is increased while
+ * the queue is short and decreased when it grows, or when a request is dropped. The limit is only increased when it is
+ * nearly reached, so that it does not grow without bound while the load is low.
+ * <p>
+ * The state is kept in atomics rather than guarded by a lock, since it is updated by every completed request.
+ */
+class AdaptiveLimit {
+    /**
+     * Number of samples after which the latency without queueing is estimated anew, so that it follows a lasting
+     * increase of the latency, such as when a request group starts doing more work per request.
+     */
+    private static final int PROBE_INTERVAL = 1000;
+
+    private final int           minLimit;
+    private final int           maxLimit;
+    private final AtomicInteger inFlight          = new AtomicInteger();
+    private final AtomicInteger samplesSinceProbe = new AtomicInteger();
+    private final AtomicLong    noLoadRttNanos    = new AtomicLong(Long.MAX_VALUE);
+    // The bits of the estimated limit, which is a double so that it can change by less than one per sample
+    private final AtomicLong    estimatedLimit;
+
+    AdaptiveLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = new AtomicLong(Double.doubleToLongBits(Math.clamp(initialLimit, minLimit, maxLimit)));
+    }
+
+    /**
+     * Take a place within the limit for a request.
+     * @return whether there was a place, which must then be released when the request completes
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release the place of a request that did not complete, such as one cancelled by the client, without using its
+     * latency.
+     */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Release the place of a completed request and adapt the limit to its latency.
+     * @param rttNanos the latency of the request
+     * @param dropped whether the request failed because of overload, such as by a timeout
+     */
+    void release(long rttNanos, boolean dropped) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        update(rttNanos, inFlightAtCompletion, dropped);
+    }
+
+    private void update(long rttNanos, int inFlightAtCompletion, boolean dropped) {
+        if (samplesSinceProbe.updateAndGet(samples -> samples + 1 >= PROBE_INTERVAL ? 0 : samples + 1) == 0) {
+            noLoadRttNanos.set(rttNanos);
+        }
+        long noLoadRtt = noLoadRttNanos.accumulateAndGet(Math.max(rttNanos, 1), Math::min);
+
+        while (true) {
+            long currentBits = estimatedLimit.get();
+            double current = Double.longBitsToDouble(currentBits);
+            double updated = Math.clamp(adapt(current, noLoadRtt, rttNanos, inFlightAtCompletion, dropped), minLimit, maxLimit);
+            if (updated == current || estimatedLimit.compareAndSet(currentBits, Double.doubleToLongBits(updated))) {
+                return;
+            }
+        }
+    }
+
+    private static double adapt(double estimatedLimit, long noLoadRttNanos, long rttNanos, int inFlightAtCompletion, boolean dropped) {
+        double step = Math.max(1, Math.log10(estimatedLimit));
+        if (dropped) {
+            return estimatedLimit - step;
+        }
+        if (inFlightAtCompletion * 2 < estimatedLimit) {
+            return estimatedLimit;
+        }
+        double queueSize = Math.ceil(estimatedLimit * (1 - (double)noLoadRttNanos / Math.max(rttNanos, 1)));
+        if (queueSize <= step) {
+            return estimatedLimit + 6 * step;
+        } else if (queueSize < 3 * step) {
+            return estimatedLimit + step;
+        } else if (queueSize > 6 * step) {
+            return estimatedLimit - step;
+        }
+        return estimatedLimit;
+    }
+
+    int getLimit() {
+        return (int)Double.longBitsToDouble(estimatedLimit.get());
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
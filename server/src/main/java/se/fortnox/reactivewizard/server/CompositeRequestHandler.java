@@ -4,37 +4,65 @@ import jakarta.inject.Inject;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
 import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
+import reactor.util.context.Context;
 import se.fortnox.reactivewizard.ExceptionHandler;
 import se.fortnox.reactivewizard.RequestHandler;
 import se.fortnox.reactivewizard.jaxrs.RequestLogger;
 import se.fortnox.reactivewizard.jaxrs.WebException;
+import se.fortnox.reactivewizard.util.Deadline;
 
+import java.time.Duration;
 import java.util.Set;
 
+import static io.netty.handler.codec.http.HttpResponseStatus.GATEWAY_TIMEOUT;
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static javax.ws.rs.core.HttpHeaders.RETRY_AFTER;
 
 /**
  * Calls each @{@link RequestHandler} with a request until one returns a result.
  * Delegates to @{@link ExceptionHandler} when any error occurrs.
+ * The deadline sent by the caller in the {@link Deadline#HEADER} header, and the default request timeout of the server,
+ * are put in the Reactor context of the result.
+ * Requests over the {@link ConcurrencyLimiter concurrency limit} of their route group get 503 Service Unavailable.
+ * The requests in flight are counted by the {@link ConnectionCounter}.
  */
 public class CompositeRequestHandler implements RequestHandler {
     private static final Logger log = LoggerFactory.getLogger(CompositeRequestHandler.class);
     private static final String ERROR_RESOURCE_NOT_FOUND = "resource.not.found";
+    private static final String ERROR_OVERLOADED = "server.overloaded";
     private final Set<RequestHandler> handlers;
     private final ExceptionHandler exceptionHandler;
     private final ConnectionCounter connectionCounter;
     private final RequestLogger requestLogger;
+    private final Duration defaultTimeout;
+    private final ConcurrencyLimiter concurrencyLimiter;
 
     @Inject
     public CompositeRequestHandler(Set<RequestHandler> handlers, ExceptionHandler exceptionHandler,
-                                   ConnectionCounter connectionCounter, RequestLogger requestLogger) {
+                                   ConnectionCounter connectionCounter, RequestLogger requestLogger, ServerConfig serverConfig,
+                                   ConcurrencyLimiter concurrencyLimiter) {
         this.handlers = handlers;
         this.exceptionHandler = exceptionHandler;
         this.connectionCounter = connectionCounter;
         this.requestLogger = requestLogger;
+        this.defaultTimeout = serverConfig.getRequestTimeoutMs() > 0 ? Duration.ofMillis(serverConfig.getRequestTimeoutMs()) : null;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public CompositeRequestHandler(Set<RequestHandler> handlers, ExceptionHandler exceptionHandler,
+                                   ConnectionCounter connectionCounter, RequestLogger requestLogger, ServerConfig serverConfig) {
+        this(handlers, exceptionHandler, connectionCounter, requestLogger, serverConfig, new ConcurrencyLimiter(serverConfig));
+    }
+
+    public CompositeRequestHandler(Set<RequestHandler> handlers, ExceptionHandler exceptionHandler,
+                                   ConnectionCounter connectionCounter, RequestLogger requestLogger) {
+        this(handlers, exceptionHandler, connectionCounter, requestLogger, new ServerConfig());
     }
 
     @Override
@@ -44,19 +72,67 @@ public class CompositeRequestHandler implements RequestHandler {
             for (RequestHandler handler : handlers) {
                 Publisher<Void> result = handler.apply(request, response);
                 if (result != null) {
-
-                    return Flux.from(result).onErrorResume(exception -> exceptionHandler
-                        .handleException(request, response, exception));
+                    Flux<Void> handled = Flux.from(result).onErrorResume(exception -> exceptionHandler
+                        .handleException(request, response, exception))
+                        .contextWrite(context -> withDeadline(context, request));
+                    String routeGroup = concurrencyLimiter.routeGroup(request);
+                    ConcurrencyLimiter.RouteGroupLimit limit = concurrencyLimiter.limitFor(routeGroup);
+                    return counted(limit == null ? handled : withinLimit(handled, limit, request, response), routeGroup);
                 }
             }
         } catch (Exception exception) {
             return exceptionHandler.handleException(request, response, exception);
         }
-        return Flux.from(exceptionHandler.handleException(request,
+        return counted(Flux.from(exceptionHandler.handleException(request,
                 response,
                 new WebException(NOT_FOUND, ERROR_RESOURCE_NOT_FOUND)))
-            .doOnTerminate(() -> requestLogger.logRequestResponse(request, response, requestStartTime, log))
-            .doOnSubscribe(s -> connectionCounter.increase())
-            .doFinally(s -> connectionCounter.decrease());
+            .doOnTerminate(() -> requestLogger.logRequestResponse(request, response, requestStartTime, log)), ConcurrencyLimiter.OTHER_ROUTES);
+    }
+
+    private Flux<Void> counted(Flux<Void> result, String routeGroup) {
+        return result
+            .doOnSubscribe(s -> connectionCounter.increase(routeGroup))
+            .doFinally(s -> connectionCounter.decrease(routeGroup));
+    }
+
+    private Context withDeadline(Context context, HttpServerRequest request) {
+        if (defaultTimeout != null) {
+            context = Deadline.putDefaultTimeout(context, defaultTimeout);
+        }
+        Deadline requested = Deadline.parse(request.requestHeaders().get(Deadline.HEADER)).orElse(null);
+        return requested == null ? context : Deadline.put(context, requested);
+    }
+
+    /**
+     * Handle the request if there is a place for it within the limit of its route group, or reject it. The place is
+     * released when the request completes, and the limit adapted to its latency. Requests that time out, or are
+     * rejected further on, are counted as dropped, which decreases the limit.
+     */
+    private Flux<Void> withinLimit(Flux<Void> handled, ConcurrencyLimiter.RouteGroupLimit limit,
+                                   HttpServerRequest request, HttpServerResponse response) {
+        return Flux.defer(() -> {
+            if (!limit.tryAcquire()) {
+                limit.reject();
+                return Flux.from(reject(request, response));
+            }
+            long startNanos = System.nanoTime();
+            return handled.doFinally(signal -> {
+                if (signal == SignalType.CANCEL) {
+                    limit.release();
+                    return;
+                }
+                boolean dropped = signal == SignalType.ON_ERROR
+                    || SERVICE_UNAVAILABLE.equals(response.status())
+                    || GATEWAY_TIMEOUT.equals(response.status());
+                limit.release(System.nanoTime() - startNanos, dropped);
+            });
+        });
+    }
+
+    private Publisher<Void> reject(HttpServerRequest request, HttpServerResponse response) {
+        response.addHeader(RETRY_AFTER, String.valueOf(concurrencyLimiter.getRetryAfterSeconds()));
+        // Rejections are expected under overload, and should not flood the log while the server recovers
+        return exceptionHandler.handleException(request, response,
+            new WebException(SERVICE_UNAVAILABLE, ERROR_OVERLOADED).withLogLevel(Level.DEBUG));
     }
 }
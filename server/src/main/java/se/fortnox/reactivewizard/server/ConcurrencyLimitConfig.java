@@ -0,0 +1,101 @@
+package se.fortnox.reactivewizard.server;
+
+import java.util.Set;
+
+/**
+ * Configuration of the adaptive concurrency limit of the server, set as server.concurrencyLimit.
+ */
+public class ConcurrencyLimitConfig {
+    /**
+     * Reject requests over the limit of their route group with 503 Service Unavailable.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The limit of each route group before any latency has been observed.
+     */
+    private int initialLimit = 20;
+
+    /**
+     * The lowest limit, which the limit is never decreased below however high the latency.
+     */
+    private int minLimit = 4;
+
+    /**
+     * The highest limit, which the limit is never increased above however low the latency.
+     */
+    private int maxLimit = 1000;
+
+    /**
+     * The number of seconds sent in the Retry-After header of rejected requests.
+     */
+    private int retryAfterSeconds = 1;
+
+    /**
+     * The number of route groups with a limit of their own. Requests of further groups share a single limit.
+     */
+    private int maxRouteGroups = 64;
+
+    /**
+     * The first path segments that are route groups of their own. Requests to other paths share the limit of the other
+     * group. When empty, the first path segment of each request that a request handler accepts is a route group, up to
+     * maxRouteGroups of them.
+     */
+    private Set<String> routeGroups = Set.of();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getMaxRouteGroups() {
+        return maxRouteGroups;
+    }
+
+    public void setMaxRouteGroups(int maxRouteGroups) {
+        this.maxRouteGroups = maxRouteGroups;
+    }
+
+    public Set<String> getRouteGroups() {
+        return routeGroups;
+    }
+
+    public void setRouteGroups(Set<String> routeGroups) {
+        this.routeGroups = routeGroups;
+    }
+}
@@ -0,0 +1,118 @@
+package se.fortnox.reactivewizard.server;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import reactor.netty.http.server.HttpServerRequest;
+import se.fortnox.reactivewizard.metrics.Metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps an {@link AdaptiveLimit} of the number of concurrent requests for each route group, so that a group of slow
+ * resources does not take all capacity from the others. The limit, the number of requests in flight and the number of
+ * rejected requests of each group are registered as metrics.
+ * <p>
+ * The route group of a request is the first segment of its path, if it is one of the configured
+ * {@link ConcurrencyLimitConfig#getRouteGroups() route groups}, or, when none are configured, if a request handler
+ * accepted the request and the number of route groups is below the maximum. Other requests, including those that no
+ * request handler accepts, are in the other group, so that requests to arbitrary paths cannot add route groups.
+ */
+@Singleton
+public class ConcurrencyLimiter {
+    static final String OTHER_ROUTES = "other";
+    private static final String ROOT_ROUTES = "root";
+
+    private final ConcurrencyLimitConfig config;
+    private final Map<String, RouteGroupLimit> limits = new ConcurrentHashMap<>();
+    private final Map<String, String> routeGroups = new ConcurrentHashMap<>();
+    private final AtomicInteger routeGroupCount = new AtomicInteger();
+
+    @Inject
+    public ConcurrencyLimiter(ServerConfig serverConfig) {
+        this.config = serverConfig.getConcurrencyLimit();
+    }
+
+    /**
+     * Get the route group of a request that a request handler has accepted.
+     * @param request the request
+     * @return the route group
+     */
+    String routeGroup(HttpServerRequest request) {
+        String routeGroup = firstSegment(request.path());
+        if (!config.getRouteGroups().isEmpty()) {
+            return config.getRouteGroups().contains(routeGroup) ? routeGroup : OTHER_ROUTES;
+        }
+        String known = routeGroups.get(routeGroup);
+        if (known != null) {
+            return known;
+        }
+        // A place is taken, atomically, before the route group is added, so that no more than the max are added
+        String added = routeGroups.computeIfAbsent(routeGroup, newRouteGroup -> takeRouteGroupPlace() ? newRouteGroup : null);
+        return added != null ? added : OTHER_ROUTES;
+    }
+
+    private boolean takeRouteGroupPlace() {
+        int max = config.getMaxRouteGroups();
+        return routeGroupCount.getAndUpdate(count -> count < max ? count + 1 : count) < max;
+    }
+
+    /**
+     * Get the limit of a route group.
+     * @param routeGroup the route group
+     * @return the limit, or null if the concurrency is not limited
+     */
+    RouteGroupLimit limitFor(String routeGroup) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        return limits.computeIfAbsent(routeGroup, RouteGroupLimit::new);
+    }
+
+    /**
+     * Get the current limit of each route group that has received requests.
+     * @return the limits by route group
+     */
+    public Map<String, Integer> getLimits() {
+        Map<String, Integer> result = new TreeMap<>();
+        limits.forEach((routeGroup, limit) -> result.put(routeGroup, limit.getLimit()));
+        return result;
+    }
+
+    int getRetryAfterSeconds() {
+        return config.getRetryAfterSeconds();
+    }
+
+    private static String firstSegment(String path) {
+        int end = path.indexOf('/');
+        String segment = end == -1 ? path : path.substring(0, end);
+        return segment.isEmpty() ? ROOT_ROUTES : segment;
+    }
+
+    /**
+     * The limit of a route group.
+     */
+    class RouteGroupLimit extends AdaptiveLimit {
+        private final Counter rejected;
+
+        RouteGroupLimit(String routeGroup) {
+            super(config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit());
+            String prefix = "SERVER_concurrencyLimit:" + routeGroup;
+            MetricRegistry registry = Metrics.registry();
+            registry.remove(prefix + ":limit");
+            registry.remove(prefix + ":inFlight");
+            registry.register(prefix + ":limit", (Gauge<Integer>)this::getLimit);
+            registry.register(prefix + ":inFlight", (Gauge<Integer>)this::getInFlight);
+            this.rejected = registry.counter(prefix + ":rejected");
+        }
+
+        void reject() {
+            rejected.inc();
+        }
+    }
+}
@@ -1,41 +1,61 @@
 package se.fortnox.reactivewizard.server;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import jakarta.inject.Singleton;
+import se.fortnox.reactivewizard.metrics.Metrics;
 
-import java.util.concurrent.Semaphore;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Counts the requests in flight, in total and for each route group given by the {@link ConcurrencyLimiter}, which
+ * bounds the number of route groups. The number of requests in flight of each route group is registered as a gauge.
+ * <p>
+ * The total is an atomic count, so that the decrease that reaches zero is known exactly, and only that decrease signals
+ * those {@link #awaitZero(int, TimeUnit) waiting} for zero, which is during shutdown. The counts of the route groups,
+ * which are only read as metrics, are striped, so that the event loop threads do not contend on them.
+ */
 @Singleton
 public class ConnectionCounter {
-    private final AtomicLong connections;
-    private final Semaphore connectionsZero;
-
-    public ConnectionCounter() {
-        this(new AtomicLong(0), new Semaphore(1));
-    }
-
-    ConnectionCounter(AtomicLong connections, Semaphore connectionsZero) {
-        this.connections = connections;
-        this.connectionsZero = connectionsZero;
-    }
+    private final AtomicLong             connections = new AtomicLong();
+    private final Map<String, LongAdder> routeGroups = new ConcurrentHashMap<>();
+    private final Object                 zeroReached = new Object();
+    private volatile int                 waiters;
 
     /**
      * Increment the number of connections by one.
      */
     public void increase() {
-        if (connections.getAndIncrement() == 0) {
-            connectionsZero.tryAcquire();
-        }
+        connections.incrementAndGet();
+    }
+
+    /**
+     * Increment the number of connections of a route group by one.
+     * @param routeGroup the route group
+     */
+    public void increase(String routeGroup) {
+        connections.incrementAndGet();
+        routeGroupCount(routeGroup).increment();
     }
 
     /**
      * Decrement the number of connections by one.
      */
     public void decrease() {
-        if (connections.decrementAndGet() == 0) {
-            connectionsZero.release();
-        }
+        signalIfZero(connections.decrementAndGet());
+    }
+
+    /**
+     * Decrement the number of connections of a route group by one.
+     * @param routeGroup the route group
+     */
+    public void decrease(String routeGroup) {
+        routeGroupCount(routeGroup).decrement();
+        signalIfZero(connections.decrementAndGet());
     }
 
     /**
@@ -45,18 +65,62 @@ public class ConnectionCounter {
      * @return whether zero was reached within the time
      */
     public boolean awaitZero(int time, TimeUnit timeUnit) {
-        try {
-            boolean success = connectionsZero.tryAcquire(time, timeUnit);
-            if (success) {
-                connectionsZero.release();
+        long deadline = System.nanoTime() + timeUnit.toNanos(time);
+        synchronized (zeroReached) {
+            waiters++;
+            try {
+                // The waiter is counted before the count is read, and the count is decreased before the waiters are
+                // read, so a decrease reaching zero after the count is read here sees the waiter and signals it
+                while (connections.get() != 0) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(zeroReached, remaining);
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiters--;
             }
-            return success;
-        } catch (Exception e) {
-            return false;
         }
     }
 
     public long getCount() {
         return connections.get();
     }
+
+    /**
+     * Get the number of connections of a route group.
+     * @param routeGroup the route group
+     * @return the number of connections
+     */
+    public long getCount(String routeGroup) {
+        LongAdder count = routeGroups.get(routeGroup);
+        return count == null ? 0 : count.sum();
+    }
+
+    private void signalIfZero(long count) {
+        if (count == 0 && waiters > 0) {
+            synchronized (zeroReached) {
+                zeroReached.notifyAll();
+            }
+        }
+    }
+
+    private LongAdder routeGroupCount(String routeGroup) {
+        LongAdder count = routeGroups.get(routeGroup);
+        return count != null ? count : routeGroups.computeIfAbsent(routeGroup, this::registerRouteGroup);
+    }
+
+    private LongAdder registerRouteGroup(String routeGroup) {
+        LongAdder count = new LongAdder();
+        String name = "SERVER_connections:" + routeGroup + ":inFlight";
+        MetricRegistry registry = Metrics.registry();
+        registry.remove(name);
+        registry.register(name, (Gauge<Long>)count::sum);
+        return count;
+    }
 }
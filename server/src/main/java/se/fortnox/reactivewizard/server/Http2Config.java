@@ -0,0 +1,87 @@
+package se.fortnox.reactivewizard.server;
+
+/**
+ * Configuration of HTTP/2 support of the server, set as server.http2. HTTP/1.1 is served alongside HTTP/2.
+ */
+public class Http2Config {
+    /**
+     * Serve HTTP/2. Without a certificate, HTTP/2 is served in cleartext (h2c) to clients with prior knowledge or
+     * upgrading from HTTP/1.1. With a certificate, the server only serves TLS, and HTTP/2 or HTTP/1.1 is negotiated
+     * with ALPN.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Path of the PEM file with the certificate chain of the server, to serve TLS.
+     */
+    private String certificateChainFile;
+
+    /**
+     * Path of the PEM file with the PKCS#8 private key of the certificate.
+     */
+    private String privateKeyFile;
+
+    /**
+     * The number of concurrent streams, which are requests, that a client may open on a connection.
+     */
+    private long maxConcurrentStreams = 100;
+
+    /**
+     * The flow-control window of each stream, which is the number of bytes of a request body that a client may send
+     * before the server has read them.
+     */
+    private int initialWindowSize = 65535;
+
+    /**
+     * The largest frame that a client may send.
+     */
+    private int maxFrameSize = 16384;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getCertificateChainFile() {
+        return certificateChainFile;
+    }
+
+    public void setCertificateChainFile(String certificateChainFile) {
+        this.certificateChainFile = certificateChainFile;
+    }
+
+    public String getPrivateKeyFile() {
+        return privateKeyFile;
+    }
+
+    public void setPrivateKeyFile(String privateKeyFile) {
+        this.privateKeyFile = privateKeyFile;
+    }
+
+    public long getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    public void setMaxConcurrentStreams(long maxConcurrentStreams) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+    }
+
+    public int getInitialWindowSize() {
+        return initialWindowSize;
+    }
+
+    public void setInitialWindowSize(int initialWindowSize) {
+        this.initialWindowSize = initialWindowSize;
+    }
+
+    public int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    public void setMaxFrameSize(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+}
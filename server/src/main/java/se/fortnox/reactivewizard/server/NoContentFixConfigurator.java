@@ -19,10 +19,18 @@ import static reactor.netty.NettyPipeline.HttpTrafficHandler;
  * suggests that the inclusion of the header implies a body, which makes "Content-Length: 0" an invalid header.
  */
 public class NoContentFixConfigurator implements Consumer<ChannelPipeline> {
+    private static final String NO_CONTENT_FIX = "NoContentFix";
 
+    /**
+     * Add the fix to a pipeline serving HTTP/1.1, unless it has already been added. Pipelines that do not serve HTTP/1.1
+     * yet, because the protocol is negotiated with ALPN, or at all, because they serve HTTP/2 streams, are left as they
+     * are.
+     */
     @Override
     public void accept(ChannelPipeline pipeline) {
-        pipeline.addBefore(HttpTrafficHandler, "NoContentFix", new NoContentBodyFix());
+        if (pipeline.get(HttpTrafficHandler) != null && pipeline.get(NO_CONTENT_FIX) == null) {
+            pipeline.addBefore(HttpTrafficHandler, NO_CONTENT_FIX, new NoContentBodyFix());
+        }
     }
 
     /**
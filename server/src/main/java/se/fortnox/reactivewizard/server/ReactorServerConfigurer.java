@@ -25,4 +25,11 @@ public interface ReactorServerConfigurer {
     default int prio() {
         return 10;
     }
+
+    /**
+     * Dispose the resources created by this configurer, such as event loops. Called at shutdown, after the server has
+     * been disposed.
+     */
+    default void dispose() {
+    }
 }
@@ -1,8 +1,6 @@
 package se.fortnox.reactivewizard.server;
 
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.handler.codec.http.HttpHeaderNames;
-import io.netty.handler.codec.http.HttpUtil;
 import io.netty.util.concurrent.DefaultEventExecutor;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -10,23 +8,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.netty.DisposableServer;
 import reactor.netty.http.server.HttpServer;
-import reactor.netty.http.server.HttpServerRequest;
-import reactor.netty.http.server.HttpServerResponse;
 import se.fortnox.reactivewizard.RequestHandler;
 import se.fortnox.reactivewizard.logging.LoggingShutdownHandler;
+import se.fortnox.reactivewizard.server.modifiers.CompressionConfigurer;
+import se.fortnox.reactivewizard.server.modifiers.Http2Configurer;
 import se.fortnox.reactivewizard.server.modifiers.NoContentFixConfigurer;
 import se.fortnox.reactivewizard.server.modifiers.RequestSizesConfigurer;
+import se.fortnox.reactivewizard.server.modifiers.TransportConfigurer;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiPredicate;
 
-import static java.util.Arrays.asList;
 import static java.util.Comparator.comparingInt;
 
 /**
@@ -36,31 +31,26 @@ import static java.util.Comparator.comparingInt;
 public class RwServer extends Thread {
 
     private static final Logger LOG = LoggerFactory.getLogger(RwServer.class);
-    private static final int COMPRESSION_THRESHOLD_BYTES = 1000;
-    private static final Set<String> COMPRESSIBLE_MIME_TYPES = new HashSet<>(asList(
-        "text/plain",
-        "application/xml",
-        "text/css",
-        "application/x-javascript",
-        "application/json"
-    ));
 
     private final ServerConfig config;
     private final ConnectionCounter connectionCounter;
     private final DisposableServer server;
     private final LoggingShutdownHandler loggingShutdownHandler;
+    private final Set<ReactorServerConfigurer> serverConfigurers;
     private static Runnable blockShutdownUntil;
 
     @Inject
     public RwServer(ServerConfig config, CompositeRequestHandler compositeRequestHandler, ConnectionCounter connectionCounter,
         Set<ReactorServerConfigurer> serverConfigurers, LoggingShutdownHandler loggingShutdownHandler) {
-        this(config, connectionCounter, createHttpServer(config, serverConfigurers), compositeRequestHandler, loggingShutdownHandler);
+        this(config, connectionCounter, createHttpServer(config, serverConfigurers), compositeRequestHandler, null, loggingShutdownHandler,
+            serverConfigurers);
     }
 
     public RwServer(ServerConfig config, CompositeRequestHandler compositeRequestHandler,
                     ConnectionCounter connectionCounter, LoggingShutdownHandler loggingShutdownHandler) {
         this(config, compositeRequestHandler, connectionCounter,
-            Set.of(new NoContentFixConfigurer(), new RequestSizesConfigurer(config)), loggingShutdownHandler);
+            Set.of(new NoContentFixConfigurer(), new RequestSizesConfigurer(config), new TransportConfigurer(config),
+                new Http2Configurer(config), new CompressionConfigurer(config)), loggingShutdownHandler);
     }
 
     RwServer(ServerConfig config, ConnectionCounter connectionCounter, HttpServer httpServer,
@@ -70,10 +60,16 @@ public class RwServer extends Thread {
 
     RwServer(ServerConfig config, ConnectionCounter connectionCounter, HttpServer httpServer, CompositeRequestHandler compositeRequestHandler,
         DisposableServer disposableServer, LoggingShutdownHandler loggingShutdownHandler) {
+        this(config, connectionCounter, httpServer, compositeRequestHandler, disposableServer, loggingShutdownHandler, Set.of());
+    }
+
+    RwServer(ServerConfig config, ConnectionCounter connectionCounter, HttpServer httpServer, CompositeRequestHandler compositeRequestHandler,
+        DisposableServer disposableServer, LoggingShutdownHandler loggingShutdownHandler, Set<ReactorServerConfigurer> serverConfigurers) {
         super("RwServerMain");
         this.config = config;
         this.connectionCounter = connectionCounter;
         this.loggingShutdownHandler = loggingShutdownHandler;
+        this.serverConfigurers = serverConfigurers;
 
         if (config.isEnabled()) {
             if (disposableServer != null) {
@@ -96,8 +92,6 @@ public class RwServer extends Thread {
 
         HttpServer server = HttpServer
             .create()
-            .compress(COMPRESSION_THRESHOLD_BYTES)
-            .compress(isCompressionEnabled(config).and(isCompressibleResponse()))
             .port(config.getPort())
             // Register a channel group, when invoking disposeNow() the implementation will wait for the active requests to finish
             .channelGroup(new DefaultChannelGroup(new DefaultEventExecutor()));
@@ -114,25 +108,6 @@ public class RwServer extends Thread {
         return server;
     }
 
-    private static BiPredicate<HttpServerRequest, HttpServerResponse> isCompressibleResponse() {
-        return (request, response) -> {
-            if (!response.responseHeaders().contains(HttpHeaderNames.CONTENT_LENGTH)) {
-                return false;
-            }
-            return Optional.ofNullable(response.responseHeaders()
-                .get(HttpHeaderNames.CONTENT_TYPE))
-                .map(HttpUtil::getMimeType)
-                .map(CharSequence::toString)
-                .map(String::toLowerCase)
-                .map(COMPRESSIBLE_MIME_TYPES::contains)
-                .orElse(false);
-        };
-    }
-
-    private static BiPredicate<HttpServerRequest, HttpServerResponse> isCompressionEnabled(ServerConfig config) {
-        return (request, response) -> config.isEnableGzip();
-    }
-
     /**
      * Run the thread until server is shutdown.
      */
@@ -147,7 +122,7 @@ public class RwServer extends Thread {
 
     void registerShutdownHook() {
         Runtime.getRuntime().addShutdownHook(new Thread(() ->
-            shutdownHook(config, server, connectionCounter, loggingShutdownHandler)));
+            shutdownHook(config, server, connectionCounter, loggingShutdownHandler, serverConfigurers)));
     }
 
     /**
@@ -163,6 +138,15 @@ public class RwServer extends Thread {
 
     static void shutdownHook(ServerConfig config, DisposableServer server, ConnectionCounter connectionCounter,
                              LoggingShutdownHandler loggingShutdownHandler) {
+        shutdownHook(config, server, connectionCounter, loggingShutdownHandler, Set.of());
+    }
+
+    /**
+     * Wait for the requests in flight, then dispose the server and the resources of its configurers, and shut down
+     * the logging.
+     */
+    static void shutdownHook(ServerConfig config, DisposableServer server, ConnectionCounter connectionCounter,
+                             LoggingShutdownHandler loggingShutdownHandler, Set<ReactorServerConfigurer> serverConfigurers) {
         LOG.info("Shutdown requested. Waiting {} seconds before commencing.", config.getShutdownDelaySeconds());
         try {
             Thread.sleep(config.getShutdownDelaySeconds() * 1000);
@@ -180,6 +164,7 @@ public class RwServer extends Thread {
         }
 
         server.disposeNow(Duration.ofSeconds(config.getShutdownTimeoutSeconds()));
+        serverConfigurers.forEach(ReactorServerConfigurer::dispose);
         LOG.info("Server shutdown complete");
 
         executeLoggingShutdown(loggingShutdownHandler);
@@ -1,6 +1,10 @@
 package se.fortnox.reactivewizard.server;
 
 import se.fortnox.reactivewizard.config.Config;
+import se.fortnox.reactivewizard.jaxrs.response.ResponseCompressor;
+import se.fortnox.reactivewizard.server.ratelimit.RateLimitConfig;
+
+import java.util.Set;
 
 /**
  * Configuration for a server.
@@ -15,6 +19,20 @@ public class ServerConfig {
     private int shutdownTimeoutSeconds = 20;
     private boolean enableGzip = true;
     private long shutdownDelaySeconds = 5;
+    private int compressionThresholdBytes = ResponseCompressor.DEFAULT_THRESHOLD_BYTES;
+    /* The compression level of gzip and deflate, from 1 (fastest) to 9 (smallest). */
+    private int compressionLevel = ResponseCompressor.DEFAULT_DEFLATE_LEVEL;
+    /* The compression level of zstd, from 1 (fastest) to 22 (smallest). Zstd is only used when zstd-jni is on the
+     * classpath, and brotli only when brotli4j is. */
+    private int zstdCompressionLevel = ResponseCompressor.DEFAULT_ZSTD_LEVEL;
+    /* The time a request may take before it is cancelled with 504 Gateway Timeout, unless its resource has a @Timeout
+     * or the caller sends an earlier deadline. Disabled when 0. */
+    private long requestTimeoutMs = 0;
+    private ConcurrencyLimitConfig concurrencyLimit = new ConcurrencyLimitConfig();
+    private RateLimitConfig rateLimit = new RateLimitConfig();
+    private TransportConfig transport = new TransportConfig();
+    private Http2Config http2 = new Http2Config();
+    private Set<String> compressibleMimeTypes = ResponseCompressor.DEFAULT_COMPRESSIBLE_MIME_TYPES;
 
     public int getPort() {
         return port;
@@ -79,4 +97,76 @@ public class ServerConfig {
     public void setShutdownDelaySeconds(int shutdownDelaySeconds) {
         this.shutdownDelaySeconds = shutdownDelaySeconds;
     }
+
+    public int getCompressionThresholdBytes() {
+        return compressionThresholdBytes;
+    }
+
+    public void setCompressionThresholdBytes(int compressionThresholdBytes) {
+        this.compressionThresholdBytes = compressionThresholdBytes;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public int getZstdCompressionLevel() {
+        return zstdCompressionLevel;
+    }
+
+    public void setZstdCompressionLevel(int zstdCompressionLevel) {
+        this.zstdCompressionLevel = zstdCompressionLevel;
+    }
+
+    public long getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    public void setRequestTimeoutMs(long requestTimeoutMs) {
+        this.requestTimeoutMs = requestTimeoutMs;
+    }
+
+    public ConcurrencyLimitConfig getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(ConcurrencyLimitConfig concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public RateLimitConfig getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimitConfig rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public TransportConfig getTransport() {
+        return transport;
+    }
+
+    public void setTransport(TransportConfig transport) {
+        this.transport = transport;
+    }
+
+    public Http2Config getHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(Http2Config http2) {
+        this.http2 = http2;
+    }
+
+    public Set<String> getCompressibleMimeTypes() {
+        return compressibleMimeTypes;
+    }
+
+    public void setCompressibleMimeTypes(Set<String> compressibleMimeTypes) {
+        this.compressibleMimeTypes = compressibleMimeTypes;
+    }
 }
@@ -17,9 +17,13 @@ import se.fortnox.reactivewizard.jaxrs.JaxRsResourcesProvider;
 import se.fortnox.reactivewizard.jaxrs.params.ParamResolver;
 import se.fortnox.reactivewizard.jaxrs.params.ParamResolverFactory;
 import se.fortnox.reactivewizard.jaxrs.params.deserializing.Deserializer;
+import se.fortnox.reactivewizard.jaxrs.response.CacheableTransformer;
 import se.fortnox.reactivewizard.jaxrs.response.NoContentTransformer;
+import se.fortnox.reactivewizard.jaxrs.response.ResponseCompressor;
 import se.fortnox.reactivewizard.jaxrs.response.ResponseDecoratorTransformer;
 import se.fortnox.reactivewizard.jaxrs.response.ResultTransformerFactory;
+import se.fortnox.reactivewizard.server.modifiers.CompressionConfigurer;
+import se.fortnox.reactivewizard.server.ratelimit.RateLimitingRequestHandler;
 
 import java.text.DateFormat;
 import java.util.Optional;
@@ -46,6 +50,8 @@ public class ServerModule implements AutoBindModule {
         Multibinder<RequestHandler> requestHandlers = Multibinder.newSetBinder(
             binder,
             new TypeLiteral<RequestHandler>() { });
+        // Rate limits are enforced before the resources are called, so that the body of a rejected request is never read
+        requestHandlers.addBinding().to(RateLimitingRequestHandler.class);
         requestHandlers.addBinding().to(JaxRsRequestHandler.class);
 
         Multibinder.newSetBinder(binder, TypeLiteral.get(Deserializer.class));
@@ -56,11 +62,13 @@ public class ServerModule implements AutoBindModule {
 
         resultTransformers.addBinding().to(NoContentTransformer.class);
         resultTransformers.addBinding().to(ResponseDecoratorTransformer.class);
+        resultTransformers.addBinding().to(CacheableTransformer.class);
         Multibinder.newSetBinder(binder, TypeLiteral.get(ParamResolver.class));
         binder.bind(DateFormat.class).toProvider(StdDateFormat::new);
 
         ByteBufCollector byteBufCollector = new ByteBufCollector(config.getMaxRequestSize());
         binder.bind(ByteBufCollector.class).toInstance(byteBufCollector);
+        binder.bind(ResponseCompressor.class).toInstance(CompressionConfigurer.createResponseCompressor(config));
 
         JaxRsResourceRegistry jaxRsResourceRegistry = new JaxRsResourceRegistry();
         binder.bind(JaxRsResourceRegistry.class).toInstance(jaxRsResourceRegistry);
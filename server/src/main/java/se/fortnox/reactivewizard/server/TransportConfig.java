@@ -0,0 +1,102 @@
+package se.fortnox.reactivewizard.server;
+
+/**
+ * Configuration of the transport and event loops of the server, set as server.transport.
+ */
+public class TransportConfig {
+    /**
+     * The transports that the server can run on.
+     */
+    public enum Type {
+        /**
+         * The native transport when it is available on the platform, otherwise NIO.
+         */
+        AUTO,
+        /**
+         * The Java NIO transport.
+         */
+        NIO,
+        /**
+         * The native Linux epoll transport. The server fails to start when it is not available.
+         */
+        EPOLL
+    }
+
+    private Type type = Type.AUTO;
+
+    /**
+     * The number of event loop threads handling the connections, or 0 for the number of available processors (at least 4).
+     */
+    private int eventLoopThreads = 0;
+
+    /**
+     * The number of event loop threads accepting connections, or 0 to accept connections on the event loops that handle
+     * them.
+     */
+    private int selectThreads = 0;
+
+    /**
+     * Bind the port with SO_REUSEPORT, so that several servers on the host can bind the same port and have the kernel
+     * spread the connections between them. Only supported by the epoll transport.
+     */
+    private boolean reusePort = false;
+
+    /**
+     * The length of the queue of pending TCP Fast Open requests, or 0 to disable TCP Fast Open. Only supported by the
+     * epoll transport.
+     */
+    private int tcpFastOpen = 0;
+
+    /**
+     * Send data without waiting to coalesce small packets (TCP_NODELAY).
+     */
+    private boolean tcpNoDelay = true;
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    public void setEventLoopThreads(int eventLoopThreads) {
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
+    public int getSelectThreads() {
+        return selectThreads;
+    }
+
+    public void setSelectThreads(int selectThreads) {
+        this.selectThreads = selectThreads;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public void setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+    }
+
+    public int getTcpFastOpen() {
+        return tcpFastOpen;
+    }
+
+    public void setTcpFastOpen(int tcpFastOpen) {
+        this.tcpFastOpen = tcpFastOpen;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+}
@@ -0,0 +1,154 @@
+package se.fortnox.reactivewizard.server.modifiers;
+
+import com.google.inject.Inject;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import reactor.netty.NettyPipeline;
+import reactor.netty.http.server.HttpServer;
+import se.fortnox.reactivewizard.jaxrs.response.ResponseCompressor;
+import se.fortnox.reactivewizard.server.ReactorServerConfigurer;
+import se.fortnox.reactivewizard.server.ServerConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static reactor.netty.NettyPipeline.HttpTrafficHandler;
+
+/**
+ * Compresses responses of the {@link ServerConfig#getCompressibleMimeTypes() compressible mime types} that have a
+ * Content-Length of at least the {@link ServerConfig#getCompressionThresholdBytes() threshold}, when gzip is enabled.
+ * Responses that are already encoded, such as precompressed cached responses, are passed through as they are.
+ * <p>
+ * Reactor Netty compresses with the default levels of each encoding, so a compressor with the configured levels is
+ * added when the channel is initialized, and used by Reactor Netty in place of its own. HTTP/2 streams, and HTTP/1.1
+ * negotiated with ALPN, get no pipeline of their own at that point, and are compressed with the default levels.
+ * <p>
+ * The {@link ResponseCompressor} of the precompressed responses is created from the same settings, by
+ * {@link #createResponseCompressor(ServerConfig)}.
+ */
+public class CompressionConfigurer implements ReactorServerConfigurer {
+    private static final int ZSTD_BLOCK_SIZE      = 1 << 16;
+    private static final int ZSTD_MAX_ENCODE_SIZE = 1 << 25;
+    private static final int DEFLATE_WINDOW_BITS  = 15;
+    private static final int DEFLATE_MEMORY_LEVEL = 8;
+
+    private final ServerConfig config;
+    private final Set<String>  compressibleMimeTypes;
+
+    @Inject
+    public CompressionConfigurer(ServerConfig config) {
+        this.config = config;
+        this.compressibleMimeTypes = lowerCase(config.getCompressibleMimeTypes());
+    }
+
+    /**
+     * Create the compressor of precompressed responses, which compresses on the same terms as the server.
+     * @param config the server config
+     * @return the compressor
+     */
+    public static ResponseCompressor createResponseCompressor(ServerConfig config) {
+        return new ResponseCompressor(config.getCompressionThresholdBytes(), config.getCompressibleMimeTypes(),
+            config.isEnableGzip() ? ResponseCompressor.createEncoders(config.getCompressionLevel(), config.getZstdCompressionLevel()) : List.of());
+    }
+
+    @Override
+    public HttpServer configure(HttpServer httpServer) {
+        if (!config.isEnableGzip()) {
+            return httpServer;
+        }
+        return httpServer
+            .compress(config.getCompressionThresholdBytes())
+            .compress((request, response) -> isCompressible(response.responseHeaders()))
+            .doOnChannelInit((connectionObserver, channel, socketAddress) -> addCompressor(channel.pipeline()));
+    }
+
+    /**
+     * Runs before the configurers of the application, which may then override the compression.
+     */
+    @Override
+    public int prio() {
+        return 0;
+    }
+
+    private void addCompressor(ChannelPipeline pipeline) {
+        if (pipeline.get(HttpTrafficHandler) != null && pipeline.get(NettyPipeline.CompressionHandler) == null) {
+            pipeline.addAfter(HttpTrafficHandler, NettyPipeline.CompressionHandler, new LeveledCompressor(config.getCompressionThresholdBytes(),
+                compressionOptions()));
+        }
+    }
+
+    private CompressionOptions[] compressionOptions() {
+        List<CompressionOptions> options = new ArrayList<>();
+        if (Brotli.isAvailable()) {
+            options.add(StandardCompressionOptions.brotli());
+        }
+        if (Zstd.isAvailable()) {
+            options.add(StandardCompressionOptions.zstd(config.getZstdCompressionLevel(), ZSTD_BLOCK_SIZE, ZSTD_MAX_ENCODE_SIZE));
+        }
+        options.add(StandardCompressionOptions.gzip(config.getCompressionLevel(), DEFLATE_WINDOW_BITS, DEFLATE_MEMORY_LEVEL));
+        options.add(StandardCompressionOptions.deflate(config.getCompressionLevel(), DEFLATE_WINDOW_BITS, DEFLATE_MEMORY_LEVEL));
+        return options.toArray(CompressionOptions[]::new);
+    }
+
+    private boolean isCompressible(HttpHeaders headers) {
+        String contentLength = headers.get(HttpHeaderNames.CONTENT_LENGTH);
+        String contentType = headers.get(HttpHeaderNames.CONTENT_TYPE);
+        if (contentLength == null || contentType == null || headers.contains(HttpHeaderNames.CONTENT_ENCODING)) {
+            return false;
+        }
+        try {
+            if (Long.parseLong(contentLength.trim()) < config.getCompressionThresholdBytes()) {
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        CharSequence mimeType = HttpUtil.getMimeType(contentType);
+        return mimeType != null && compressibleMimeTypes.contains(mimeType.toString().toLowerCase(Locale.ROOT));
+    }
+
+    private static Set<String> lowerCase(Set<String> mimeTypes) {
+        return mimeTypes.stream()
+            .map(mimeType -> mimeType.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Compresses with the configured levels. The compressor stays in the pipeline for all requests of the connection,
+     * so it checks each response itself, and the body is written by Reactor Netty as plain buffers, which are wrapped
+     * the way Reactor Netty wraps them for its own compressor.
+     */
+    private class LeveledCompressor extends HttpContentCompressor {
+        LeveledCompressor(int contentSizeThreshold, CompressionOptions... compressionOptions) {
+            super(contentSizeThreshold, compressionOptions);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            super.write(ctx, msg instanceof ByteBuf buffer ? new DefaultHttpContent(buffer) : msg, promise);
+        }
+
+        @Override
+        protected Result beginEncode(HttpResponse response, String acceptEncoding) throws Exception {
+            if (!isCompressible(response.headers())) {
+                return null;
+            }
+            return super.beginEncode(response, acceptEncoding);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package se.fortnox.reactivewizard.server.modifiers;
+
+import com.google.inject.Inject;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import se.fortnox.reactivewizard.server.Http2Config;
+import se.fortnox.reactivewizard.server.ReactorServerConfigurer;
+import se.fortnox.reactivewizard.server.ServerConfig;
+
+import java.io.File;
+
+/**
+ * Serves HTTP/2 alongside HTTP/1.1 when enabled by the {@link Http2Config}, in cleartext or over TLS.
+ */
+public class Http2Configurer implements ReactorServerConfigurer {
+    private final Http2Config config;
+    private final int         maxHeaderSize;
+
+    @Inject
+    public Http2Configurer(ServerConfig serverConfig) {
+        this.config = serverConfig.getHttp2();
+        this.maxHeaderSize = serverConfig.getMaxHeaderSize();
+    }
+
+    @Override
+    public HttpServer configure(HttpServer httpServer) {
+        if (!config.isEnabled()) {
+            return httpServer;
+        }
+        HttpServer server = httpServer.http2Settings(settings -> settings
+            .maxConcurrentStreams(config.getMaxConcurrentStreams())
+            .initialWindowSize(config.getInitialWindowSize())
+            .maxFrameSize(config.getMaxFrameSize())
+            .maxHeaderListSize(maxHeaderSize));
+        if (config.getCertificateChainFile() == null && config.getPrivateKeyFile() == null) {
+            return server.protocol(HttpProtocol.HTTP11, HttpProtocol.H2C);
+        }
+        if (config.getCertificateChainFile() == null || config.getPrivateKeyFile() == null) {
+            throw new IllegalStateException("server.http2 needs both a certificateChainFile and a privateKeyFile to serve TLS");
+        }
+        Http2SslContextSpec sslContext = Http2SslContextSpec.forServer(new File(config.getCertificateChainFile()),
+            new File(config.getPrivateKeyFile()));
+        return server
+            .protocol(HttpProtocol.HTTP11, HttpProtocol.H2)
+            .secure(spec -> spec.sslContext(sslContext));
+    }
+
+    /**
+     * Runs before the configurers of the application, which may then override the protocols.
+     */
+    @Override
+    public int prio() {
+        return 0;
+    }
+}
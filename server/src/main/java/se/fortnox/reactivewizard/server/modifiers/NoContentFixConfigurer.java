@@ -6,11 +6,15 @@ import se.fortnox.reactivewizard.server.ReactorServerConfigurer;
 
 public class NoContentFixConfigurer implements ReactorServerConfigurer {
 
+    /**
+     * The fix is added when the channel is initialized, or, when HTTP/1.1 is negotiated with ALPN, by the first request
+     * on the connection.
+     */
     @Override
     public HttpServer configure(HttpServer httpServer) {
-        return httpServer.doOnChannelInit((connectionObserver, channel, socketAddress) -> {
-            NoContentFixConfigurator noContentFixConfigurator = new NoContentFixConfigurator();
-            noContentFixConfigurator.accept(channel.pipeline());
-        });
+        NoContentFixConfigurator noContentFixConfigurator = new NoContentFixConfigurator();
+        return httpServer
+            .doOnChannelInit((connectionObserver, channel, socketAddress) -> noContentFixConfigurator.accept(channel.pipeline()))
+            .doOnConnection(connection -> noContentFixConfigurator.accept(connection.channel().pipeline()));
     }
 }
@@ -0,0 +1,99 @@
+package se.fortnox.reactivewizard.server.modifiers;
+
+import com.google.inject.Inject;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.netty.http.HttpResources;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+import se.fortnox.reactivewizard.server.ReactorServerConfigurer;
+import se.fortnox.reactivewizard.server.ServerConfig;
+import se.fortnox.reactivewizard.server.TransportConfig;
+
+/**
+ * Runs the server on the transport and event loops of the {@link TransportConfig}, and sets its socket options. Event
+ * loops created for the configured number of threads are disposed when the configurer is disposed.
+ */
+public class TransportConfigurer implements ReactorServerConfigurer {
+    private static final Logger LOG = LoggerFactory.getLogger(TransportConfigurer.class);
+    private static final String LOOP_PREFIX = "rw-server";
+
+    private final TransportConfig config;
+    private LoopResources         createdLoopResources;
+
+    @Inject
+    public TransportConfigurer(ServerConfig serverConfig) {
+        this.config = serverConfig.getTransport();
+    }
+
+    @Override
+    public HttpServer configure(HttpServer httpServer) {
+        boolean preferNative = preferNative();
+        boolean epoll = preferNative && Epoll.isAvailable();
+        HttpServer server = httpServer
+            .runOn(loopResources(), preferNative)
+            .childOption(ChannelOption.TCP_NODELAY, config.isTcpNoDelay());
+        if (config.isReusePort()) {
+            server = epoll ? server.option(EpollChannelOption.SO_REUSEPORT, true) : unsupported(server, "reusePort");
+        }
+        if (config.getTcpFastOpen() > 0) {
+            server = epoll ? server.option(ChannelOption.TCP_FASTOPEN, config.getTcpFastOpen()) : unsupported(server, "tcpFastOpen");
+        }
+        return server;
+    }
+
+    /**
+     * Runs before the configurers of the application, which may then override the transport.
+     */
+    @Override
+    public int prio() {
+        return 0;
+    }
+
+    @Override
+    public void dispose() {
+        if (createdLoopResources != null) {
+            createdLoopResources.disposeLater().block();
+            createdLoopResources = null;
+        }
+    }
+
+    private boolean preferNative() {
+        return switch (config.getType()) {
+            case NIO -> false;
+            case AUTO -> LoopResources.DEFAULT_NATIVE;
+            case EPOLL -> {
+                if (!Epoll.isAvailable()) {
+                    throw new IllegalStateException("The epoll transport is not available", Epoll.unavailabilityCause());
+                }
+                yield true;
+            }
+        };
+    }
+
+    private LoopResources loopResources() {
+        if (config.getEventLoopThreads() <= 0 && config.getSelectThreads() <= 0) {
+            return HttpResources.get();
+        }
+        if (createdLoopResources == null) {
+            createdLoopResources = createLoopResources();
+        }
+        return createdLoopResources;
+    }
+
+    private LoopResources createLoopResources() {
+        int workerCount = config.getEventLoopThreads() > 0 ? config.getEventLoopThreads() : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        if (config.getSelectThreads() <= 0) {
+            return LoopResources.create(LOOP_PREFIX, workerCount, true);
+        }
+        return LoopResources.create(LOOP_PREFIX, config.getSelectThreads(), workerCount, true);
+    }
+
+    private static HttpServer unsupported(HttpServer server, String setting) {
+        LOG.warn("server.transport.{} is only supported by the epoll transport and is ignored", setting);
+        return server;
+    }
+}
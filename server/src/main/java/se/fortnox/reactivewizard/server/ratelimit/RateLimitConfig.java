@@ -0,0 +1,50 @@
+package se.fortnox.reactivewizard.server.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the rate limits of the server, set as server.rateLimit.
+ * <p>
+ * e.g.
+ * <pre>
+ * server:
+ *   rateLimit:
+ *     rules:
+ *       - name: orders-per-api-key
+ *         pathPrefix: /orders
+ *         methods: [POST, PUT]
+ *         key: HEADER
+ *         header: X-Api-Key
+ *         permitsPerSecond: 10
+ *         burst: 20
+ * </pre>
+ */
+public class RateLimitConfig {
+    /**
+     * The rules that limit the rate of requests. A request must be permitted by every rule that matches it.
+     */
+    private List<RateLimitRule> rules = new ArrayList<>();
+
+    /**
+     * Seconds between the checks for buckets of callers that have been idle long enough to be full again, which are
+     * then removed.
+     */
+    private int expiryTickSeconds = 1;
+
+    public List<RateLimitRule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<RateLimitRule> rules) {
+        this.rules = rules;
+    }
+
+    public int getExpiryTickSeconds() {
+        return expiryTickSeconds;
+    }
+
+    public void setExpiryTickSeconds(int expiryTickSeconds) {
+        this.expiryTickSeconds = expiryTickSeconds;
+    }
+}
@@ -0,0 +1,116 @@
+package se.fortnox.reactivewizard.server.ratelimit;
+
+import java.util.Set;
+
+/**
+ * A token bucket limit of the rate of the requests matching a path prefix and, optionally, a set of methods.
+ */
+public class RateLimitRule {
+    /**
+     * What the requests matching a rule are counted by.
+     */
+    public enum Key {
+        /**
+         * All matching requests share one bucket.
+         */
+        ROUTE,
+        /**
+         * Requests are counted by the value of a header, such as an API key. Requests without the header are counted by
+         * their remote address.
+         */
+        HEADER,
+        /**
+         * Requests are counted by the address of the connection.
+         */
+        REMOTE_ADDRESS
+    }
+
+    /**
+     * Name of the rule, used in metrics.
+     */
+    private String name;
+
+    /**
+     * Prefix of the paths of the requests that the rule applies to.
+     */
+    private String pathPrefix = "/";
+
+    /**
+     * The http methods of the requests that the rule applies to, or empty for all methods.
+     */
+    private Set<String> methods = Set.of();
+
+    private Key key = Key.ROUTE;
+
+    /**
+     * The header that requests are counted by, when the key is {@link Key#HEADER}.
+     */
+    private String header;
+
+    /**
+     * The rate at which tokens are added to a bucket.
+     */
+    private double permitsPerSecond;
+
+    /**
+     * The number of tokens a full bucket holds, which is the number of requests that may be sent at once after being
+     * idle.
+     */
+    private int burst = 1;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPathPrefix() {
+        return pathPrefix;
+    }
+
+    public void setPathPrefix(String pathPrefix) {
+        this.pathPrefix = pathPrefix;
+    }
+
+    public Set<String> getMethods() {
+        return methods;
+    }
+
+    public void setMethods(Set<String> methods) {
+        this.methods = methods;
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public void setKey(Key key) {
+        this.key = key;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public void setPermitsPerSecond(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+}
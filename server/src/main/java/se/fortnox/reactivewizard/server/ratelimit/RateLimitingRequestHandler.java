@@ -0,0 +1,132 @@
+package se.fortnox.reactivewizard.server.ratelimit;
+
+import com.codahale.metrics.Counter;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import org.slf4j.event.Level;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import se.fortnox.reactivewizard.ExceptionHandler;
+import se.fortnox.reactivewizard.RequestHandler;
+import se.fortnox.reactivewizard.jaxrs.WebException;
+import se.fortnox.reactivewizard.metrics.Metrics;
+import se.fortnox.reactivewizard.server.ServerConfig;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.TOO_MANY_REQUESTS;
+import static javax.ws.rs.core.HttpHeaders.RETRY_AFTER;
+
+/**
+ * Rejects requests over the {@link RateLimitConfig rate limits} with 429 Too Many Requests, and passes the others on
+ * to the next {@link RequestHandler}. It is called before the resources are, so the body of a rejected request is
+ * never read.
+ */
+@Singleton
+public class RateLimitingRequestHandler implements RequestHandler {
+    private static final String ERROR_TOO_MANY_REQUESTS = "too.many.requests";
+
+    private final List<RouteLimit> limits;
+    private final ExceptionHandler exceptionHandler;
+    private final LongSupplier     clock;
+
+    @Inject
+    public RateLimitingRequestHandler(ServerConfig serverConfig, ExceptionHandler exceptionHandler) {
+        this(serverConfig.getRateLimit(), exceptionHandler, System::nanoTime);
+    }
+
+    RateLimitingRequestHandler(RateLimitConfig config, ExceptionHandler exceptionHandler, LongSupplier clock) {
+        this.exceptionHandler = exceptionHandler;
+        this.clock = clock;
+        long expiryTickNanos = TimeUnit.SECONDS.toNanos(Math.max(config.getExpiryTickSeconds(), 1));
+        long nowNanos = clock.getAsLong();
+        this.limits = config.getRules().stream()
+            .map(rule -> new RouteLimit(rule, expiryTickNanos, nowNanos))
+            .toList();
+    }
+
+    @Override
+    public Publisher<Void> apply(HttpServerRequest request, HttpServerResponse response) {
+        if (limits.isEmpty()) {
+            return null;
+        }
+        String path = request.fullPath();
+        String method = request.method().name();
+        long nowNanos = clock.getAsLong();
+        for (RouteLimit limit : limits) {
+            if (!limit.matches(method, path)) {
+                continue;
+            }
+            long waitNanos = limit.tryAcquire(request, nowNanos);
+            if (waitNanos > 0) {
+                limit.rejected.inc();
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+                response.addHeader(RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                return exceptionHandler.handleException(request, response,
+                    new WebException(TOO_MANY_REQUESTS, ERROR_TOO_MANY_REQUESTS).withLogLevel(Level.DEBUG));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The buckets of a rule.
+     */
+    private static class RouteLimit {
+        private final String       pathPrefix;
+        private final Set<String>  methods;
+        private final RateLimitRule.Key key;
+        private final String       header;
+        private final TokenBuckets buckets;
+        private final Counter      rejected;
+
+        RouteLimit(RateLimitRule rule, long expiryTickNanos, long nowNanos) {
+            if (rule.getName() == null) {
+                throw new IllegalArgumentException("A rate limit rule needs a name");
+            }
+            if (rule.getKey() == RateLimitRule.Key.HEADER && rule.getHeader() == null) {
+                throw new IllegalArgumentException("The rate limit rule " + rule.getName() + " is keyed by a header, but has no header");
+            }
+            this.pathPrefix = rule.getPathPrefix();
+            this.methods = rule.getMethods().stream().map(method -> method.toUpperCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+            this.key = rule.getKey();
+            this.header = rule.getHeader();
+            this.buckets = new TokenBuckets(rule.getPermitsPerSecond(), rule.getBurst(), expiryTickNanos, nowNanos);
+            this.rejected = Metrics.registry().counter("SERVER_rateLimit:" + rule.getName() + ":rejected");
+        }
+
+        boolean matches(String method, String path) {
+            return path.startsWith(pathPrefix) && (methods.isEmpty() || methods.contains(method));
+        }
+
+        long tryAcquire(HttpServerRequest request, long nowNanos) {
+            return buckets.tryAcquire(keyOf(request), nowNanos);
+        }
+
+        private String keyOf(HttpServerRequest request) {
+            return switch (key) {
+                case ROUTE -> "";
+                case HEADER -> {
+                    String value = request.requestHeaders().get(header);
+                    yield value != null ? "header:" + value : remoteAddress(request);
+                }
+                case REMOTE_ADDRESS -> remoteAddress(request);
+            };
+        }
+
+        private static String remoteAddress(HttpServerRequest request) {
+            InetSocketAddress remoteAddress = request.remoteAddress();
+            if (remoteAddress == null) {
+                return "address:";
+            }
+            return "address:" + (remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package se.fortnox.reactivewizard.server.ratelimit;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+/**
+ * A hashed wheel of keys that are due at some time. The wheel is advanced by the threads that use it, rather than by a
+ * thread of its own, and the keys of the ticks passed are handed to a callback that may schedule them again.
+ * <p>
+ * A key scheduled further ahead than one turn of the wheel is handed to the callback early, which must then check
+ * whether it is due and otherwise schedule it again.
+ *
+ * @param <K> the type of the keys
+ */
+class TimeWheel<K> {
+    private static final int SLOTS = 64;
+
+    private final long                                    tickNanos;
+    private final AtomicReferenceArray<Queue<K>>          slots = new AtomicReferenceArray<>(SLOTS);
+    private final AtomicLong                              currentTick;
+    private final BiConsumer<K, Long>                     onDue;
+
+    /**
+     * Create a wheel.
+     * @param tickNanos the time between ticks
+     * @param nowNanos the current time
+     * @param onDue called with each key, and the current time, when the tick it was scheduled at has passed
+     */
+    TimeWheel(long tickNanos, long nowNanos, BiConsumer<K, Long> onDue) {
+        this.tickNanos = tickNanos;
+        this.currentTick = new AtomicLong(Math.floorDiv(nowNanos, tickNanos));
+        this.onDue = onDue;
+        for (int i = 0; i < SLOTS; i++) {
+            slots.set(i, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Schedule a key.
+     * @param key the key
+     * @param atNanos the time when the key is due
+     */
+    void schedule(K key, long atNanos) {
+        long tick = Math.max(Math.floorDiv(atNanos, tickNanos), currentTick.get() + 1);
+        Queue<K> slot = slots.get(slot(tick));
+        slot.add(key);
+        if (slots.get(slot(tick)) != slot) {
+            // The slot was taken by an advancing thread, which may have drained it before the key was added
+            slots.get(slot(tick)).add(key);
+        }
+    }
+
+    /**
+     * Hand the keys of the ticks that have passed to the callback. Only one of the threads calling this concurrently
+     * advances the wheel, the others return at once.
+     * @param nowNanos the current time
+     */
+    void advance(long nowNanos) {
+        long targetTick = Math.floorDiv(nowNanos, tickNanos);
+        long previousTick = currentTick.get();
+        if (targetTick <= previousTick || !currentTick.compareAndSet(previousTick, targetTick)) {
+            return;
+        }
+        long lastTick = Math.min(targetTick, previousTick + SLOTS);
+        for (long tick = previousTick + 1; tick <= lastTick; tick++) {
+            Queue<K> due = slots.getAndSet(slot(tick), new ConcurrentLinkedQueue<>());
+            for (K key = due.poll(); key != null; key = due.poll()) {
+                onDue.accept(key, nowNanos);
+            }
+        }
+    }
+
+    private static int slot(long tick) {
+        return (int)(tick & (SLOTS - 1));
+    }
+}
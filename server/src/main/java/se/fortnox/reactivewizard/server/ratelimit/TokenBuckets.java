@@ -0,0 +1,77 @@
+package se.fortnox.reactivewizard.server.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets of the callers of a rule, kept in the generic cell rate algorithm form: the state of a bucket is the
+ * single time at which it is full again, which is updated by compare-and-set without any lock.
+ * <p>
+ * A bucket that is full is the same as a new one, so buckets are removed by a {@link TimeWheel} once the callers have
+ * been idle long enough for them to fill up, and the memory used is bounded by the number of recently active callers.
+ */
+class TokenBuckets {
+    private final long                    emissionIntervalNanos;
+    private final long                    burstToleranceNanos;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final TimeWheel<String>       expiry;
+
+    TokenBuckets(double permitsPerSecond, int burst, long expiryTickNanos, long nowNanos) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("A rate limit needs a positive rate and a burst of at least 1");
+        }
+        this.emissionIntervalNanos = (long)(1_000_000_000L / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.expiry = new TimeWheel<>(expiryTickNanos, nowNanos, this::expireOrReschedule);
+    }
+
+    /**
+     * Take a token from the bucket of a caller.
+     * @param key the caller
+     * @param nowNanos the current time
+     * @return 0 if a token was taken, otherwise the time until the bucket has a token
+     */
+    long tryAcquire(String key, long nowNanos) {
+        expiry.advance(nowNanos);
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            AtomicLong created = new AtomicLong(nowNanos);
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) {
+                // Scheduled once in the map, so that the wheel cannot hand the key over before the bucket is there
+                bucket = created;
+                expiry.schedule(key, nowNanos + emissionIntervalNanos);
+            }
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long start = Math.max(fullAt, nowNanos);
+            long waitNanos = start - nowNanos - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(fullAt, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private void expireOrReschedule(String key, long nowNanos) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        long fullAt = bucket.get();
+        if (fullAt - nowNanos > 0) {
+            expiry.schedule(key, fullAt);
+        } else {
+            // A token taken concurrently is forgotten with the bucket, which at worst lets one more request through
+            buckets.remove(key, bucket);
+        }
+    }
+}
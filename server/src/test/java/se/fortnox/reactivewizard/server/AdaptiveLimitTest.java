@@ -0,0 +1,95 @@
+package se.fortnox.reactivewizard.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimitTest {
+    private static final long MS = 1_000_000;
+
+    @Test
+    void shouldRejectRequestsOverLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release();
+        assertThat(limit.getInFlight()).isEqualTo(1);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldIncreaseLimitWhileLatencyIsSteadyAndLimitIsReached() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100);
+
+        for (int i = 0; i < 20; i++) {
+            saturate(limit);
+            limit.release(10 * MS, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldNotIncreaseLimitWhenItIsNotReached() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100);
+
+        for (int i = 0; i < 20; i++) {
+            limit.tryAcquire();
+            limit.release(10 * MS, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldDecreaseLimitWhenLatencyGrows() {
+        AdaptiveLimit limit = new AdaptiveLimit(50, 5, 100);
+        saturate(limit);
+        limit.release(10 * MS, false);
+        int limitAtLowLatency = limit.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            saturate(limit);
+            limit.release(100 * MS, false);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(limitAtLowLatency).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void shouldDecreaseLimitWhenRequestsAreDropped() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 2, 100);
+
+        for (int i = 0; i < 20; i++) {
+            limit.tryAcquire();
+            limit.release(10 * MS, true);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepLimitWithinBoundsWhenRequestsCompleteConcurrently() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 5, 50);
+
+        IntStream.range(0, 100_000).parallel().forEach(i -> {
+            if (limit.tryAcquire()) {
+                limit.release((i % 100 + 1) * MS, i % 10 == 0);
+            }
+        });
+
+        assertThat(limit.getInFlight()).isZero();
+        assertThat(limit.getLimit()).isBetween(5, 50);
+    }
+
+    private static void saturate(AdaptiveLimit limit) {
+        while (limit.tryAcquire()) {
+            // Take every place, as under load
+        }
+    }
+}
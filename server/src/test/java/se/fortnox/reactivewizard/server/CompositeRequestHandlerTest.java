@@ -1,5 +1,7 @@
 package se.fortnox.reactivewizard.server;
 
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,22 +10,30 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Flux;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
 import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
 import se.fortnox.reactivewizard.ExceptionHandler;
 import se.fortnox.reactivewizard.RequestHandler;
 import se.fortnox.reactivewizard.jaxrs.RequestLogger;
 import se.fortnox.reactivewizard.jaxrs.WebException;
+import se.fortnox.reactivewizard.util.Deadline;
 
+import java.time.Duration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -50,8 +60,12 @@ class CompositeRequestHandlerTest {
 
     private ConnectionCounter connectionCounter;
 
+    private final HttpHeaders requestHeaders = new DefaultHttpHeaders();
+
     @BeforeEach
     public void beforeEach() {
+        lenient().when(request.requestHeaders()).thenReturn(requestHeaders);
+        lenient().when(request.path()).thenReturn("resource");
         connectionCounter = new ConnectionCounter();
         compositeRequestHandler = new CompositeRequestHandler(requestHandlers, exceptionHandler, connectionCounter, requestLogger);
     }
@@ -98,6 +112,19 @@ class CompositeRequestHandlerTest {
         assertThat(connectionCounter.getCount()).isZero();
     }
 
+    @Test
+    void shouldCountHandledRequestsByRouteGroupWhileInFlight() {
+        when(request.path()).thenReturn("orders/1");
+        AtomicReference<Long> countInFlight = new AtomicReference<>();
+        requestHandlers.add((request, response) -> Mono.fromRunnable(() -> countInFlight.set(connectionCounter.getCount("orders"))));
+
+        Flux.from(compositeRequestHandler.apply(request, response)).count().block();
+
+        assertThat(countInFlight).hasValue(1L);
+        assertThat(connectionCounter.getCount("orders")).isZero();
+        assertThat(connectionCounter.getCount()).isZero();
+    }
+
     @Test
     void exceptionHandlerShallBeInvokedWhenNullIsReturnedByRequestHandler() {
         when(exceptionHandler.handleException(any(), any(), any(WebException.class))).thenReturn(Flux.empty());
@@ -124,4 +151,125 @@ class CompositeRequestHandlerTest {
             .hasFieldOrPropertyWithValue("status", NOT_FOUND)
             .hasFieldOrPropertyWithValue("error", "resource.not.found");
     }
+
+    @Test
+    void shouldPutDeadlineOfCallerAndDefaultTimeoutInContext() {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setRequestTimeoutMs(3000);
+        compositeRequestHandler = new CompositeRequestHandler(requestHandlers, exceptionHandler, connectionCounter, requestLogger, serverConfig);
+        requestHeaders.set(Deadline.HEADER, "500");
+        AtomicReference<Deadline> deadline = new AtomicReference<>();
+        AtomicReference<Duration> defaultTimeout = new AtomicReference<>();
+        requestHandlers.add((request, response) -> Mono.deferContextual(context -> {
+            deadline.set(Deadline.from(context).orElse(null));
+            defaultTimeout.set(Deadline.defaultTimeout(context).orElse(null));
+            return Mono.empty();
+        }));
+
+        Flux.from(compositeRequestHandler.apply(request, response)).count().block();
+
+        assertThat(deadline.get().remaining()).isBetween(Duration.ofMillis(1), Duration.ofMillis(500));
+        assertThat(defaultTimeout).hasValue(Duration.ofMillis(3000));
+    }
+
+    @Test
+    void shouldNotPutDeadlineInContextWithoutHeader() {
+        AtomicReference<Boolean> hasDeadline = new AtomicReference<>();
+        requestHandlers.add((request, response) -> Mono.deferContextual(context -> {
+            hasDeadline.set(Deadline.from(context).isPresent() || Deadline.defaultTimeout(context).isPresent());
+            return Mono.empty();
+        }));
+
+        Flux.from(compositeRequestHandler.apply(request, response)).count().block();
+
+        assertThat(hasDeadline).hasValue(false);
+    }
+
+    @Test
+    void shouldRejectRequestsOverConcurrencyLimitWithRetryAfter() {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getConcurrencyLimit().setEnabled(true);
+        serverConfig.getConcurrencyLimit().setInitialLimit(1);
+        serverConfig.getConcurrencyLimit().setMinLimit(1);
+        serverConfig.getConcurrencyLimit().setRetryAfterSeconds(2);
+        ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(serverConfig);
+        compositeRequestHandler = new CompositeRequestHandler(requestHandlers, exceptionHandler, connectionCounter, requestLogger,
+            serverConfig, concurrencyLimiter);
+        when(request.path()).thenReturn("limited/resource");
+        when(exceptionHandler.handleException(any(), any(), any(WebException.class))).thenReturn(Flux.empty());
+        requestHandlers.add((request, response) -> Mono.never());
+
+        Disposable inFlight = Flux.from(compositeRequestHandler.apply(request, response)).subscribe();
+        Flux.from(compositeRequestHandler.apply(request, response)).count().block();
+
+        verify(response).addHeader("Retry-After", "2");
+        verify(exceptionHandler).handleException(any(), any(), webExceptionCaptor.capture());
+        assertThat(webExceptionCaptor.getValue())
+            .hasFieldOrPropertyWithValue("status", SERVICE_UNAVAILABLE)
+            .hasFieldOrPropertyWithValue("error", "server.overloaded");
+        assertThat(concurrencyLimiter.getLimits()).containsEntry("limited", 1);
+
+        // The place of a cancelled request is released
+        inFlight.dispose();
+        assertThat(concurrencyLimiter.limitFor("limited").getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldCountRequestsThatNoHandlerAcceptsInOtherRouteGroup() {
+        when(exceptionHandler.handleException(any(), any(), any(WebException.class))).thenReturn(Flux.never());
+
+        Disposable notFound = Flux.from(compositeRequestHandler.apply(request, response)).subscribe();
+
+        assertThat(connectionCounter.getCount(ConcurrencyLimiter.OTHER_ROUTES)).isEqualTo(1);
+        assertThat(connectionCounter.getCount("resource")).isZero();
+        notFound.dispose();
+    }
+
+    @Test
+    void shouldOnlyLimitConfiguredRouteGroupsSeparately() {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getConcurrencyLimit().setEnabled(true);
+        serverConfig.getConcurrencyLimit().setRouteGroups(Set.of("orders"));
+        ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(serverConfig);
+        compositeRequestHandler = new CompositeRequestHandler(requestHandlers, exceptionHandler, connectionCounter, requestLogger,
+            serverConfig, concurrencyLimiter);
+        requestHandlers.add((request, response) -> Mono.empty());
+
+        for (String path : List.of("orders/1", "customers/1", "", "suppliers")) {
+            when(request.path()).thenReturn(path);
+            Flux.from(compositeRequestHandler.apply(request, response)).count().block();
+        }
+
+        assertThat(concurrencyLimiter.getLimits()).containsOnlyKeys("orders", ConcurrencyLimiter.OTHER_ROUTES);
+    }
+
+    @Test
+    void shouldLimitRouteGroupsOverMaximumTogether() {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getConcurrencyLimit().setEnabled(true);
+        serverConfig.getConcurrencyLimit().setMaxRouteGroups(2);
+        ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(serverConfig);
+        compositeRequestHandler = new CompositeRequestHandler(requestHandlers, exceptionHandler, connectionCounter, requestLogger,
+            serverConfig, concurrencyLimiter);
+        requestHandlers.add((request, response) -> Mono.empty());
+
+        for (String path : List.of("orders/1", "customers/1", "suppliers/1", "orders/2")) {
+            when(request.path()).thenReturn(path);
+            Flux.from(compositeRequestHandler.apply(request, response)).count().block();
+        }
+
+        assertThat(concurrencyLimiter.getLimits()).containsOnlyKeys("orders", "customers", ConcurrencyLimiter.OTHER_ROUTES);
+    }
+
+    @Test
+    void shouldNotLimitConcurrencyByDefault() {
+        AtomicInteger callCounter = new AtomicInteger();
+        requestHandlers.add((request, response) -> Mono.<Void>never().doOnSubscribe(subscription -> callCounter.incrementAndGet()));
+
+        for (int i = 0; i < 100; i++) {
+            Flux.from(compositeRequestHandler.apply(request, response)).subscribe();
+        }
+
+        assertThat(callCounter).hasValue(100);
+    }
 }
@@ -0,0 +1,38 @@
+package se.fortnox.reactivewizard.server;
+
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.server.HttpServerRequest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void shouldNotAddMoreThanMaxRouteGroupsConcurrently() {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getConcurrencyLimit().setMaxRouteGroups(10);
+        ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(serverConfig);
+        List<HttpServerRequest> requests = IntStream.range(0, 1000)
+            .mapToObj(i -> request("group" + i + "/1"))
+            .toList();
+
+        Set<String> routeGroups = ConcurrentHashMap.newKeySet();
+        requests.parallelStream().forEach(request -> routeGroups.add(concurrencyLimiter.routeGroup(request)));
+
+        assertThat(routeGroups).hasSize(11).contains(ConcurrencyLimiter.OTHER_ROUTES);
+        assertThat(concurrencyLimiter.routeGroup(request("group1000/1"))).isEqualTo(ConcurrencyLimiter.OTHER_ROUTES);
+    }
+
+    private static HttpServerRequest request(String path) {
+        HttpServerRequest request = mock(HttpServerRequest.class);
+        when(request.path()).thenReturn(path);
+        return request;
+    }
+}
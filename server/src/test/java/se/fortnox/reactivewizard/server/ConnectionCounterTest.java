@@ -2,18 +2,16 @@ package se.fortnox.reactivewizard.server;
 
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
+import se.fortnox.reactivewizard.metrics.Metrics;
 
 import java.time.Duration;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 class ConnectionCounterTest {
 
@@ -55,13 +53,63 @@ class ConnectionCounterTest {
     }
 
     @Test
-    void shouldReturnFalseWhenExceptionOccuresDuringAwaitZero() throws InterruptedException {
-        Semaphore connectionsZero = mock(Semaphore.class);
-        when(connectionsZero.tryAcquire(anyLong(), any(TimeUnit.class))).thenThrow(new InterruptedException());
+    void shouldReturnFalseWhenInterruptedDuringAwaitZero() {
+        connectionCounter.increase();
+        Thread.currentThread().interrupt();
+        try {
+            assertFalse(connectionCounter.awaitZero(10, TimeUnit.SECONDS));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void shouldCountConnectionsByRouteGroup() {
+        connectionCounter.increase("orders");
+        connectionCounter.increase("orders");
+        connectionCounter.increase("customers");
+
+        assertThat(connectionCounter.getCount()).isEqualTo(3);
+        assertThat(connectionCounter.getCount("orders")).isEqualTo(2);
+        assertThat(Metrics.registry().getGauges().get("SERVER_connections:orders:inFlight").getValue()).isEqualTo(2L);
+
+        connectionCounter.decrease("orders");
+        connectionCounter.decrease("customers");
+
+        assertThat(connectionCounter.getCount()).isEqualTo(1);
+        assertThat(connectionCounter.getCount("orders")).isEqualTo(1);
+        assertThat(connectionCounter.getCount("customers")).isZero();
+    }
+
+    @Test
+    void shouldReachZeroAfterConcurrentConnections() {
+        CompletableFuture<?>[] threads = IntStream.range(0, 8)
+            .mapToObj(thread -> CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    connectionCounter.increase("route" + (i % 4));
+                    connectionCounter.decrease("route" + (i % 4));
+                }
+            }))
+            .toArray(CompletableFuture[]::new);
 
-        ConnectionCounter connectionCounter = new ConnectionCounter(new AtomicLong(), connectionsZero);
+        assertTrue(connectionCounter.awaitZero(10, TimeUnit.SECONDS));
+        CompletableFuture.allOf(threads).join();
+        assertThat(connectionCounter.getCount()).isZero();
+        assertThat(connectionCounter.getCount("route0")).isZero();
+    }
+
+    @Test
+    void shouldBeSignalledByDecreaseRacingWithAwaitZero() {
+        for (int i = 0; i < 200; i++) {
+            connectionCounter.increase();
+            CompletableFuture<Void> decrease = CompletableFuture.runAsync(connectionCounter::decrease);
 
-        assertFalse(connectionCounter.awaitZero(10, TimeUnit.SECONDS));
+            long start = System.nanoTime();
+            assertTrue(connectionCounter.awaitZero(10, TimeUnit.SECONDS));
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+            decrease.join();
+        }
     }
 
     private void delayed(Runnable function) {
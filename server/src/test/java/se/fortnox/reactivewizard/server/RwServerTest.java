@@ -8,6 +8,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -28,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -147,6 +149,18 @@ class RwServerTest {
         verify(disposableServer).disposeNow(any());
     }
 
+    @Test
+    void shouldDisposeConfigurersAfterServerWhenShutdownHookIsInvoked() {
+        DisposableServer disposableServer = mock(DisposableServer.class);
+        ReactorServerConfigurer configurer = mock(ReactorServerConfigurer.class);
+
+        RwServer.shutdownHook(new ServerConfig(), disposableServer, connectionCounter, loggingShutdownHandler, Set.of(configurer));
+
+        InOrder inOrder = inOrder(disposableServer, configurer);
+        inOrder.verify(disposableServer).disposeNow(any());
+        inOrder.verify(configurer).dispose();
+    }
+
     @Test
     void shouldLogErrorIfShutdownIsPerformedWhileConnectionCountIsNotZero() {
         when(connectionCounter.awaitZero(anyInt(), any(TimeUnit.class))).thenReturn(false);
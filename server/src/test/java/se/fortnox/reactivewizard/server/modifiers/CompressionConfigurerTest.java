@@ -0,0 +1,132 @@
+package se.fortnox.reactivewizard.server.modifiers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import se.fortnox.reactivewizard.ExceptionHandler;
+import se.fortnox.reactivewizard.RequestHandler;
+import se.fortnox.reactivewizard.jaxrs.RequestLogger;
+import se.fortnox.reactivewizard.jaxrs.response.ResponseCompressor;
+import se.fortnox.reactivewizard.logging.LoggingShutdownHandler;
+import se.fortnox.reactivewizard.server.CompositeRequestHandler;
+import se.fortnox.reactivewizard.server.ConnectionCounter;
+import se.fortnox.reactivewizard.server.RwServer;
+import se.fortnox.reactivewizard.server.ServerConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_ENCODING;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CompressionConfigurerTest {
+    private static final String BODY = words(20000);
+
+    private static final RequestHandler HANDLER = (request, response) -> {
+        byte[] body = BODY.getBytes(UTF_8);
+        return response
+            .header(CONTENT_TYPE, request.uri().equals("/pdf") ? "application/pdf" : "text/plain")
+            .header(CONTENT_LENGTH, String.valueOf(body.length))
+            .sendByteArray(Mono.just(body));
+    };
+
+    @Test
+    void shouldCompressWithConfiguredLevel() throws IOException {
+        byte[] fastest = get(1, "/text");
+        byte[] smallest = get(9, "/text");
+
+        assertThat(gunzip(fastest)).isEqualTo(BODY);
+        assertThat(gunzip(smallest)).isEqualTo(BODY);
+        assertThat(smallest.length).isLessThan(fastest.length);
+    }
+
+    @Test
+    void shouldPassThroughResponsesThatAreNotCompressibleOnTheSameConnection() throws IOException {
+        RwServer rwServer = server(6);
+        try {
+            HttpClient client = client(rwServer);
+            for (int i = 0; i < 3; i++) {
+                assertThat(new String(get(client, "/pdf", null), UTF_8)).isEqualTo(BODY);
+                assertThat(gunzip(get(client, "/text", "gzip"))).isEqualTo(BODY);
+            }
+        } finally {
+            rwServer.getServer().disposeNow();
+        }
+    }
+
+    @Test
+    void shouldCreateResponseCompressorWithTheCompressionSettingsOfTheServer() {
+        ServerConfig config = new ServerConfig();
+        config.setCompressibleMimeTypes(Set.of("application/pdf"));
+        config.setCompressionThresholdBytes(100);
+        ResponseCompressor compressor = CompressionConfigurer.createResponseCompressor(config);
+
+        assertThat(compressor.select("gzip", "application/pdf", 100).getName()).isEqualTo("gzip");
+        assertThat(compressor.select("gzip", "application/pdf", 99)).isNull();
+        assertThat(compressor.select("gzip", "application/json", 1000)).isNull();
+
+        config.setEnableGzip(false);
+        assertThat(CompressionConfigurer.createResponseCompressor(config).select("gzip", "application/pdf", 1000)).isNull();
+    }
+
+    private static byte[] get(int compressionLevel, String uri) {
+        RwServer rwServer = server(compressionLevel);
+        try {
+            return get(client(rwServer), uri, "gzip");
+        } finally {
+            rwServer.getServer().disposeNow();
+        }
+    }
+
+    private static byte[] get(HttpClient client, String uri, String expectedEncoding) {
+        return client.get()
+            .uri(uri)
+            .responseSingle((response, body) -> {
+                assertThat(response.responseHeaders().get(CONTENT_ENCODING)).isEqualTo(expectedEncoding);
+                return body.asByteArray();
+            })
+            .block();
+    }
+
+    private static HttpClient client(RwServer rwServer) {
+        return HttpClient.create()
+            .port(rwServer.getServer().port())
+            .headers(headers -> headers.add("Accept-Encoding", "gzip"));
+    }
+
+    private static RwServer server(int compressionLevel) {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setCompressionLevel(compressionLevel);
+        ConnectionCounter connectionCounter = new ConnectionCounter();
+        RequestLogger requestLogger = new RequestLogger();
+        CompositeRequestHandler handlers = new CompositeRequestHandler(Collections.singleton(HANDLER),
+            new ExceptionHandler(new ObjectMapper(), requestLogger), connectionCounter, requestLogger);
+        return new RwServer(config, handlers, connectionCounter, mock(LoggingShutdownHandler.class));
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(input.readAllBytes(), UTF_8);
+        }
+    }
+
+    private static String words(int count) {
+        Random random = new Random(0);
+        String[] words = {"invoice", "customer", "order", "article", "supplier", "voucher", "account", "payment"};
+        return Stream.generate(() -> words[random.nextInt(words.length)] + random.nextInt(100))
+            .limit(count)
+            .collect(Collectors.joining(" "));
+    }
+}
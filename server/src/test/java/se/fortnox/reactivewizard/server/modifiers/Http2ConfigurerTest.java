@@ -0,0 +1,134 @@
+package se.fortnox.reactivewizard.server.modifiers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+import reactor.netty.http.server.HttpServer;
+import se.fortnox.reactivewizard.ExceptionHandler;
+import se.fortnox.reactivewizard.RequestHandler;
+import se.fortnox.reactivewizard.jaxrs.RequestLogger;
+import se.fortnox.reactivewizard.logging.LoggingShutdownHandler;
+import se.fortnox.reactivewizard.server.CompositeRequestHandler;
+import se.fortnox.reactivewizard.server.ConnectionCounter;
+import se.fortnox.reactivewizard.server.RwServer;
+import se.fortnox.reactivewizard.server.ServerConfig;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+
+class Http2ConfigurerTest {
+    private static final String PROTOCOL = "X-Protocol";
+    private static final RequestHandler STREAMING_HANDLER = (request, response) -> {
+        if (request.uri().equals("/empty")) {
+            return response.status(HttpResponseStatus.NO_CONTENT).send();
+        }
+        // HTTP/2 streams are converted to HTTP/1.1 objects, so the version of the request is the same for both
+        request.withConnection(connection -> response.header(PROTOCOL, connection.channel() instanceof Http2StreamChannel ? "h2" : "http/1.1"));
+        return response.sendString(Flux.just("first,", "second,", "third").delayElements(Duration.ofMillis(10)));
+    };
+
+    @Test
+    void shouldServeHttp2WithPriorKnowledgeAndHttp11InCleartext() {
+        ServerConfig config = serverConfig();
+        RwServer rwServer = server(config);
+        try {
+            HttpClient h2c = HttpClient.create().protocol(HttpProtocol.H2C).port(rwServer.getServer().port());
+            HttpClient http11 = HttpClient.create().port(rwServer.getServer().port());
+
+            assertStreamed(h2c, HttpProtocol.H2C);
+            assertStreamed(http11, HttpProtocol.HTTP11);
+            assertNoContent(h2c);
+            assertNoContent(http11);
+        } finally {
+            rwServer.getServer().disposeNow();
+        }
+    }
+
+    @Test
+    void shouldNegotiateHttp2OrHttp11OverTls() throws Exception {
+        SelfSignedCertificate certificate = new SelfSignedCertificate();
+        ServerConfig config = serverConfig();
+        config.getHttp2().setCertificateChainFile(certificate.certificate().getPath());
+        config.getHttp2().setPrivateKeyFile(certificate.privateKey().getPath());
+        RwServer rwServer = server(config);
+        try {
+            HttpClient h2 = HttpClient.create()
+                .protocol(HttpProtocol.H2)
+                .secure(spec -> spec.sslContext(Http2SslContextSpec.forClient()
+                    .configure(builder -> builder.trustManager(InsecureTrustManagerFactory.INSTANCE))))
+                .port(rwServer.getServer().port());
+            HttpClient http11 = HttpClient.create()
+                .secure(spec -> spec.sslContext(Http11SslContextSpec.forClient()
+                    .configure(builder -> builder.trustManager(InsecureTrustManagerFactory.INSTANCE))))
+                .port(rwServer.getServer().port());
+
+            assertStreamed(h2, HttpProtocol.H2);
+            assertStreamed(http11, HttpProtocol.HTTP11);
+            assertNoContent(h2);
+            assertNoContent(http11);
+        } finally {
+            rwServer.getServer().disposeNow();
+            certificate.delete();
+        }
+    }
+
+    @Test
+    void shouldLeaveServerUnchangedWhenDisabled() {
+        HttpServer httpServer = HttpServer.create();
+
+        assertThat(new Http2Configurer(new ServerConfig()).configure(httpServer)).isSameAs(httpServer);
+    }
+
+    @Test
+    void shouldRequireBothCertificateAndKey() {
+        ServerConfig config = serverConfig();
+        config.getHttp2().setCertificateChainFile("server.crt");
+
+        assertThatExceptionOfType(IllegalStateException.class)
+            .isThrownBy(() -> new Http2Configurer(config).configure(HttpServer.create()));
+    }
+
+    private static void assertStreamed(HttpClient client, HttpProtocol expectedProtocol) {
+        List<String> result = client.get()
+            .uri("/stream")
+            .responseSingle((response, body) -> body.asString().map(content -> List.of(response.responseHeaders().get(PROTOCOL), content)))
+            .block();
+
+        assertThat(result).containsExactly(expectedProtocol == HttpProtocol.HTTP11 ? "http/1.1" : "h2", "first,second,third");
+    }
+
+    private static void assertNoContent(HttpClient client) {
+        HttpClientResponse response = client.get().uri("/empty").response().block();
+
+        assertThat(response.status()).isEqualTo(HttpResponseStatus.NO_CONTENT);
+        assertThat(response.responseHeaders().contains("Transfer-Encoding")).isFalse();
+    }
+
+    private static ServerConfig serverConfig() {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.getHttp2().setEnabled(true);
+        return config;
+    }
+
+    private static RwServer server(ServerConfig config) {
+        RequestLogger requestLogger = new RequestLogger();
+        CompositeRequestHandler handlers = new CompositeRequestHandler(Collections.singleton(STREAMING_HANDLER),
+            new ExceptionHandler(new ObjectMapper(), requestLogger), new ConnectionCounter(), requestLogger);
+        return new RwServer(config, handlers, new ConnectionCounter(), mock(LoggingShutdownHandler.class));
+    }
+}
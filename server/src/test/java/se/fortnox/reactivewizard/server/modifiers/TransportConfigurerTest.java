@@ -0,0 +1,111 @@
+package se.fortnox.reactivewizard.server.modifiers;
+
+import io.netty.channel.epoll.Epoll;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import se.fortnox.reactivewizard.server.ServerConfig;
+import se.fortnox.reactivewizard.server.TransportConfig;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TransportConfigurerTest {
+
+    @Test
+    void shouldRunOnNioEventLoopsOfConfiguredSize() {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getTransport().setType(TransportConfig.Type.NIO);
+        serverConfig.getTransport().setEventLoopThreads(2);
+
+        assertThat(handlingThread(serverConfig)).startsWith("rw-server-nio-");
+    }
+
+    @Test
+    void shouldRunOnEpollEventLoops() {
+        assumeTrue(Epoll.isAvailable());
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getTransport().setType(TransportConfig.Type.EPOLL);
+        serverConfig.getTransport().setEventLoopThreads(2);
+        serverConfig.getTransport().setTcpFastOpen(16);
+
+        assertThat(handlingThread(serverConfig)).startsWith("rw-server-epoll-");
+    }
+
+    @Test
+    void shouldBindSamePortTwiceWithReusePort() {
+        assumeTrue(Epoll.isAvailable());
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getTransport().setType(TransportConfig.Type.EPOLL);
+        serverConfig.getTransport().setReusePort(true);
+        TransportConfigurer configurer = new TransportConfigurer(serverConfig);
+
+        DisposableServer first = configurer.configure(HttpServer.create().port(0)).handle((request, response) -> response.send()).bindNow();
+        try {
+            DisposableServer second = configurer.configure(HttpServer.create().port(first.port()))
+                .handle((request, response) -> response.send())
+                .bindNow();
+            assertThat(second.port()).isEqualTo(first.port());
+            second.disposeNow();
+        } finally {
+            first.disposeNow();
+        }
+    }
+
+    @Test
+    void shouldFailWhenEpollIsRequiredButNotAvailable() {
+        assumeFalse(Epoll.isAvailable());
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getTransport().setType(TransportConfig.Type.EPOLL);
+        TransportConfigurer configurer = new TransportConfigurer(serverConfig);
+
+        assertThatExceptionOfType(IllegalStateException.class)
+            .isThrownBy(() -> configurer.configure(HttpServer.create()));
+    }
+
+    @Test
+    void shouldIgnoreEpollOptionsOnNio() {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getTransport().setType(TransportConfig.Type.NIO);
+        serverConfig.getTransport().setReusePort(true);
+        serverConfig.getTransport().setTcpFastOpen(16);
+
+        assertThat(handlingThread(serverConfig)).isNotEmpty();
+    }
+
+    @Test
+    void shouldDisposeCreatedEventLoops() {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getTransport().setType(TransportConfig.Type.NIO);
+        serverConfig.getTransport().setEventLoopThreads(2);
+
+        assertThat(handlingThread(serverConfig)).startsWith("rw-server-nio-");
+        assertThat(Thread.getAllStackTraces().keySet())
+            .filteredOn(thread -> thread.isAlive() && thread.getName().startsWith("rw-server-nio-"))
+            .isEmpty();
+    }
+
+    private static String handlingThread(ServerConfig serverConfig) {
+        TransportConfigurer configurer = new TransportConfigurer(serverConfig);
+        DisposableServer server = configurer.configure(HttpServer.create().port(0))
+            .handle((request, response) -> response.sendString(Mono.fromCallable(() -> Thread.currentThread().getName())))
+            .bindNow();
+        try {
+            return HttpClient.create()
+                .port(server.port())
+                .get()
+                .uri("/")
+                .responseContent()
+                .aggregate()
+                .asString()
+                .block();
+        } finally {
+            server.disposeNow();
+            configurer.dispose();
+        }
+    }
+}
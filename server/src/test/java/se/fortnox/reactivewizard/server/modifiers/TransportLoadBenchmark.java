@@ -0,0 +1,100 @@
+package se.fortnox.reactivewizard.server.modifiers;
+
+import io.netty.channel.epoll.Epoll;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import se.fortnox.reactivewizard.server.ServerConfig;
+import se.fortnox.reactivewizard.server.TransportConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test comparing the NIO and epoll transports of the server, by sending small requests from a number of concurrent
+ * keep-alive connections and reporting the throughput and latency percentiles. Run the main method with the test
+ * classpath, optionally with the number of requests and concurrent connections as arguments; it is not part of the test
+ * suite. The client shares the machine with the server, so compare the transports with each other rather than the
+ * numbers with a production load.
+ */
+public class TransportLoadBenchmark {
+    private static final int    WARMUP_REQUESTS = 50_000;
+    private static final byte[] BODY            = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final int requests;
+    private final int concurrency;
+
+    TransportLoadBenchmark(int requests, int concurrency) {
+        this.requests = requests;
+        this.concurrency = concurrency;
+    }
+
+    public static void main(String[] args) {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        TransportLoadBenchmark loadTest = new TransportLoadBenchmark(requests, concurrency);
+        List<TransportConfig.Type> types = Epoll.isAvailable()
+            ? List.of(TransportConfig.Type.NIO, TransportConfig.Type.EPOLL)
+            : List.of(TransportConfig.Type.NIO);
+        for (int round = 0; round < 3; round++) {
+            types.forEach(loadTest::measure);
+        }
+    }
+
+    private void measure(TransportConfig.Type type) {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getTransport().setType(type);
+        DisposableServer server = new TransportConfigurer(serverConfig)
+            .configure(HttpServer.create().port(0))
+            .handle((request, response) -> response
+                .header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(BODY.length))
+                .sendByteArray(Mono.just(BODY)))
+            .bindNow();
+        ConnectionProvider connections = ConnectionProvider.create("load-test", concurrency);
+        try {
+            HttpClient client = HttpClient.create(connections).port(server.port());
+            send(client, WARMUP_REQUESTS);
+
+            long start = System.nanoTime();
+            long[] latencies = send(client, requests);
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.printf("%-6s %8d req/s  p50 %6d us  p99 %6d us  p99.9 %6d us%n",
+                type,
+                requests * TimeUnit.SECONDS.toNanos(1) / elapsed,
+                percentile(latencies, 0.5),
+                percentile(latencies, 0.99),
+                percentile(latencies, 0.999));
+        } finally {
+            connections.disposeLater().block();
+            server.disposeNow();
+        }
+    }
+
+    private long[] send(HttpClient client, int count) {
+        long[] latencies = new long[count];
+        Flux.range(0, count)
+            .flatMap(i -> {
+                long start = System.nanoTime();
+                return client.get()
+                    .uri("/")
+                    .responseContent()
+                    .aggregate()
+                    .asByteArray()
+                    .doOnNext(body -> latencies[i] = System.nanoTime() - start);
+            }, concurrency)
+            .blockLast();
+        return latencies;
+    }
+
+    private static long percentile(long[] sortedLatencies, double percentile) {
+        return TimeUnit.NANOSECONDS.toMicros(sortedLatencies[(int)Math.min(sortedLatencies.length - 1, sortedLatencies.length * percentile)]);
+    }
+}
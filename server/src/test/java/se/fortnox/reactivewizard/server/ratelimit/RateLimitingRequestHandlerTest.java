@@ -0,0 +1,160 @@
+package se.fortnox.reactivewizard.server.ratelimit;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import se.fortnox.reactivewizard.ExceptionHandler;
+import se.fortnox.reactivewizard.jaxrs.WebException;
+import se.fortnox.reactivewizard.server.ServerConfig;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.TOO_MANY_REQUESTS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitingRequestHandlerTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Mock
+    private ExceptionHandler exceptionHandler;
+
+    @Mock
+    private HttpServerRequest request;
+
+    @Mock
+    private HttpServerResponse response;
+
+    private final HttpHeaders requestHeaders = new DefaultHttpHeaders();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @BeforeEach
+    public void beforeEach() {
+        lenient().when(request.requestHeaders()).thenReturn(requestHeaders);
+        lenient().when(request.method()).thenReturn(HttpMethod.POST);
+        lenient().when(request.fullPath()).thenReturn("/orders/1");
+        lenient().when(request.remoteAddress()).thenReturn(new InetSocketAddress("127.0.0.1", 1234));
+        lenient().when(exceptionHandler.handleException(any(), any(), any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void shouldPassOnRequestsWithinLimit() {
+        RateLimitingRequestHandler handler = handler(rule(RateLimitRule.Key.ROUTE, 1, 2));
+
+        assertThat(handler.apply(request, response)).isNull();
+        assertThat(handler.apply(request, response)).isNull();
+
+        verify(exceptionHandler, never()).handleException(any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectRequestsOverLimitWithRetryAfter() {
+        RateLimitingRequestHandler handler = handler(rule(RateLimitRule.Key.ROUTE, 0.5, 1));
+
+        assertThat(handler.apply(request, response)).isNull();
+        assertThat(handler.apply(request, response)).isNotNull();
+
+        ArgumentCaptor<Throwable> exception = ArgumentCaptor.forClass(Throwable.class);
+        verify(exceptionHandler).handleException(any(), any(), exception.capture());
+        assertThat(exception.getValue()).isInstanceOfSatisfying(WebException.class, webException -> {
+            assertThat(webException.getStatus()).isEqualTo(TOO_MANY_REQUESTS);
+            assertThat(webException.getError()).isEqualTo("too.many.requests");
+        });
+        verify(response).addHeader("Retry-After", "2");
+
+        clock.addAndGet(2 * SECOND);
+        assertThat(handler.apply(request, response)).isNull();
+    }
+
+    @Test
+    void shouldIgnoreRequestsNotMatchingRule() {
+        RateLimitRule rule = rule(RateLimitRule.Key.ROUTE, 1, 1);
+        rule.setMethods(Set.of("put"));
+        RateLimitingRequestHandler handler = handler(rule);
+
+        assertThat(handler.apply(request, response)).isNull();
+        assertThat(handler.apply(request, response)).isNull();
+
+        when(request.method()).thenReturn(HttpMethod.PUT);
+        when(request.fullPath()).thenReturn("/customers");
+        assertThat(handler.apply(request, response)).isNull();
+        assertThat(handler.apply(request, response)).isNull();
+
+        when(request.fullPath()).thenReturn("/orders");
+        assertThat(handler.apply(request, response)).isNull();
+        assertThat(handler.apply(request, response)).isNotNull();
+    }
+
+    @Test
+    void shouldCountRequestsByHeaderAndFallBackToRemoteAddress() {
+        RateLimitRule rule = rule(RateLimitRule.Key.HEADER, 1, 1);
+        rule.setHeader("X-Api-Key");
+        RateLimitingRequestHandler handler = handler(rule);
+
+        requestHeaders.set("X-Api-Key", "first");
+        assertThat(handler.apply(request, response)).isNull();
+        assertThat(handler.apply(request, response)).isNotNull();
+
+        requestHeaders.set("X-Api-Key", "second");
+        assertThat(handler.apply(request, response)).isNull();
+
+        requestHeaders.remove("X-Api-Key");
+        assertThat(handler.apply(request, response)).isNull();
+        assertThat(handler.apply(request, response)).isNotNull();
+    }
+
+    @Test
+    void shouldCountRequestsByRemoteAddress() {
+        RateLimitingRequestHandler handler = handler(rule(RateLimitRule.Key.REMOTE_ADDRESS, 1, 1));
+
+        assertThat(handler.apply(request, response)).isNull();
+        assertThat(handler.apply(request, response)).isNotNull();
+
+        when(request.remoteAddress()).thenReturn(new InetSocketAddress("127.0.0.2", 1234));
+        assertThat(handler.apply(request, response)).isNull();
+    }
+
+    @Test
+    void shouldRequireHeaderOfRulesKeyedByHeader() {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.getRateLimit().setRules(List.of(rule(RateLimitRule.Key.HEADER, 1, 1)));
+
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> new RateLimitingRequestHandler(serverConfig, exceptionHandler));
+    }
+
+    private RateLimitingRequestHandler handler(RateLimitRule rule) {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setRules(List.of(rule));
+        return new RateLimitingRequestHandler(config, exceptionHandler, clock::get);
+    }
+
+    private static RateLimitRule rule(RateLimitRule.Key key, double permitsPerSecond, int burst) {
+        RateLimitRule rule = new RateLimitRule();
+        rule.setName("test-" + key);
+        rule.setPathPrefix("/orders");
+        rule.setKey(key);
+        rule.setPermitsPerSecond(permitsPerSecond);
+        rule.setBurst(burst);
+        return rule;
+    }
+}
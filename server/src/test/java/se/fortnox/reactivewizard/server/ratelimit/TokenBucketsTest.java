@@ -0,0 +1,83 @@
+package se.fortnox.reactivewizard.server.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class TokenBucketsTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void shouldPermitBurstAndThenRate() {
+        TokenBuckets buckets = new TokenBuckets(2, 3, SECOND, 0);
+
+        assertThat(buckets.tryAcquire("a", 0)).isZero();
+        assertThat(buckets.tryAcquire("a", 0)).isZero();
+        assertThat(buckets.tryAcquire("a", 0)).isZero();
+        assertThat(buckets.tryAcquire("a", 0)).isEqualTo(SECOND / 2);
+
+        assertThat(buckets.tryAcquire("a", SECOND / 2)).isZero();
+        assertThat(buckets.tryAcquire("a", SECOND / 2)).isEqualTo(SECOND / 2);
+    }
+
+    @Test
+    void shouldKeepSeparateBucketsPerKey() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, SECOND, 0);
+
+        assertThat(buckets.tryAcquire("a", 0)).isZero();
+        assertThat(buckets.tryAcquire("a", 0)).isPositive();
+        assertThat(buckets.tryAcquire("b", 0)).isZero();
+    }
+
+    @Test
+    void shouldNotLetIdleTimeExceedBurst() {
+        TokenBuckets buckets = new TokenBuckets(1, 2, SECOND, 0);
+
+        assertThat(buckets.tryAcquire("a", 100 * SECOND)).isZero();
+        assertThat(buckets.tryAcquire("a", 100 * SECOND)).isZero();
+        assertThat(buckets.tryAcquire("a", 100 * SECOND)).isPositive();
+    }
+
+    @Test
+    void shouldExpireBucketsOnceFull() {
+        TokenBuckets buckets = new TokenBuckets(1, 5, SECOND, 0);
+
+        for (int i = 0; i < 5; i++) {
+            buckets.tryAcquire("busy", 0);
+        }
+        buckets.tryAcquire("idle", 0);
+        assertThat(buckets.size()).isEqualTo(2);
+
+        buckets.tryAcquire("other", 2 * SECOND);
+        assertThat(buckets.size()).isEqualTo(2);
+
+        buckets.tryAcquire("other", 10 * SECOND);
+        assertThat(buckets.size()).isEqualTo(1);
+
+        buckets.tryAcquire("other", 100 * SECOND);
+        assertThat(buckets.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldExpireBucketsScheduledFurtherAheadThanOneTurn() {
+        TokenBuckets buckets = new TokenBuckets(0.01, 1, SECOND, 0);
+
+        buckets.tryAcquire("slow", 0);
+
+        buckets.tryAcquire("other", 70 * SECOND);
+        assertThat(buckets.size()).isEqualTo(2);
+
+        buckets.tryAcquire("other", 150 * SECOND);
+        buckets.tryAcquire("other", 250 * SECOND);
+        assertThat(buckets.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectInvalidLimits() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> new TokenBuckets(0, 1, SECOND, 0));
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> new TokenBuckets(1, 0, SECOND, 0));
+    }
+}
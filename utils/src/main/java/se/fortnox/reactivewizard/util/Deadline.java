@@ -0,0 +1,191 @@
+package se.fortnox.reactivewizard.util;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A point in time when the result of a request is no longer of any use to the caller.
+ * <p>
+ * The deadline of an incoming request is kept in the Reactor {@link Context}, so that the calls made while handling the
+ * request can shorten their own timeouts to the remaining time, and is passed on to other services as the number of
+ * milliseconds remaining in the {@link #HEADER} header. A relative value is sent since the clocks of two servers may
+ * differ.
+ */
+public final class Deadline {
+    /**
+     * The request header holding the number of milliseconds remaining until the deadline.
+     */
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final Class<Deadline> CONTEXT_KEY = Deadline.class;
+    private static final String DEFAULT_TIMEOUT_KEY = Deadline.class.getName() + ".defaultTimeout";
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Create a deadline a duration from now.
+     * @param timeout the time until the deadline
+     * @return the deadline
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * Parse the value of a {@link #HEADER} header.
+     * @param header the number of milliseconds remaining, or null
+     * @return the deadline, or empty if the header is missing or invalid
+     */
+    public static Optional<Deadline> parse(String header) {
+        if (header == null) {
+            return Optional.empty();
+        }
+        try {
+            long remainingMs = Long.parseLong(header.trim());
+            if (remainingMs < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(after(Duration.ofMillis(remainingMs)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Get the deadline of a subscriber context.
+     * @param context the context
+     * @return the deadline, or empty if the context has none
+     */
+    public static Optional<Deadline> from(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    /**
+     * Add a deadline to a context. A deadline that the context already has is kept if it is earlier, since the time
+     * of a request can only be shortened by the calls it makes.
+     * @param context the context
+     * @param deadline the deadline to add
+     * @return the context with the earliest of the deadlines
+     */
+    public static Context put(Context context, Deadline deadline) {
+        return context.put(CONTEXT_KEY, from(context).map(deadline::earliest).orElse(deadline));
+    }
+
+    /**
+     * Add the default timeout of the requests of a server to a context. It is not a deadline by itself, but is used by
+     * request handlers that have no timeout of their own for a request.
+     * @param context the context
+     * @param timeout the default timeout
+     * @return the context with the default timeout
+     */
+    public static Context putDefaultTimeout(Context context, Duration timeout) {
+        return context.put(DEFAULT_TIMEOUT_KEY, timeout);
+    }
+
+    /**
+     * Get the default timeout of the requests of a server from a context.
+     * @param context the context
+     * @return the default timeout, or empty if the server has none
+     */
+    public static Optional<Duration> defaultTimeout(ContextView context) {
+        return context.getOrEmpty(DEFAULT_TIMEOUT_KEY);
+    }
+
+    /**
+     * Apply the deadline of the subscriber context, if any, to a Mono.
+     * @param source the Mono
+     * @param <T> the type of the value
+     * @return a Mono that fails with {@link DeadlineExceededException} if the deadline passes before it completes
+     */
+    public static <T> Mono<T> withDeadline(Mono<T> source) {
+        return Mono.deferContextual(context -> from(context).map(deadline -> deadline.timeout(source)).orElse(source));
+    }
+
+    /**
+     * Apply the deadline of the subscriber context, if any, to a Flux.
+     * @param source the Flux
+     * @param <T> the type of the values
+     * @return a Flux that fails with {@link DeadlineExceededException} if the deadline passes before it completes
+     */
+    public static <T> Flux<T> withDeadline(Flux<T> source) {
+        return Flux.deferContextual(context -> from(context).map(deadline -> deadline.timeout(source)).orElse(source));
+    }
+
+    /**
+     * Get the earliest of this and another deadline.
+     * @param other the other deadline
+     * @return the deadline that passes first
+     */
+    public Deadline earliest(Deadline other) {
+        return expiresAtNanos - other.expiresAtNanos <= 0 ? this : other;
+    }
+
+    /**
+     * Get the time remaining until the deadline.
+     * @return the remaining time, which is zero once the deadline has passed
+     */
+    public Duration remaining() {
+        long remainingNanos = expiresAtNanos - System.nanoTime();
+        return remainingNanos > 0 ? Duration.ofNanos(remainingNanos) : Duration.ZERO;
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Get the value of a {@link #HEADER} header for a request sent now.
+     * @return the number of milliseconds remaining
+     */
+    public String toHeader() {
+        return Long.toString(remaining().toMillis());
+    }
+
+    /**
+     * Cancel a Mono that has not completed when the deadline passes.
+     * @param source the Mono
+     * @param <T> the type of the value
+     * @return a Mono that fails with {@link DeadlineExceededException} if the deadline passes before it completes, without
+     *     subscribing to the source if it already has passed
+     */
+    public <T> Mono<T> timeout(Mono<T> source) {
+        return Mono.defer(() -> {
+            if (isExpired()) {
+                return Mono.error(new DeadlineExceededException());
+            }
+            return source.timeout(remaining(), Mono.error(DeadlineExceededException::new));
+        });
+    }
+
+    /**
+     * Cancel a Flux that has not completed when the deadline passes.
+     * @param source the Flux
+     * @param <T> the type of the values
+     * @return a Flux that fails with {@link DeadlineExceededException} if the deadline passes before it completes, without
+     *     subscribing to the source if it already has passed
+     */
+    public <T> Flux<T> timeout(Flux<T> source) {
+        return Flux.defer(() -> {
+            if (isExpired()) {
+                return Flux.error(new DeadlineExceededException());
+            }
+            // The timeout of each value is the time then remaining, which bounds the whole Flux rather than the gaps
+            return source.timeout(Mono.delay(remaining()), value -> Mono.delay(remaining()),
+                Flux.error(DeadlineExceededException::new));
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline in " + remaining().toMillis() + " ms";
+    }
+}
@@ -0,0 +1,12 @@
+package se.fortnox.reactivewizard.util;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Thrown when the {@link Deadline} of a request passes before the work done for it has completed.
+ */
+public class DeadlineExceededException extends TimeoutException {
+    public DeadlineExceededException() {
+        super("Deadline exceeded");
+    }
+}
@@ -74,4 +74,121 @@ public class LambdaCompiler {
         );
         return (Function<I,T>) callSite.getTarget().invoke();
     }
+
+    /**
+     * Compile an invoker calling a method on the given instance, with the arguments passed as an array. Methods with up
+     * to six parameters get a lambda implementing an interface of that arity, so that each call is a plain interface
+     * call. Other methods are called through a spreading method handle.
+     *
+     * @param lookup       lookup with access to the method
+     * @param methodHandle handle of a virtual method, taking the instance as its first parameter
+     * @param instance     the instance to invoke the method on
+     * @return the invoker
+     */
+    public static MethodInvoker compileMethodInvoker(MethodHandles.Lookup lookup, MethodHandle methodHandle, Object instance) throws Throwable {
+        return compileMethodInvokerFactory(lookup, methodHandle).apply(instance);
+    }
+
+    /**
+     * Compile a factory of invokers of a method, like {@link #compileMethodInvoker(MethodHandles.Lookup, MethodHandle, Object)}
+     * does, but for any instance. Each compiled lambda defines a hidden class, so a factory kept per method defines it
+     * once, however many times the invoker is created.
+     *
+     * @param lookup       lookup with access to the method
+     * @param methodHandle handle of a virtual method, taking the instance as its first parameter
+     * @return a function creating the invoker of an instance
+     */
+    public static Function<Object, MethodInvoker> compileMethodInvokerFactory(MethodHandles.Lookup lookup, MethodHandle methodHandle) throws Throwable {
+        MethodType methodType = methodHandle.type();
+        int        arity      = methodType.parameterCount() - 1;
+
+        if (!useLambdas || arity > 6 || methodType.returnType() == void.class) {
+            MethodHandle spreader = methodHandle
+                .asSpreader(Object[].class, arity)
+                .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+            return instance -> {
+                MethodHandle boundSpreader = spreader.bindTo(instance);
+                return args -> boundSpreader.invokeExact(args);
+            };
+        }
+
+        switch (arity) {
+            case 0: {
+                MethodHandle factory = compileArity(lookup, methodHandle, MethodInvoker.Arity0.class);
+                return instance -> {
+                    MethodInvoker.Arity0 invoker = bind(factory, instance, MethodInvoker.Arity0.class);
+                    return args -> invoker.invoke();
+                };
+            }
+            case 1: {
+                MethodHandle factory = compileArity(lookup, methodHandle, MethodInvoker.Arity1.class);
+                return instance -> {
+                    MethodInvoker.Arity1 invoker = bind(factory, instance, MethodInvoker.Arity1.class);
+                    return args -> invoker.invoke(args[0]);
+                };
+            }
+            case 2: {
+                MethodHandle factory = compileArity(lookup, methodHandle, MethodInvoker.Arity2.class);
+                return instance -> {
+                    MethodInvoker.Arity2 invoker = bind(factory, instance, MethodInvoker.Arity2.class);
+                    return args -> invoker.invoke(args[0], args[1]);
+                };
+            }
+            case 3: {
+                MethodHandle factory = compileArity(lookup, methodHandle, MethodInvoker.Arity3.class);
+                return instance -> {
+                    MethodInvoker.Arity3 invoker = bind(factory, instance, MethodInvoker.Arity3.class);
+                    return args -> invoker.invoke(args[0], args[1], args[2]);
+                };
+            }
+            case 4: {
+                MethodHandle factory = compileArity(lookup, methodHandle, MethodInvoker.Arity4.class);
+                return instance -> {
+                    MethodInvoker.Arity4 invoker = bind(factory, instance, MethodInvoker.Arity4.class);
+                    return args -> invoker.invoke(args[0], args[1], args[2], args[3]);
+                };
+            }
+            case 5: {
+                MethodHandle factory = compileArity(lookup, methodHandle, MethodInvoker.Arity5.class);
+                return instance -> {
+                    MethodInvoker.Arity5 invoker = bind(factory, instance, MethodInvoker.Arity5.class);
+                    return args -> invoker.invoke(args[0], args[1], args[2], args[3], args[4]);
+                };
+            }
+            default: {
+                MethodHandle factory = compileArity(lookup, methodHandle, MethodInvoker.Arity6.class);
+                return instance -> {
+                    MethodInvoker.Arity6 invoker = bind(factory, instance, MethodInvoker.Arity6.class);
+                    return args -> invoker.invoke(args[0], args[1], args[2], args[3], args[4], args[5]);
+                };
+            }
+        }
+    }
+
+    /**
+     * Define the lambda class of an invoker interface.
+     *
+     * @return a method handle creating the lambda from the instance to invoke the method on
+     */
+    private static MethodHandle compileArity(MethodHandles.Lookup lookup, MethodHandle methodHandle, Class<?> invokerType) throws Throwable {
+        MethodType methodType = methodHandle.type();
+        int        arity      = methodType.parameterCount() - 1;
+        CallSite callSite = LambdaMetafactory.metafactory(
+            lookup,
+            "invoke",
+            MethodType.methodType(invokerType, methodType.parameterType(0)),
+            MethodType.genericMethodType(arity),
+            methodHandle,
+            methodType.dropParameterTypes(0, 1).wrap()
+        );
+        return callSite.getTarget();
+    }
+
+    private static <F> F bind(MethodHandle factory, Object instance, Class<F> invokerType) {
+        try {
+            return invokerType.cast(factory.invoke(instance));
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
@@ -0,0 +1,51 @@
+package se.fortnox.reactivewizard.util;
+
+/**
+ * Invokes a method on an instance bound at creation, with the arguments given as an array.
+ *
+ * <p>Exceptions thrown by the method are thrown as they are, without being wrapped.</p>
+ */
+@FunctionalInterface
+public interface MethodInvoker {
+    Object invoke(Object[] args) throws Throwable;
+
+    /*
+     * Interfaces implemented by compiled lambdas, one per number of arguments. They need to be public, since the
+     * lambdas are defined next to the class declaring the invoked method.
+     */
+
+    @FunctionalInterface
+    interface Arity0 {
+        Object invoke() throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Arity1 {
+        Object invoke(Object arg0) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Arity2 {
+        Object invoke(Object arg0, Object arg1) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Arity3 {
+        Object invoke(Object arg0, Object arg1, Object arg2) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Arity4 {
+        Object invoke(Object arg0, Object arg1, Object arg2, Object arg3) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Arity5 {
+        Object invoke(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Arity6 {
+        Object invoke(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4, Object arg5) throws Throwable;
+    }
+}
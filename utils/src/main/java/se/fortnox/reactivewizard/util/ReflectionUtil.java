@@ -18,7 +18,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -29,6 +31,17 @@ import static java.util.Arrays.asList;
 public class ReflectionUtil {
     private static final String CGLIB_CLASS_SEPARATOR = "$$";
 
+    /**
+     * Invoker factories of the methods of each class. Being kept by the class, they do not keep a class from being
+     * unloaded.
+     */
+    private static final ClassValue<Map<Method, Function<Object, MethodInvoker>>> METHOD_INVOKER_FACTORIES = new ClassValue<>() {
+        @Override
+        protected Map<Method, Function<Object, MethodInvoker>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     /**
      * Get the type of Flux/Mono from method.
      * @param method the method
@@ -403,6 +416,33 @@ public class ReflectionUtil {
         }
     }
 
+    /**
+     * Get an invoker calling a method on an instance.
+     * @param method the method
+     * @param instance the instance to call the method on
+     * @return the invoker, throwing the exceptions thrown by the method unwrapped
+     */
+    public static MethodInvoker methodInvoker(Method method, Object instance) {
+        if (!LambdaCompiler.useLambdas) {
+            return compileMethodInvokerFactory(method).apply(instance);
+        }
+        // Resources are created again for each request while classes are reloaded, so the compiled lambdas are kept
+        // per method instead of being defined again every time
+        return METHOD_INVOKER_FACTORIES.get(method.getDeclaringClass())
+            .computeIfAbsent(method, ReflectionUtil::compileMethodInvokerFactory)
+            .apply(instance);
+    }
+
+    private static Function<Object, MethodInvoker> compileMethodInvokerFactory(Method method) {
+        try {
+            MethodHandles.Lookup lookup = lookupFor(method.getDeclaringClass(), method);
+            MethodHandle methodHandle = lookup.unreflect(method);
+            return LambdaCompiler.compileMethodInvokerFactory(lookup, methodHandle);
+        } catch (Throwable e) {
+            throw new RuntimeException("Could not create invoker for " + method, e);
+        }
+    }
+
     static <T> MethodHandles.Lookup lookupFor(Class<T> cls, AccessibleObject accessibleObject) {
         try {
             final MethodHandles.Lookup original = MethodHandles.lookup();
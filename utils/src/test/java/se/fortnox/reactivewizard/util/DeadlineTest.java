@@ -0,0 +1,84 @@
+package se.fortnox.reactivewizard.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineTest {
+
+    @Test
+    void shouldParseRemainingMillisecondsOfHeader() {
+        Deadline deadline = Deadline.parse("60000").orElseThrow();
+
+        assertThat(deadline.remaining()).isBetween(Duration.ofSeconds(50), Duration.ofSeconds(60));
+        assertThat(Long.parseLong(deadline.toHeader())).isBetween(50_000L, 60_000L);
+        assertThat(Deadline.parse(null)).isEmpty();
+        assertThat(Deadline.parse("soon")).isEmpty();
+        assertThat(Deadline.parse("-1")).isEmpty();
+    }
+
+    @Test
+    void shouldHaveNoRemainingTimeWhenExpired() {
+        Deadline deadline = Deadline.after(Duration.ofMillis(-10));
+
+        assertThat(deadline.isExpired()).isTrue();
+        assertThat(deadline.remaining()).isEqualTo(Duration.ZERO);
+        assertThat(deadline.toHeader()).isEqualTo("0");
+    }
+
+    @Test
+    void shouldKeepEarliestDeadlineOfContext() {
+        Deadline early = Deadline.after(Duration.ofSeconds(1));
+        Deadline late = Deadline.after(Duration.ofSeconds(10));
+
+        assertThat(Deadline.from(Deadline.put(Deadline.put(Context.empty(), early), late))).contains(early);
+        assertThat(Deadline.from(Deadline.put(Deadline.put(Context.empty(), late), early))).contains(early);
+        assertThat(Deadline.from(Context.empty())).isEmpty();
+    }
+
+    @Test
+    void shouldFailMonoThatDoesNotCompleteBeforeDeadline() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Mono<String> slow = Mono.<String>never().doOnCancel(() -> cancelled.set(true));
+
+        StepVerifier.create(Deadline.withDeadline(slow).contextWrite(context -> Deadline.put(context, Deadline.after(Duration.ofMillis(50)))))
+            .expectError(DeadlineExceededException.class)
+            .verify(Duration.ofSeconds(5));
+        assertThat(cancelled).isTrue();
+    }
+
+    @Test
+    void shouldNotSubscribeWhenDeadlineHasPassed() {
+        AtomicBoolean subscribed = new AtomicBoolean();
+        Mono<String> source = Mono.just("value").doOnSubscribe(subscription -> subscribed.set(true));
+
+        StepVerifier.create(Deadline.after(Duration.ZERO).timeout(source))
+            .expectError(DeadlineExceededException.class)
+            .verify(Duration.ofSeconds(5));
+        assertThat(subscribed).isFalse();
+    }
+
+    @Test
+    void shouldBoundWholeFluxRatherThanGapsBetweenValues() {
+        Flux<Long> steady = Flux.interval(Duration.ofMillis(20));
+
+        StepVerifier.create(Deadline.after(Duration.ofMillis(200)).timeout(steady))
+            .thenConsumeWhile(value -> true)
+            .expectError(DeadlineExceededException.class)
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldLeaveSourceUnchangedWithoutDeadlineInContext() {
+        StepVerifier.create(Deadline.withDeadline(Flux.just(1, 2)))
+            .expectNext(1, 2)
+            .verifyComplete();
+    }
+}
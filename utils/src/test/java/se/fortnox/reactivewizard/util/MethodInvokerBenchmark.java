@@ -0,0 +1,59 @@
+package se.fortnox.reactivewizard.util;
+
+import java.lang.reflect.Method;
+
+/**
+ * Microbenchmark of calling a resource-like method with three arguments, comparing Method.invoke with the invokers
+ * compiled by {@link LambdaCompiler}, both as lambdas and as spreading method handles. Run the main method with the
+ * test classpath; it is not part of the test suite.
+ */
+public class MethodInvokerBenchmark {
+    private static final int WARMUP_ITERATIONS   = 1_000_000;
+    private static final int MEASURED_ITERATIONS = 10_000_000;
+
+    private final Method        method;
+    private final Target        target = new Target();
+    private final Object[][]    arguments;
+    private final MethodInvoker lambdaInvoker;
+    private final MethodInvoker methodHandleInvoker;
+
+    MethodInvokerBenchmark() throws NoSuchMethodException {
+        method = Target.class.getMethod("find", String.class, Integer.class, Boolean.class);
+        arguments = new Object[16][];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = new Object[]{"id" + i, i, i % 2 == 0};
+        }
+        lambdaInvoker = ReflectionUtil.methodInvoker(method, target);
+        LambdaCompiler.useLambdas = false;
+        methodHandleInvoker = ReflectionUtil.methodInvoker(method, target);
+        LambdaCompiler.useLambdas = true;
+    }
+
+    public static void main(String[] args) throws Throwable {
+        MethodInvokerBenchmark benchmark = new MethodInvokerBenchmark();
+        for (int round = 0; round < 3; round++) {
+            benchmark.measure("Method.invoke", arguments -> benchmark.method.invoke(benchmark.target, arguments));
+            benchmark.measure("lambda", benchmark.lambdaInvoker);
+            benchmark.measure("method handle", benchmark.methodHandleInvoker);
+        }
+    }
+
+    private void measure(String name, MethodInvoker invoker) throws Throwable {
+        long sum = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sum += (int)invoker.invoke(arguments[i & 15]);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sum += (int)invoker.invoke(arguments[i & 15]);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-15s %6.1f ns/op (%d)%n", name, (double)elapsed / MEASURED_ITERATIONS, sum);
+    }
+
+    public static class Target {
+        public Integer find(String id, Integer page, Boolean active) {
+            return id.length() + page + (active ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package se.fortnox.reactivewizard.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class MethodInvokerTest {
+
+    @AfterEach
+    void tearDown() {
+        LambdaCompiler.useLambdas = true;
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void shouldInvokeMethodsOfAllArities(boolean useLambdas) throws Throwable {
+        LambdaCompiler.useLambdas = useLambdas;
+
+        assertThat(invoker("none").invoke(new Object[0])).isEqualTo("x");
+        assertThat(invoker("one", String.class).invoke(new Object[]{"a"})).isEqualTo("xa");
+        assertThat(invoker("two", String.class, String.class).invoke(new Object[]{"a", "b"})).isEqualTo("xab");
+        assertThat(invoker("six", String.class, String.class, String.class, String.class, String.class, String.class)
+            .invoke(new Object[]{"a", "b", "c", "d", "e", "f"})).isEqualTo("xabcdef");
+        assertThat(invoker("seven", String.class, String.class, String.class, String.class, String.class, String.class, String.class)
+            .invoke(new Object[]{"a", "b", "c", "d", "e", "f", "g"})).isEqualTo("xabcdefg");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void shouldUnboxPrimitiveArguments(boolean useLambdas) throws Throwable {
+        LambdaCompiler.useLambdas = useLambdas;
+
+        assertThat(invoker("primitives", int.class, long.class, boolean.class).invoke(new Object[]{1, 2L, true}))
+            .isEqualTo(4L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void shouldThrowExceptionsUnwrapped(boolean useLambdas) {
+        LambdaCompiler.useLambdas = useLambdas;
+
+        assertThatExceptionOfType(IOException.class)
+            .isThrownBy(() -> invoker("failing").invoke(new Object[0]))
+            .withMessage("failing");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void shouldInvokeThroughInterface(boolean useLambdas) throws Throwable {
+        LambdaCompiler.useLambdas = useLambdas;
+        Method method = Named.class.getMethod("name", String.class);
+
+        assertThat(ReflectionUtil.methodInvoker(method, new Target("x")).invoke(new Object[]{"y"})).isEqualTo("x:y");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void shouldInvokeVoidMethods(boolean useLambdas) throws Throwable {
+        LambdaCompiler.useLambdas = useLambdas;
+        Target target = new Target("x");
+        Method method = Target.class.getDeclaredMethod("update", String.class);
+
+        assertThat(ReflectionUtil.methodInvoker(method, target).invoke(new Object[]{"y"})).isNull();
+        assertThat(target.prefix).isEqualTo("y");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void shouldBindInvokersOfSameMethodToTheirInstances(boolean useLambdas) throws Throwable {
+        LambdaCompiler.useLambdas = useLambdas;
+        Method method = Target.class.getDeclaredMethod("one", String.class);
+
+        MethodInvoker first = ReflectionUtil.methodInvoker(method, new Target("x"));
+        MethodInvoker second = ReflectionUtil.methodInvoker(method, new Target("y"));
+
+        assertThat(first.invoke(new Object[]{"a"})).isEqualTo("xa");
+        assertThat(second.invoke(new Object[]{"a"})).isEqualTo("ya");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void shouldCreateInvokersOfAnyInstanceFromCompiledFactory(boolean useLambdas) throws Throwable {
+        LambdaCompiler.useLambdas = useLambdas;
+        Method method = Target.class.getDeclaredMethod("two", String.class, String.class);
+        MethodHandles.Lookup lookup = ReflectionUtil.lookupFor(Target.class, method);
+
+        Function<Object, MethodInvoker> factory = LambdaCompiler.compileMethodInvokerFactory(lookup, lookup.unreflect(method));
+
+        assertThat(factory.apply(new Target("x")).invoke(new Object[]{"a", "b"})).isEqualTo("xab");
+        assertThat(factory.apply(new Target("y")).invoke(new Object[]{"a", "b"})).isEqualTo("yab");
+    }
+
+    private static MethodInvoker invoker(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method method = Target.class.getDeclaredMethod(name, parameterTypes);
+        return ReflectionUtil.methodInvoker(method, new Target("x"));
+    }
+
+    interface Named {
+        String name(String suffix);
+    }
+
+    private static class Target implements Named {
+        private String prefix;
+
+        Target(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public String name(String suffix) {
+            return prefix + ":" + suffix;
+        }
+
+        private String none() {
+            return prefix;
+        }
+
+        private String one(String arg0) {
+            return prefix + arg0;
+        }
+
+        private String two(String arg0, String arg1) {
+            return prefix + arg0 + arg1;
+        }
+
+        private String six(String arg0, String arg1, String arg2, String arg3, String arg4, String arg5) {
+            return concat(arg0, arg1, arg2, arg3, arg4, arg5);
+        }
+
+        private String seven(String arg0, String arg1, String arg2, String arg3, String arg4, String arg5, String arg6) {
+            return concat(arg0, arg1, arg2, arg3, arg4, arg5, arg6);
+        }
+
+        private long primitives(int arg0, long arg1, boolean arg2) {
+            return arg0 + arg1 + (arg2 ? 1 : 0);
+        }
+
+        private String failing() throws IOException {
+            throw new IOException("failing");
+        }
+
+        private void update(String prefix) {
+            this.prefix = prefix;
+        }
+
+        private String concat(String... args) {
+            return prefix + Stream.of(args).collect(Collectors.joining());
+        }
+    }
+}